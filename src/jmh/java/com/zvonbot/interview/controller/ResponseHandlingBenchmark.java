@@ -0,0 +1,67 @@
+package com.zvonbot.interview.controller;
+
+import com.zvonbot.interview.dto.ApiResponse;
+import com.zvonbot.interview.dto.zvonobot.ZvonobotProfile;
+import com.zvonbot.interview.dto.zvonobot.ZvonobotResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Преобразование ответа Звонобота в ответ клиенту для каждой ветки
+ * {@link MessageController#handleZvonobotResponse}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResponseHandlingBenchmark {
+
+    private ZvonobotResponse created;
+    private ZvonobotResponse userInfo;
+    private ZvonobotResponse error;
+
+    @Setup
+    public void setUp() {
+        created = response("ok", null, List.of(Map.of("id", 123, "phone", "77079621630", "status", "created")));
+        userInfo = response("ok", null, new ZvonobotProfile("user@example.com", new BigDecimal("1500.5")));
+        error = response("error", "Недостаточно средств на балансе", null);
+    }
+
+    @Benchmark
+    public ApiResponse created() {
+        return MessageController.handleZvonobotResponse(created);
+    }
+
+    @Benchmark
+    public ApiResponse userInfo() {
+        return MessageController.handleZvonobotResponse(userInfo);
+    }
+
+    @Benchmark
+    public ApiResponse error() {
+        return MessageController.handleZvonobotResponse(error);
+    }
+
+    private static ZvonobotResponse response(String result, String errorMessage, Object data) {
+        ZvonobotResponse response = new ZvonobotResponse();
+        response.setResult(result);
+        response.setError(errorMessage);
+        response.setData(data);
+        return response;
+    }
+}
@@ -0,0 +1,93 @@
+package com.zvonbot.interview.dto.zvonobot;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zvonbot.interview.service.ListResponseDecoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Разбор ответа API Звонобота с массивом {@code data} разного размера:
+ * один элемент - ответ на создание звонка, тысячи - список звонков или аудиофайлов.
+ * Список аудиофайлов разбирается целиком в дерево и потоком в типизированные элементы.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ZvonobotResponseBenchmark {
+
+    @Param({"1", "100", "5000"})
+    private int items;
+
+    private static final int CHUNK = 8192;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private byte[] json;
+    private byte[] recordsJson;
+
+    @Setup
+    public void setUp() {
+        StringBuilder builder = new StringBuilder("{\"result\":\"ok\",\"data\":[");
+        for (int i = 0; i < items; i++) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            builder.append("{\"id\":").append(1_000_000 + i)
+                    .append(",\"phone\":\"7707").append(String.format("%07d", i)).append('"')
+                    .append(",\"status\":\"created\",\"duration\":0,\"createdAt\":\"2024-01-01 12:00:00\"}");
+        }
+        json = builder.append("]}").toString().getBytes(StandardCharsets.UTF_8);
+
+        StringBuilder records = new StringBuilder("{\"result\":\"ok\",\"data\":[");
+        for (int i = 0; i < items; i++) {
+            if (i > 0) {
+                records.append(',');
+            }
+            records.append("{\"id\":").append(1_000 + i)
+                    .append(",\"name\":\"record-").append(i).append(".mp3\"")
+                    .append(",\"text\":\"Ваш код подтверждения ").append(1000 + i).append("\"}");
+        }
+        recordsJson = records.append("]}").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public ZvonobotResponse deserialize() throws IOException {
+        return objectMapper.readValue(json, ZvonobotResponse.class);
+    }
+
+    @Benchmark
+    public ZvonobotResponse deserializeRecords() throws IOException {
+        return objectMapper.readValue(recordsJson, ZvonobotResponse.class);
+    }
+
+    /**
+     * Тело приходит буферами по 8 КБ, как из сети
+     */
+    @Benchmark
+    public long streamRecords() {
+        return ListResponseDecoder.decode(Flux.range(0, (recordsJson.length + CHUNK - 1) / CHUNK)
+                        .map(chunk -> DefaultDataBufferFactory.sharedInstance.wrap(ByteBuffer.wrap(recordsJson,
+                                chunk * CHUNK, Math.min(CHUNK, recordsJson.length - chunk * CHUNK)))),
+                        objectMapper, ZvonobotRecord.class)
+                .count()
+                .block();
+    }
+}
@@ -0,0 +1,84 @@
+package com.zvonbot.interview.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zvonbot.interview.dto.zvonobot.ZvonobotCallRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Тело запроса /apiCalls/create: объект {@link ZvonobotCallRequest} с сериализацией Jackson
+ * против прямой записи в буфер через {@link CallRequestEncoder}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CallRequestBenchmark {
+
+    private static final String API_KEY = "6f1c1d1e-2a3b-4c5d-8e9f-0a1b2c3d4e5f";
+    private static final String PHONE = "77079621630";
+    private static final String OUTGOING_PHONE = "77719470943";
+    private static final String TEXT = "Здравствуйте! Напоминаем о записи к врачу завтра в 10:00. Для подтверждения нажмите 1.";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final CallRequestEncoder encoder = new CallRequestEncoder(API_KEY);
+    private final DefaultDataBufferFactory bufferFactory = DefaultDataBufferFactory.sharedInstance;
+
+    @Benchmark
+    public byte[] voiceJackson() throws JsonProcessingException {
+        ZvonobotCallRequest request = request();
+        request.setRecord(new ZvonobotCallRequest.Record(TEXT));
+        return objectMapper.writeValueAsBytes(request);
+    }
+
+    @Benchmark
+    public byte[] smsJackson() throws JsonProcessingException {
+        ZvonobotCallRequest request = request();
+        request.setRecord(new ZvonobotCallRequest.Record("."));
+        ZvonobotCallRequest.Ivr ivr = new ZvonobotCallRequest.Ivr();
+        ivr.setDigit(1);
+        ivr.setSmsText(TEXT);
+        ivr.setNeedBlock(0);
+        request.setIvrs(new ZvonobotCallRequest.Ivr[]{ivr});
+        return objectMapper.writeValueAsBytes(request);
+    }
+
+    @Benchmark
+    public int voiceEncoder() {
+        return release(encoder.encodeVoice(bufferFactory, PHONE, OUTGOING_PHONE, TEXT, null));
+    }
+
+    @Benchmark
+    public int smsEncoder() {
+        return release(encoder.encodeSms(bufferFactory, PHONE, OUTGOING_PHONE, TEXT));
+    }
+
+    private static ZvonobotCallRequest request() {
+        ZvonobotCallRequest request = new ZvonobotCallRequest();
+        request.setApiKey(API_KEY);
+        request.setPhone(PHONE);
+        request.setOutgoingPhone(OUTGOING_PHONE);
+        return request;
+    }
+
+    private static int release(DataBuffer buffer) {
+        int size = buffer.readableByteCount();
+        DataBufferUtils.release(buffer);
+        return size;
+    }
+}
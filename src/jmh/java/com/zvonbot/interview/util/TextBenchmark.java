@@ -0,0 +1,53 @@
+package com.zvonbot.interview.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Декодирование текста ошибок и нормализация номеров телефонов
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TextBenchmark {
+
+    // "Недостаточно средств на балансе" в том виде, в котором его возвращает API
+    private static final String ESCAPED_ERROR = "{\"result\":\"error\",\"error\":\"\\u041d\\u0435\\u0434\\u043e\\u0441\\u0442"
+            + "\\u0430\\u0442\\u043e\\u0447\\u043d\\u043e \\u0441\\u0440\\u0435\\u0434\\u0441\\u0442\\u0432 \\u043d\\u0430 "
+            + "\\u0431\\u0430\\u043b\\u0430\\u043d\\u0441\\u0435\"}";
+    private static final String PLAIN_ERROR = "{\"result\":\"error\",\"error\":\"Invalid phone number\"}";
+    private static final String FORMATTED_PHONE = "+7 (707) 962-16-30";
+    private static final String CLEAN_PHONE = "77079621630";
+
+    @Benchmark
+    public String decodeEscaped() {
+        return UnicodeEscapes.decode(ESCAPED_ERROR);
+    }
+
+    @Benchmark
+    public String decodePlain() {
+        return UnicodeEscapes.decode(PLAIN_ERROR);
+    }
+
+    @Benchmark
+    public String phoneFormatted() {
+        return PhoneNumbers.digitsOnly(FORMATTED_PHONE);
+    }
+
+    @Benchmark
+    public String phoneClean() {
+        return PhoneNumbers.digitsOnly(CLEAN_PHONE);
+    }
+}
@@ -0,0 +1,17 @@
+package com.zvonbot.interview.cache;
+
+import java.time.Duration;
+
+/**
+ * Параметры кэширования для {@link RefreshingCache}.
+ *
+ * @param ttl время жизни значения
+ * @param refreshAhead за сколько до истечения ttl начинать фоновое обновление
+ * @param staleWhileRevalidate сколько после истечения ttl отдавать устаревшее значение, обновляя его в фоне
+ * @param negativeMin время кэширования первой ошибки загрузки
+ * @param negativeMax предельное время кэширования ошибки; при повторных ошибках интервал удваивается
+ * @param maxSize максимальное число ключей, при превышении вытесняется давно не использованный
+ */
+public record CachePolicy(Duration ttl, Duration refreshAhead, Duration staleWhileRevalidate,
+                          Duration negativeMin, Duration negativeMax, int maxSize) {
+}
@@ -0,0 +1,193 @@
+package com.zvonbot.interview.cache;
+
+import reactor.core.publisher.Mono;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Асинхронный кэш с объединением одновременных загрузок, фоновым обновлением
+ * и кэшированием ошибок.
+ *
+ * <ul>
+ *     <li>одновременные промахи по одному ключу ждут одну общую загрузку;</li>
+ *     <li>значение, к которому обращаются в последние {@code refreshAhead} перед истечением,
+ *     возвращается сразу, а в фоне запускается его обновление;</li>
+ *     <li>в течение {@code staleWhileRevalidate} после истечения отдаётся устаревшее значение,
+ *     пока в фоне загружается новое;</li>
+ *     <li>ошибка загрузки, как и значение, не прошедшее проверку {@code valid}, запоминается на
+ *     {@code negativeMin}, при повторных ошибках интервал удваивается до {@code negativeMax}.
+ *     Пока ошибка в кэше, загрузчик не вызывается;</li>
+ *     <li>при превышении {@code maxSize} вытесняется ключ, к которому дольше всего не обращались.</li>
+ * </ul>
+ */
+public class RefreshingCache<K, V> {
+
+    private final Function<K, Mono<V>> loader;
+    private final Predicate<V> valid;
+    private final CachePolicy policy;
+    private final Map<K, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final Map<K, Mono<V>> loads = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder staleHits = new LongAdder();
+    private final LongAdder negativeHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder loadFailures = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public RefreshingCache(Function<K, Mono<V>> loader, CachePolicy policy) {
+        this(loader, value -> true, policy);
+    }
+
+    public RefreshingCache(Function<K, Mono<V>> loader, Predicate<V> valid, CachePolicy policy) {
+        this.loader = loader;
+        this.valid = valid;
+        this.policy = policy;
+    }
+
+    public Mono<V> get(K key) {
+        return Mono.defer(() -> {
+            long now = System.nanoTime();
+            Entry<V> entry = entries.get(key);
+            if (entry != null) {
+                entry.lastAccess = now;
+                if (entry.value != null && now < entry.expiresAt) {
+                    if (now >= entry.refreshAt && now >= entry.retryAt) {
+                        refresh(key);
+                    }
+                    hits.increment();
+                    return Mono.just(entry.value);
+                }
+                if (entry.value != null && now < entry.staleUntil) {
+                    if (now >= entry.retryAt) {
+                        refresh(key);
+                    }
+                    staleHits.increment();
+                    return Mono.just(entry.value);
+                }
+                if (entry.error != null && now < entry.retryAt) {
+                    negativeHits.increment();
+                    return Mono.error(entry.error);
+                }
+            }
+            misses.increment();
+            return load(key);
+        });
+    }
+
+    /**
+     * Удаляет значение, следующее обращение загрузит его заново
+     */
+    public void invalidate(K key) {
+        entries.remove(key);
+    }
+
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("size", (long) entries.size());
+        stats.put("hits", hits.sum());
+        stats.put("staleHits", staleHits.sum());
+        stats.put("negativeHits", negativeHits.sum());
+        stats.put("misses", misses.sum());
+        stats.put("loadFailures", loadFailures.sum());
+        stats.put("evictions", evictions.sum());
+        return stats;
+    }
+
+    private void refresh(K key) {
+        load(key).subscribe(value -> {}, error -> {});
+    }
+
+    private Mono<V> load(K key) {
+        return loads.computeIfAbsent(key, k -> loader.apply(k)
+                .doOnNext(value -> onLoaded(k, value))
+                .doOnError(error -> onFailed(k, null, error))
+                .doFinally(signal -> loads.remove(k))
+                .cache());
+    }
+
+    private void onLoaded(K key, V value) {
+        if (!valid.test(value)) {
+            onFailed(key, value, null);
+            return;
+        }
+        long now = System.nanoTime();
+        long expiresAt = now + policy.ttl().toNanos();
+        put(key, new Entry<>(value, null, false, expiresAt, expiresAt - policy.refreshAhead().toNanos(),
+                expiresAt + policy.staleWhileRevalidate().toNanos(), now, 0, now));
+    }
+
+    private void onFailed(K key, V negativeValue, Throwable error) {
+        loadFailures.increment();
+        long now = System.nanoTime();
+        Entry<V> previous = entries.get(key);
+        int failures = previous != null ? previous.failures + 1 : 1;
+        long backoff = Math.min(policy.negativeMax().toNanos(), policy.negativeMin().toNanos() << Math.min(failures - 1, 30));
+        if (backoff < 0) {
+            backoff = policy.negativeMax().toNanos();
+        }
+        long retryAt = now + backoff;
+
+        if (previous != null && !previous.negative && now < previous.staleUntil) {
+            // Фоновое обновление не удалось - продолжаем отдавать прежнее значение, пока оно допустимо
+            put(key, new Entry<>(previous.value, null, false, previous.expiresAt, previous.refreshAt,
+                    previous.staleUntil, retryAt, failures, previous.lastAccess));
+        } else {
+            put(key, new Entry<>(negativeValue, error, true, retryAt, retryAt, retryAt, retryAt, failures, now));
+        }
+    }
+
+    private void put(K key, Entry<V> entry) {
+        entries.put(key, entry);
+        if (entries.size() > policy.maxSize()) {
+            evictLeastRecentlyUsed(key);
+        }
+    }
+
+    private void evictLeastRecentlyUsed(K keep) {
+        K eldest = null;
+        long eldestAccess = 0;
+        for (Map.Entry<K, Entry<V>> candidate : entries.entrySet()) {
+            if (candidate.getKey().equals(keep)) {
+                continue;
+            }
+            if (eldest == null || candidate.getValue().lastAccess - eldestAccess < 0) {
+                eldest = candidate.getKey();
+                eldestAccess = candidate.getValue().lastAccess;
+            }
+        }
+        if (eldest != null && entries.remove(eldest) != null) {
+            evictions.increment();
+        }
+    }
+
+    private static final class Entry<V> {
+        final V value;
+        final Throwable error;
+        final boolean negative;
+        final long expiresAt;
+        final long refreshAt;
+        final long staleUntil;
+        final long retryAt;
+        final int failures;
+        volatile long lastAccess;
+
+        Entry(V value, Throwable error, boolean negative, long expiresAt, long refreshAt, long staleUntil,
+              long retryAt, int failures, long lastAccess) {
+            this.value = value;
+            this.error = error;
+            this.negative = negative;
+            this.expiresAt = expiresAt;
+            this.refreshAt = refreshAt;
+            this.staleUntil = staleUntil;
+            this.retryAt = retryAt;
+            this.failures = failures;
+            this.lastAccess = lastAccess;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.zvonbot.interview.campaign;
+
+import com.zvonbot.interview.dto.MessageType;
+import com.zvonbot.interview.queue.JournalDrainer;
+import com.zvonbot.interview.queue.SendJournal;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Кампания рассылки в работе: собственный журнал сообщений, поток отправки и счётчики
+ */
+class Campaign {
+
+    final String id;
+    final MessageType type;
+    final Path directory;
+    final String createdAt;
+    final AtomicLong rows = new AtomicLong();
+    final AtomicLong accepted = new AtomicLong();
+    final AtomicLong invalid = new AtomicLong();
+    final AtomicLong duplicates = new AtomicLong();
+    final AtomicLong sent = new AtomicLong();
+    final AtomicLong failed = new AtomicLong();
+    final AtomicBoolean finished = new AtomicBoolean();
+    private final List<String> errors = new ArrayList<>();
+    private final int maxErrors;
+    /**
+     * Исходы записей после последней контрольной точки: позиция в журнале и признак успеха
+     */
+    private final ConcurrentSkipListMap<Long, Boolean> outcomes = new ConcurrentSkipListMap<>();
+    private long checkpoint;
+    private long checkpointSent;
+    private long checkpointFailed;
+
+    volatile CampaignStatus status;
+    volatile String completedAt;
+    SendJournal journal;
+    JournalDrainer drainer;
+
+    Campaign(String id, MessageType type, Path directory, String createdAt, CampaignStatus status, int maxErrors) {
+        this.id = id;
+        this.type = type;
+        this.directory = directory;
+        this.createdAt = createdAt;
+        this.status = status;
+        this.maxErrors = maxErrors;
+    }
+
+    /**
+     * Восстанавливает кампанию из сохранённого состояния
+     */
+    static Campaign restore(CampaignState state, Path directory, int maxErrors) {
+        Campaign campaign = new Campaign(state.getId(), state.getType(), directory, state.getCreatedAt(), state.getStatus(), maxErrors);
+        campaign.rows.set(state.getRows());
+        campaign.accepted.set(state.getAccepted());
+        campaign.invalid.set(state.getInvalid());
+        campaign.duplicates.set(state.getDuplicates());
+        campaign.sent.set(state.getSent());
+        campaign.failed.set(state.getFailed());
+        campaign.checkpoint = state.getCheckpoint();
+        campaign.checkpointSent = state.getSent();
+        campaign.checkpointFailed = state.getFailed();
+        campaign.completedAt = state.getCompletedAt();
+        campaign.errors.addAll(state.getErrors());
+        return campaign;
+    }
+
+    /**
+     * Учитывает обработанную запись журнала
+     */
+    void record(long position, boolean success) {
+        outcomes.put(position, success);
+        (success ? sent : failed).incrementAndGet();
+    }
+
+    /**
+     * Переносит в сохраняемые счётчики исходы записей до контрольной точки. Записи после неё
+     * после перезапуска будут отправлены повторно и учтены заново.
+     */
+    synchronized void checkpoint(long position) {
+        Map<Long, Boolean> done = outcomes.headMap(position);
+        for (boolean success : done.values()) {
+            if (success) {
+                checkpointSent++;
+            } else {
+                checkpointFailed++;
+            }
+        }
+        done.clear();
+        checkpoint = position;
+    }
+
+    long getCheckpoint() {
+        return checkpoint;
+    }
+
+    void addError(long line, String message) {
+        synchronized (errors) {
+            if (errors.size() < maxErrors) {
+                errors.add("строка " + line + ": " + message);
+            }
+        }
+    }
+
+    /**
+     * @return состояние для сохранения: отправленные и неудачные только до контрольной точки
+     */
+    synchronized CampaignState checkpointState() {
+        CampaignState state = snapshot();
+        state.setSent(checkpointSent);
+        state.setFailed(checkpointFailed);
+        state.setCheckpoint(checkpoint);
+        return state;
+    }
+
+    CampaignState snapshot() {
+        CampaignState state = new CampaignState();
+        state.setId(id);
+        state.setType(type);
+        state.setStatus(status);
+        state.setCreatedAt(createdAt);
+        state.setCompletedAt(completedAt);
+        state.setRows(rows.get());
+        state.setAccepted(accepted.get());
+        state.setInvalid(invalid.get());
+        state.setDuplicates(duplicates.get());
+        state.setSent(sent.get());
+        state.setFailed(failed.get());
+        synchronized (errors) {
+            state.setErrors(new ArrayList<>(errors));
+        }
+        return state;
+    }
+}
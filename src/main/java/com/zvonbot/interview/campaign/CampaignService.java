@@ -0,0 +1,448 @@
+package com.zvonbot.interview.campaign;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zvonbot.interview.dto.MessagePriority;
+import com.zvonbot.interview.dto.MessageRequest;
+import com.zvonbot.interview.dto.MessageType;
+import com.zvonbot.interview.dto.zvonobot.ZvonobotResponse;
+import com.zvonbot.interview.queue.JournalDrainer;
+import com.zvonbot.interview.queue.SendJournal;
+import com.zvonbot.interview.service.ZvonobotService;
+import com.zvonbot.interview.template.MessageTemplate;
+import com.zvonbot.interview.template.TemplateRegistry;
+import com.zvonbot.interview.util.LongHashSet;
+import com.zvonbot.interview.util.PhoneNumbers;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Кампании рассылки из CSV-файлов.
+ *
+ * <p>Файл разбирается потоком по мере загрузки. Номера нормализуются и проверяются по тем же
+ * правилам, что и в {@link MessageRequest}, повторы номера внутри файла отбрасываются. Принятые
+ * строки записываются в собственный журнал кампании и сразу отправляются через
+ * {@link ZvonobotService}, не дожидаясь конца загрузки. Прогресс сохраняется вместе с контрольной
+ * точкой журнала, поэтому после перезапуска отправка продолжается с того же места. Завершённые
+ * кампании хранятся {@code retention}, затем удаляются из памяти и с диска.
+ *
+ * <p>Колонки: {@code phone, text, recordId, outgoingPhone}. Если первая строка содержит
+ * {@code phone}, она считается заголовком и колонки сопоставляются по именам.
+ *
+ * <p>Кампания с шаблоном собирает текст каждой строки из колонок с именами переменных шаблона.
+ * Текст подставляется при загрузке, поэтому в журнал попадают готовые сообщения.
+ */
+@Service
+public class CampaignService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CampaignService.class);
+
+    private static final String STATE_FILE = "state.json";
+    private static final String JOURNAL_DIRECTORY = "journal";
+    private static final List<String> DEFAULT_COLUMNS = List.of("phone", "text", "recordId", "outgoingPhone");
+    private static final Duration EVICTION_INTERVAL = Duration.ofMinutes(1);
+
+    @Value("${zvonobot.campaign.directory:data/campaigns}")
+    private Path directory;
+
+    @Value("${zvonobot.campaign.segment-size:64MB}")
+    private DataSize segmentSize;
+
+    @Value("${zvonobot.campaign.fsync:false}")
+    private boolean fsync;
+
+    @Value("${zvonobot.campaign.workers:16}")
+    private int workers;
+
+    @Value("${zvonobot.campaign.checkpoint-interval:1s}")
+    private Duration checkpointInterval;
+
+    @Value("${zvonobot.campaign.max-errors:100}")
+    private int maxErrors;
+
+    @Value("${zvonobot.campaign.retention:7d}")
+    private Duration retention;
+
+    private final ZvonobotService zvonobotService;
+    private final TemplateRegistry templateRegistry;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+
+    private final Map<String, Campaign> campaigns = new ConcurrentHashMap<>();
+    private final AtomicLong lastId = new AtomicLong();
+    private ScheduledExecutorService scheduler;
+
+    @Autowired
+    public CampaignService(ZvonobotService zvonobotService, TemplateRegistry templateRegistry, ObjectMapper objectMapper,
+                           Validator validator) {
+        this.zvonobotService = zvonobotService;
+        this.templateRegistry = templateRegistry;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "campaign-checkpoint");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::evictCompleted,
+                EVICTION_INTERVAL.toMillis(), EVICTION_INTERVAL.toMillis(), TimeUnit.MILLISECONDS);
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path campaignDirectory : (Iterable<Path>) files::iterator) {
+                Path stateFile = campaignDirectory.resolve(STATE_FILE);
+                if (Files.exists(stateFile)) {
+                    Campaign campaign = Campaign.restore(objectMapper.readValue(stateFile.toFile(), CampaignState.class), campaignDirectory, maxErrors);
+                    if (campaign.status == CampaignStatus.IMPORTING) {
+                        // Загрузка оборвалась вместе с предыдущим запуском
+                        campaign.status = CampaignStatus.INTERRUPTED;
+                    }
+                    resume(campaign);
+                    if (campaign.status != CampaignStatus.COMPLETED) {
+                        logger.info("Кампания {} продолжает отправку: отправлено {}, с ошибкой {}, осталось {}",
+                                campaign.id, campaign.sent.get(), campaign.failed.get(), campaign.snapshot().getPending());
+                    }
+                }
+            }
+        }
+        evictCompleted();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        for (Campaign campaign : campaigns.values()) {
+            if (campaign.drainer != null && campaign.drainer.isRunning()) {
+                campaign.drainer.stop();
+                campaign.journal.close();
+            }
+        }
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Создаёт кампанию и загружает в неё строки CSV по мере поступления.
+     *
+     * @param template имя шаблона текста или null, если текст в колонке {@code text}
+     * @return Mono с прогрессом кампании после загрузки всего файла; отправка к этому моменту уже идёт
+     */
+    public Mono<CampaignState> importCsv(MessageType type, String template, Flux<DataBuffer> body) {
+        return Mono.defer(() -> {
+            Campaign campaign;
+            MessageTemplate messageTemplate;
+            try {
+                messageTemplate = template != null ? templateRegistry.get(template) : null;
+                campaign = create(type);
+            } catch (IOException | IllegalArgumentException e) {
+                return Mono.error(e);
+            }
+            RowImporter importer = new RowImporter(campaign, messageTemplate);
+            CsvRowReader reader = new CsvRowReader(importer::row);
+
+            // Запись в журнал блокирующая, поэтому разбор выполняется вне потоков Netty
+            return body.publishOn(Schedulers.boundedElastic())
+                    .doOnNext(buffer -> {
+                        try (DataBuffer.ByteBufferIterator iterator = buffer.readableByteBuffers()) {
+                            iterator.forEachRemaining(reader::feed);
+                        } finally {
+                            DataBufferUtils.release(buffer);
+                        }
+                        campaign.drainer.wakeUp();
+                    })
+                    .then(Mono.fromRunnable(reader::finish))
+                    .then(Mono.fromCallable(() -> {
+                        finishImport(campaign, CampaignStatus.SENDING);
+                        logger.info("Кампания {} загружена: строк {}, принято {}, с ошибкой {}, повторов {}",
+                                campaign.id, campaign.rows.get(), campaign.accepted.get(), campaign.invalid.get(),
+                                campaign.duplicates.get());
+                        return campaign.snapshot();
+                    }))
+                    .doOnError(error -> {
+                        logger.error("Загрузка кампании {} прервана: {}", campaign.id, error.getMessage());
+                        finishImport(campaign, CampaignStatus.INTERRUPTED);
+                    })
+                    .doOnCancel(() -> finishImport(campaign, CampaignStatus.INTERRUPTED));
+        });
+    }
+
+    public Optional<CampaignState> get(String id) {
+        return Optional.ofNullable(campaigns.get(id)).map(Campaign::snapshot);
+    }
+
+    /**
+     * @return все кампании, новые первыми
+     */
+    public List<CampaignState> list() {
+        List<CampaignState> result = new ArrayList<>();
+        campaigns.values().forEach(campaign -> result.add(campaign.snapshot()));
+        result.sort(Comparator.comparing(CampaignState::getCreatedAt).reversed());
+        return result;
+    }
+
+    private Campaign create(MessageType type) throws IOException {
+        String id = Long.toString(lastId.updateAndGet(last -> Math.max(last + 1, System.currentTimeMillis())), 36);
+        Campaign campaign = new Campaign(id, type, directory.resolve(id), Instant.now().toString(),
+                CampaignStatus.IMPORTING, maxErrors);
+        Files.createDirectories(campaign.directory);
+        saveState(campaign);
+        resume(campaign);
+        return campaign;
+    }
+
+    /**
+     * Открывает журнал кампании и запускает отправку с контрольной точки
+     */
+    private void resume(Campaign campaign) throws IOException {
+        campaigns.put(campaign.id, campaign);
+        if (campaign.status == CampaignStatus.COMPLETED) {
+            return;
+        }
+        campaign.journal = new SendJournal(campaign.directory.resolve(JOURNAL_DIRECTORY), (int) segmentSize.toBytes(), fsync);
+        if (campaign.getCheckpoint() > campaign.journal.readCheckpoint()) {
+            // Состояние сохраняется раньше контрольной точки журнала: учтённые в нём записи не повторяем
+            campaign.journal.checkpoint(campaign.getCheckpoint());
+        }
+        campaign.drainer = new JournalDrainer("campaign-" + campaign.id, campaign.journal, workers,
+                entry -> dispatch(campaign, entry));
+        campaign.drainer.setCheckpointListener(position -> onCheckpoint(campaign, position));
+        campaign.drainer.start(scheduler, checkpointInterval);
+    }
+
+    private void finishImport(Campaign campaign, CampaignStatus status) {
+        if (campaign.status == CampaignStatus.IMPORTING) {
+            campaign.status = status;
+            saveState(campaign);
+        }
+    }
+
+    private Mono<ZvonobotResponse> dispatch(Campaign campaign, SendJournal.Entry entry) {
+        MessageRequest request;
+        try {
+            if (entry.payload() == null) {
+                throw new IOException("контрольная сумма не совпадает");
+            }
+            request = objectMapper.readValue(entry.payload(), MessageRequest.class);
+        } catch (IOException e) {
+            logger.error("Пропущена повреждённая запись кампании {}: {}", campaign.id, e.getMessage());
+            campaign.record(entry.position(), false);
+            return Mono.empty();
+        }
+        // Кампания не должна задерживать срочные сообщения
+        request.setPriority(MessagePriority.BULK);
+
+        return zvonobotService.send(campaign.type, request)
+                .retryWhen(campaign.drainer.rejectedRetry())
+                .doOnNext(response -> campaign.record(entry.position(), response.isSuccess()))
+                .onErrorResume(error -> {
+                    campaign.record(entry.position(), false);
+                    return Mono.empty();
+                });
+    }
+
+    /**
+     * Сохраняет прогресс перед контрольной точкой журнала и завершает кампанию, когда все строки обработаны
+     */
+    private void onCheckpoint(Campaign campaign, long position) {
+        campaign.checkpoint(position);
+        saveState(campaign);
+        CampaignStatus status = campaign.status;
+        if ((status == CampaignStatus.SENDING || status == CampaignStatus.INTERRUPTED)
+                && campaign.drainer.isIdle() && campaign.finished.compareAndSet(false, true)) {
+            // Остановка ждёт начатых отправок и не должна задерживать контрольные точки других кампаний
+            Schedulers.boundedElastic().schedule(() -> complete(campaign));
+        }
+    }
+
+    private void complete(Campaign campaign) {
+        try {
+            campaign.drainer.stop();
+            campaign.journal.close();
+            campaign.completedAt = Instant.now().toString();
+            campaign.status = CampaignStatus.COMPLETED;
+            saveState(campaign);
+            FileSystemUtils.deleteRecursively(campaign.directory.resolve(JOURNAL_DIRECTORY));
+            logger.info("Кампания {} завершена: отправлено {}, с ошибкой {}", campaign.id, campaign.sent.get(), campaign.failed.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            logger.warn("Не удалось удалить журнал кампании {}: {}", campaign.id, e.getMessage());
+        }
+    }
+
+    /**
+     * Удаляет из памяти и с диска кампании, завершённые раньше {@code retention}
+     */
+    private void evictCompleted() {
+        Instant expired = Instant.now().minus(retention);
+        for (Campaign campaign : campaigns.values()) {
+            String completedAt = campaign.completedAt != null ? campaign.completedAt : campaign.createdAt;
+            if (campaign.status == CampaignStatus.COMPLETED && Instant.parse(completedAt).isBefore(expired)
+                    && campaigns.remove(campaign.id, campaign)) {
+                try {
+                    FileSystemUtils.deleteRecursively(campaign.directory);
+                    logger.info("Кампания {} удалена: завершена {}", campaign.id, completedAt);
+                } catch (IOException e) {
+                    logger.warn("Не удалось удалить каталог кампании {}: {}", campaign.id, e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void saveState(Campaign campaign) {
+        // Загрузка и контрольные точки сохраняют состояние из разных потоков через один временный файл
+        synchronized (campaign) {
+            try {
+                Path tmp = campaign.directory.resolve(STATE_FILE + ".tmp");
+                objectMapper.writeValue(tmp.toFile(), campaign.checkpointState());
+                Files.move(tmp, campaign.directory.resolve(STATE_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                logger.error("Не удалось сохранить состояние кампании {}: {}", campaign.id, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Проверяет строки файла и записывает принятые в журнал кампании
+     */
+    private class RowImporter {
+
+        private final Campaign campaign;
+        private final MessageTemplate template;
+        private final LongHashSet phones = new LongHashSet(1 << 16);
+        private Map<String, Integer> columns;
+
+        RowImporter(Campaign campaign, MessageTemplate template) {
+            this.campaign = campaign;
+            this.template = template;
+        }
+
+        void row(long line, List<String> fields) {
+            if (columns == null) {
+                columns = columns(fields);
+                if (fields.stream().anyMatch("phone"::equalsIgnoreCase)) {
+                    return;
+                }
+            }
+            campaign.rows.incrementAndGet();
+
+            String error;
+            MessageRequest request = null;
+            try {
+                request = request(fields);
+                error = validate(request);
+            } catch (NumberFormatException e) {
+                error = "recordId: должен быть числом";
+            } catch (IllegalArgumentException e) {
+                error = e.getMessage();
+            }
+            if (error != null) {
+                campaign.invalid.incrementAndGet();
+                campaign.addError(line, error);
+                return;
+            }
+            if (!phones.add(Long.parseLong(request.getPhone()))) {
+                campaign.duplicates.incrementAndGet();
+                return;
+            }
+
+            try {
+                campaign.journal.append(objectMapper.writeValueAsBytes(request));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            campaign.accepted.incrementAndGet();
+        }
+
+        private MessageRequest request(List<String> fields) {
+            String recordId = field(fields, "recordId");
+            return new MessageRequest(
+                    PhoneNumbers.digitsOnly(field(fields, "phone")),
+                    template != null ? render(fields) : field(fields, "text"),
+                    recordId != null ? Integer.valueOf(recordId) : null,
+                    field(fields, "outgoingPhone"));
+        }
+
+        /**
+         * Собирает текст строки по шаблону; переменные берутся из одноимённых колонок
+         */
+        private String render(List<String> fields) {
+            boolean success = false;
+            try {
+                String text = template.render(variable -> field(fields, variable));
+                success = true;
+                return text;
+            } finally {
+                templateRegistry.recordRender(success);
+            }
+        }
+
+        private String validate(MessageRequest request) {
+            Set<ConstraintViolation<MessageRequest>> violations = validator.validateProperty(request, "phone");
+            if (!violations.isEmpty()) {
+                return "phone: " + violations.iterator().next().getMessage();
+            }
+            // Голосовому сообщению с предварительно смодерированным аудиофайлом текст не нужен
+            boolean hasText = request.getText() != null && !request.getText().isBlank();
+            if (!hasText && (campaign.type == MessageType.SMS || request.getRecordId() == null)) {
+                return campaign.type == MessageType.SMS ? "text: Текст сообщения обязателен" : "text: Нужен текст или recordId";
+            }
+            return null;
+        }
+
+        private String field(List<String> fields, String name) {
+            Integer index = columns.get(name.toLowerCase());
+            if (index == null || index >= fields.size() || fields.get(index).isEmpty()) {
+                return null;
+            }
+            return fields.get(index);
+        }
+
+        private static Map<String, Integer> columns(List<String> header) {
+            Map<String, Integer> columns = new HashMap<>();
+            boolean named = header.stream().anyMatch("phone"::equalsIgnoreCase);
+            List<String> names = named ? header : DEFAULT_COLUMNS;
+            for (int i = 0; i < names.size(); i++) {
+                columns.putIfAbsent(names.get(i).toLowerCase(), i);
+            }
+            return columns;
+        }
+    }
+}
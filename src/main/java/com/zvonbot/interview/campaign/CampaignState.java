@@ -0,0 +1,163 @@
+package com.zvonbot.interview.campaign;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.zvonbot.interview.dto.MessageType;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Прогресс кампании рассылки. Сохраняется в каталоге кампании вместе с контрольной точкой
+ * журнала и возвращается клиенту.
+ */
+public class CampaignState {
+
+    private String id;
+    private MessageType type;
+    private CampaignStatus status;
+    private String createdAt;
+    private String completedAt;
+    private long rows;
+    private long accepted;
+    private long invalid;
+    private long duplicates;
+    private long sent;
+    private long failed;
+    private long checkpoint;
+    private List<String> errors = new ArrayList<>();
+
+    public CampaignState() {}
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public MessageType getType() {
+        return type;
+    }
+
+    public void setType(MessageType type) {
+        this.type = type;
+    }
+
+    public CampaignStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(CampaignStatus status) {
+        this.status = status;
+    }
+
+    public String getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(String createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    /**
+     * @return время завершения или null, если кампания ещё идёт
+     */
+    public String getCompletedAt() {
+        return completedAt;
+    }
+
+    public void setCompletedAt(String completedAt) {
+        this.completedAt = completedAt;
+    }
+
+    /**
+     * @return строк в файле без заголовка
+     */
+    public long getRows() {
+        return rows;
+    }
+
+    public void setRows(long rows) {
+        this.rows = rows;
+    }
+
+    /**
+     * @return строк, принятых к отправке
+     */
+    public long getAccepted() {
+        return accepted;
+    }
+
+    public void setAccepted(long accepted) {
+        this.accepted = accepted;
+    }
+
+    /**
+     * @return строк с ошибкой в номере или тексте
+     */
+    public long getInvalid() {
+        return invalid;
+    }
+
+    public void setInvalid(long invalid) {
+        this.invalid = invalid;
+    }
+
+    /**
+     * @return строк с номером, который уже встречался в файле
+     */
+    public long getDuplicates() {
+        return duplicates;
+    }
+
+    public void setDuplicates(long duplicates) {
+        this.duplicates = duplicates;
+    }
+
+    public long getSent() {
+        return sent;
+    }
+
+    public void setSent(long sent) {
+        this.sent = sent;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public void setFailed(long failed) {
+        this.failed = failed;
+    }
+
+    /**
+     * @return позиция журнала, до которой сохранённые {@code sent} и {@code failed} учитывают все записи;
+     * задаётся только в сохранённом состоянии, в ответах клиенту не выводится
+     */
+    @JsonInclude(JsonInclude.Include.NON_DEFAULT)
+    public long getCheckpoint() {
+        return checkpoint;
+    }
+
+    public void setCheckpoint(long checkpoint) {
+        this.checkpoint = checkpoint;
+    }
+
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    public long getPending() {
+        return Math.max(0, accepted - sent - failed);
+    }
+
+    /**
+     * @return первые ошибки разбора с номерами строк
+     */
+    public List<String> getErrors() {
+        return errors;
+    }
+
+    public void setErrors(List<String> errors) {
+        this.errors = errors;
+    }
+}
@@ -0,0 +1,23 @@
+package com.zvonbot.interview.campaign;
+
+/**
+ * Состояние кампании рассылки
+ */
+public enum CampaignStatus {
+    /**
+     * Файл ещё загружается, принятые строки уже отправляются
+     */
+    IMPORTING,
+    /**
+     * Файл загружен целиком, отправка продолжается
+     */
+    SENDING,
+    /**
+     * Загрузка файла оборвалась; строки, принятые до обрыва, отправляются
+     */
+    INTERRUPTED,
+    /**
+     * Все принятые строки обработаны
+     */
+    COMPLETED
+}
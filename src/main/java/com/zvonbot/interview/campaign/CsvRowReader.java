@@ -0,0 +1,142 @@
+package com.zvonbot.interview.campaign;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Потоковый разбор CSV в UTF-8 по частям произвольного размера.
+ *
+ * <p>Строки передаются обработчику по мере разбора, файл целиком в памяти не держится.
+ * Поддерживаются поля в кавычках с удвоенными кавычками и переводами строк внутри,
+ * окончания строк LF и CRLF, BOM в начале файла. Разделитель - запятая или точка с запятой,
+ * определяется по первой строке: Excel с русской локалью сохраняет CSV через точку с запятой.
+ */
+public class CsvRowReader {
+
+    private static final int MAX_ROW_BYTES = 1024 * 1024;
+    private static final byte[] BOM = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+
+    @FunctionalInterface
+    public interface RowHandler {
+        /**
+         * @param line номер строки файла, с которой начинается запись
+         * @param fields значения полей без окружающих пробелов; список действителен только во время вызова
+         */
+        void row(long line, List<String> fields);
+    }
+
+    private final RowHandler handler;
+    private final List<String> fields = new ArrayList<>();
+
+    private byte[] field = new byte[256];
+    private int fieldLength;
+    private int rowBytes;
+    private byte delimiter;
+    private boolean inQuotes;
+    private boolean quotePending;
+    private int bomMatched;
+    private long line = 1;
+    private long rowLine = 1;
+
+    public CsvRowReader(RowHandler handler) {
+        this.handler = handler;
+    }
+
+    /**
+     * Разбирает очередную часть файла. Незавершённая строка дописывается следующей частью.
+     */
+    public void feed(ByteBuffer chunk) {
+        while (chunk.hasRemaining()) {
+            byte b = chunk.get();
+            if (bomMatched < BOM.length) {
+                if (line == 1 && fieldLength == 0 && fields.isEmpty() && b == BOM[bomMatched]) {
+                    bomMatched++;
+                    continue;
+                }
+                bomMatched = BOM.length;
+            }
+            if (++rowBytes > MAX_ROW_BYTES) {
+                throw new IllegalArgumentException("Строка " + rowLine + " длиннее " + MAX_ROW_BYTES + " байт");
+            }
+            if (b == '\n') {
+                line++;
+            }
+
+            if (inQuotes) {
+                if (quotePending) {
+                    quotePending = false;
+                    if (b == '"') {
+                        append(b);
+                        continue;
+                    }
+                    inQuotes = false;
+                } else if (b == '"') {
+                    quotePending = true;
+                    continue;
+                } else {
+                    append(b);
+                    continue;
+                }
+            }
+
+            if (b == '\n') {
+                endRow();
+            } else if (b == '\r') {
+                // Перевод строки CRLF обрабатывается по LF
+            } else if (isDelimiter(b)) {
+                endField();
+            } else if (b == '"' && fieldLength == 0) {
+                inQuotes = true;
+            } else {
+                append(b);
+            }
+        }
+    }
+
+    /**
+     * Завершает разбор: последняя строка файла может быть без перевода строки
+     */
+    public void finish() {
+        if (inQuotes && !quotePending) {
+            throw new IllegalArgumentException("Незакрытая кавычка в строке " + rowLine);
+        }
+        inQuotes = false;
+        quotePending = false;
+        if (fieldLength > 0 || !fields.isEmpty()) {
+            endRow();
+        }
+    }
+
+    private boolean isDelimiter(byte b) {
+        if (delimiter == 0 && (b == ',' || b == ';')) {
+            delimiter = b;
+        }
+        return b == delimiter;
+    }
+
+    private void append(byte b) {
+        if (fieldLength == field.length) {
+            field = Arrays.copyOf(field, field.length * 2);
+        }
+        field[fieldLength++] = b;
+    }
+
+    private void endField() {
+        fields.add(new String(field, 0, fieldLength, StandardCharsets.UTF_8).trim());
+        fieldLength = 0;
+    }
+
+    private void endRow() {
+        endField();
+        // Пустые строки пропускаются
+        if (fields.size() > 1 || !fields.get(0).isEmpty()) {
+            handler.row(rowLine, fields);
+        }
+        fields.clear();
+        rowBytes = 0;
+        rowLine = line;
+    }
+}
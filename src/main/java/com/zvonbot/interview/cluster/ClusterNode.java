@@ -0,0 +1,10 @@
+package com.zvonbot.interview.cluster;
+
+/**
+ * Экземпляр сервиса в кластере.
+ *
+ * @param id имя узла из {@code zvonobot.cluster.peers}
+ * @param url адрес, по которому другие узлы пересылают ему отправки, например {@code http://10.0.0.2:8081}
+ */
+public record ClusterNode(String id, String url) {
+}
@@ -0,0 +1,259 @@
+package com.zvonbot.interview.cluster;
+
+import com.zvonbot.interview.dto.ApiResponse;
+import com.zvonbot.interview.dto.MessageRequest;
+import com.zvonbot.interview.dto.MessageType;
+import com.zvonbot.interview.dto.zvonobot.ZvonobotResponse;
+import com.zvonbot.interview.exception.ForwardFailedException;
+import com.zvonbot.interview.exception.ForwardRejectedException;
+import com.zvonbot.interview.logging.LogEvents;
+import com.zvonbot.interview.util.Redaction;
+import io.netty.channel.ChannelOption;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.net.ConnectException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Режим кластера: несколько экземпляров сервиса делят номера получателей и лимиты Звонобота.
+ *
+ * <p>Узлы перечислены в {@code zvonobot.cluster.peers} одинаково на всех экземплярах. Номер
+ * принадлежит одному узлу по {@link HashRing}, и все отправки на него идут через этот узел: его
+ * очередь приоритетов и ограничители сохраняют порядок и частоту отправок на номер. Узел,
+ * получивший чужой номер, пересылает отправку владельцу. Лимиты частоты Звонобота заданы
+ * на весь кластер, каждый узел получает из них свою долю кольца, см. {@link #getBudgetShare()}.
+ *
+ * <p>Если владелец недоступен (соединение не установлено, значит отправка до него не дошла),
+ * отправка выполняется локально: порядок на номер в это время не гарантируется, а лимит
+ * не превышается, потому что доля недоступного узла не расходуется.
+ */
+@Service
+public class ClusterService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClusterService.class);
+
+    public static final String TOKEN_HEADER = "X-Cluster-Token";
+    public static final String NODE_HEADER = "X-Cluster-Node";
+
+    @Value("${zvonobot.cluster.enabled:false}")
+    private boolean enabled;
+
+    @Value("${zvonobot.cluster.node-id:}")
+    private String nodeId;
+
+    @Value("${zvonobot.cluster.peers:}")
+    private List<String> peers;
+
+    @Value("${zvonobot.cluster.virtual-nodes:128}")
+    private int virtualNodes;
+
+    @Value("${zvonobot.cluster.forward-timeout:60s}")
+    private Duration forwardTimeout;
+
+    @Value("${zvonobot.cluster.connect-timeout:2s}")
+    private Duration connectTimeout;
+
+    @Value("${zvonobot.cluster.max-connections:100}")
+    private int maxConnections;
+
+    @Value("${zvonobot.cluster.token:}")
+    private String token;
+
+    private final AtomicLong forwarded = new AtomicLong();
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong fallbacks = new AtomicLong();
+    private final AtomicLong forwardErrors = new AtomicLong();
+
+    private HashRing ring;
+    private ClusterNode self;
+    private double budgetShare = 1;
+    private ConnectionProvider connectionProvider;
+    private WebClient webClient;
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        // Без токена кто угодно мог бы отправлять сообщения через /api/cluster в обход лимитов
+        if (token.isEmpty()) {
+            throw new IllegalStateException("При zvonobot.cluster.enabled нужен zvonobot.cluster.token");
+        }
+        List<ClusterNode> nodes = parsePeers(peers);
+        self = nodes.stream().filter(node -> node.id().equals(nodeId)).findFirst()
+                .orElseThrow(() -> new IllegalStateException("Узел zvonobot.cluster.node-id=" + nodeId
+                        + " не найден в zvonobot.cluster.peers"));
+        ring = new HashRing(nodes, virtualNodes);
+        budgetShare = ring.share(self);
+
+        connectionProvider = ConnectionProvider.create("zvonobot-cluster", maxConnections);
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connectTimeout.toMillis())
+                .responseTimeout(forwardTimeout);
+        webClient = WebClient.builder()
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .build();
+        logger.info("Режим кластера: узел {} из {}, доля номеров и лимитов {}", nodeId, nodes.size(),
+                String.format("%.3f", budgetShare));
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (connectionProvider != null) {
+            connectionProvider.dispose();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return доля лимитов Звонобота этого узла: доля кольца, а значит и номеров, которую он обслуживает;
+     * 1 вне кластера
+     */
+    public double getBudgetShare() {
+        return budgetShare;
+    }
+
+    /**
+     * @param phone номер получателя без лишних символов
+     * @return узел-владелец номера или null, если номер обслуживается этим узлом
+     */
+    public ClusterNode owner(String phone) {
+        if (ring == null || phone.isEmpty()) {
+            return null;
+        }
+        ClusterNode owner = ring.owner(phone);
+        return owner.equals(self) ? null : owner;
+    }
+
+    /**
+     * Пересылает отправку узлу-владельцу номера.
+     *
+     * @param local отправка на этом узле, если владелец недоступен
+     */
+    public Mono<ZvonobotResponse> forward(ClusterNode owner, MessageType type, MessageRequest request,
+                                          Supplier<Mono<ZvonobotResponse>> local) {
+        String path = type == MessageType.SMS ? "/api/cluster/send-sms" : "/api/cluster/send-voice";
+        logger.debug(LogEvents.REQUEST, "Отправка на {} пересылается узлу {}", Redaction.phone(request.getPhone()), owner.id());
+        return webClient.post()
+                .uri(owner.url() + path)
+                .header(TOKEN_HEADER, token)
+                .header(NODE_HEADER, nodeId)
+                .bodyValue(request)
+                .exchangeToMono(response -> {
+                    if (response.statusCode().is2xxSuccessful()) {
+                        return response.bodyToMono(ZvonobotResponse.class);
+                    }
+                    int status = response.statusCode().value();
+                    return response.bodyToMono(ApiResponse.class)
+                            .mapNotNull(ApiResponse::getError)
+                            .defaultIfEmpty("HTTP " + status)
+                            .flatMap(error -> Mono.error(status == HttpStatus.SERVICE_UNAVAILABLE.value()
+                                    ? new ForwardRejectedException(error)
+                                    : new ForwardFailedException("Узел " + owner.id() + ": " + error)));
+                })
+                .doOnSuccess(response -> forwarded.incrementAndGet())
+                .doOnError(error -> {
+                    if (!isUnreachable(error)) {
+                        forwardErrors.incrementAndGet();
+                    }
+                })
+                .onErrorResume(ClusterService::isUnreachable, error -> {
+                    fallbacks.incrementAndGet();
+                    logger.warn("Узел {} недоступен, отправка на {} выполняется локально: {}",
+                            owner.id(), Redaction.phone(request.getPhone()), error.getMessage());
+                    return local.get();
+                });
+    }
+
+    /**
+     * Учитывает отправку, пересланную другим узлом
+     *
+     * @return false, если токен не совпадает с {@code zvonobot.cluster.token}
+     */
+    public boolean accept(String requestToken) {
+        if (requestToken == null || !MessageDigest.isEqual(
+                token.getBytes(StandardCharsets.UTF_8), requestToken.getBytes(StandardCharsets.UTF_8))) {
+            return false;
+        }
+        received.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * @return узлы с их долями номеров и счётчики пересылки
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        if (ring != null) {
+            stats.put("nodeId", nodeId);
+            Map<String, Object> nodes = new LinkedHashMap<>();
+            for (ClusterNode node : ring.nodes()) {
+                nodes.put(node.id(), Map.of("url", node.url(), "share", ring.share(node)));
+            }
+            stats.put("nodes", nodes);
+        }
+        stats.put("forwarded", forwarded.get());
+        stats.put("received", received.get());
+        stats.put("fallbacks", fallbacks.get());
+        stats.put("forwardErrors", forwardErrors.get());
+        return stats;
+    }
+
+    /**
+     * @param peers узлы в виде {@code id=url}
+     */
+    static List<ClusterNode> parsePeers(List<String> peers) {
+        List<ClusterNode> nodes = new ArrayList<>();
+        for (String peer : peers) {
+            if (peer.isBlank()) {
+                continue;
+            }
+            int separator = peer.indexOf('=');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Узел кластера задаётся как id=url: " + peer);
+            }
+            String url = peer.substring(separator + 1).trim();
+            nodes.add(new ClusterNode(peer.substring(0, separator).trim(),
+                    url.endsWith("/") ? url.substring(0, url.length() - 1) : url));
+        }
+        if (nodes.isEmpty()) {
+            throw new IllegalArgumentException("В режиме кластера нужен список узлов zvonobot.cluster.peers");
+        }
+        return nodes;
+    }
+
+    /**
+     * @return true, если соединение с узлом не установлено и отправка до него точно не дошла
+     */
+    private static boolean isUnreachable(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConnectException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,96 @@
+package com.zvonbot.interview.cluster;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Кольцо согласованного хеширования номеров получателей по узлам кластера.
+ *
+ * <p>Каждый узел занимает {@code virtualNodes} точек кольца с хешами {@code id#0}, {@code id#1}, ...;
+ * номер принадлежит узлу первой точки не меньше хеша номера. Точки хранятся в отсортированном
+ * массиве, поиск владельца - двоичный поиск без выделения памяти. При добавлении узла к нему
+ * переходит только его доля номеров, остальные номера остаются у прежних владельцев.
+ */
+public class HashRing {
+
+    private final List<ClusterNode> nodes;
+    private final long[] points;
+    private final int[] owners;
+
+    public HashRing(List<ClusterNode> nodes, int virtualNodes) {
+        if (nodes.isEmpty() || virtualNodes <= 0) {
+            throw new IllegalArgumentException("Кольцу нужны узлы и положительное число точек на узел");
+        }
+        this.nodes = List.copyOf(nodes);
+        long[] entries = new long[nodes.size() * virtualNodes];
+        int[] entryOwners = new int[entries.length];
+        Integer[] order = new Integer[entries.length];
+        for (int node = 0, i = 0; node < nodes.size(); node++) {
+            for (int point = 0; point < virtualNodes; point++, i++) {
+                entries[i] = hash(nodes.get(node).id() + "#" + point);
+                entryOwners[i] = node;
+                order[i] = i;
+            }
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(entries[a], entries[b]));
+        this.points = new long[entries.length];
+        this.owners = new int[entries.length];
+        for (int i = 0; i < order.length; i++) {
+            points[i] = entries[order[i]];
+            owners[i] = entryOwners[order[i]];
+        }
+    }
+
+    /**
+     * @return узел, которому принадлежит ключ
+     */
+    public ClusterNode owner(String key) {
+        int index = Arrays.binarySearch(points, hash(key));
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return nodes.get(owners[index == points.length ? 0 : index]);
+    }
+
+    /**
+     * @return доля пространства ключей, принадлежащая узлу, от 0 до 1
+     */
+    public double share(ClusterNode node) {
+        int target = nodes.indexOf(node);
+        double owned = 0;
+        for (int i = 0; i < points.length; i++) {
+            if (owners[i] == target) {
+                // Точка владеет дугой от предыдущей точки; у первой дуга проходит через ноль
+                long arc = points[i] - points[i == 0 ? points.length - 1 : i - 1];
+                owned += arc == 0 && points.length == 1 ? 0x1p64 : unsigned(arc);
+            }
+        }
+        return owned / 0x1p64;
+    }
+
+    public List<ClusterNode> nodes() {
+        return nodes;
+    }
+
+    private static double unsigned(long value) {
+        return value >= 0 ? value : value + 0x1p64;
+    }
+
+    /**
+     * 64-битный FNV-1a с перемешиванием из MurmurHash3: номера различаются в последних цифрах,
+     * и без перемешивания соседние номера ложились бы в одну дугу кольца
+     */
+    static long hash(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            hash ^= key.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
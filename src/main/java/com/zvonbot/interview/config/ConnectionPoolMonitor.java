@@ -0,0 +1,86 @@
+package com.zvonbot.interview.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.stereotype.Component;
+import reactor.netty.resources.ConnectionPoolMetrics;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.net.SocketAddress;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Собирает показатели пулов соединений Reactor Netty.
+ * Reactor Netty создаёт отдельный пул на каждый удалённый адрес и регистрирует его здесь,
+ * показатели каждого пула публикуются как метрики {@code zvonobot.http.pool.*}.
+ */
+@Component
+public class ConnectionPoolMonitor implements ConnectionProvider.MeterRegistrar {
+
+    private final MeterRegistry registry;
+    private final Map<String, ConnectionPoolMetrics> pools = new ConcurrentHashMap<>();
+    private final Map<String, List<Meter>> meters = new ConcurrentHashMap<>();
+
+    public ConnectionPoolMonitor(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public void registerMetrics(String poolName, String id, SocketAddress remoteAddress, ConnectionPoolMetrics metrics) {
+        String key = key(poolName, remoteAddress);
+        pools.put(key, metrics);
+        Tags tags = Tags.of("pool", poolName, "remote", String.valueOf(remoteAddress));
+        meters.put(key, List.of(
+                gauge("zvonobot.http.pool.acquired", tags, metrics, ConnectionPoolMetrics::acquiredSize),
+                gauge("zvonobot.http.pool.idle", tags, metrics, ConnectionPoolMetrics::idleSize),
+                gauge("zvonobot.http.pool.allocated", tags, metrics, ConnectionPoolMetrics::allocatedSize),
+                gauge("zvonobot.http.pool.max", tags, metrics, ConnectionPoolMetrics::maxAllocatedSize),
+                gauge("zvonobot.http.pool.pending", tags, metrics, ConnectionPoolMetrics::pendingAcquireSize)));
+    }
+
+    @Override
+    public void deRegisterMetrics(String poolName, String id, SocketAddress remoteAddress) {
+        String key = key(poolName, remoteAddress);
+        pools.remove(key);
+        List<Meter> removed = meters.remove(key);
+        if (removed != null) {
+            removed.forEach(registry::remove);
+        }
+    }
+
+    /**
+     * @return текущие показатели каждого пула: занятые, простаивающие и ожидающие соединения
+     */
+    public Map<String, Map<String, Integer>> snapshot() {
+        Map<String, Map<String, Integer>> result = new LinkedHashMap<>();
+        pools.forEach((name, metrics) -> {
+            Map<String, Integer> values = new LinkedHashMap<>();
+            values.put("acquired", metrics.acquiredSize());
+            values.put("idle", metrics.idleSize());
+            values.put("allocated", metrics.allocatedSize());
+            values.put("maxAllocated", metrics.maxAllocatedSize());
+            values.put("pendingAcquire", metrics.pendingAcquireSize());
+            values.put("maxPendingAcquire", metrics.maxPendingAcquireSize());
+            result.put(name, values);
+        });
+        return result;
+    }
+
+    public Map<String, ConnectionPoolMetrics> getPools() {
+        return pools;
+    }
+
+    private Meter gauge(String name, Tags tags, ConnectionPoolMetrics metrics, ToDoubleFunction<ConnectionPoolMetrics> value) {
+        return Gauge.builder(name, metrics, value).tags(tags).register(registry);
+    }
+
+    private static String key(String poolName, SocketAddress remoteAddress) {
+        return poolName + "@" + remoteAddress;
+    }
+}
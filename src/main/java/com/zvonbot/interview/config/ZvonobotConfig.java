@@ -1,36 +1,480 @@
 package com.zvonbot.interview.config;
 
+import com.zvonbot.interview.cache.CachePolicy;
+import com.zvonbot.interview.dto.MessagePriority;
+import com.zvonbot.interview.ratelimit.FairQueuePolicy;
+import com.zvonbot.interview.ratelimit.RateLimitPolicy;
+import com.zvonbot.interview.record.RecordCatalogPolicy;
+import com.zvonbot.interview.resilience.CircuitBreakerPolicy;
+import com.zvonbot.interview.resilience.ConcurrencyLimitPolicy;
+import com.zvonbot.interview.resilience.HedgePolicy;
+import com.zvonbot.interview.resilience.RetryPolicy;
+import com.zvonbot.interview.service.AccountKey;
+import com.zvonbot.interview.service.AccountPolicy;
+import com.zvonbot.interview.util.Redaction;
+import io.netty.channel.ChannelOption;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
 
 @Configuration
 public class ZvonobotConfig {
     
+    private static final String POOL_NAME = "zvonobot";
+    private static final String RATE_LIMIT_ENDPOINTS = "zvonobot.rate-limit.endpoints.";
+    
+    private final Environment environment;
+    
     @Value("${zvonobot.api.base-url}")
     private String baseUrl;
     
     @Value("${zvonobot.api.key}")
     private String apiKey;
     
+    @Value("${zvonobot.accounts.keys:}")
+    private List<String> accountKeys;
+    
+    @Value("${zvonobot.accounts.eject-duration:5m}")
+    private Duration accountEjectDuration;
+    
+    @Value("${zvonobot.accounts.eject-errors:недостаточно средств,баланс}")
+    private List<String> accountEjectErrors;
+    
+    @Value("${zvonobot.accounts.min-balance:0}")
+    private double accountMinBalance;
+    
+    @Value("${zvonobot.accounts.check-interval:1m}")
+    private Duration accountCheckInterval;
+    
+    @Value("${zvonobot.batch.concurrency:16}")
+    private int batchConcurrency;
+    
+    @Value("${zvonobot.cache.max-size:64}")
+    private int cacheMaxSize;
+    
+    @Value("${zvonobot.cache.negative-min:1s}")
+    private Duration cacheNegativeMin;
+    
+    @Value("${zvonobot.cache.negative-max:1m}")
+    private Duration cacheNegativeMax;
+    
+    @Value("${zvonobot.cache.outgoing-phone.ttl:10m}")
+    private Duration outgoingPhoneTtl;
+    
+    @Value("${zvonobot.cache.outgoing-phone.refresh-ahead:1m}")
+    private Duration outgoingPhoneRefreshAhead;
+    
+    @Value("${zvonobot.cache.outgoing-phone.negative-min:${zvonobot.cache.negative-min:1s}}")
+    private Duration outgoingPhoneNegativeMin;
+    
+    @Value("${zvonobot.cache.outgoing-phone.negative-max:${zvonobot.cache.negative-max:1m}}")
+    private Duration outgoingPhoneNegativeMax;
+    
+    @Value("${zvonobot.cache.records.ttl:5m}")
+    private Duration recordsTtl;
+    
+    @Value("${zvonobot.cache.records.stale-while-revalidate:10m}")
+    private Duration recordsStaleWhileRevalidate;
+    
+    @Value("${zvonobot.record-catalog.enabled:true}")
+    private boolean recordCatalogEnabled;
+    
+    @Value("${zvonobot.record-catalog.max-entries:10000}")
+    private int recordCatalogMaxEntries;
+    
+    @Value("${zvonobot.record-catalog.refresh-interval:10m}")
+    private Duration recordCatalogRefreshInterval;
+    
+    @Value("${zvonobot.record-catalog.file:data/records/catalog.tsv}")
+    private Path recordCatalogFile;
+
+    @Value("${zvonobot.record-catalog.record-errors:record,аудиофайл,запис}")
+    private List<String> recordCatalogRecordErrors;
+    
+    @Value("${zvonobot.cache.phones.ttl:5m}")
+    private Duration phonesTtl;
+    
+    @Value("${zvonobot.cache.phones.stale-while-revalidate:10m}")
+    private Duration phonesStaleWhileRevalidate;
+    
+    @Value("${zvonobot.cache.user-info.ttl:30s}")
+    private Duration userInfoTtl;
+    
+    @Value("${zvonobot.cache.user-info.stale-while-revalidate:2m}")
+    private Duration userInfoStaleWhileRevalidate;
+    
+    @Value("${zvonobot.http.max-connections:100}")
+    private int maxConnections;
+    
+    @Value("${zvonobot.http.pending-acquire-max-count:1000}")
+    private int pendingAcquireMaxCount;
+    
+    @Value("${zvonobot.http.pending-acquire-timeout:5s}")
+    private Duration pendingAcquireTimeout;
+    
+    @Value("${zvonobot.http.max-idle-time:30s}")
+    private Duration maxIdleTime;
+    
+    @Value("${zvonobot.http.max-life-time:5m}")
+    private Duration maxLifeTime;
+    
+    @Value("${zvonobot.http.evict-in-background:30s}")
+    private Duration evictInBackground;
+    
+    @Value("${zvonobot.http.connect-timeout:5s}")
+    private Duration connectTimeout;
+    
+    @Value("${zvonobot.http.response-timeout:30s}")
+    private Duration responseTimeout;
+    
+    @Value("${zvonobot.http.keep-alive:true}")
+    private boolean keepAlive;
+    
+    @Value("${zvonobot.http.http2:true}")
+    private boolean http2;
+    
+    @Value("${zvonobot.rate-limit.enabled:false}")
+    private boolean rateLimitEnabled;
+    
+    @Value("${zvonobot.rate-limit.permits-per-second:10}")
+    private double ratePermitsPerSecond;
+    
+    @Value("${zvonobot.rate-limit.burst:20}")
+    private int rateBurst;
+    
+    @Value("${zvonobot.rate-limit.max-queued:1000}")
+    private int rateMaxQueued;
+    
+    @Value("${zvonobot.rate-limit.max-wait:30s}")
+    private Duration rateMaxWait;
+    
+    @Value("${zvonobot.priority.enabled:true}")
+    private boolean priorityEnabled;
+    
+    @Value("${zvonobot.priority.weights:TRANSACTIONAL=9,BULK=1}")
+    private String priorityWeights;
+    
+    @Value("${zvonobot.priority.slots:4}")
+    private int prioritySlots;
+    
+    @Value("${zvonobot.priority.max-queued:1000}")
+    private int priorityMaxQueued;
+    
+    @Value("${zvonobot.priority.max-wait:30s}")
+    private Duration priorityMaxWait;
+    
+    @Value("${zvonobot.concurrency-limit.enabled:true}")
+    private boolean concurrencyLimitEnabled;
+    
+    @Value("${zvonobot.concurrency-limit.initial:20}")
+    private int concurrencyLimitInitial;
+    
+    @Value("${zvonobot.concurrency-limit.min:2}")
+    private int concurrencyLimitMin;
+    
+    @Value("${zvonobot.concurrency-limit.max:200}")
+    private int concurrencyLimitMax;
+    
+    @Value("${zvonobot.concurrency-limit.latency-threshold:5s}")
+    private Duration concurrencyLatencyThreshold;
+    
+    @Value("${zvonobot.concurrency-limit.backoff-ratio:0.9}")
+    private double concurrencyBackoffRatio;
+    
+    @Value("${zvonobot.concurrency-limit.max-queued:500}")
+    private int concurrencyMaxQueued;
+    
+    @Value("${zvonobot.concurrency-limit.max-wait:10s}")
+    private Duration concurrencyMaxWait;
+    
+    @Value("${zvonobot.circuit-breaker.enabled:true}")
+    private boolean circuitBreakerEnabled;
+    
+    @Value("${zvonobot.circuit-breaker.window-size:50}")
+    private int breakerWindowSize;
+    
+    @Value("${zvonobot.circuit-breaker.minimum-calls:20}")
+    private int breakerMinimumCalls;
+    
+    @Value("${zvonobot.circuit-breaker.failure-rate-threshold:50}")
+    private int breakerFailureRateThreshold;
+    
+    @Value("${zvonobot.circuit-breaker.slow-call-threshold:10s}")
+    private Duration breakerSlowCallThreshold;
+    
+    @Value("${zvonobot.circuit-breaker.open-duration:30s}")
+    private Duration breakerOpenDuration;
+    
+    @Value("${zvonobot.circuit-breaker.half-open-calls:5}")
+    private int breakerHalfOpenCalls;
+    
+    @Value("${zvonobot.read-retry.max-retries:2}")
+    private int readMaxRetries;
+    
+    @Value("${zvonobot.read-retry.base-delay:100ms}")
+    private Duration readRetryBaseDelay;
+    
+    @Value("${zvonobot.read-retry.max-delay:2s}")
+    private Duration readRetryMaxDelay;
+    
+    @Value("${zvonobot.hedging.enabled:false}")
+    private boolean hedgingEnabled;
+    
+    @Value("${zvonobot.hedging.percentile:0.95}")
+    private double hedgePercentile;
+    
+    @Value("${zvonobot.hedging.min-delay:50ms}")
+    private Duration hedgeMinDelay;
+    
+    @Value("${zvonobot.hedging.min-samples:20}")
+    private int hedgeMinSamples;
+    
+    @Value("${zvonobot.hedging.max-ratio:0.1}")
+    private double hedgeMaxRatio;
+    
+    public ZvonobotConfig(Environment environment) {
+        this.environment = environment;
+    }
+    
+    /**
+     * Выделенный пул соединений к API Звонобота.
+     * Простаивающие и слишком старые соединения закрываются фоновой очисткой,
+     * показатели пула доступны через {@link ConnectionPoolMonitor}.
+     */
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider zvonobotConnectionProvider(ConnectionPoolMonitor connectionPoolMonitor) {
+        return createConnectionProvider(POOL_NAME, connectionPoolMonitor);
+    }
+    
     @Bean
-    public WebClient webClient() {
+    public WebClient webClient(ConnectionProvider zvonobotConnectionProvider) {
+        return createWebClient(zvonobotConnectionProvider);
+    }
+    
+    /**
+     * Пул соединений с настройками {@code zvonobot.http.*}. Пулы дополнительных аккаунтов
+     * создаются отдельно и закрываются владельцем.
+     */
+    public ConnectionProvider createConnectionProvider(String name, ConnectionPoolMonitor connectionPoolMonitor) {
+        return ConnectionProvider.builder(name)
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(pendingAcquireMaxCount)
+                .pendingAcquireTimeout(pendingAcquireTimeout)
+                .maxIdleTime(maxIdleTime)
+                .maxLifeTime(maxLifeTime)
+                .evictInBackground(evictInBackground)
+                .metrics(true, () -> connectionPoolMonitor)
+                .build();
+    }
+    
+    public WebClient createWebClient(ConnectionProvider connectionProvider) {
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connectTimeout.toMillis())
+                .option(ChannelOption.SO_KEEPALIVE, keepAlive)
+                .responseTimeout(responseTimeout);
+        
+        // HTTP/2 согласуется через ALPN, поэтому включаем его только для https
+        if (http2 && baseUrl.startsWith("https")) {
+            httpClient = httpClient.protocol(HttpProtocol.H2, HttpProtocol.HTTP11);
+        }
+        
         return WebClient.builder()
                 .baseUrl(baseUrl)
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
                 .defaultHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
                 .defaultHeader(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE)
                 .defaultHeader(HttpHeaders.ACCEPT_CHARSET, "UTF-8")
                 .build();
     }
     
+    /**
+     * @return ключ основного аккаунта
+     */
     public String getApiKey() {
-        return apiKey;
+        return getAccountKeys().get(0).apiKey();
+    }
+    
+    /**
+     * Аккаунты из {@code zvonobot.accounts.keys} в виде {@code ключ} или {@code ключ:вес}.
+     * Если список пуст, используется один аккаунт с ключом {@code zvonobot.api.key}.
+     * Первый аккаунт - основной: через него идут информационные запросы.
+     */
+    public List<AccountKey> getAccountKeys() {
+        List<AccountKey> keys = new ArrayList<>();
+        for (String entry : accountKeys) {
+            entry = entry.trim();
+            if (entry.isEmpty()) {
+                continue;
+            }
+            String id = "account-" + (keys.size() + 1);
+            int separator = entry.lastIndexOf(':');
+            String key = separator < 0 ? entry : entry.substring(0, separator).trim();
+            int weight = separator < 0 ? 1 : parseWeight(id, key, entry.substring(separator + 1).trim());
+            keys.add(new AccountKey(id, key, weight));
+        }
+        if (keys.isEmpty()) {
+            keys.add(new AccountKey("account-1", apiKey, 1));
+        }
+        return keys;
+    }
+
+    /**
+     * Вес после двоеточия - только цифры; ключ в сообщении об ошибке сокращён
+     */
+    private static int parseWeight(String id, String key, String weight) {
+        String entry = id + " (" + Redaction.apiKey(key) + ":" + weight + ")";
+        if (weight.isEmpty() || !weight.chars().allMatch(c -> c >= '0' && c <= '9')) {
+            throw new IllegalArgumentException("Вес аккаунта " + entry + " должен быть целым числом");
+        }
+        int value;
+        try {
+            value = Integer.parseInt(weight);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Вес аккаунта " + entry + " слишком большой", e);
+        }
+        if (value <= 0) {
+            throw new IllegalArgumentException("Вес аккаунта " + entry + " должен быть положительным");
+        }
+        return value;
+    }
+
+    public AccountPolicy getAccountPolicy() {
+        return new AccountPolicy(accountEjectDuration, accountEjectErrors, accountMinBalance, accountCheckInterval);
     }
     
     public String getBaseUrl() {
         return baseUrl;
     }
+    
+    /**
+     * Максимальное число одновременных запросов к Звоноботу при пакетной отправке
+     */
+    public int getBatchConcurrency() {
+        return batchConcurrency;
+    }
+    
+    public CachePolicy getOutgoingPhoneCachePolicy() {
+        return new CachePolicy(outgoingPhoneTtl, outgoingPhoneRefreshAhead, Duration.ZERO,
+                outgoingPhoneNegativeMin, outgoingPhoneNegativeMax, cacheMaxSize);
+    }
+    
+    public CachePolicy getRecordsCachePolicy() {
+        return readCachePolicy(recordsTtl, recordsStaleWhileRevalidate);
+    }
+    
+    /**
+     * Отправлять текст, для которого уже есть аудиофайл, по его recordId
+     */
+    public boolean isRecordCatalogEnabled() {
+        return recordCatalogEnabled;
+    }
+    
+    public RecordCatalogPolicy getRecordCatalogPolicy() {
+        return new RecordCatalogPolicy(recordCatalogMaxEntries, recordCatalogRefreshInterval, recordCatalogFile,
+                recordCatalogRecordErrors);
+    }
+    
+    public CachePolicy getPhonesCachePolicy() {
+        return readCachePolicy(phonesTtl, phonesStaleWhileRevalidate);
+    }
+    
+    public CachePolicy getUserInfoCachePolicy() {
+        return readCachePolicy(userInfoTtl, userInfoStaleWhileRevalidate);
+    }
+    
+    public boolean isRateLimitEnabled() {
+        return rateLimitEnabled;
+    }
+    
+    /**
+     * Лимит для метода API. Значения из {@code zvonobot.rate-limit.endpoints.<метод>}
+     * переопределяют общие настройки {@code zvonobot.rate-limit}.
+     *
+     * @param endpoint имя метода API, например {@code create} для /apiCalls/create
+     */
+    public RateLimitPolicy getRateLimitPolicy(String endpoint) {
+        String prefix = RATE_LIMIT_ENDPOINTS + endpoint + ".";
+        return new RateLimitPolicy(
+                environment.getProperty(prefix + "permits-per-second", Double.class, ratePermitsPerSecond),
+                environment.getProperty(prefix + "burst", Integer.class, rateBurst),
+                environment.getProperty(prefix + "max-queued", Integer.class, rateMaxQueued),
+                environment.getProperty(prefix + "max-wait", Duration.class, rateMaxWait));
+    }
+    
+    public boolean isPriorityEnabled() {
+        return priorityEnabled;
+    }
+    
+    /**
+     * Веса приоритетов из строки вида {@code TRANSACTIONAL=9,BULK=1}
+     */
+    public Map<MessagePriority, Integer> getPriorityWeights() {
+        Map<MessagePriority, Integer> weights = new EnumMap<>(MessagePriority.class);
+        for (String pair : priorityWeights.split(",")) {
+            int separator = pair.indexOf('=');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Вес приоритета задаётся как ПРИОРИТЕТ=вес: " + pair);
+            }
+            weights.put(MessagePriority.valueOf(pair.substring(0, separator).trim()),
+                    Integer.parseInt(pair.substring(separator + 1).trim()));
+        }
+        return weights;
+    }
+    
+    public FairQueuePolicy getFairQueuePolicy() {
+        return new FairQueuePolicy(prioritySlots, priorityMaxQueued, priorityMaxWait);
+    }
+    
+    public boolean isConcurrencyLimitEnabled() {
+        return concurrencyLimitEnabled;
+    }
+    
+    public ConcurrencyLimitPolicy getConcurrencyLimitPolicy() {
+        return new ConcurrencyLimitPolicy(concurrencyLimitInitial, concurrencyLimitMin, concurrencyLimitMax,
+                concurrencyLatencyThreshold, concurrencyBackoffRatio, concurrencyMaxQueued, concurrencyMaxWait);
+    }
+    
+    public boolean isCircuitBreakerEnabled() {
+        return circuitBreakerEnabled;
+    }
+    
+    public CircuitBreakerPolicy getCircuitBreakerPolicy() {
+        return new CircuitBreakerPolicy(breakerWindowSize, breakerMinimumCalls, breakerFailureRateThreshold,
+                breakerSlowCallThreshold, breakerOpenDuration, breakerHalfOpenCalls);
+    }
+    
+    /**
+     * Повторы информационных запросов. Отправка сообщений не повторяется,
+     * чтобы не создать второй звонок
+     */
+    public RetryPolicy getReadRetryPolicy() {
+        return new RetryPolicy(readMaxRetries, readRetryBaseDelay, readRetryMaxDelay);
+    }
+    
+    public boolean isHedgingEnabled() {
+        return hedgingEnabled;
+    }
+    
+    public HedgePolicy getHedgePolicy() {
+        return new HedgePolicy(hedgePercentile, hedgeMinDelay, hedgeMinSamples, hedgeMaxRatio);
+    }
+    
+    private CachePolicy readCachePolicy(Duration ttl, Duration staleWhileRevalidate) {
+        return new CachePolicy(ttl, Duration.ZERO, staleWhileRevalidate, cacheNegativeMin, cacheNegativeMax, cacheMaxSize);
+    }
 } 
\ No newline at end of file
@@ -0,0 +1,59 @@
+package com.zvonbot.interview.controller;
+
+import com.zvonbot.interview.campaign.CampaignService;
+import com.zvonbot.interview.dto.ApiResponse;
+import com.zvonbot.interview.dto.MessageType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Кампании рассылки: загрузка CSV-файла с номерами и отслеживание прогресса отправки
+ */
+@RestController
+@RequestMapping("/api/campaigns")
+@CrossOrigin(origins = "*")
+public class CampaignController {
+
+    private static final Logger logger = LoggerFactory.getLogger(CampaignController.class);
+
+    private final CampaignService campaignService;
+
+    @Autowired
+    public CampaignController(CampaignService campaignService) {
+        this.campaignService = campaignService;
+    }
+
+    /**
+     * Создаёт кампанию из CSV в теле запроса. Тело разбирается потоком, отправка начинается
+     * до окончания загрузки. С параметром {@code template} текст собирается из шаблона.
+     */
+    @PostMapping
+    public Mono<ResponseEntity<ApiResponse>> importCampaign(@RequestParam(defaultValue = "VOICE") MessageType type,
+                                                            @RequestParam(required = false) String template,
+                                                            @RequestBody Flux<DataBuffer> body) {
+        return campaignService.importCsv(type, template, body)
+                .map(state -> ResponseEntity.ok(ApiResponse.success("Кампания загружена", state)))
+                .onErrorResume(error -> {
+                    logger.error("Ошибка при загрузке кампании: {}", error.getMessage());
+                    return Mono.just(ResponseEntity.ok(ApiResponse.error("Ошибка при загрузке кампании: " + error.getMessage())));
+                });
+    }
+
+    @GetMapping
+    public ResponseEntity<ApiResponse> listCampaigns() {
+        return ResponseEntity.ok(ApiResponse.success("Кампании рассылки", campaignService.list()));
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<ApiResponse> getCampaign(@PathVariable String id) {
+        return campaignService.get(id)
+                .map(state -> ResponseEntity.ok(ApiResponse.success("Прогресс кампании", state)))
+                .orElseGet(() -> ResponseEntity.ok(ApiResponse.error("Кампания не найдена: " + id)));
+    }
+}
@@ -0,0 +1,72 @@
+package com.zvonbot.interview.controller;
+
+import com.zvonbot.interview.cluster.ClusterService;
+import com.zvonbot.interview.dto.ApiResponse;
+import com.zvonbot.interview.dto.MessageRequest;
+import com.zvonbot.interview.dto.MessageType;
+import com.zvonbot.interview.exception.CallRejectedException;
+import com.zvonbot.interview.service.ZvonobotService;
+import jakarta.validation.Valid;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+/**
+ * Приём отправок, пересланных другими узлами кластера.
+ *
+ * <p>Ответ - исходный ответ Звонобота. Отправка, отклонённая до вызова Звонобота, получает
+ * {@code 503}, и пересылающий узел может повторить её позже; остальные ошибки - {@code 502}.
+ */
+@RestController
+@RequestMapping("/api/cluster")
+public class ClusterController {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClusterController.class);
+
+    private final ClusterService clusterService;
+    private final ZvonobotService zvonobotService;
+
+    @Autowired
+    public ClusterController(ClusterService clusterService, ZvonobotService zvonobotService) {
+        this.clusterService = clusterService;
+        this.zvonobotService = zvonobotService;
+    }
+
+    @PostMapping("/send-voice")
+    public Mono<ResponseEntity<Object>> sendVoice(@Valid @RequestBody MessageRequest request,
+                                                  @RequestHeader(value = ClusterService.TOKEN_HEADER, required = false) String token,
+                                                  @RequestHeader(value = ClusterService.NODE_HEADER, required = false) String node) {
+        return send(MessageType.VOICE, request, token, node);
+    }
+
+    @PostMapping("/send-sms")
+    public Mono<ResponseEntity<Object>> sendSms(@Valid @RequestBody MessageRequest request,
+                                                @RequestHeader(value = ClusterService.TOKEN_HEADER, required = false) String token,
+                                                @RequestHeader(value = ClusterService.NODE_HEADER, required = false) String node) {
+        return send(MessageType.SMS, request, token, node);
+    }
+
+    @GetMapping("/stats")
+    public ResponseEntity<ApiResponse> getStats() {
+        return ResponseEntity.ok(ApiResponse.success("Состояние кластера", clusterService.getStats()));
+    }
+
+    private Mono<ResponseEntity<Object>> send(MessageType type, MessageRequest request, String token, String node) {
+        if (!clusterService.isEnabled()) {
+            return Mono.just(ResponseEntity.status(HttpStatus.FORBIDDEN).body(ApiResponse.error("Режим кластера отключён")));
+        }
+        if (!clusterService.accept(token)) {
+            logger.warn("Отклонена пересланная отправка от узла {} с неверным токеном", node);
+            return Mono.just(ResponseEntity.status(HttpStatus.FORBIDDEN).body(ApiResponse.error("Неверный токен")));
+        }
+        return zvonobotService.sendLocally(type, request)
+                .<ResponseEntity<Object>>map(ResponseEntity::ok)
+                .onErrorResume(error -> Mono.just(ResponseEntity
+                        .status(error instanceof CallRejectedException ? HttpStatus.SERVICE_UNAVAILABLE : HttpStatus.BAD_GATEWAY)
+                        .body(ApiResponse.error(error.getMessage()))));
+    }
+}
@@ -1,18 +1,54 @@
 package com.zvonbot.interview.controller;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.zvonbot.interview.config.ConnectionPoolMonitor;
+import com.zvonbot.interview.config.ZvonobotConfig;
 import com.zvonbot.interview.dto.ApiResponse;
+import com.zvonbot.interview.dto.BatchItemResult;
+import com.zvonbot.interview.dto.CallStatus;
+import com.zvonbot.interview.dto.MessagePriority;
 import com.zvonbot.interview.dto.MessageRequest;
+import com.zvonbot.interview.dto.MessageType;
+import com.zvonbot.interview.dto.zvonobot.ZvonobotPhone;
+import com.zvonbot.interview.dto.zvonobot.ZvonobotProfile;
+import com.zvonbot.interview.dto.zvonobot.ZvonobotRecord;
 import com.zvonbot.interview.dto.zvonobot.ZvonobotResponse;
+import com.zvonbot.interview.exception.IdempotencyKeyConflictException;
+import com.zvonbot.interview.idempotency.IdempotencyStore;
+import com.zvonbot.interview.logging.LogEvents;
+import com.zvonbot.interview.queue.SendQueueService;
+import com.zvonbot.interview.schedule.ScheduledSendService;
 import com.zvonbot.interview.service.ZvonobotService;
+import com.zvonbot.interview.status.CallStatusService;
+import com.zvonbot.interview.template.MessageTemplate;
+import com.zvonbot.interview.template.TemplateRegistry;
+import com.zvonbot.interview.util.PhoneNumbers;
+import jakarta.validation.ConstraintViolation;
 import jakarta.validation.Valid;
+import jakarta.validation.Validator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.http.ETag;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.DigestUtils;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api")
@@ -21,43 +57,77 @@ public class MessageController {
     
     private static final Logger logger = LoggerFactory.getLogger(MessageController.class);
     
+    private static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+    private static final String WEBHOOK_TOKEN = "X-Webhook-Token";
+    
     private final ZvonobotService zvonobotService;
+    private final SendQueueService sendQueueService;
+    private final CallStatusService callStatusService;
+    private final ScheduledSendService scheduledSendService;
+    private final IdempotencyStore idempotencyStore;
+    private final TemplateRegistry templateRegistry;
+    private final ConnectionPoolMonitor connectionPoolMonitor;
+    private final ZvonobotConfig config;
+    private final Validator validator;
     
     @Autowired
-    public MessageController(ZvonobotService zvonobotService) {
+    public MessageController(ZvonobotService zvonobotService, SendQueueService sendQueueService,
+                             CallStatusService callStatusService, ScheduledSendService scheduledSendService,
+                             IdempotencyStore idempotencyStore, TemplateRegistry templateRegistry,
+                             ConnectionPoolMonitor connectionPoolMonitor, ZvonobotConfig config, Validator validator) {
         this.zvonobotService = zvonobotService;
+        this.sendQueueService = sendQueueService;
+        this.callStatusService = callStatusService;
+        this.scheduledSendService = scheduledSendService;
+        this.idempotencyStore = idempotencyStore;
+        this.templateRegistry = templateRegistry;
+        this.connectionPoolMonitor = connectionPoolMonitor;
+        this.config = config;
+        this.validator = validator;
     }
     
     @PostMapping("/send-voice")
-    public Mono<ResponseEntity<ApiResponse>> sendVoiceMessage(@Valid @RequestBody MessageRequest request) {
-        logger.info("Получен запрос на отправку голосового сообщения: {}", request);
-        
-        return zvonobotService.sendVoiceMessage(request.getCleanPhone(), request.getText(), request.getRecordId(), request.getOutgoingPhone())
-                .map(this::handleZvonobotResponse)
-                .onErrorResume(error -> {
-                    logger.error("Ошибка при отправке голосового сообщения: {}", error.getMessage());
-                    return Mono.just(ResponseEntity.ok(ApiResponse.error("Ошибка при отправке голосового сообщения: " + error.getMessage())));
-                });
+    public Mono<ResponseEntity<ApiResponse>> sendVoiceMessage(@Valid @RequestBody MessageRequest request,
+                                                              @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+        return send(MessageType.VOICE, request, idempotencyKey);
     }
     
     @PostMapping("/send-sms")
-    public Mono<ResponseEntity<ApiResponse>> sendSms(@Valid @RequestBody MessageRequest request) {
-        logger.info("Получен запрос на отправку SMS: {}", request);
+    public Mono<ResponseEntity<ApiResponse>> sendSms(@Valid @RequestBody MessageRequest request,
+                                                     @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+        return send(MessageType.SMS, request, idempotencyKey);
+    }
+    
+    /**
+     * Пакетная отправка голосовых сообщений.
+     * Принимает JSON-массив или NDJSON-поток запросов и возвращает результаты
+     * по мере их готовности в формате NDJSON.
+     */
+    @PostMapping(value = "/send-voice/batch", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<BatchItemResult> sendVoiceBatch(@RequestBody Flux<MessageRequest> body) {
+        logger.info(LogEvents.REQUEST, "Получен пакетный запрос на отправку голосовых сообщений");
         
-        return zvonobotService.sendSms(request.getCleanPhone(), request.getText(), request.getOutgoingPhone())
-                .map(this::handleZvonobotResponse)
-                .onErrorResume(error -> {
-                    logger.error("Ошибка при отправке SMS: {}", error.getMessage());
-                    return Mono.just(ResponseEntity.ok(ApiResponse.error("Ошибка при отправке SMS: " + error.getMessage())));
-                });
+        return sendBatch(MessageType.VOICE, body, this::sendVoice);
+    }
+    
+    /**
+     * Пакетная отправка SMS.
+     * Принимает JSON-массив или NDJSON-поток запросов и возвращает результаты
+     * по мере их готовности в формате NDJSON.
+     */
+    @PostMapping(value = "/send-sms/batch", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<BatchItemResult> sendSmsBatch(@RequestBody Flux<MessageRequest> body) {
+        logger.info(LogEvents.REQUEST, "Получен пакетный запрос на отправку SMS");
+        
+        return sendBatch(MessageType.SMS, body, this::sendSmsMessage);
     }
     
     @GetMapping("/test-api-key")
-    public Mono<ResponseEntity<ApiResponse>> testApiKey() {
-        logger.info("Тестирование API ключа");
+    public Mono<ResponseEntity<ApiResponse>> testApiKey(@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        logger.debug(LogEvents.REQUEST, "Тестирование API ключа");
         
         return zvonobotService.testApiKey()
-                .map(this::handleZvonobotResponse)
+                .map(response -> handleCachedResponse(response, ifNoneMatch))
                 .onErrorResume(error -> {
                     logger.error("Ошибка при тестировании API ключа: {}", error.getMessage());
                     return Mono.just(ResponseEntity.ok(ApiResponse.error("Ошибка при тестировании API ключа: " + error.getMessage())));
@@ -65,11 +135,11 @@ public class MessageController {
     }
     
     @GetMapping("/get-phones")
-    public Mono<ResponseEntity<ApiResponse>> getOutgoingPhones() {
-        logger.info("Получение списка исходящих номеров");
+    public Mono<ResponseEntity<ApiResponse>> getOutgoingPhones(@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        logger.debug(LogEvents.REQUEST, "Получение списка исходящих номеров");
         
         return zvonobotService.getOutgoingPhones()
-                .map(this::handleZvonobotResponse)
+                .map(response -> handleCachedResponse(response, ifNoneMatch))
                 .onErrorResume(error -> {
                     logger.error("Ошибка при получении номеров: {}", error.getMessage());
                     return Mono.just(ResponseEntity.ok(ApiResponse.error("Ошибка при получении номеров: " + error.getMessage())));
@@ -77,50 +147,359 @@ public class MessageController {
     }
     
     @GetMapping("/get-records")
-    public Mono<ResponseEntity<ApiResponse>> getRecords() {
-        logger.info("Получение списка предварительно смодерированных аудиофайлов");
+    public Mono<ResponseEntity<ApiResponse>> getRecords(@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        logger.debug(LogEvents.REQUEST, "Получение списка предварительно смодерированных аудиофайлов");
         
         return zvonobotService.getRecords()
-                .map(this::handleZvonobotResponse)
+                .map(response -> handleCachedResponse(response, ifNoneMatch))
                 .onErrorResume(error -> {
                     logger.error("Ошибка при получении аудиофайлов: {}", error.getMessage());
                     return Mono.just(ResponseEntity.ok(ApiResponse.error("Ошибка при получении аудиофайлов: " + error.getMessage())));
                 });
     }
     
+    /**
+     * Список аудиофайлов в формате NDJSON: элементы передаются клиенту по мере разбора
+     * ответа Звонобота, без кэширования и без сборки списка в памяти
+     */
+    @GetMapping(value = "/get-records/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<ZvonobotRecord> streamRecords() {
+        logger.debug(LogEvents.REQUEST, "Потоковое получение списка аудиофайлов");
+        
+        return zvonobotService.streamRecords()
+                .doOnError(error -> logger.error("Ошибка при получении аудиофайлов: {}", error.getMessage()));
+    }
+    
+    /**
+     * Список исходящих номеров в формате NDJSON
+     */
+    @GetMapping(value = "/get-phones/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<ZvonobotPhone> streamOutgoingPhones() {
+        logger.debug(LogEvents.REQUEST, "Потоковое получение списка исходящих номеров");
+        
+        return zvonobotService.streamOutgoingPhones()
+                .doOnError(error -> logger.error("Ошибка при получении исходящих номеров: {}", error.getMessage()));
+    }
+    
     @GetMapping("/get-profile")
-    public Mono<ResponseEntity<ApiResponse>> getUserProfile() {
-        logger.info("Получение профиля пользователя");
+    public Mono<ResponseEntity<ApiResponse>> getUserProfile(@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        logger.debug(LogEvents.REQUEST, "Получение профиля пользователя");
         
         return zvonobotService.getUserProfile()
-                .map(this::handleZvonobotResponse)
+                .map(response -> handleCachedResponse(response, ifNoneMatch))
                 .onErrorResume(error -> {
                     logger.error("Ошибка при получении профиля: {}", error.getMessage());
                     return Mono.just(ResponseEntity.ok(ApiResponse.error("Ошибка при получении профиля: " + error.getMessage())));
                 });
     }
     
-    private ResponseEntity<ApiResponse> handleZvonobotResponse(ZvonobotResponse zvonobotResponse) {
+    @GetMapping("/queue/stats")
+    public ResponseEntity<ApiResponse> getQueueStats() {
+        return ResponseEntity.ok(ApiResponse.success("Состояние очереди отправки", sendQueueService.getStats()));
+    }
+    
+    @GetMapping("/schedule/stats")
+    public ResponseEntity<ApiResponse> getScheduleStats() {
+        return ResponseEntity.ok(ApiResponse.success("Состояние отложенной отправки", scheduledSendService.getStats()));
+    }
+    
+    @GetMapping("/cache/stats")
+    public ResponseEntity<ApiResponse> getCacheStats() {
+        return ResponseEntity.ok(ApiResponse.success("Состояние кэшей", zvonobotService.getCacheStats()));
+    }
+    
+    @GetMapping("/idempotency/stats")
+    public ResponseEntity<ApiResponse> getIdempotencyStats() {
+        return ResponseEntity.ok(ApiResponse.success("Состояние хранилища ключей идемпотентности", idempotencyStore.getStats()));
+    }
+    
+    @GetMapping("/rate-limit/stats")
+    public ResponseEntity<ApiResponse> getRateLimitStats() {
+        return ResponseEntity.ok(ApiResponse.success("Состояние ограничителей частоты запросов", zvonobotService.getRateLimitStats()));
+    }
+    
+    @GetMapping("/resilience/stats")
+    public ResponseEntity<ApiResponse> getResilienceStats() {
+        return ResponseEntity.ok(ApiResponse.success("Состояние адаптивного лимита и предохранителя", zvonobotService.getResilienceStats()));
+    }
+    
+    @GetMapping("/accounts/stats")
+    public ResponseEntity<ApiResponse> getAccountStats() {
+        return ResponseEntity.ok(ApiResponse.success("Состояние аккаунтов Звонобота", zvonobotService.getAccountStats()));
+    }
+    
+    /**
+     * Шаблоны сообщений и их переменные
+     */
+    @GetMapping("/templates")
+    public ResponseEntity<ApiResponse> getTemplates() {
+        List<Map<String, Object>> templates = templateRegistry.list().stream()
+                .map(MessageController::describe)
+                .toList();
+        return ResponseEntity.ok(ApiResponse.success("Шаблоны сообщений", templates));
+    }
+    
+    @GetMapping("/templates/stats")
+    public ResponseEntity<ApiResponse> getTemplateStats() {
+        return ResponseEntity.ok(ApiResponse.success("Статистика шаблонов сообщений", templateRegistry.getStats()));
+    }
+    
+    @GetMapping("/pool/stats")
+    public ResponseEntity<ApiResponse> getPoolStats() {
+        return ResponseEntity.ok(ApiResponse.success("Состояние пула соединений", connectionPoolMonitor.snapshot()));
+    }
+    
+    /**
+     * Последний известный статус звонка по id из ответа на отправку
+     */
+    @GetMapping("/calls/{callId:\\d+}")
+    public ResponseEntity<ApiResponse> getCallStatus(@PathVariable long callId) {
+        CallStatus status = callStatusService.get(callId);
+        return ResponseEntity.ok(status != null
+                ? ApiResponse.success("Статус звонка", status)
+                : ApiResponse.error("Звонок не найден: " + callId));
+    }
+    
+    /**
+     * Последние звонки на номер с их статусами, новые первыми
+     */
+    @GetMapping("/calls")
+    public ResponseEntity<ApiResponse> findCallsByPhone(@RequestParam String phone,
+                                                        @RequestParam(defaultValue = "10") int limit) {
+        String cleanPhone = PhoneNumbers.digitsOnly(phone);
+        if (cleanPhone.isEmpty() || cleanPhone.length() > 18) {
+            return ResponseEntity.ok(ApiResponse.error("Некорректный номер телефона: " + phone));
+        }
+        return ResponseEntity.ok(ApiResponse.success("Звонки на номер",
+                callStatusService.findByPhone(cleanPhone, Math.max(1, Math.min(limit, 100)))));
+    }
+    
+    /**
+     * Приём статусов звонков, которые Звонобот присылает сам
+     */
+    @PostMapping("/calls/webhook")
+    public ResponseEntity<ApiResponse> callStatusWebhook(@RequestBody JsonNode payload,
+                                                         @RequestHeader(value = WEBHOOK_TOKEN, required = false) String token) {
+        if (!callStatusService.isWebhookEnabled()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ApiResponse.error("Приём статусов звонков отключён"));
+        }
+        if (!callStatusService.isWebhookTokenValid(token)) {
+            logger.warn("Отклонено уведомление о статусе звонков с неверным токеном");
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(ApiResponse.error("Неверный токен"));
+        }
+        int applied = callStatusService.ingest(payload);
+        return ResponseEntity.ok(ApiResponse.success("Статусы приняты", Map.of("applied", applied)));
+    }
+    
+    @GetMapping("/calls/stats")
+    public ResponseEntity<ApiResponse> getCallStatusStats() {
+        return ResponseEntity.ok(ApiResponse.success("Состояние отслеживания статусов звонков", callStatusService.getStats()));
+    }
+    
+    /**
+     * Отправляет сообщение сразу или через очередь. Если передан ключ идемпотентности,
+     * повтор с тем же ключом получает сохранённый ответ без повторной отправки.
+     * После отказа до отправки (лимит, предохранитель, нет соединения) запрос с тем же ключом можно повторить.
+     */
+    private Mono<ResponseEntity<ApiResponse>> send(MessageType type, MessageRequest request, String idempotencyKey) {
+        try {
+            templateRegistry.apply(request);
+        } catch (IllegalArgumentException e) {
+            return Mono.just(ResponseEntity.ok(ApiResponse.error(e.getMessage())));
+        }
+        String failure = sendQueueService.isEnabled() ? "Ошибка при постановке сообщения в очередь"
+                : type == MessageType.VOICE ? "Ошибка при отправке голосового сообщения" : "Ошибка при отправке SMS";
+        
+        Mono<ResponseEntity<ApiResponse>> response = idempotencyKey == null
+                ? dispatch(type, request)
+                : idempotencyStore.execute(idempotencyKey, fingerprint(type, request), () -> dispatch(type, request));
+        
+        return response
+                .onErrorResume(IdempotencyKeyConflictException.class, error -> {
+                    logger.warn(error.getMessage());
+                    return Mono.just(ResponseEntity.unprocessableEntity().body(ApiResponse.error(error.getMessage())));
+                })
+                .onErrorResume(error -> {
+                    // Ошибка прямой отправки уже записана сервисом в итоговой строке
+                    if (sendQueueService.isEnabled()) {
+                        logger.error("{}: {}", failure, error.getMessage());
+                    }
+                    return Mono.just(ResponseEntity.ok(ApiResponse.error(failure + ": " + error.getMessage())));
+                });
+    }
+    
+    private Mono<ResponseEntity<ApiResponse>> dispatch(MessageType type, MessageRequest request) {
+        if (request.getSendAt() != null) {
+            return schedule(type, request);
+        }
+        if (sendQueueService.isEnabled()) {
+            return enqueue(type, request);
+        }
+        return zvonobotService.send(type, request).map(MessageController::handleZvonobotResponse).map(ResponseEntity::ok);
+    }
+    
+    /**
+     * Сохраняет сообщение в локальную очередь и отвечает 202 Accepted с идентификатором задания
+     */
+    private Mono<ResponseEntity<ApiResponse>> enqueue(MessageType type, MessageRequest request) {
+        return sendQueueService.enqueue(type, request)
+                .map(jobId -> ResponseEntity.accepted()
+                        .body(ApiResponse.success("Сообщение поставлено в очередь", Map.of("jobId", jobId))));
+    }
+    
+    /**
+     * Откладывает отправку до sendAt и отвечает 202 Accepted с идентификатором отложенной отправки
+     */
+    private Mono<ResponseEntity<ApiResponse>> schedule(MessageType type, MessageRequest request) {
+        if (!scheduledSendService.isEnabled()) {
+            return Mono.just(ResponseEntity.ok(ApiResponse.error("Отложенная отправка отключена")));
+        }
+        return scheduledSendService.schedule(type, request)
+                .map(scheduled -> ResponseEntity.accepted()
+                        .body(ApiResponse.success("Отправка запланирована", scheduled)))
+                .onErrorResume(IllegalArgumentException.class,
+                        error -> Mono.just(ResponseEntity.ok(ApiResponse.error(error.getMessage()))));
+    }
+    
+    /**
+     * Отпечаток содержимого запроса: тот же ключ с другим содержимым считается ошибкой клиента
+     */
+    private static String fingerprint(MessageType type, MessageRequest request) {
+        String content = String.join("|", type.name(), request.getCleanPhone(), String.valueOf(request.getText()),
+                String.valueOf(request.getRecordId()), String.valueOf(request.getOutgoingPhone()),
+                String.valueOf(request.getSendAt()), String.valueOf(request.getTimezone()), String.valueOf(request.getPriority()));
+        return DigestUtils.md5DigestAsHex(content.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    private Mono<ApiResponse> sendVoice(MessageRequest request) {
+        return zvonobotService.sendVoiceMessage(request.getCleanPhone(), request.getText(), request.getRecordId(), request.getOutgoingPhone(),
+                        batchPriority(request))
+                .map(MessageController::handleZvonobotResponse)
+                .onErrorResume(error -> Mono.just(ApiResponse.error("Ошибка при отправке голосового сообщения: " + error.getMessage())));
+    }
+    
+    private Mono<ApiResponse> sendSmsMessage(MessageRequest request) {
+        return zvonobotService.sendSms(request.getCleanPhone(), request.getText(), request.getOutgoingPhone(), batchPriority(request))
+                .map(MessageController::handleZvonobotResponse)
+                .onErrorResume(error -> Mono.just(ApiResponse.error("Ошибка при отправке SMS: " + error.getMessage())));
+    }
+    
+    /**
+     * Разбирает запросы из тела по мере поступления, валидирует каждый и отправляет
+     * не более чем {@link ZvonobotConfig#getBatchConcurrency()} одновременно.
+     * Элементы с {@code sendAt} откладываются так же, как одиночные запросы.
+     * Ошибка разбора завершает поток последним элементом с ошибкой.
+     */
+    private Flux<BatchItemResult> sendBatch(MessageType type, Flux<MessageRequest> body,
+                                            Function<MessageRequest, Mono<ApiResponse>> sender) {
+        AtomicLong index = new AtomicLong();
+        AtomicReference<Throwable> parseError = new AtomicReference<>();
+        Flux<BatchItem> items = body
+                .map(request -> new BatchItem(index.getAndIncrement(), request))
+                .onErrorResume(error -> {
+                    parseError.set(error);
+                    return Mono.empty();
+                });
+        // Ошибка разбора отдаётся после результатов всех прочитанных до неё элементов
+        Mono<BatchItemResult> parseFailure = Mono.defer(() -> parseError.get() == null ? Mono.empty()
+                : Mono.just(new BatchItemResult(index.get(), null, ApiResponse.error("Ошибка разбора запроса: "
+                        + NestedExceptionUtils.getMostSpecificCause(parseError.get()).getMessage()))));
+        
+        return items.flatMap(item -> {
+            MessageRequest request = item.request();
+            String violations = validate(request);
+            if (violations != null) {
+                return Mono.just(new BatchItemResult(item.index(), request.getPhone(), ApiResponse.error("Ошибка валидации: " + violations)));
+            }
+            try {
+                templateRegistry.apply(request);
+            } catch (IllegalArgumentException e) {
+                return Mono.just(new BatchItemResult(item.index(), request.getCleanPhone(), ApiResponse.error(e.getMessage())));
+            }
+            Mono<ApiResponse> result;
+            if (request.getSendAt() != null) {
+                request.setPriority(batchPriority(request));
+                result = schedule(type, request).map(ResponseEntity::getBody)
+                        .onErrorResume(error -> Mono.just(ApiResponse.error("Ошибка при планировании отправки: " + error.getMessage())));
+            } else {
+                result = sender.apply(request);
+            }
+            return result.map(response -> new BatchItemResult(item.index(), request.getCleanPhone(), response));
+        }, config.getBatchConcurrency()).concatWith(parseFailure);
+    }
+    
+    /**
+     * Пакеты - массовая отправка, если приоритет элемента не указан явно
+     */
+    private static MessagePriority batchPriority(MessageRequest request) {
+        return request.getPriority() != null ? request.getPriority() : MessagePriority.BULK;
+    }
+    
+    private String validate(MessageRequest request) {
+        Set<ConstraintViolation<MessageRequest>> violations = validator.validate(request);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                .collect(Collectors.joining(", "));
+    }
+    
+    private static Map<String, Object> describe(MessageTemplate template) {
+        Map<String, Object> description = new LinkedHashMap<>();
+        description.put("name", template.getName());
+        description.put("text", template.getText());
+        description.put("variables", template.getVariables());
+        return description;
+    }
+    
+    private record BatchItem(long index, MessageRequest request) {}
+    
+    /**
+     * Отвечает 304 Not Modified, если у клиента уже есть эта версия закэшированного ответа.
+     * {@code If-None-Match} разбирается как список меток через запятую, каждая сравнивается
+     * с текущей целиком; по RFC 9110 для этого заголовка используется слабое сравнение.
+     */
+    private ResponseEntity<ApiResponse> handleCachedResponse(ZvonobotResponse zvonobotResponse, String ifNoneMatch) {
+        String etag = zvonobotResponse.getEtag();
+        if (etag == null) {
+            return ResponseEntity.ok(handleZvonobotResponse(zvonobotResponse));
+        }
+        if (ifNoneMatch != null && matchesAny(ETag.create(etag), ETag.parse(ifNoneMatch))) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        return ResponseEntity.ok().eTag(etag).body(handleZvonobotResponse(zvonobotResponse));
+    }
+
+    private static boolean matchesAny(ETag current, List<ETag> tags) {
+        for (ETag tag : tags) {
+            if (tag.isWildcard() || tag.compare(current, false)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Преобразует ответ Звонобота в ответ клиенту. Виден в пакете для бенчмарков из src/jmh
+     */
+    static ApiResponse handleZvonobotResponse(ZvonobotResponse zvonobotResponse) {
         if (zvonobotResponse.isSuccess()) {
             // Если это тест API ключа и есть данные пользователя
-            if (zvonobotResponse.getData() != null && zvonobotResponse.getData() instanceof Map) {
-                Map<String, Object> data = (Map<String, Object>) zvonobotResponse.getData();
-                if (data.containsKey("email") && data.containsKey("balance")) {
-                    String email = (String) data.get("email");
-                    Object balance = data.get("balance");
-                    return ResponseEntity.ok(ApiResponse.success(
-                        String.format("API ключ работает! Email: %s, Баланс: %s", email, balance),
-                        zvonobotResponse.getData()
-                    ));
-                }
+            if (zvonobotResponse.getData() instanceof ZvonobotProfile profile
+                    && profile.getEmail() != null && profile.getBalance() != null) {
+                return ApiResponse.success(
+                    String.format("API ключ работает! Email: %s, Баланс: %s", profile.getEmail(), profile.getBalance().toPlainString()),
+                    profile
+                );
             }
-            return ResponseEntity.ok(ApiResponse.success("Операция выполнена успешно", zvonobotResponse.getData()));
+            return ApiResponse.success("Операция выполнена успешно", zvonobotResponse.getData());
         } else {
             String errorMessage = zvonobotResponse.getError();
             if (errorMessage == null || errorMessage.isEmpty()) {
                 errorMessage = "Неизвестная ошибка API";
             }
-            return ResponseEntity.ok(ApiResponse.error(errorMessage));
+            return ApiResponse.error(errorMessage);
         }
     }
     
@@ -0,0 +1,92 @@
+package com.zvonbot.interview.controller;
+
+import com.zvonbot.interview.dto.ApiResponse;
+import com.zvonbot.interview.suppression.SuppressionList;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Управление списком номеров, отказавшихся от звонков и SMS
+ */
+@RestController
+@RequestMapping("/api/suppression")
+@CrossOrigin(origins = "*")
+public class SuppressionController {
+
+    private static final Logger logger = LoggerFactory.getLogger(SuppressionController.class);
+
+    private static final String ADMIN_TOKEN = "X-Admin-Token";
+
+    private final SuppressionList suppressionList;
+
+    @Autowired
+    public SuppressionController(SuppressionList suppressionList) {
+        this.suppressionList = suppressionList;
+    }
+
+    @GetMapping("/{phone}")
+    public ResponseEntity<ApiResponse> check(@PathVariable String phone) {
+        return ResponseEntity.ok(ApiResponse.success("Проверка номера",
+                Map.of("phone", phone, "suppressed", suppressionList.isSuppressed(phone))));
+    }
+
+    /**
+     * Добавляет номера из JSON-массива в список отказа
+     */
+    @PostMapping("/add")
+    public Mono<ResponseEntity<ApiResponse>> add(@RequestBody List<String> phones,
+                                                 @RequestHeader(value = ADMIN_TOKEN, required = false) String token) {
+        return change(phones, token, suppressionList::add, "Номера добавлены в список отказа");
+    }
+
+    /**
+     * Удаляет номера из JSON-массива из списка отказа
+     */
+    @PostMapping("/remove")
+    public Mono<ResponseEntity<ApiResponse>> remove(@RequestBody List<String> phones,
+                                                    @RequestHeader(value = ADMIN_TOKEN, required = false) String token) {
+        return change(phones, token, suppressionList::remove, "Номера удалены из списка отказа");
+    }
+
+    @GetMapping("/stats")
+    public ResponseEntity<ApiResponse> getStats() {
+        return ResponseEntity.ok(ApiResponse.success("Состояние списка отказа от звонков", suppressionList.getStats()));
+    }
+
+    private Mono<ResponseEntity<ApiResponse>> change(List<String> phones, String token,
+                                                     Function<List<String>, Map<String, Integer>> operation, String message) {
+        if (!suppressionList.isEnabled()) {
+            return Mono.just(ResponseEntity.ok(ApiResponse.error("Список отказа от звонков отключён")));
+        }
+        if (!suppressionList.isAdminTokenConfigured()) {
+            logger.warn("Отклонено изменение списка отказа: не задан токен администратора");
+            return Mono.just(ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(ApiResponse.error("Изменение списка отказа через API отключено: не задан zvonobot.suppression.admin-token")));
+        }
+        if (!suppressionList.isAdminTokenValid(token)) {
+            logger.warn("Отклонено изменение списка отказа с неверным токеном");
+            return Mono.just(ResponseEntity.status(HttpStatus.FORBIDDEN).body(ApiResponse.error("Неверный токен")));
+        }
+        // Изменение записывается в журнал на диске, поэтому выполняется вне потоков Netty
+        return Mono.fromCallable(() -> operation.apply(phones))
+                .subscribeOn(Schedulers.boundedElastic())
+                .map(result -> {
+                    logger.info("{}: {}", message, result);
+                    return ResponseEntity.ok(ApiResponse.success(message, result));
+                })
+                .onErrorResume(error -> {
+                    logger.error("Ошибка при изменении списка отказа: {}", error.getMessage());
+                    return Mono.just(ResponseEntity.ok(ApiResponse.error("Ошибка при изменении списка отказа: " + error.getMessage())));
+                });
+    }
+}
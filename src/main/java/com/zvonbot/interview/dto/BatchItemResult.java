@@ -0,0 +1,48 @@
+package com.zvonbot.interview.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Результат обработки одного элемента пакетной отправки.
+ * Элементы возвращаются в порядке завершения, поэтому index указывает
+ * на позицию сообщения во входном потоке.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchItemResult {
+
+    private long index;
+    private String phone;
+    private ApiResponse result;
+
+    public BatchItemResult() {}
+
+    public BatchItemResult(long index, String phone, ApiResponse result) {
+        this.index = index;
+        this.phone = phone;
+        this.result = result;
+    }
+
+    public long getIndex() {
+        return index;
+    }
+
+    public void setIndex(long index) {
+        this.index = index;
+    }
+
+    public String getPhone() {
+        return phone;
+    }
+
+    public void setPhone(String phone) {
+        this.phone = phone;
+    }
+
+    public ApiResponse getResult() {
+        return result;
+    }
+
+    public void setResult(ApiResponse result) {
+        this.result = result;
+    }
+}
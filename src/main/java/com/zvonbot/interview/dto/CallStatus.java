@@ -0,0 +1,73 @@
+package com.zvonbot.interview.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Последний известный статус звонка, созданного через /apiCalls/create
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CallStatus {
+
+    private long id;
+    private String phone;
+    private String status;
+    private boolean finished;
+    private String createdAt;
+    private String updatedAt;
+
+    public CallStatus() {}
+
+    public long getId() {
+        return id;
+    }
+
+    public void setId(long id) {
+        this.id = id;
+    }
+
+    public String getPhone() {
+        return phone;
+    }
+
+    public void setPhone(String phone) {
+        this.phone = phone;
+    }
+
+    /**
+     * @return статус в том виде, в котором его вернул Звонобот
+     */
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    /**
+     * @return true, если статус окончательный и больше не запрашивается
+     */
+    public boolean isFinished() {
+        return finished;
+    }
+
+    public void setFinished(boolean finished) {
+        this.finished = finished;
+    }
+
+    public String getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(String createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public String getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(String updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
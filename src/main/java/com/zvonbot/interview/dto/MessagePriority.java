@@ -0,0 +1,15 @@
+package com.zvonbot.interview.dto;
+
+/**
+ * Приоритет отправки: у каждого своя очередь перед запросами к Звоноботу
+ */
+public enum MessagePriority {
+    /**
+     * Коды подтверждения, сброс пароля и другие сообщения, которые ждут сразу
+     */
+    TRANSACTIONAL,
+    /**
+     * Рассылки и кампании: могут подождать, пока проходят срочные сообщения
+     */
+    BULK
+}
@@ -1,9 +1,16 @@
 package com.zvonbot.interview.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.zvonbot.interview.util.PhoneNumbers;
+import com.zvonbot.interview.util.Redaction;
+import jakarta.validation.constraints.AssertTrue;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Pattern;
 
+import java.util.Map;
+
 /**
  * DTO для запросов на отправку сообщений (голосовых и SMS)
  */
@@ -13,7 +20,6 @@ public class MessageRequest {
     @Pattern(regexp = "^\\+?7\\d{10}$", message = "Номер телефона должен быть в формате +7XXXXXXXXXX или 7XXXXXXXXXX")
     private String phone;
     
-    @NotBlank(message = "Текст сообщения обязателен")
     private String text;
     
     @JsonProperty("recordId")
@@ -22,6 +28,37 @@ public class MessageRequest {
     @JsonProperty("outgoingPhone")
     private String outgoingPhone;
     
+    /**
+     * Время отправки в ISO-8601: со смещением ({@code 2025-03-01T10:00:00+05:00})
+     * или местное время получателя ({@code 2025-03-01T10:00:00})
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String sendAt;
+    
+    /**
+     * Часовой пояс получателя, например {@code Asia/Almaty}
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String timezone;
+    
+    /**
+     * Приоритет отправки; по умолчанию срочное сообщение, в пакетах и кампаниях - массовое
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private MessagePriority priority;
+    
+    /**
+     * Имя шаблона из {@code zvonobot.templates}, из которого вместо {@code text} собирается текст
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String template;
+    
+    /**
+     * Значения переменных шаблона, например {@code {"order": "1234"}}
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Map<String, String> variables;
+    
     public MessageRequest() {}
     
     public MessageRequest(String phone, String text) {
@@ -58,13 +95,22 @@ public class MessageRequest {
         this.text = text;
     }
     
+    /**
+     * Текст сообщения обязателен, если не указан шаблон
+     */
+    @JsonIgnore
+    @AssertTrue(message = "Нужен текст сообщения или шаблон")
+    public boolean isTextOrTemplate() {
+        return text != null && !text.isBlank() || template != null && !template.isBlank();
+    }
+    
     /**
      * Получает очищенный номер телефона (только цифры)
      * @return номер телефона без символов форматирования
      */
+    @JsonIgnore
     public String getCleanPhone() {
-        if (phone == null) return null;
-        return phone.replaceAll("[^0-9]", "");
+        return PhoneNumbers.digitsOnly(phone);
     }
     
     public Integer getRecordId() {
@@ -83,13 +129,58 @@ public class MessageRequest {
         this.outgoingPhone = outgoingPhone;
     }
     
+    public String getSendAt() {
+        return sendAt;
+    }
+    
+    public void setSendAt(String sendAt) {
+        this.sendAt = sendAt;
+    }
+    
+    public String getTimezone() {
+        return timezone;
+    }
+    
+    public void setTimezone(String timezone) {
+        this.timezone = timezone;
+    }
+    
+    public MessagePriority getPriority() {
+        return priority;
+    }
+    
+    public void setPriority(MessagePriority priority) {
+        this.priority = priority;
+    }
+    
+    public String getTemplate() {
+        return template;
+    }
+    
+    public void setTemplate(String template) {
+        this.template = template;
+    }
+    
+    public Map<String, String> getVariables() {
+        return variables;
+    }
+    
+    public void setVariables(Map<String, String> variables) {
+        this.variables = variables;
+    }
+    
     @Override
     public String toString() {
         return "MessageRequest{" +
-                "phone='" + phone + '\'' +
-                ", text='" + text + '\'' +
+                "phone='" + Redaction.phone(phone) + '\'' +
+                ", text=" + Redaction.text(text) +
                 ", recordId=" + recordId +
                 ", outgoingPhone='" + outgoingPhone + '\'' +
+                (sendAt != null ? ", sendAt='" + sendAt + '\'' : "") +
+                (timezone != null ? ", timezone='" + timezone + '\'' : "") +
+                (priority != null ? ", priority=" + priority : "") +
+                (template != null ? ", template='" + template + '\'' : "") +
+                (variables != null ? ", variables=" + variables.keySet() : "") +
                 '}';
     }
 } 
\ No newline at end of file
@@ -0,0 +1,9 @@
+package com.zvonbot.interview.dto;
+
+/**
+ * Тип отправляемого сообщения
+ */
+public enum MessageType {
+    VOICE,
+    SMS
+}
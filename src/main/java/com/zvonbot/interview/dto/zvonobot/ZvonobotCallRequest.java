@@ -2,6 +2,7 @@ package com.zvonbot.interview.dto.zvonobot;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.zvonbot.interview.util.Redaction;
 
 @JsonInclude(JsonInclude.Include.NON_NULL)
 public class ZvonobotCallRequest {
@@ -103,10 +104,10 @@ public class ZvonobotCallRequest {
     @Override
     public String toString() {
         return "ZvonobotCallRequest{" +
-                "apiKey='" + (apiKey != null ? apiKey.substring(0, Math.min(10, apiKey.length())) + "..." : "null") + '\'' +
-                ", phone='" + phone + '\'' +
+                "apiKey='" + Redaction.apiKey(apiKey) + '\'' +
+                ", phone='" + Redaction.phone(phone) + '\'' +
                 ", dutyPhone=" + dutyPhone +
-                ", outgoingPhone='" + outgoingPhone + '\'' +
+                ", outgoingPhone='" + Redaction.phone(outgoingPhone) + '\'' +
                 ", record=" + record +
                 ", recordId=" + recordId +
                 ", ivrs=" + (ivrs != null ? ivrs.length + " items" : "null") +
@@ -157,7 +158,7 @@ public class ZvonobotCallRequest {
         @Override
         public String toString() {
             return "Record{" +
-                    "text='" + text + '\'' +
+                    "text=" + Redaction.text(text) +
                     ", gender=" + gender +
                     '}';
         }
@@ -204,7 +205,7 @@ public class ZvonobotCallRequest {
         public String toString() {
             return "Ivr{" +
                     "digit=" + digit +
-                    ", smsText='" + smsText + '\'' +
+                    ", smsText=" + Redaction.text(smsText) +
                     ", needBlock=" + needBlock +
                     '}';
         }
@@ -0,0 +1,29 @@
+package com.zvonbot.interview.dto.zvonobot;
+
+import com.fasterxml.jackson.annotation.JsonAnyGetter;
+import com.fasterxml.jackson.annotation.JsonAnySetter;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Элемент ответа Звонобота с типизированными полями. Поля, которые сервису не нужны,
+ * сохраняются как есть и возвращаются клиенту без изменений.
+ */
+public abstract class ZvonobotItem {
+    
+    private Map<String, Object> otherFields;
+    
+    @JsonAnyGetter
+    public Map<String, Object> getOtherFields() {
+        return otherFields;
+    }
+    
+    @JsonAnySetter
+    public void setOtherField(String name, Object value) {
+        if (otherFields == null) {
+            otherFields = new LinkedHashMap<>();
+        }
+        otherFields.put(name, value);
+    }
+}
@@ -0,0 +1,24 @@
+package com.zvonbot.interview.dto.zvonobot;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Исходящий номер из ответа /apiCalls/getPhones
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ZvonobotPhone extends ZvonobotItem {
+    
+    @JsonProperty("phone")
+    private String phone;
+    
+    public ZvonobotPhone() {}
+    
+    public String getPhone() {
+        return phone;
+    }
+    
+    public void setPhone(String phone) {
+        this.phone = phone;
+    }
+}
@@ -0,0 +1,42 @@
+package com.zvonbot.interview.dto.zvonobot;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.math.BigDecimal;
+
+/**
+ * Профиль аккаунта из ответа /apiCalls/userInfo
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ZvonobotProfile extends ZvonobotItem {
+    
+    @JsonProperty("email")
+    private String email;
+    
+    @JsonProperty("balance")
+    private BigDecimal balance;
+    
+    public ZvonobotProfile() {}
+    
+    public ZvonobotProfile(String email, BigDecimal balance) {
+        this.email = email;
+        this.balance = balance;
+    }
+    
+    public String getEmail() {
+        return email;
+    }
+    
+    public void setEmail(String email) {
+        this.email = email;
+    }
+    
+    public BigDecimal getBalance() {
+        return balance;
+    }
+    
+    public void setBalance(BigDecimal balance) {
+        this.balance = balance;
+    }
+}
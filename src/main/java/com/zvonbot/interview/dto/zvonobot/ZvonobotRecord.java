@@ -0,0 +1,51 @@
+package com.zvonbot.interview.dto.zvonobot;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Аудиофайл из ответа /apiCalls/getRecords
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ZvonobotRecord extends ZvonobotItem {
+    
+    @JsonProperty("id")
+    private Integer id;
+    
+    @JsonProperty("name")
+    private String name;
+    
+    @JsonProperty("text")
+    private String text;
+    
+    public ZvonobotRecord() {}
+    
+    public ZvonobotRecord(Integer id, String text) {
+        this.id = id;
+        this.text = text;
+    }
+    
+    public Integer getId() {
+        return id;
+    }
+    
+    public void setId(Integer id) {
+        this.id = id;
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public void setName(String name) {
+        this.name = name;
+    }
+    
+    public String getText() {
+        return text;
+    }
+    
+    public void setText(String text) {
+        this.text = text;
+    }
+}
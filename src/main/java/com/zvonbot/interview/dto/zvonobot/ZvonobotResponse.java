@@ -1,5 +1,6 @@
 package com.zvonbot.interview.dto.zvonobot;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
@@ -15,6 +16,12 @@ public class ZvonobotResponse {
     @JsonProperty("data")
     private Object data;
     
+    /**
+     * Версия закэшированного ответа для условных запросов (If-None-Match)
+     */
+    @JsonIgnore
+    private String etag;
+    
     public ZvonobotResponse() {}
     
     public String getResult() {
@@ -41,6 +48,14 @@ public class ZvonobotResponse {
         this.data = data;
     }
     
+    public String getEtag() {
+        return etag;
+    }
+    
+    public void setEtag(String etag) {
+        this.etag = etag;
+    }
+    
     public boolean isSuccess() {
         // API Звонобота возвращает "ok" при успехе, но также может возвращать null при успешном ответе
         // если есть данные пользователя и нет ошибки, считаем ответ успешным
@@ -0,0 +1,11 @@
+package com.zvonbot.interview.exception;
+
+/**
+ * Запрос к API Звонобота отклонён до отправки, поэтому его можно безопасно повторить позже
+ */
+public abstract class CallRejectedException extends RuntimeException {
+
+    protected CallRejectedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,11 @@
+package com.zvonbot.interview.exception;
+
+/**
+ * API Звонобота недавно отвечал ошибками, запросы временно не отправляются
+ */
+public class CircuitBreakerOpenException extends CallRejectedException {
+
+    public CircuitBreakerOpenException(String name, long retryAfterSeconds) {
+        super("API Звонобота временно недоступен (" + name + "), повторите через " + retryAfterSeconds + " с");
+    }
+}
@@ -0,0 +1,11 @@
+package com.zvonbot.interview.exception;
+
+/**
+ * Слишком много одновременных запросов к Звоноботу ждут свободного места
+ */
+public class ConcurrencyLimitExceededException extends CallRejectedException {
+
+    public ConcurrencyLimitExceededException(String limiter) {
+        super("Слишком много одновременных запросов к API Звонобота (" + limiter + "), повторите позже");
+    }
+}
@@ -0,0 +1,11 @@
+package com.zvonbot.interview.exception;
+
+/**
+ * Узел-владелец номера не смог выполнить пересланную отправку
+ */
+public class ForwardFailedException extends RuntimeException {
+
+    public ForwardFailedException(String message) {
+        super(message);
+    }
+}
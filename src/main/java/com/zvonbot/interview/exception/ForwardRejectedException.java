@@ -0,0 +1,11 @@
+package com.zvonbot.interview.exception;
+
+/**
+ * Узел-владелец номера отклонил пересланную отправку до вызова Звонобота, например по лимиту
+ */
+public class ForwardRejectedException extends CallRejectedException {
+
+    public ForwardRejectedException(String message) {
+        super(message);
+    }
+}
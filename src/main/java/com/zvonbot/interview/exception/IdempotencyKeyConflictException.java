@@ -0,0 +1,11 @@
+package com.zvonbot.interview.exception;
+
+/**
+ * Ключ идемпотентности повторно использован для запроса с другим содержимым
+ */
+public class IdempotencyKeyConflictException extends RuntimeException {
+    
+    public IdempotencyKeyConflictException(String key) {
+        super("Ключ идемпотентности " + key + " уже использован для другого запроса");
+    }
+}
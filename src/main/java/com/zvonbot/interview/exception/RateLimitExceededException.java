@@ -0,0 +1,11 @@
+package com.zvonbot.interview.exception;
+
+/**
+ * Очередь ожидания ограничителя частоты запросов к Звоноботу переполнена
+ */
+public class RateLimitExceededException extends CallRejectedException {
+
+    public RateLimitExceededException(String limiter) {
+        super("Превышен лимит запросов к API Звонобота (" + limiter + "), повторите позже");
+    }
+}
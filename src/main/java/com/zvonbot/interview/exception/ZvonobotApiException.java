@@ -0,0 +1,26 @@
+package com.zvonbot.interview.exception;
+
+/**
+ * API Звонобота ответил HTTP-ошибкой. Ошибка в теле потокового ответа
+ * ({@code result != ok}) передаётся с кодом 200.
+ */
+public class ZvonobotApiException extends RuntimeException {
+
+    private final int status;
+
+    public ZvonobotApiException(int status, String message) {
+        super("API ошибка: " + message);
+        this.status = status;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    /**
+     * @return true, если ошибка на стороне Звонобота, а не в самом запросе
+     */
+    public boolean isServerError() {
+        return status >= 500 || status == 429;
+    }
+}
@@ -0,0 +1,174 @@
+package com.zvonbot.interview.idempotency;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Дисковое хранилище результатов, вытесненных из памяти {@link IdempotencyStore}.
+ *
+ * <p>Результаты дописываются строками JSON в файлы, каждый из которых покрывает интервал
+ * длиной ttl. В памяти остаётся только указатель на строку. Файл удаляется целиком, когда
+ * все его записи гарантированно истекли, то есть через два интервала. При запуске указатели
+ * восстанавливаются по оставшимся файлам, поэтому повторы распознаются и после перезапуска.
+ */
+class IdempotencySpill implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencySpill.class);
+
+    private static final String FILE_PREFIX = "spill-";
+    private static final String FILE_SUFFIX = ".jsonl";
+
+    private final Path directory;
+    private final long bucketMillis;
+    private final ObjectMapper objectMapper;
+    private final Map<String, Pointer> index = new ConcurrentHashMap<>();
+
+    private FileChannel current;
+    private long currentBucket = -1;
+
+    IdempotencySpill(Path directory, Duration ttl, ObjectMapper objectMapper) throws IOException {
+        this.directory = directory;
+        this.bucketMillis = Math.max(1, ttl.toMillis());
+        this.objectMapper = objectMapper;
+        Files.createDirectories(directory);
+        rebuildIndex();
+    }
+
+    synchronized void write(StoredResponse response) throws IOException {
+        long bucket = System.currentTimeMillis() / bucketMillis;
+        if (bucket != currentBucket) {
+            rotate(bucket);
+        }
+        byte[] line = objectMapper.writeValueAsBytes(response);
+        long offset = current.size();
+        current.write(ByteBuffer.wrap(line), offset);
+        current.write(ByteBuffer.wrap(new byte[]{'\n'}), offset + line.length);
+        index.put(response.getKey(), new Pointer(bucket, offset, line.length));
+    }
+
+    /**
+     * @return сохранённый результат или null, если ключ не найден или истёк
+     */
+    StoredResponse read(String key) throws IOException {
+        Pointer pointer = index.get(key);
+        if (pointer == null) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(pointer.length());
+        try (FileChannel channel = FileChannel.open(file(pointer.bucket()), StandardOpenOption.READ)) {
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, pointer.offset() + buffer.position()) < 0) {
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            index.remove(key, pointer);
+            throw e;
+        }
+        StoredResponse response = objectMapper.readValue(buffer.array(), StoredResponse.class);
+        if (response.getExpiresAt() <= System.currentTimeMillis()) {
+            index.remove(key, pointer);
+            return null;
+        }
+        return response;
+    }
+
+    int size() {
+        return index.size();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (current != null) {
+            current.close();
+        }
+    }
+
+    private void rotate(long bucket) throws IOException {
+        if (current != null) {
+            current.close();
+        }
+        current = FileChannel.open(file(bucket), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.READ);
+        currentBucket = bucket;
+
+        // Записи файла истекают не позже чем через интервал после его закрытия
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                long fileBucket = bucketOf(file);
+                if (fileBucket >= 0 && fileBucket < bucket - 1) {
+                    Files.deleteIfExists(file);
+                    index.values().removeIf(pointer -> pointer.bucket() == fileBucket);
+                }
+            }
+        }
+    }
+
+    private void rebuildIndex() throws IOException {
+        long oldestLive = System.currentTimeMillis() / bucketMillis - 1;
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files.sorted()::iterator) {
+                long bucket = bucketOf(file);
+                if (bucket < 0) {
+                    continue;
+                }
+                if (bucket < oldestLive) {
+                    Files.deleteIfExists(file);
+                    continue;
+                }
+                indexFile(file, bucket);
+            }
+        }
+        if (!index.isEmpty()) {
+            logger.info("Восстановлено {} ключей идемпотентности из {}", index.size(), directory.toAbsolutePath());
+        }
+    }
+
+    private void indexFile(Path file, long bucket) throws IOException {
+        byte[] content = Files.readAllBytes(file);
+        int start = 0;
+        for (int i = 0; i < content.length; i++) {
+            if (content[i] != '\n') {
+                continue;
+            }
+            int length = i - start;
+            try {
+                StoredResponse response = objectMapper.readValue(content, start, length, StoredResponse.class);
+                index.put(response.getKey(), new Pointer(bucket, start, length));
+            } catch (IOException e) {
+                logger.warn("Пропущена повреждённая строка в {}: {}", file.getFileName(), e.getMessage());
+            }
+            start = i + 1;
+        }
+    }
+
+    private Path file(long bucket) {
+        return directory.resolve(FILE_PREFIX + bucket + FILE_SUFFIX);
+    }
+
+    private static long bucketOf(Path file) {
+        String name = file.getFileName().toString();
+        if (!name.startsWith(FILE_PREFIX) || !name.endsWith(FILE_SUFFIX)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(name.substring(FILE_PREFIX.length(), name.length() - FILE_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private record Pointer(long bucket, long offset, int length) {}
+}
@@ -0,0 +1,259 @@
+package com.zvonbot.interview.idempotency;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zvonbot.interview.dto.ApiResponse;
+import com.zvonbot.interview.exception.CallRejectedException;
+import com.zvonbot.interview.exception.IdempotencyKeyConflictException;
+import com.zvonbot.interview.exception.ZvonobotApiException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Хранилище результатов запросов с заголовком {@code Idempotency-Key}.
+ *
+ * <p>Первый запрос с ключом выполняет действие, повторы с тем же ключом получают сохранённый
+ * ответ. Повторы, пришедшие пока первый запрос ещё выполняется, ждут его результат. Ключ
+ * освобождается только после ошибок, которые точно случились до отправки: отказ ограничителя
+ * или предохранителя ({@link CallRejectedException}) и неудавшееся соединение. После остальных
+ * ошибок (таймаут, разрыв соединения, 5xx) сообщение могло уйти, поэтому сохраняется ответ
+ * «исход неизвестен», и повторы с тем же ключом получают его до истечения ttl.
+ *
+ * <p>В памяти хранится не более {@code max-entries} результатов; при переполнении самые старые
+ * завершённые результаты вытесняются на диск, если включён {@code spill}, иначе забываются.
+ * Выполняющиеся запросы не вытесняются, но и не задерживают вытеснение завершённых, поэтому
+ * сверх {@code max-entries} в памяти могут быть только они. Через {@code ttl} результат истекает.
+ */
+@Component
+public class IdempotencyStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyStore.class);
+
+    @Value("${zvonobot.idempotency.ttl:24h}")
+    private Duration ttl;
+
+    @Value("${zvonobot.idempotency.max-entries:100000}")
+    private int maxEntries;
+
+    @Value("${zvonobot.idempotency.spill.enabled:false}")
+    private boolean spillEnabled;
+
+    @Value("${zvonobot.idempotency.spill.directory:data/idempotency}")
+    private Path spillDirectory;
+
+    private final ObjectMapper objectMapper;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    /** Завершённые записи в порядке завершения */
+    private final Queue<Entry> completedOrder = new ArrayDeque<>();
+    private final LongAdder replays = new LongAdder();
+    private final LongAdder spilled = new LongAdder();
+    private final LongAdder inDoubt = new LongAdder();
+    private IdempotencySpill spill;
+
+    @Autowired
+    public IdempotencyStore(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (spillEnabled) {
+            spill = new IdempotencySpill(spillDirectory, ttl, objectMapper);
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws IOException {
+        if (spill != null) {
+            spill.close();
+        }
+    }
+
+    /**
+     * Выполняет действие один раз для ключа.
+     *
+     * @param key значение заголовка Idempotency-Key
+     * @param fingerprint отпечаток содержимого запроса; повтор с другим отпечатком отклоняется
+     * @param action действие, результат которого нужно сохранить
+     * @return Mono с исходным или сохранённым ответом
+     */
+    public Mono<ResponseEntity<ApiResponse>> execute(String key, String fingerprint,
+                                                     Supplier<Mono<ResponseEntity<ApiResponse>>> action) {
+        return Mono.defer(() -> {
+            Entry entry = new Entry(key, fingerprint, System.currentTimeMillis() + ttl.toMillis());
+            Entry existing = entries.putIfAbsent(key, entry);
+            while (existing != null && existing.isExpired()) {
+                entries.remove(key, existing);
+                existing = entries.putIfAbsent(key, entry);
+            }
+            if (existing != null) {
+                return replay(existing, fingerprint);
+            }
+
+            evict();
+            lookupSpill(key)
+                    .flatMap(stored -> stored.getFingerprint().equals(fingerprint)
+                            ? Mono.just(new Outcome(stored, true))
+                            : Mono.error(new IdempotencyKeyConflictException(key)))
+                    .switchIfEmpty(Mono.defer(action).map(response -> new Outcome(new StoredResponse(key, fingerprint,
+                            response.getStatusCode().value(), response.getBody(), entry.expiresAt), false)))
+                    .subscribe(outcome -> complete(entry, outcome), error -> {
+                        if (error instanceof IdempotencyKeyConflictException || isNotSent(error)) {
+                            entries.remove(key, entry);
+                            entry.result.tryEmitError(error);
+                            return;
+                        }
+                        complete(entry, new Outcome(new StoredResponse(key, fingerprint, HttpStatus.OK.value(),
+                                failure(key, error), entry.expiresAt), false));
+                    });
+            // Первый запрос тоже читает результат из entry: действие доработает, даже если клиент отключится
+            return entry.result.asMono().map(outcome -> {
+                if (outcome.fromSpill()) {
+                    replays.increment();
+                    return replayed(outcome.stored());
+                }
+                return ResponseEntity.status(outcome.stored().getStatus()).body(outcome.stored().getBody());
+            });
+        });
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("entries", entries.size());
+        stats.put("replays", replays.sum());
+        stats.put("spilled", spilled.sum());
+        stats.put("inDoubt", inDoubt.sum());
+        stats.put("spillEntries", spill != null ? spill.size() : 0);
+        return stats;
+    }
+
+    private Mono<ResponseEntity<ApiResponse>> replay(Entry entry, String fingerprint) {
+        if (!entry.fingerprint.equals(fingerprint)) {
+            return Mono.error(new IdempotencyKeyConflictException(entry.key));
+        }
+        replays.increment();
+        return entry.result.asMono().map(outcome -> replayed(outcome.stored()));
+    }
+
+    private ResponseEntity<ApiResponse> replayed(StoredResponse stored) {
+        return ResponseEntity.status(stored.getStatus())
+                .header("Idempotent-Replayed", "true")
+                .body(stored.getBody());
+    }
+
+    private Mono<StoredResponse> lookupSpill(String key) {
+        if (spill == null) {
+            return Mono.empty();
+        }
+        return Mono.fromCallable(() -> spill.read(key))
+                .subscribeOn(Schedulers.boundedElastic())
+                .onErrorResume(error -> {
+                    logger.warn("Не удалось прочитать ключ идемпотентности {} с диска: {}", key, error.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    /**
+     * @return true, если запрос точно не дошёл до Звонобота и его можно повторить с тем же ключом
+     */
+    private static boolean isNotSent(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof CallRejectedException || cause instanceof ConnectException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Ответ на ошибку, после которой сообщение могло быть отправлено. Отказ Звонобота с кодом 4xx
+     * окончателен, в остальных случаях исход неизвестен.
+     */
+    private ApiResponse failure(String key, Throwable error) {
+        if (error instanceof ZvonobotApiException apiError && !apiError.isServerError()) {
+            return ApiResponse.error(error.getMessage());
+        }
+        logger.warn("Исход запроса с ключом идемпотентности {} неизвестен: {}", key, error.getMessage());
+        inDoubt.increment();
+        return ApiResponse.error("Исход отправки неизвестен, повтор с тем же ключом её не выполнит: " + error.getMessage());
+    }
+
+    private void complete(Entry entry, Outcome outcome) {
+        entry.complete(outcome);
+        synchronized (this) {
+            completedOrder.add(entry);
+        }
+        evict();
+    }
+
+    /**
+     * Вытесняет самые старые завершённые записи: истёкшие удаляются, при переполнении
+     * переносятся на диск. Незавершённых записей в очереди нет, поэтому зависший запрос
+     * вытеснение не останавливает.
+     */
+    private synchronized void evict() {
+        long now = System.currentTimeMillis();
+        Entry eldest;
+        while ((eldest = completedOrder.peek()) != null) {
+            boolean expired = eldest.expiresAt <= now;
+            if (!expired && entries.size() <= maxEntries) {
+                break;
+            }
+            completedOrder.poll();
+            if (entries.remove(eldest.key, eldest) && !expired && spill != null) {
+                try {
+                    spill.write(eldest.stored);
+                    spilled.increment();
+                } catch (IOException e) {
+                    logger.warn("Не удалось сохранить ключ идемпотентности {} на диск: {}", eldest.key, e.getMessage());
+                }
+            }
+        }
+    }
+
+    private static final class Entry {
+        final String key;
+        final String fingerprint;
+        final long expiresAt;
+        final Sinks.One<Outcome> result = Sinks.one();
+        volatile StoredResponse stored;
+
+        Entry(String key, String fingerprint, long expiresAt) {
+            this.key = key;
+            this.fingerprint = fingerprint;
+            this.expiresAt = expiresAt;
+        }
+
+        void complete(Outcome outcome) {
+            stored = outcome.stored();
+            result.tryEmitValue(outcome);
+        }
+
+        boolean isExpired() {
+            return expiresAt <= System.currentTimeMillis();
+        }
+    }
+
+    private record Outcome(StoredResponse stored, boolean fromSpill) {}
+}
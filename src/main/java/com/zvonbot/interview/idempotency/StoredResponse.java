@@ -0,0 +1,68 @@
+package com.zvonbot.interview.idempotency;
+
+import com.zvonbot.interview.dto.ApiResponse;
+
+/**
+ * Сохранённый результат запроса с ключом идемпотентности
+ */
+public class StoredResponse {
+
+    private String key;
+    private String fingerprint;
+    private int status;
+    private ApiResponse body;
+    private long expiresAt;
+
+    public StoredResponse() {}
+
+    public StoredResponse(String key, String fingerprint, int status, ApiResponse body, long expiresAt) {
+        this.key = key;
+        this.fingerprint = fingerprint;
+        this.status = status;
+        this.body = body;
+        this.expiresAt = expiresAt;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public void setKey(String key) {
+        this.key = key;
+    }
+
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    public void setFingerprint(String fingerprint) {
+        this.fingerprint = fingerprint;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public void setStatus(int status) {
+        this.status = status;
+    }
+
+    public ApiResponse getBody() {
+        return body;
+    }
+
+    public void setBody(ApiResponse body) {
+        this.body = body;
+    }
+
+    /**
+     * @return момент истечения в миллисекундах с эпохи
+     */
+    public long getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(long expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+}
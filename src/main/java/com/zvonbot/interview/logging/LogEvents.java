@@ -0,0 +1,29 @@
+package com.zvonbot.interview.logging;
+
+import org.slf4j.Marker;
+import org.slf4j.MarkerFactory;
+
+/**
+ * Типы событий журнала. Для каждого типа в {@code zvonobot.logging.sampling} можно задать
+ * долю записываемых событий уровня INFO и ниже, см. {@link SamplingTurboFilter}.
+ */
+public final class LogEvents {
+
+    /**
+     * Итог отправки одного сообщения - одна строка на запрос
+     */
+    public static final Marker SEND = MarkerFactory.getMarker("SEND");
+
+    /**
+     * Входящие запросы к информационным и пакетным эндпоинтам
+     */
+    public static final Marker REQUEST = MarkerFactory.getMarker("REQUEST");
+
+    /**
+     * Ответы API Звонобота целиком
+     */
+    public static final Marker UPSTREAM = MarkerFactory.getMarker("UPSTREAM");
+
+    private LogEvents() {
+    }
+}
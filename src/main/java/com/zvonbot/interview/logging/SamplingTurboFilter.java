@@ -0,0 +1,52 @@
+package com.zvonbot.interview.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.Marker;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Записывает только часть событий каждого типа ({@link LogEvents}).
+ *
+ * <p>Доли задаются строкой вида {@code SEND=1.0,REQUEST=0.1}. Решение принимается до
+ * форматирования сообщения, поэтому отброшенное событие почти ничего не стоит. События
+ * уровня WARN и выше, а также события без маркера или с маркером без заданной доли
+ * записываются всегда.
+ */
+public class SamplingTurboFilter extends TurboFilter {
+
+    private Map<String, Double> rates = Map.of();
+
+    public void setRates(String rates) {
+        Map<String, Double> parsed = new HashMap<>();
+        for (String pair : rates.split(",")) {
+            int separator = pair.indexOf('=');
+            if (separator < 0) {
+                continue;
+            }
+            try {
+                parsed.put(pair.substring(0, separator).trim(), Double.parseDouble(pair.substring(separator + 1).trim()));
+            } catch (NumberFormatException e) {
+                addWarn("Неверная доля для события " + pair);
+            }
+        }
+        this.rates = Map.copyOf(parsed);
+    }
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        if (marker == null || level == null || level.isGreaterOrEqual(Level.WARN)) {
+            return FilterReply.NEUTRAL;
+        }
+        Double rate = rates.get(marker.getName());
+        if (rate == null || rate >= 1.0) {
+            return FilterReply.NEUTRAL;
+        }
+        return ThreadLocalRandom.current().nextDouble() < rate ? FilterReply.NEUTRAL : FilterReply.DENY;
+    }
+}
@@ -0,0 +1,115 @@
+package com.zvonbot.interview.metrics;
+
+import com.zvonbot.interview.dto.zvonobot.ZvonobotResponse;
+import com.zvonbot.interview.exception.ZvonobotApiException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Метрики запросов к API Звонобота.
+ *
+ * <p>Для каждого метода API ({@code uri}) ведётся таймер {@value #REQUESTS} с признаком результата
+ * ({@code outcome}): {@code success}, {@code api_error} - Звонобот ответил {@code result != ok},
+ * {@code http_error} - ответ с кодом 4xx/5xx, {@code transport_error} - сбой сети или таймаут,
+ * {@code cancelled} - запрос отменён, например проигравший дублирующий запрос. Число запросов
+ * с каждым результатом - счётчик этого таймера. Запросы, отклонённые ограничителями
+ * до отправки, сюда не попадают.
+ */
+@Component
+public class UpstreamMetrics {
+
+    public static final String REQUESTS = "zvonobot.api.requests";
+    public static final String IN_FLIGHT = "zvonobot.api.in.flight";
+
+    private static final String SUCCESS = "success";
+    private static final String API_ERROR = "api_error";
+    private static final String HTTP_ERROR = "http_error";
+    private static final String TRANSPORT_ERROR = "transport_error";
+    private static final String CANCELLED = "cancelled";
+
+    private final MeterRegistry registry;
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> inFlight = new ConcurrentHashMap<>();
+
+    public UpstreamMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Замеряет время ответа на каждую подписку на {@code call}
+     */
+    public Mono<ZvonobotResponse> record(String uri, Mono<ZvonobotResponse> call) {
+        return Mono.defer(() -> {
+            AtomicInteger active = inFlight(uri);
+            active.incrementAndGet();
+            long start = System.nanoTime();
+            return call
+                    .doOnSuccess(response -> stop(uri, start,
+                            response != null && response.isSuccess() ? SUCCESS : API_ERROR))
+                    .doOnError(error -> stop(uri, start,
+                            error instanceof ZvonobotApiException ? HTTP_ERROR : TRANSPORT_ERROR))
+                    .doOnCancel(() -> stop(uri, start, CANCELLED))
+                    .doFinally(signal -> active.decrementAndGet());
+        });
+    }
+
+    /**
+     * Замеряет время потокового ответа до последнего элемента на каждую подписку на {@code call}.
+     * Ошибка API в теле ответа приходит как {@link ZvonobotApiException} с кодом 200. Отмена после
+     * первого элемента считается успехом: получатель взял, что ему нужно, и остальное не читает.
+     */
+    public <T> Flux<T> record(String uri, Flux<T> call) {
+        return Flux.defer(() -> {
+            AtomicInteger active = inFlight(uri);
+            active.incrementAndGet();
+            long start = System.nanoTime();
+            AtomicBoolean received = new AtomicBoolean();
+            return call
+                    .doOnNext(element -> received.set(true))
+                    .doOnComplete(() -> stop(uri, start, SUCCESS))
+                    .doOnError(error -> stop(uri, start, error instanceof ZvonobotApiException apiError
+                            ? apiError.getStatus() < 400 ? API_ERROR : HTTP_ERROR
+                            : TRANSPORT_ERROR))
+                    .doOnCancel(() -> stop(uri, start, received.get() ? SUCCESS : CANCELLED))
+                    .doFinally(signal -> active.decrementAndGet());
+        });
+    }
+
+    /**
+     * Регистрирует показатель аккаунта, значение которого читается при каждом сборе метрик
+     */
+    public void gauge(String name, String uri, String account, Supplier<Number> value) {
+        Gauge.builder(name, value).tag("uri", uri).tag("account", account).register(registry);
+    }
+
+    private void stop(String uri, long startNanos, String outcome) {
+        timers.computeIfAbsent(uri + ' ' + outcome, key -> Timer.builder(REQUESTS)
+                        .description("Время ответа API Звонобота")
+                        .tag("uri", uri)
+                        .tag("outcome", outcome)
+                        .register(registry))
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private AtomicInteger inFlight(String uri) {
+        return inFlight.computeIfAbsent(uri, key -> {
+            AtomicInteger value = new AtomicInteger();
+            Gauge.builder(IN_FLIGHT, value, AtomicInteger::get)
+                    .description("Запросы к API Звонобота, ожидающие ответа")
+                    .tag("uri", key)
+                    .register(registry);
+            return value;
+        });
+    }
+}
@@ -0,0 +1,113 @@
+package com.zvonbot.interview.queue;
+
+import com.zvonbot.interview.exception.CallRejectedException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Поток, который забирает задания из источника и запускает их, удерживая в работе не более
+ * {@code workers} заданий. Следующее задание не ждёт завершения предыдущего. Когда источник пуст,
+ * поток засыпает до {@link #wakeUp()}, но не дольше 100 мс.
+ *
+ * <p>Общая часть {@link JournalDrainer} и отложенной отправки: они отличаются только тем,
+ * откуда берутся задания.
+ */
+public class BoundedDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(BoundedDispatcher.class);
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final Duration REJECTED_RETRY_MIN = Duration.ofSeconds(1);
+    private static final Duration REJECTED_RETRY_MAX = Duration.ofSeconds(30);
+    private static final Duration STOP_WAIT = Duration.ofSeconds(10);
+
+    private final String name;
+    private final int workers;
+    private final Supplier<Mono<?>> source;
+    private final Semaphore permits;
+
+    private Thread thread;
+    private volatile boolean running;
+
+    /**
+     * @param name имя потока
+     * @param source следующее задание или null, если заданий пока нет; вызывается только из потока диспетчера
+     */
+    public BoundedDispatcher(String name, int workers, Supplier<Mono<?>> source) {
+        this.name = name;
+        this.workers = workers;
+        this.source = source;
+        this.permits = new Semaphore(workers);
+    }
+
+    public void start() {
+        running = true;
+        thread = new Thread(this::run, name);
+        thread.start();
+    }
+
+    /**
+     * Останавливает поток и ждёт завершения начатых заданий, но не дольше 10 секунд
+     */
+    public void stop() throws InterruptedException {
+        if (!running) {
+            return;
+        }
+        running = false;
+        thread.interrupt();
+        thread.join();
+        // Даём завершиться уже начатым отправкам, чтобы не повторять их после перезапуска
+        if (permits.tryAcquire(workers, STOP_WAIT.toMillis(), TimeUnit.MILLISECONDS)) {
+            permits.release(workers);
+        }
+    }
+
+    /**
+     * Будит поток после появления задания в источнике
+     */
+    public void wakeUp() {
+        LockSupport.unpark(thread);
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Повтор отправки, отклонённой до обращения к API (лимит, предохранитель), пока диспетчер не остановлен.
+     * Задание удерживает место в работе, поэтому при перегрузке выборка новых заданий замедляется.
+     */
+    public Retry rejectedRetry() {
+        return Retry.backoff(Long.MAX_VALUE, REJECTED_RETRY_MIN)
+                .maxBackoff(REJECTED_RETRY_MAX)
+                .filter(error -> running && error instanceof CallRejectedException);
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                return;
+            }
+
+            Mono<?> task = source.get();
+            if (task == null) {
+                permits.release();
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+                continue;
+            }
+
+            task.doFinally(signal -> permits.release())
+                    .subscribe(null, error -> logger.error("Ошибка задания в {}: {}", name, error.getMessage()));
+        }
+    }
+}
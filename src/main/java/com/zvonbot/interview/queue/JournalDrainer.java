@@ -0,0 +1,147 @@
+package com.zvonbot.interview.queue;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.LongConsumer;
+
+/**
+ * Читает {@link SendJournal} в {@link BoundedDispatcher} и передаёт записи обработчику,
+ * удерживая в работе не более {@code workers} записей.
+ *
+ * <p>Контрольная точка указывает на самую раннюю незавершённую запись, поэтому после
+ * перезапуска чтение продолжается с того же места. Записи, которые были в работе
+ * в момент сбоя, будут обработаны повторно.
+ */
+public class JournalDrainer {
+
+    private static final Logger logger = LoggerFactory.getLogger(JournalDrainer.class);
+
+    private final String name;
+    private final SendJournal journal;
+    private final Function<SendJournal.Entry, Mono<?>> handler;
+    private final BoundedDispatcher dispatcher;
+    private final ConcurrentSkipListSet<Long> inFlight = new ConcurrentSkipListSet<>();
+
+    private LongConsumer checkpointListener = position -> { };
+    private ScheduledFuture<?> checkpointTask;
+    private volatile long readPosition;
+
+    /**
+     * @param name имя потока чтения
+     * @param handler обработка записи; следующая запись не ждёт завершения предыдущей
+     */
+    public JournalDrainer(String name, SendJournal journal, int workers, Function<SendJournal.Entry, Mono<?>> handler) {
+        this.name = name;
+        this.journal = journal;
+        this.handler = handler;
+        this.dispatcher = new BoundedDispatcher(name, workers, this::next);
+    }
+
+    /**
+     * Вызывается перед сохранением каждой контрольной точки с её позицией: все записи до неё
+     * обработаны и после перезапуска не повторятся
+     */
+    public void setCheckpointListener(LongConsumer checkpointListener) {
+        this.checkpointListener = checkpointListener;
+    }
+
+    /**
+     * Продолжает чтение с контрольной точки журнала
+     *
+     * @param scheduler планировщик периодического сохранения контрольной точки
+     */
+    public void start(ScheduledExecutorService scheduler, Duration checkpointInterval) throws IOException {
+        readPosition = journal.readCheckpoint();
+        dispatcher.start();
+        checkpointTask = scheduler.scheduleWithFixedDelay(this::checkpoint,
+                checkpointInterval.toMillis(), checkpointInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Останавливает чтение, ждёт завершения начатых записей и сохраняет контрольную точку
+     */
+    public void stop() throws InterruptedException {
+        if (!dispatcher.isRunning()) {
+            return;
+        }
+        dispatcher.stop();
+        checkpointTask.cancel(false);
+        checkpoint();
+    }
+
+    /**
+     * Будит поток чтения после добавления записи в журнал
+     */
+    public void wakeUp() {
+        dispatcher.wakeUp();
+    }
+
+    public boolean isRunning() {
+        return dispatcher.isRunning();
+    }
+
+    /**
+     * @return true, если все записанные в журнал записи прочитаны и обработаны
+     */
+    public boolean isIdle() {
+        // Сначала конец журнала: запись попадает в inFlight раньше, чем сдвигается readPosition
+        return journal.read(readPosition) == null && inFlight.isEmpty();
+    }
+
+    public long getReadPosition() {
+        return readPosition;
+    }
+
+    public int getInFlight() {
+        return inFlight.size();
+    }
+
+    /**
+     * @see BoundedDispatcher#rejectedRetry()
+     */
+    public Retry rejectedRetry() {
+        return dispatcher.rejectedRetry();
+    }
+
+    private Mono<?> next() {
+        SendJournal.Entry entry = journal.read(readPosition);
+        if (entry == null) {
+            return null;
+        }
+
+        // Позиция помечается незавершённой до сдвига readPosition, чтобы контрольная точка её не пропустила
+        inFlight.add(entry.position());
+        readPosition = entry.nextPosition();
+
+        // Запись снимается с учёта до освобождения места в диспетчере: остановка ждёт именно его
+        return Mono.defer(() -> handler.apply(entry))
+                .doOnError(error -> logger.error("Ошибка обработки записи {} в {}: {}",
+                        entry.position(), name, error.getMessage()))
+                .onErrorComplete()
+                .doOnTerminate(() -> inFlight.remove(entry.position()));
+    }
+
+    private synchronized void checkpoint() {
+        long position = readPosition;
+        Long earliest = inFlight.ceiling(Long.MIN_VALUE);
+        if (earliest != null && earliest < position) {
+            position = earliest;
+        }
+        try {
+            checkpointListener.accept(position);
+            journal.checkpoint(position);
+        } catch (IOException | RuntimeException e) {
+            logger.error("Не удалось сохранить контрольную точку {}: {}", name, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.zvonbot.interview.queue;
+
+import com.zvonbot.interview.dto.MessageRequest;
+import com.zvonbot.interview.dto.MessageType;
+
+/**
+ * Сообщение, сохранённое в журнале очереди отправки
+ */
+public class QueuedMessage {
+
+    private MessageType type;
+    private MessageRequest request;
+
+    public QueuedMessage() {}
+
+    public QueuedMessage(MessageType type, MessageRequest request) {
+        this.type = type;
+        this.request = request;
+    }
+
+    public MessageType getType() {
+        return type;
+    }
+
+    public void setType(MessageType type) {
+        this.type = type;
+    }
+
+    public MessageRequest getRequest() {
+        return request;
+    }
+
+    public void setRequest(MessageRequest request) {
+        this.request = request;
+    }
+}
@@ -0,0 +1,279 @@
+package com.zvonbot.interview.queue;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Сегментированный журнал с добавлением в конец, отображаемый в память.
+ *
+ * <p>Формат записи: {@code [int длина][int CRC32][данные]}. Нулевая длина означает
+ * конец записанных данных, {@link #ROLL_MARKER} — переход к следующему сегменту.
+ * Позиция записи кодируется как {@code (номер сегмента << 32) | смещение}, поэтому
+ * позиции монотонно растут и могут служить идентификаторами заданий.
+ *
+ * <p>Запись выполняется одним потоком под блокировкой журнала, чтение — без блокировки
+ * до опубликованной через volatile позиции конца данных. Прогресс читателя сохраняется
+ * в отдельном файле контрольной точки; сегменты до контрольной точки удаляются.
+ */
+public class SendJournal implements Closeable {
+
+    private static final int HEADER_SIZE = 8;
+    private static final int ROLL_MARKER = -1;
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String CHECKPOINT_FILE = "checkpoint";
+
+    private final Path directory;
+    private final int segmentSize;
+    private final boolean fsync;
+    private final ConcurrentNavigableMap<Long, MappedByteBuffer> segments = new ConcurrentSkipListMap<>();
+
+    private MappedByteBuffer writeSegment;
+    private long writeSegmentId;
+    private int writeOffset;
+    private volatile long writePosition;
+
+    /**
+     * Открывает журнал в указанном каталоге, восстанавливая позицию записи
+     * по последнему сегменту.
+     *
+     * @param directory каталог сегментов
+     * @param segmentSize размер новых сегментов в байтах
+     * @param fsync сбрасывать ли каждую запись на диск
+     */
+    public SendJournal(Path directory, int segmentSize, boolean fsync) throws IOException {
+        if (segmentSize < HEADER_SIZE * 2) {
+            throw new IllegalArgumentException("Слишком маленький размер сегмента: " + segmentSize);
+        }
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.fsync = fsync;
+
+        Files.createDirectories(directory);
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                String name = file.getFileName().toString();
+                if (name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX)) {
+                    long id = Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+                    segments.put(id, map(file, Math.max(Files.size(file), HEADER_SIZE * 2)));
+                }
+            }
+        }
+        if (segments.isEmpty()) {
+            openSegment(0);
+        }
+        recoverWritePosition();
+    }
+
+    /**
+     * Добавляет запись в конец журнала.
+     *
+     * @return позиция записи
+     */
+    public synchronized long append(byte[] payload) throws IOException {
+        int recordSize = HEADER_SIZE + payload.length;
+        if (recordSize > segmentSize) {
+            throw new IllegalArgumentException("Запись размером " + recordSize + " байт не помещается в сегмент");
+        }
+        if (writeOffset + recordSize > writeSegment.capacity()) {
+            roll();
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+
+        long position = position(writeSegmentId, writeOffset);
+        writeSegment.put(writeOffset + HEADER_SIZE, payload);
+        writeSegment.putInt(writeOffset + 4, (int) crc.getValue());
+        // Длина пишется последней: ненулевая длина означает, что запись завершена
+        writeSegment.putInt(writeOffset, payload.length);
+        if (fsync) {
+            writeSegment.force(writeOffset, recordSize);
+        }
+        writeOffset += recordSize;
+        writePosition = position(writeSegmentId, writeOffset);
+        return position;
+    }
+
+    /**
+     * Читает запись по позиции.
+     *
+     * @return запись или null, если по этой позиции ещё ничего не записано
+     */
+    public Entry read(long position) {
+        long limit = writePosition;
+        while (position < limit) {
+            long segmentId = segmentId(position);
+            int offset = offset(position);
+            MappedByteBuffer segment = segments.get(segmentId);
+            if (segment == null) {
+                // Сегмент уже удалён после контрольной точки - продолжаем с первого доступного
+                position = position(segments.firstKey(), 0);
+                continue;
+            }
+
+            int length = offset + HEADER_SIZE <= segment.capacity() ? segment.getInt(offset) : ROLL_MARKER;
+            if (length <= 0 || length > segment.capacity() - offset - HEADER_SIZE) {
+                position = position(segmentId + 1, 0);
+                continue;
+            }
+
+            byte[] payload = new byte[length];
+            segment.get(offset + HEADER_SIZE, payload);
+            long nextPosition = position(segmentId, offset + HEADER_SIZE + length);
+            boolean valid = segment.getInt(offset + 4) == crc(payload);
+            return new Entry(position, nextPosition, valid ? payload : null);
+        }
+        return null;
+    }
+
+    /**
+     * @return позиция, с которой нужно продолжить чтение после перезапуска
+     */
+    public long readCheckpoint() throws IOException {
+        long first = position(segments.firstKey(), 0);
+        Path file = directory.resolve(CHECKPOINT_FILE);
+        if (!Files.exists(file)) {
+            return first;
+        }
+        byte[] bytes = Files.readAllBytes(file);
+        if (bytes.length != Long.BYTES) {
+            return first;
+        }
+        return Math.max(first, ByteBuffer.wrap(bytes).getLong());
+    }
+
+    /**
+     * Сохраняет контрольную точку и удаляет сегменты, которые целиком находятся до неё.
+     */
+    public void checkpoint(long position) throws IOException {
+        Path tmp = directory.resolve(CHECKPOINT_FILE + ".tmp");
+        Files.write(tmp, ByteBuffer.allocate(Long.BYTES).putLong(position).array());
+        Files.move(tmp, directory.resolve(CHECKPOINT_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        long checkpointSegment = segmentId(position);
+        for (Map.Entry<Long, MappedByteBuffer> entry : segments.headMap(checkpointSegment).entrySet()) {
+            segments.remove(entry.getKey());
+            Files.deleteIfExists(segmentPath(entry.getKey()));
+        }
+    }
+
+    /**
+     * @return позиция конца записанных данных
+     */
+    public long writePosition() {
+        return writePosition;
+    }
+
+    @Override
+    public synchronized void close() {
+        writeSegment.force();
+        segments.clear();
+    }
+
+    private void roll() throws IOException {
+        if (writeOffset + Integer.BYTES <= writeSegment.capacity()) {
+            writeSegment.putInt(writeOffset, ROLL_MARKER);
+        }
+        writeSegment.force();
+        openSegment(writeSegmentId + 1);
+    }
+
+    private void openSegment(long id) throws IOException {
+        writeSegment = map(segmentPath(id), segmentSize);
+        segments.put(id, writeSegment);
+        writeSegmentId = id;
+        writeOffset = 0;
+        writePosition = position(id, 0);
+    }
+
+    /**
+     * Находит конец корректных данных в последнем сегменте. Недописанный
+     * хвост после сбоя затирается нулями, чтобы не принять его за запись.
+     */
+    private void recoverWritePosition() throws IOException {
+        long id = segments.lastKey();
+        MappedByteBuffer segment = segments.get(id);
+        int offset = 0;
+        while (offset + HEADER_SIZE <= segment.capacity()) {
+            int length = segment.getInt(offset);
+            if (length == ROLL_MARKER) {
+                openSegment(id + 1);
+                return;
+            }
+            if (length <= 0 || length > segment.capacity() - offset - HEADER_SIZE) {
+                break;
+            }
+            byte[] payload = new byte[length];
+            segment.get(offset + HEADER_SIZE, payload);
+            if (segment.getInt(offset + 4) != crc(payload)) {
+                break;
+            }
+            offset += HEADER_SIZE + length;
+        }
+
+        if (offset + HEADER_SIZE > segment.capacity()) {
+            openSegment(id + 1);
+            return;
+        }
+        if (segment.getInt(offset) != 0) {
+            for (int i = offset; i < segment.capacity(); i++) {
+                segment.put(i, (byte) 0);
+            }
+            segment.force();
+        }
+        writeSegment = segment;
+        writeSegmentId = id;
+        writeOffset = offset;
+        writePosition = position(id, offset);
+    }
+
+    private Path segmentPath(long id) {
+        return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, id, SEGMENT_SUFFIX));
+    }
+
+    private static MappedByteBuffer map(Path file, long size) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+    }
+
+    private static int crc(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    static long position(long segmentId, int offset) {
+        return (segmentId << 32) | offset;
+    }
+
+    static long segmentId(long position) {
+        return position >>> 32;
+    }
+
+    static int offset(long position) {
+        return (int) position;
+    }
+
+    /**
+     * Запись журнала.
+     *
+     * @param position позиция записи
+     * @param nextPosition позиция следующей записи
+     * @param payload данные или null, если контрольная сумма не совпала
+     */
+    public record Entry(long position, long nextPosition, byte[] payload) {}
+}
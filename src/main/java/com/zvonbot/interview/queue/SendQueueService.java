@@ -0,0 +1,173 @@
+package com.zvonbot.interview.queue;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zvonbot.interview.dto.MessageRequest;
+import com.zvonbot.interview.dto.MessageType;
+import com.zvonbot.interview.dto.zvonobot.ZvonobotResponse;
+import com.zvonbot.interview.service.ZvonobotService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Локальная очередь отправки с сохранением на диск.
+ *
+ * <p>Запросы добавляются в {@link SendJournal} и сразу подтверждаются идентификатором задания.
+ * {@link JournalDrainer} читает журнал и передаёт сообщения в {@link ZvonobotService}, удерживая в работе
+ * не более {@code zvonobot.queue.workers} отправок. После перезапуска отправка продолжается
+ * с контрольной точки, сообщения, которые были в работе в момент сбоя, будут отправлены повторно.
+ */
+@Service
+public class SendQueueService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SendQueueService.class);
+
+    @Value("${zvonobot.queue.enabled:false}")
+    private boolean enabled;
+
+    @Value("${zvonobot.queue.directory:data/send-queue}")
+    private Path directory;
+
+    @Value("${zvonobot.queue.segment-size:64MB}")
+    private DataSize segmentSize;
+
+    @Value("${zvonobot.queue.fsync:false}")
+    private boolean fsync;
+
+    @Value("${zvonobot.queue.workers:8}")
+    private int workers;
+
+    @Value("${zvonobot.queue.checkpoint-interval:1s}")
+    private Duration checkpointInterval;
+
+    private final ZvonobotService zvonobotService;
+    private final ObjectMapper objectMapper;
+
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    private SendJournal journal;
+    private JournalDrainer drainer;
+    private ScheduledExecutorService checkpointExecutor;
+    private volatile boolean running;
+
+    @Autowired
+    public SendQueueService(ZvonobotService zvonobotService, ObjectMapper objectMapper) {
+        this.zvonobotService = zvonobotService;
+        this.objectMapper = objectMapper;
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        journal = new SendJournal(directory, (int) segmentSize.toBytes(), fsync);
+        drainer = new JournalDrainer("send-queue-drainer", journal, workers, this::dispatch);
+
+        checkpointExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "send-queue-checkpoint");
+            thread.setDaemon(true);
+            return thread;
+        });
+        drainer.start(checkpointExecutor, checkpointInterval);
+        running = true;
+
+        logger.info("Очередь отправки запущена: каталог {}, позиция {}", directory.toAbsolutePath(), drainer.getReadPosition());
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (!running) {
+            return;
+        }
+        running = false;
+        drainer.stop();
+        checkpointExecutor.shutdownNow();
+        journal.close();
+        logger.info("Очередь отправки остановлена на позиции {}", drainer.getReadPosition());
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Сохраняет сообщение в журнал.
+     *
+     * @return Mono с идентификатором задания
+     */
+    public Mono<Long> enqueue(MessageType type, MessageRequest request) {
+        if (!running) {
+            return Mono.error(new IllegalStateException("Очередь отправки не запущена"));
+        }
+        return Mono.fromCallable(() -> {
+                    long jobId = journal.append(objectMapper.writeValueAsBytes(new QueuedMessage(type, request)));
+                    enqueued.incrementAndGet();
+                    drainer.wakeUp();
+                    return jobId;
+                })
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("enqueued", enqueued.get());
+        stats.put("sent", sent.get());
+        stats.put("failed", failed.get());
+        if (running) {
+            stats.put("inFlight", drainer.getInFlight());
+            stats.put("readPosition", drainer.getReadPosition());
+            stats.put("writePosition", journal.writePosition());
+        }
+        return stats;
+    }
+
+    private Mono<ZvonobotResponse> dispatch(SendJournal.Entry entry) {
+        QueuedMessage message;
+        try {
+            if (entry.payload() == null) {
+                throw new IOException("контрольная сумма не совпадает");
+            }
+            message = objectMapper.readValue(entry.payload(), QueuedMessage.class);
+        } catch (IOException e) {
+            logger.error("Пропущена повреждённая запись очереди {}: {}", entry.position(), e.getMessage());
+            failed.incrementAndGet();
+            return Mono.empty();
+        }
+
+        return zvonobotService.send(message.getType(), message.getRequest())
+                .retryWhen(drainer.rejectedRetry())
+                .doOnNext(response -> {
+                    if (response.isSuccess()) {
+                        sent.incrementAndGet();
+                    } else {
+                        failed.incrementAndGet();
+                        logger.error("Задание {} не отправлено: {}", entry.position(), response.getError());
+                    }
+                })
+                .onErrorResume(error -> {
+                    failed.incrementAndGet();
+                    logger.error("Задание {} не отправлено: {}", entry.position(), error.getMessage());
+                    return Mono.empty();
+                });
+    }
+}
@@ -0,0 +1,13 @@
+package com.zvonbot.interview.ratelimit;
+
+import java.time.Duration;
+
+/**
+ * Параметры {@link WeightedFairScheduler}.
+ *
+ * @param slots сколько запросов одновременно пропускается к ограничителям частоты и числа запросов
+ * @param maxQueued максимальное число запросов, ожидающих в очереди одного приоритета
+ * @param maxWait предельное время ожидания в очереди
+ */
+public record FairQueuePolicy(int slots, int maxQueued, Duration maxWait) {
+}
@@ -0,0 +1,24 @@
+package com.zvonbot.interview.ratelimit;
+
+import java.time.Duration;
+
+/**
+ * Параметры ограничения частоты для {@link TokenBucketRateLimiter}.
+ *
+ * @param permitsPerSecond средняя допустимая частота запросов
+ * @param burst сколько запросов можно выполнить подряд без ожидания после простоя
+ * @param maxQueued максимальное число запросов, одновременно ожидающих разрешения
+ * @param maxWait предельное время ожидания; запрос, которому пришлось бы ждать дольше, отклоняется
+ */
+public record RateLimitPolicy(double permitsPerSecond, int burst, int maxQueued, Duration maxWait) {
+
+    /**
+     * @return лимит для одного из узлов, делящих общий лимит; {@code share} - доля узла
+     */
+    public RateLimitPolicy scaled(double share) {
+        if (share >= 1) {
+            return this;
+        }
+        return new RateLimitPolicy(permitsPerSecond * share, Math.max(1, (int) Math.round(burst * share)), maxQueued, maxWait);
+    }
+}
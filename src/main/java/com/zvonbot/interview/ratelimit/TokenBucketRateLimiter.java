@@ -0,0 +1,111 @@
+package com.zvonbot.interview.ratelimit;
+
+import com.zvonbot.interview.exception.RateLimitExceededException;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Ограничитель частоты запросов по алгоритму token bucket без блокировок потоков.
+ *
+ * <p>Каждый запрос резервирует ближайший свободный момент отправки и ждёт его
+ * через {@link Mono#delay(Duration)}, поэтому очередь ожидающих не занимает потоки, а запросы
+ * выходят из неё с равным интервалом. Запас в {@code burst} разрешений накапливается во время
+ * простоя. Если ожидающих уже {@code maxQueued} или ждать пришлось бы дольше {@code maxWait},
+ * запрос сразу отклоняется с {@link RateLimitExceededException}.
+ *
+ * <p>Отменённый во время ожидания запрос своё время отправки не возвращает: следующий
+ * запрос подождёт на один интервал дольше, чем мог бы.
+ */
+public class TokenBucketRateLimiter {
+
+    private final String name;
+    private final RateLimitPolicy policy;
+    private final long intervalNanos;
+
+    private double storedPermits;
+    private long nextFreeNanos;
+
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger maxQueuedObserved = new AtomicInteger();
+    private final LongAdder acquired = new LongAdder();
+    private final LongAdder delayed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private volatile long maxWaitNanos;
+
+    public TokenBucketRateLimiter(String name, RateLimitPolicy policy) {
+        this.name = name;
+        this.policy = policy;
+        this.intervalNanos = (long) (1_000_000_000L / policy.permitsPerSecond());
+        this.storedPermits = policy.burst();
+        this.nextFreeNanos = System.nanoTime();
+    }
+
+    /**
+     * Откладывает подписку на {@code source}, пока не будет получено разрешение
+     */
+    public <T> Mono<T> throttle(Mono<T> source) {
+        return Mono.defer(() -> {
+            long waitNanos = reserve(System.nanoTime());
+            if (waitNanos < 0) {
+                rejected.increment();
+                return Mono.error(new RateLimitExceededException(name));
+            }
+            acquired.increment();
+            if (waitNanos == 0) {
+                return source;
+            }
+            delayed.increment();
+            totalWaitNanos.add(waitNanos);
+            if (waitNanos > maxWaitNanos) {
+                maxWaitNanos = waitNanos;
+            }
+            return Mono.delay(Duration.ofNanos(waitNanos))
+                    .doFinally(signal -> queued.decrementAndGet())
+                    .then(source);
+        });
+    }
+
+    public Map<String, Object> getStats() {
+        long delayedCount = delayed.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("permitsPerSecond", policy.permitsPerSecond());
+        stats.put("burst", policy.burst());
+        stats.put("queued", queued.get());
+        stats.put("maxQueued", maxQueuedObserved.get());
+        stats.put("acquired", acquired.sum());
+        stats.put("delayed", delayedCount);
+        stats.put("rejected", rejected.sum());
+        stats.put("avgWaitMillis", delayedCount == 0 ? 0 : totalWaitNanos.sum() / delayedCount / 1_000_000);
+        stats.put("maxWaitMillis", maxWaitNanos / 1_000_000);
+        return stats;
+    }
+
+    /**
+     * Резервирует разрешение.
+     *
+     * @return сколько наносекунд ждать до отправки или -1, если запрос нужно отклонить
+     */
+    private synchronized long reserve(long now) {
+        if (now - nextFreeNanos > 0) {
+            storedPermits = Math.min(policy.burst(), storedPermits + (double) (now - nextFreeNanos) / intervalNanos);
+            nextFreeNanos = now;
+        }
+        long waitNanos = nextFreeNanos - now;
+        if (waitNanos > 0) {
+            if (queued.get() >= policy.maxQueued() || waitNanos > policy.maxWait().toNanos()) {
+                return -1;
+            }
+            maxQueuedObserved.accumulateAndGet(queued.incrementAndGet(), Math::max);
+        }
+        double fromStored = Math.min(1, storedPermits);
+        storedPermits -= fromStored;
+        nextFreeNanos += (long) ((1 - fromStored) * intervalNanos);
+        return waitNanos;
+    }
+}
@@ -0,0 +1,210 @@
+package com.zvonbot.interview.ratelimit;
+
+import com.zvonbot.interview.exception.RateLimitExceededException;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * Взвешенная справедливая очередь перед ограничителями запросов к Звоноботу.
+ *
+ * <p>У каждого приоритета своя очередь. Дальше к ограничителям частоты и числа одновременных
+ * запросов пропускается не больше {@code slots} запросов; место освобождается, как только запрос
+ * прошёл их очереди и действительно отправляется. Поэтому очереди ограничителей остаются короткими,
+ * а порядок отправки решает эта очередь: следующим идёт приоритет с наименьшим виртуальным временем,
+ * которое растёт на {@code 1/вес} за каждый пропущенный запрос (stride scheduling). При весах 9 и 1
+ * срочные сообщения проходят почти без ожидания даже при полной загрузке массовыми, а массовые
+ * всё равно получают не меньше десятой части пропускной способности.
+ *
+ * <p>Запросы сверх {@code maxQueued} в очереди приоритета или ждущие дольше {@code maxWait}
+ * завершаются {@link RateLimitExceededException}.
+ */
+public class WeightedFairScheduler<L extends Enum<L>> {
+
+    private final String name;
+    private final FairQueuePolicy policy;
+    private final List<Lane<L>> lanes = new ArrayList<>();
+
+    private int inFlight;
+    private int queued;
+    private double virtualTime;
+
+    /**
+     * @param weights вес каждого приоритета; приоритеты без веса получают вес 1
+     */
+    public WeightedFairScheduler(String name, Class<L> type, Map<L, Integer> weights, FairQueuePolicy policy) {
+        this.name = name;
+        this.policy = policy;
+        for (L key : type.getEnumConstants()) {
+            int weight = weights.getOrDefault(key, 1);
+            if (weight <= 0) {
+                throw new IllegalArgumentException("Вес приоритета " + key + " должен быть положительным: " + weight);
+            }
+            lanes.add(new Lane<>(key, weight));
+        }
+    }
+
+    /**
+     * Выполняет запрос, когда до него дойдёт очередь его приоритета.
+     *
+     * @param call получает действие, освобождающее место раньше завершения запроса; его нужно
+     *             вызвать, когда запрос прошёл очереди ограничителей. Иначе место освобождается
+     *             по завершении запроса.
+     */
+    public <T> Mono<T> execute(L priority, Function<Runnable, Mono<T>> call) {
+        Lane<L> lane = lanes.get(priority.ordinal());
+        return Mono.usingWhen(acquire(lane),
+                slot -> call.apply(slot::release),
+                slot -> Mono.fromRunnable(slot::release),
+                (slot, error) -> Mono.fromRunnable(slot::release),
+                slot -> Mono.fromRunnable(slot::release));
+    }
+
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("slots", policy.slots());
+        stats.put("inFlight", inFlight);
+        for (Lane<L> lane : lanes) {
+            Map<String, Object> laneStats = new LinkedHashMap<>();
+            laneStats.put("weight", lane.weight);
+            laneStats.put("queued", lane.waiters.size());
+            laneStats.put("acquired", lane.acquired);
+            laneStats.put("rejected", lane.rejected);
+            laneStats.put("avgWaitMillis", lane.acquired == 0 ? 0 : lane.totalWaitNanos / lane.acquired / 1_000_000);
+            laneStats.put("maxWaitMillis", lane.maxWaitNanos / 1_000_000);
+            stats.put(lane.key.name(), laneStats);
+        }
+        return stats;
+    }
+
+    private Mono<Slot> acquire(Lane<L> lane) {
+        return Mono.<Slot>create(sink -> {
+                    Waiter waiter;
+                    synchronized (this) {
+                        if (inFlight < policy.slots() && queued == 0) {
+                            inFlight++;
+                            lane.acquired++;
+                            sink.success(new Slot(this));
+                            return;
+                        }
+                        if (lane.waiters.size() >= policy.maxQueued()) {
+                            lane.rejected++;
+                            sink.error(new RateLimitExceededException(name + " " + lane.key));
+                            return;
+                        }
+                        // Простаивавший приоритет не копит преимущество за время простоя
+                        if (lane.waiters.isEmpty()) {
+                            lane.pass = Math.max(lane.pass, virtualTime);
+                        }
+                        waiter = new Waiter(sink, System.nanoTime());
+                        lane.waiters.add(waiter);
+                        queued++;
+                    }
+                    sink.onCancel(() -> cancel(lane, waiter));
+                })
+                // Место, выданное уже после отмены, возвращается сразу
+                .doOnDiscard(Slot.class, Slot::release)
+                .timeout(policy.maxWait())
+                .onErrorMap(TimeoutException.class, e -> {
+                    synchronized (this) {
+                        lane.rejected++;
+                    }
+                    return new RateLimitExceededException(name + " " + lane.key);
+                });
+    }
+
+    private synchronized void cancel(Lane<L> lane, Waiter waiter) {
+        if (waiter.done.compareAndSet(false, true) && lane.waiters.remove(waiter)) {
+            queued--;
+        }
+    }
+
+    private void release() {
+        List<Waiter> granted = new ArrayList<>();
+        synchronized (this) {
+            inFlight--;
+            long now = System.nanoTime();
+            while (inFlight < policy.slots() && queued > 0) {
+                Lane<L> lane = nextLane();
+                Waiter waiter = lane.waiters.poll();
+                queued--;
+                if (waiter.done.compareAndSet(false, true)) {
+                    inFlight++;
+                    virtualTime = lane.pass;
+                    lane.pass += 1.0 / lane.weight;
+                    lane.acquired++;
+                    long waited = now - waiter.enqueuedNanos;
+                    lane.totalWaitNanos += waited;
+                    lane.maxWaitNanos = Math.max(lane.maxWaitNanos, waited);
+                    granted.add(waiter);
+                }
+            }
+        }
+        // Запросы запускаются вне блокировки
+        granted.forEach(waiter -> waiter.sink.success(new Slot(this)));
+    }
+
+    /**
+     * @return непустая очередь с наименьшим виртуальным временем; при равенстве - более срочная
+     */
+    private Lane<L> nextLane() {
+        Lane<L> next = null;
+        for (Lane<L> lane : lanes) {
+            if (!lane.waiters.isEmpty() && (next == null || lane.pass < next.pass)) {
+                next = lane;
+            }
+        }
+        return next;
+    }
+
+    private static final class Slot {
+        private final WeightedFairScheduler<?> scheduler;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        Slot(WeightedFairScheduler<?> scheduler) {
+            this.scheduler = scheduler;
+        }
+
+        void release() {
+            if (released.compareAndSet(false, true)) {
+                scheduler.release();
+            }
+        }
+    }
+
+    private static final class Lane<L extends Enum<L>> {
+        final L key;
+        final int weight;
+        final Deque<Waiter> waiters = new ArrayDeque<>();
+        double pass;
+        long acquired;
+        long rejected;
+        long totalWaitNanos;
+        long maxWaitNanos;
+
+        Lane(L key, int weight) {
+            this.key = key;
+            this.weight = weight;
+        }
+    }
+
+    private static final class Waiter {
+        final MonoSink<Slot> sink;
+        final long enqueuedNanos;
+        final AtomicBoolean done = new AtomicBoolean();
+
+        Waiter(MonoSink<Slot> sink, long enqueuedNanos) {
+            this.sink = sink;
+            this.enqueuedNanos = enqueuedNanos;
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package com.zvonbot.interview.record;
+
+import com.zvonbot.interview.dto.zvonobot.ZvonobotRecord;
+import com.zvonbot.interview.dto.zvonobot.ZvonobotResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Каталог аудиофайлов Звонобота по тексту сообщения.
+ *
+ * <p>Голосовое сообщение с текстом уходит на синтез речи и модерацию при каждой отправке.
+ * Если для такого же текста уже есть аудиофайл, его {@code recordId} можно отправить сразу.
+ * Каталог заполняется списком предварительно смодерированных аудиофайлов {@code /apiCalls/getRecords}
+ * и аудиофайлами из ответов на отправку текста. Ключ - текст без различий в пробелах.
+ *
+ * <p>Каталог ограничен {@code maxEntries} текстами, давно не использованные вытесняются (LRU).
+ * Он сохраняется в файл строками {@code recordId<TAB>текст} от давно использованных к недавним:
+ * после нормализации в тексте нет табуляций и переводов строк, экранирование не нужно.
+ */
+public class RecordCatalog {
+
+    private static final Logger logger = LoggerFactory.getLogger(RecordCatalog.class);
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final RecordCatalogPolicy policy;
+    private final LinkedHashMap<String, Integer> records;
+
+    private long hits;
+    private long misses;
+    private long learned;
+    private long evictions;
+    private long invalidated;
+    private long grouped;
+    private boolean dirty;
+
+    public RecordCatalog(RecordCatalogPolicy policy) {
+        this.policy = policy;
+        this.records = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Integer> eldest) {
+                if (size() > policy.maxEntries()) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * @return ID аудиофайла с таким текстом или null
+     */
+    public synchronized Integer find(String text) {
+        String key = normalize(text);
+        Integer recordId = key.isEmpty() ? null : records.get(key);
+        if (recordId != null) {
+            hits++;
+        } else {
+            misses++;
+        }
+        return recordId;
+    }
+
+    /**
+     * Запоминает аудиофайл, созданный отправкой текста, если Звонобот вернул его ID
+     */
+    public void learn(String text, ZvonobotResponse response) {
+        Integer recordId = createdRecordId(response);
+        if (recordId != null && put(text, recordId)) {
+            synchronized (this) {
+                learned++;
+            }
+        }
+    }
+
+    /**
+     * Добавляет аудиофайл из списка {@code /apiCalls/getRecords}
+     *
+     * @return true, если у аудиофайла есть текст и каталог изменился
+     */
+    public boolean add(ZvonobotRecord record) {
+        return record.getText() != null && record.getId() != null && record.getId() > 0
+                && put(record.getText(), record.getId());
+    }
+
+    /**
+     * Забывает аудиофайл, который Звонобот не принял
+     */
+    public synchronized void invalidate(String text, int recordId) {
+        if (records.remove(normalize(text), recordId)) {
+            invalidated++;
+            dirty = true;
+        }
+    }
+
+    /**
+     * Учитывает отправку, которая дождалась синтеза того же текста другой отправкой
+     */
+    public synchronized void recordGrouped() {
+        grouped++;
+    }
+
+    /**
+     * Отличает отказ из-за аудиофайла от остальных: неверного номера, баланса или лимита запросов.
+     * Только после такого отказа аудиофайл забывается и текст отправляется заново.
+     *
+     * @return true, если текст ошибки содержит одну из {@code recordErrors}
+     */
+    public boolean isRecordRejected(ZvonobotResponse response) {
+        if (response.isSuccess() || response.getError() == null) {
+            return false;
+        }
+        String error = response.getError().toLowerCase(Locale.ROOT);
+        for (String marker : policy.recordErrors()) {
+            if (!marker.isBlank() && error.contains(marker.trim().toLowerCase(Locale.ROOT))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Загружает каталог, сохранённый до перезапуска
+     */
+    public void restore() throws IOException {
+        List<String[]> entries = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(policy.file(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int separator = line.indexOf('\t');
+                if (separator > 0) {
+                    entries.add(new String[]{line.substring(0, separator), line.substring(separator + 1)});
+                }
+            }
+        } catch (NoSuchFileException e) {
+            return;
+        }
+        int restored;
+        synchronized (this) {
+            for (String[] entry : entries) {
+                try {
+                    records.put(entry[1], Integer.parseInt(entry[0]));
+                } catch (NumberFormatException e) {
+                    logger.warn("Пропущена повреждённая строка каталога аудиофайлов: {}", entry[0]);
+                }
+            }
+            restored = records.size();
+            dirty = false;
+        }
+        logger.info("Восстановлено {} аудиофайлов каталога из {}", restored, policy.file().toAbsolutePath());
+    }
+
+    /**
+     * Сохраняет каталог, если он изменился. Файл заменяется целиком, поэтому при сбое
+     * во время записи остаётся прежняя версия.
+     */
+    public void save() throws IOException {
+        List<Map.Entry<String, Integer>> snapshot;
+        synchronized (this) {
+            if (!dirty) {
+                return;
+            }
+            snapshot = new ArrayList<>(records.size());
+            records.forEach((text, recordId) -> snapshot.add(Map.entry(text, recordId)));
+            dirty = false;
+        }
+        Path file = policy.file();
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            try (BufferedWriter writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+                for (Map.Entry<String, Integer> entry : snapshot) {
+                    writer.write(Integer.toString(entry.getValue()));
+                    writer.write('\t');
+                    writer.write(entry.getKey());
+                    writer.write('\n');
+                }
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            synchronized (this) {
+                dirty = true;
+            }
+            throw e;
+        }
+    }
+
+    public synchronized Map<String, Long> getStats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("size", (long) records.size());
+        stats.put("hits", hits);
+        stats.put("misses", misses);
+        stats.put("learned", learned);
+        stats.put("evictions", evictions);
+        stats.put("invalidated", invalidated);
+        stats.put("grouped", grouped);
+        return stats;
+    }
+
+    /**
+     * Текст без различий, не влияющих на синтез: пробелы по краям и повторные пробелы.
+     * Регистр сохраняется: от него зависит произношение аббревиатур.
+     */
+    public static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        return WHITESPACE.matcher(text.trim()).replaceAll(" ");
+    }
+
+    private synchronized boolean put(String text, int recordId) {
+        String key = normalize(text);
+        if (key.isEmpty()) {
+            return false;
+        }
+        Integer previous = records.put(key, recordId);
+        if (previous == null || previous != recordId) {
+            dirty = true;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return ID аудиофайла из ответа /apiCalls/create: {@code recordId} звонка или {@code id} его {@code record}
+     */
+    private static Integer createdRecordId(ZvonobotResponse response) {
+        Object data = response.getData();
+        Object call = data instanceof List<?> calls && calls.size() == 1 ? calls.get(0) : data;
+        if (!(call instanceof Map<?, ?> fields)) {
+            return null;
+        }
+        if (fields.get("recordId") != null) {
+            return id(fields.get("recordId"));
+        }
+        return fields.get("record") instanceof Map<?, ?> record ? id(record.get("id")) : null;
+    }
+
+    private static Integer id(Object value) {
+        if (value instanceof Number number) {
+            return number.intValue() > 0 ? number.intValue() : null;
+        }
+        try {
+            int id = value != null ? Integer.parseInt(value.toString()) : 0;
+            return id > 0 ? id : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.zvonbot.interview.record;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Параметры {@link RecordCatalog}.
+ *
+ * @param maxEntries сколько текстов помнить; давно не использованные вытесняются
+ * @param refreshInterval период загрузки списка аудиофайлов и сохранения каталога на диск
+ * @param file файл, в котором каталог переживает перезапуск
+ * @param recordErrors части текста ошибки Звонобота, по которым отправка отклонена из-за аудиофайла
+ */
+public record RecordCatalogPolicy(int maxEntries, Duration refreshInterval, Path file, List<String> recordErrors) {
+}
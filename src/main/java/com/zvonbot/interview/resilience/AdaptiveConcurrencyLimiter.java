@@ -0,0 +1,156 @@
+package com.zvonbot.interview.resilience;
+
+import com.zvonbot.interview.exception.ConcurrencyLimitExceededException;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * Адаптивный лимит одновременных запросов по схеме AIMD.
+ *
+ * <p>Пока запросы завершаются быстрее {@code latencyThreshold} и без ошибок сервера, лимит
+ * растёт в среднем на единицу за каждые {@code limit} успешных запросов, если он действительно
+ * используется хотя бы наполовину. Медленный ответ или ошибка сервера уменьшают лимит
+ * в {@code backoffRatio} раз. Так число запросов к деградирующему серверу быстро снижается,
+ * а после восстановления плавно возвращается.
+ *
+ * <p>Запросы сверх лимита ждут в очереди не дольше {@code maxWait}, при переполнении очереди или
+ * истечении ожидания завершаются {@link ConcurrencyLimitExceededException}.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private final String name;
+    private final ConcurrencyLimitPolicy policy;
+    private final Predicate<Throwable> overload;
+    private final Deque<Waiter> waiters = new ArrayDeque<>();
+
+    private double limit;
+    private int inFlight;
+
+    private final LongAdder acquired = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder drops = new LongAdder();
+
+    /**
+     * @param overload какие ошибки считать признаком перегрузки сервера
+     */
+    public AdaptiveConcurrencyLimiter(String name, ConcurrencyLimitPolicy policy, Predicate<Throwable> overload) {
+        this.name = name;
+        this.policy = policy;
+        this.overload = overload;
+        this.limit = policy.initialLimit();
+    }
+
+    public <T> Mono<T> execute(Mono<T> call) {
+        return Mono.usingWhen(acquire(),
+                permit -> call,
+                permit -> Mono.fromRunnable(() -> release(permit, null, true)),
+                (permit, error) -> Mono.fromRunnable(() -> release(permit, error, true)),
+                permit -> Mono.fromRunnable(() -> release(permit, null, false)));
+    }
+
+    /**
+     * @return текущий лимит одновременных запросов
+     */
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("limit", (int) limit);
+        stats.put("inFlight", inFlight);
+        stats.put("queued", waiters.size());
+        stats.put("acquired", acquired.sum());
+        stats.put("rejected", rejected.sum());
+        stats.put("drops", drops.sum());
+        return stats;
+    }
+
+    private Mono<Permit> acquire() {
+        return Mono.<Permit>create(sink -> {
+                    Waiter waiter;
+                    synchronized (this) {
+                        if (inFlight < (int) limit && waiters.isEmpty()) {
+                            inFlight++;
+                            acquired.increment();
+                            sink.success(new Permit(System.nanoTime()));
+                            return;
+                        }
+                        if (waiters.size() >= policy.maxQueued()) {
+                            rejected.increment();
+                            sink.error(new ConcurrencyLimitExceededException(name));
+                            return;
+                        }
+                        waiter = new Waiter(sink);
+                        waiters.add(waiter);
+                    }
+                    sink.onCancel(() -> cancel(waiter));
+                })
+                // Разрешение, выданное уже после отмены, возвращается сразу
+                .doOnDiscard(Permit.class, permit -> release(permit, null, false))
+                .timeout(policy.maxWait())
+                .onErrorMap(TimeoutException.class, e -> {
+                    rejected.increment();
+                    return new ConcurrencyLimitExceededException(name);
+                });
+    }
+
+    private synchronized void cancel(Waiter waiter) {
+        if (waiter.done.compareAndSet(false, true)) {
+            waiters.remove(waiter);
+        }
+    }
+
+    /**
+     * @param measured учитывать ли результат запроса при пересчёте лимита
+     */
+    private void release(Permit permit, Throwable error, boolean measured) {
+        long latency = System.nanoTime() - permit.startNanos();
+        List<Waiter> granted = new ArrayList<>();
+        synchronized (this) {
+            int utilized = inFlight;
+            inFlight--;
+            if (measured) {
+                if ((error != null && overload.test(error)) || latency > policy.latencyThreshold().toNanos()) {
+                    drops.increment();
+                    limit = Math.max(policy.minLimit(), limit * policy.backoffRatio());
+                } else if (utilized * 2 >= (int) limit) {
+                    limit = Math.min(policy.maxLimit(), limit + 1 / limit);
+                }
+            }
+            while (inFlight < (int) limit && !waiters.isEmpty()) {
+                Waiter waiter = waiters.poll();
+                if (waiter.done.compareAndSet(false, true)) {
+                    inFlight++;
+                    acquired.increment();
+                    granted.add(waiter);
+                }
+            }
+        }
+        // Запросы запускаются вне блокировки
+        long now = System.nanoTime();
+        granted.forEach(waiter -> waiter.sink.success(new Permit(now)));
+    }
+
+    private record Permit(long startNanos) {}
+
+    private static final class Waiter {
+        final MonoSink<Permit> sink;
+        final AtomicBoolean done = new AtomicBoolean();
+
+        Waiter(MonoSink<Permit> sink) {
+            this.sink = sink;
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package com.zvonbot.interview.resilience;
+
+import com.zvonbot.interview.exception.CallRejectedException;
+import com.zvonbot.interview.exception.CircuitBreakerOpenException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Mono;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Предохранитель для запросов к деградирующему серверу.
+ *
+ * <p>Доля ошибок считается по последним {@code windowSize} запросам. Когда она достигает
+ * {@code failureRateThreshold}, предохранитель размыкается: в течение {@code openDuration} запросы
+ * сразу завершаются {@link CircuitBreakerOpenException}, не занимая соединений. Затем пропускается
+ * {@code halfOpenCalls} пробных запросов: если все успешны, предохранитель замыкается, при первой
+ * ошибке снова размыкается.
+ *
+ * <p>Запросы, отклонённые до отправки ({@link CallRejectedException}), и отменённые запросы
+ * не учитываются. Если перед предохранителем стоят очереди ограничителей, медленный ответ
+ * отсчитывается от выхода из них: см. {@link #execute(Function)}.
+ */
+public class CircuitBreaker {
+
+    private static final Logger logger = LoggerFactory.getLogger(CircuitBreaker.class);
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final String name;
+    private final CircuitBreakerPolicy policy;
+    private final Predicate<Throwable> failure;
+    private final boolean[] window;
+
+    private State state = State.CLOSED;
+    private int windowIndex;
+    private int windowCount;
+    private int windowFailures;
+    private volatile long openedAt;
+    private int trialsStarted;
+    private int trialsSucceeded;
+
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder opened = new LongAdder();
+
+    /**
+     * @param failure какие ошибки считать отказом сервера
+     */
+    public CircuitBreaker(String name, CircuitBreakerPolicy policy, Predicate<Throwable> failure) {
+        this.name = name;
+        this.policy = policy;
+        this.failure = failure;
+        this.window = new boolean[policy.windowSize()];
+    }
+
+    public <T> Mono<T> execute(Mono<T> call) {
+        return execute(sent -> call);
+    }
+
+    /**
+     * @param call запрос; переданный ему {@code Runnable} вызывается, когда запрос прошёл очереди
+     *             ограничителей и отправляется. Время ответа для {@code slowCallThreshold} считается
+     *             с этого момента, а если он не наступил - с подписки.
+     */
+    public <T> Mono<T> execute(Function<Runnable, Mono<T>> call) {
+        return Mono.defer(() -> {
+            long now = System.nanoTime();
+            Boolean trial = tryAcquire(now);
+            if (trial == null) {
+                rejected.increment();
+                long retryAfter = TimeUnit.NANOSECONDS.toSeconds(openedAt + policy.openDuration().toNanos() - now);
+                return Mono.error(new CircuitBreakerOpenException(name, Math.max(1, retryAfter)));
+            }
+            AtomicBoolean done = new AtomicBoolean();
+            AtomicLong sentAt = new AtomicLong(now);
+            return call.apply(() -> sentAt.set(System.nanoTime()))
+                    .doOnSuccess(value -> {
+                        if (done.compareAndSet(false, true)) {
+                            onResult(trial, sentAt.get(), null);
+                        }
+                    })
+                    .doOnError(error -> {
+                        if (done.compareAndSet(false, true)) {
+                            onResult(trial, sentAt.get(), error);
+                        }
+                    })
+                    .doOnCancel(() -> {
+                        if (done.compareAndSet(false, true)) {
+                            onIgnored(trial);
+                        }
+                    });
+        });
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("state", state);
+        stats.put("calls", windowCount);
+        stats.put("failureRate", windowCount == 0 ? 0 : windowFailures * 100 / windowCount);
+        stats.put("rejected", rejected.sum());
+        stats.put("opened", opened.sum());
+        return stats;
+    }
+
+    /**
+     * @return null, если запрос нужно отклонить, иначе признак пробного запроса
+     */
+    private synchronized Boolean tryAcquire(long now) {
+        if (state == State.OPEN && now - openedAt >= policy.openDuration().toNanos()) {
+            state = State.HALF_OPEN;
+            trialsStarted = 0;
+            trialsSucceeded = 0;
+            logger.info("Предохранитель {} пропускает пробные запросы", name);
+        }
+        if (state == State.CLOSED) {
+            return false;
+        }
+        if (state == State.HALF_OPEN && trialsStarted < policy.halfOpenCalls()) {
+            trialsStarted++;
+            return true;
+        }
+        return null;
+    }
+
+    private void onResult(boolean trial, long startNanos, Throwable error) {
+        if (error instanceof CallRejectedException) {
+            onIgnored(trial);
+            return;
+        }
+        boolean failed = (error != null && failure.test(error))
+                || System.nanoTime() - startNanos > policy.slowCallThreshold().toNanos();
+        synchronized (this) {
+            if (trial) {
+                if (state != State.HALF_OPEN) {
+                    return;
+                }
+                if (failed) {
+                    open("пробный запрос не удался");
+                } else if (++trialsSucceeded >= policy.halfOpenCalls()) {
+                    state = State.CLOSED;
+                    resetWindow();
+                    logger.info("Предохранитель {} замкнут, запросы отправляются в обычном режиме", name);
+                }
+            } else if (state == State.CLOSED) {
+                record(failed);
+            }
+        }
+    }
+
+    private synchronized void onIgnored(boolean trial) {
+        if (trial && state == State.HALF_OPEN) {
+            trialsStarted--;
+        }
+    }
+
+    private void record(boolean failed) {
+        if (windowCount == window.length) {
+            if (window[windowIndex]) {
+                windowFailures--;
+            }
+        } else {
+            windowCount++;
+        }
+        window[windowIndex] = failed;
+        if (failed) {
+            windowFailures++;
+        }
+        windowIndex = (windowIndex + 1) % window.length;
+
+        if (windowCount >= policy.minimumCalls() && windowFailures * 100 >= policy.failureRateThreshold() * windowCount) {
+            open("доля ошибок " + windowFailures * 100 / windowCount + "%");
+        }
+    }
+
+    private void open(String reason) {
+        state = State.OPEN;
+        openedAt = System.nanoTime();
+        opened.increment();
+        resetWindow();
+        logger.warn("Предохранитель {} разомкнут на {}: {}", name, policy.openDuration(), reason);
+    }
+
+    private void resetWindow() {
+        windowIndex = 0;
+        windowCount = 0;
+        windowFailures = 0;
+    }
+}
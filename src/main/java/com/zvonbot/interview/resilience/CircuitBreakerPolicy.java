@@ -0,0 +1,17 @@
+package com.zvonbot.interview.resilience;
+
+import java.time.Duration;
+
+/**
+ * Параметры {@link CircuitBreaker}.
+ *
+ * @param windowSize по скольким последним запросам считается доля ошибок
+ * @param minimumCalls минимальное число запросов в окне, после которого предохранитель может сработать
+ * @param failureRateThreshold доля ошибок в процентах, при которой запросы перестают отправляться
+ * @param slowCallThreshold запрос дольше этого времени считается ошибкой
+ * @param openDuration сколько запросы не отправляются после срабатывания
+ * @param halfOpenCalls сколько пробных запросов должно пройти успешно, чтобы вернуться в обычный режим
+ */
+public record CircuitBreakerPolicy(int windowSize, int minimumCalls, int failureRateThreshold,
+                                   Duration slowCallThreshold, Duration openDuration, int halfOpenCalls) {
+}
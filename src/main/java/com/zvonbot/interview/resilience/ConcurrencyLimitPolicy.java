@@ -0,0 +1,18 @@
+package com.zvonbot.interview.resilience;
+
+import java.time.Duration;
+
+/**
+ * Параметры {@link AdaptiveConcurrencyLimiter}.
+ *
+ * @param initialLimit начальное число одновременных запросов
+ * @param minLimit нижняя граница лимита
+ * @param maxLimit верхняя граница лимита
+ * @param latencyThreshold запрос дольше этого времени считается признаком перегрузки
+ * @param backoffRatio во сколько раз уменьшается лимит при перегрузке
+ * @param maxQueued сколько запросов может ждать свободного места
+ * @param maxWait предельное время ожидания свободного места
+ */
+public record ConcurrencyLimitPolicy(int initialLimit, int minLimit, int maxLimit, Duration latencyThreshold,
+                                     double backoffRatio, int maxQueued, Duration maxWait) {
+}
@@ -0,0 +1,59 @@
+package com.zvonbot.interview.resilience;
+
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * Повтор с задержкой по схеме decorrelated jitter: каждая следующая задержка выбирается
+ * случайно между {@code baseDelay} и утроенной предыдущей, но не больше {@code maxDelay}.
+ * В отличие от экспоненциальной задержки с фиксированным шагом, клиенты, получившие
+ * ошибку одновременно, повторяют запросы в разное время и не создают новый всплеск нагрузки.
+ */
+public class DecorrelatedJitterRetry extends Retry {
+
+    private final RetryPolicy policy;
+    private final Predicate<Throwable> retryable;
+    private final LongAdder retries = new LongAdder();
+
+    /**
+     * @param retryable какие ошибки можно повторять
+     */
+    public DecorrelatedJitterRetry(RetryPolicy policy, Predicate<Throwable> retryable) {
+        this.policy = policy;
+        this.retryable = retryable;
+    }
+
+    @Override
+    public Publisher<?> generateCompanion(Flux<RetrySignal> signals) {
+        return Flux.defer(() -> {
+            long base = policy.baseDelay().toNanos();
+            long cap = policy.maxDelay().toNanos();
+            long[] previous = {base};
+            return signals.concatMap(signal -> {
+                Throwable failure = signal.failure();
+                if (signal.totalRetries() >= policy.maxRetries() || !retryable.test(failure)) {
+                    return Mono.error(failure);
+                }
+                long upper = Math.max(base + 1, Math.min(cap, previous[0] * 3));
+                long delay = Math.min(cap, ThreadLocalRandom.current().nextLong(base, upper));
+                previous[0] = delay;
+                retries.increment();
+                return Mono.delay(Duration.ofNanos(delay));
+            });
+        });
+    }
+
+    /**
+     * @return сколько повторов было выполнено
+     */
+    public long getRetries() {
+        return retries.sum();
+    }
+}
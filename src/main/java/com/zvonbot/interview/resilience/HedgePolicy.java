@@ -0,0 +1,14 @@
+package com.zvonbot.interview.resilience;
+
+import java.time.Duration;
+
+/**
+ * Параметры {@link Hedger}.
+ *
+ * @param percentile перцентиль времени ответа, после которого отправляется дублирующий запрос
+ * @param minDelay минимальная задержка перед дублирующим запросом
+ * @param minSamples сколько ответов нужно измерить, прежде чем начать дублировать запросы
+ * @param maxRatio предельная доля дублирующих запросов от общего числа
+ */
+public record HedgePolicy(double percentile, Duration minDelay, int minSamples, double maxRatio) {
+}
@@ -0,0 +1,91 @@
+package com.zvonbot.interview.resilience;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Дублирующие запросы для снижения хвостовых задержек.
+ *
+ * <p>Время ответа запоминается по последним {@value #WINDOW} запросам. Если ответ не пришёл
+ * за время, соответствующее перцентилю {@code percentile}, отправляется второй такой же запрос,
+ * и используется тот ответ, который придёт первым; второй запрос отменяется. Дублируются
+ * не больше {@code maxRatio} запросов, чтобы медленный сервер не получил двойную нагрузку.
+ * Ошибка основного запроса возвращается сразу, повторять его должна вызывающая сторона.
+ *
+ * <p>Подходит только для идемпотентных запросов.
+ */
+public class Hedger {
+
+    private static final int WINDOW = 256;
+    private static final int RECOMPUTE_EVERY = 16;
+
+    private final HedgePolicy policy;
+    private final long[] samples = new long[WINDOW];
+    private int sampleIndex;
+    private int sampleCount;
+    private volatile long hedgeDelayNanos = -1;
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder hedged = new LongAdder();
+    private final LongAdder hedgeWins = new LongAdder();
+
+    public Hedger(HedgePolicy policy) {
+        this.policy = policy;
+    }
+
+    public <T> Mono<T> hedge(Mono<T> call) {
+        return Mono.defer(() -> {
+            requests.increment();
+            long delay = hedgeDelayNanos;
+            Mono<T> primary = timed(call);
+            if (delay < 0) {
+                return primary;
+            }
+            Mono<T> secondary = Mono.delay(Duration.ofNanos(delay))
+                    .filter(tick -> hedged.sum() < policy.maxRatio() * requests.sum())
+                    .flatMap(tick -> {
+                        hedged.increment();
+                        return timed(call).doOnNext(value -> hedgeWins.increment());
+                    })
+                    // Ошибка дублирующего запроса не отменяет основной
+                    .onErrorResume(error -> Mono.empty());
+            // Ошибка основного запроса возвращается сразу, не дожидаясь дублирующего
+            return Flux.merge(primary, secondary).next();
+        });
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long delay = hedgeDelayNanos;
+        stats.put("hedgeDelayMillis", delay < 0 ? null : delay / 1_000_000);
+        stats.put("requests", requests.sum());
+        stats.put("hedged", hedged.sum());
+        stats.put("hedgeWins", hedgeWins.sum());
+        return stats;
+    }
+
+    private <T> Mono<T> timed(Mono<T> call) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return call.doOnNext(value -> record(System.nanoTime() - start));
+        });
+    }
+
+    private synchronized void record(long latencyNanos) {
+        samples[sampleIndex] = latencyNanos;
+        sampleIndex = (sampleIndex + 1) % WINDOW;
+        sampleCount = Math.min(sampleCount + 1, WINDOW);
+        if (sampleCount >= policy.minSamples() && sampleIndex % RECOMPUTE_EVERY == 0) {
+            long[] sorted = Arrays.copyOf(samples, sampleCount);
+            Arrays.sort(sorted);
+            long percentile = sorted[Math.min(sorted.length - 1, (int) Math.ceil(policy.percentile() * sorted.length) - 1)];
+            hedgeDelayNanos = Math.max(policy.minDelay().toNanos(), percentile);
+        }
+    }
+}
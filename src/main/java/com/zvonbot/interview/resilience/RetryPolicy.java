@@ -0,0 +1,13 @@
+package com.zvonbot.interview.resilience;
+
+import java.time.Duration;
+
+/**
+ * Параметры {@link DecorrelatedJitterRetry}.
+ *
+ * @param maxRetries сколько раз повторять запрос после первой попытки
+ * @param baseDelay минимальная задержка перед повтором
+ * @param maxDelay предельная задержка перед повтором
+ */
+public record RetryPolicy(int maxRetries, Duration baseDelay, Duration maxDelay) {
+}
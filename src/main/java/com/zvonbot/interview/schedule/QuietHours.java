@@ -0,0 +1,73 @@
+package com.zvonbot.interview.schedule;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Время суток, когда получателям не звонят, в их часовом поясе.
+ *
+ * <p>Отправка, попавшая в тихие часы, переносится на их окончание. Чтобы все отложенные
+ * за ночь сообщения не ушли одной волной, перенесённое время случайно сдвигается
+ * в пределах {@code spread} после окончания тихих часов.
+ */
+public class QuietHours {
+
+    private final LocalTime start;
+    private final LocalTime end;
+    private final Duration spread;
+
+    public QuietHours(LocalTime start, LocalTime end, Duration spread) {
+        this.start = start;
+        this.end = end;
+        this.spread = spread;
+    }
+
+    /**
+     * @param range интервал {@code ЧЧ:ММ-ЧЧ:ММ}, может переходить через полночь, например {@code 21:00-09:00};
+     *              пустая строка отключает тихие часы
+     * @return тихие часы или null, если они не заданы
+     */
+    public static QuietHours parse(String range, Duration spread) {
+        if (range == null || range.isBlank()) {
+            return null;
+        }
+        String[] bounds = range.split("-");
+        if (bounds.length != 2) {
+            throw new IllegalArgumentException("Тихие часы задаются как ЧЧ:ММ-ЧЧ:ММ: " + range);
+        }
+        return new QuietHours(LocalTime.parse(bounds[0].trim()), LocalTime.parse(bounds[1].trim()), spread);
+    }
+
+    /**
+     * @return время отправки вне тихих часов в часовом поясе получателя
+     */
+    public Instant defer(Instant sendAt, ZoneId zone) {
+        ZonedDateTime local = sendAt.atZone(zone);
+        if (!isQuiet(local.toLocalTime())) {
+            return sendAt;
+        }
+        ZonedDateTime allowed = local.with(end);
+        if (!allowed.isAfter(local)) {
+            allowed = allowed.plusDays(1);
+        }
+        long jitter = spread.isZero() ? 0 : ThreadLocalRandom.current().nextLong(spread.toMillis());
+        return allowed.toInstant().plusMillis(jitter);
+    }
+
+    private boolean isQuiet(LocalTime time) {
+        if (start.isBefore(end)) {
+            return !time.isBefore(start) && time.isBefore(end);
+        }
+        // Интервал через полночь
+        return !time.isBefore(start) || time.isBefore(end);
+    }
+
+    @Override
+    public String toString() {
+        return start + "-" + end;
+    }
+}
@@ -0,0 +1,431 @@
+package com.zvonbot.interview.schedule;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zvonbot.interview.dto.MessageRequest;
+import com.zvonbot.interview.dto.MessageType;
+import com.zvonbot.interview.dto.zvonobot.ZvonobotResponse;
+import com.zvonbot.interview.queue.BoundedDispatcher;
+import com.zvonbot.interview.queue.QueuedMessage;
+import com.zvonbot.interview.queue.SendJournal;
+import com.zvonbot.interview.service.ZvonobotService;
+import com.zvonbot.interview.util.LongHashSet;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Отложенная отправка сообщений с учётом тихих часов получателя.
+ *
+ * <p>Сообщение с {@code sendAt} записывается в журнал на диске, а в {@link TimingWheel}
+ * попадает только пара (срок, позиция в журнале), поэтому миллионы ожидающих отправок
+ * занимают десятки мегабайт. Время, попавшее в тихие часы, переносится на их окончание
+ * с разбросом, повторно время проверяется перед отправкой. Сработавшие таймеры
+ * отправляются через {@link ZvonobotService} в {@link BoundedDispatcher}, не более
+ * {@code workers} одновременно.
+ *
+ * <p>Позиции отправленных сообщений дописываются в файл {@code released}. После перезапуска
+ * журнал читается заново, отправленные сообщения пропускаются, остальные возвращаются
+ * в колесо. Сегменты журнала, в которых не осталось ожидающих сообщений, удаляются.
+ * Сообщения, которые были в работе в момент сбоя, будут отправлены повторно.
+ */
+@Service
+public class ScheduledSendService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ScheduledSendService.class);
+
+    private static final String JOURNAL_DIRECTORY = "journal";
+    private static final String RELEASED_FILE = "released";
+    // 256 ячеек на уровень, четыре уровня: при тике в секунду колесо охватывает больше ста лет
+    private static final int WHEEL_BITS = 8;
+    private static final int WHEEL_LEVELS = 4;
+
+    @Value("${zvonobot.schedule.enabled:false}")
+    private boolean enabled;
+
+    @Value("${zvonobot.schedule.directory:data/scheduled}")
+    private Path directory;
+
+    @Value("${zvonobot.schedule.segment-size:64MB}")
+    private DataSize segmentSize;
+
+    @Value("${zvonobot.schedule.fsync:false}")
+    private boolean fsync;
+
+    @Value("${zvonobot.schedule.workers:16}")
+    private int workers;
+
+    @Value("${zvonobot.schedule.tick:1s}")
+    private Duration tick;
+
+    @Value("${zvonobot.schedule.checkpoint-interval:1s}")
+    private Duration checkpointInterval;
+
+    @Value("${zvonobot.schedule.max-delay:365d}")
+    private Duration maxDelay;
+
+    @Value("${zvonobot.schedule.default-timezone:Asia/Almaty}")
+    private ZoneId defaultTimezone;
+
+    @Value("${zvonobot.schedule.quiet-hours:}")
+    private String quietHoursRange;
+
+    @Value("${zvonobot.schedule.quiet-hours-spread:30m}")
+    private Duration quietHoursSpread;
+
+    private final ZvonobotService zvonobotService;
+    private final ObjectMapper objectMapper;
+
+    private final AtomicLong scheduled = new AtomicLong();
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong deferred = new AtomicLong();
+    private final AtomicLong inFlight = new AtomicLong();
+    // Число ожидающих сообщений по сегментам журнала, под этой же блокировкой пишется файл released
+    private final TreeMap<Long, Integer> pendingBySegment = new TreeMap<>();
+
+    private QuietHours quietHours;
+    private SendJournal journal;
+    private TimingWheel wheel;
+    private long[] ready = new long[1024];
+    private int readyHead;
+    private int readySize;
+    private DataOutputStream released;
+    private ScheduledExecutorService timer;
+    private BoundedDispatcher dispatcher;
+
+    @Autowired
+    public ScheduledSendService(ZvonobotService zvonobotService, ObjectMapper objectMapper) {
+        this.zvonobotService = zvonobotService;
+        this.objectMapper = objectMapper;
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        quietHours = QuietHours.parse(quietHoursRange, quietHoursSpread);
+        if (!enabled) {
+            return;
+        }
+        journal = new SendJournal(directory.resolve(JOURNAL_DIRECTORY), (int) segmentSize.toBytes(), fsync);
+        wheel = new TimingWheel(tick.toMillis(), WHEEL_BITS, WHEEL_LEVELS, System.currentTimeMillis());
+        recover();
+
+        dispatcher = new BoundedDispatcher("scheduled-send", workers, this::nextReady);
+        dispatcher.start();
+        timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "scheduled-send-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        timer.scheduleAtFixedRate(this::advance, tick.toMillis(), tick.toMillis(), TimeUnit.MILLISECONDS);
+        timer.scheduleWithFixedDelay(this::checkpoint, checkpointInterval.toMillis(), checkpointInterval.toMillis(), TimeUnit.MILLISECONDS);
+        logger.info("Отложенная отправка включена: ожидает {} сообщений, тихие часы {}",
+                wheel.size(), quietHours != null ? quietHours : "не заданы");
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException, IOException {
+        if (dispatcher == null || !dispatcher.isRunning()) {
+            return;
+        }
+        timer.shutdownNow();
+        dispatcher.stop();
+        checkpoint();
+        synchronized (pendingBySegment) {
+            released.close();
+        }
+        journal.close();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Откладывает отправку до {@code sendAt} запроса, а если оно попадает в тихие часы - до их окончания
+     *
+     * @return Mono с идентификатором отложенной отправки и временем, на которое она запланирована;
+     * ошибка {@link IllegalArgumentException}, если время или часовой пояс заданы неверно
+     */
+    public Mono<Map<String, Object>> schedule(MessageType type, MessageRequest request) {
+        return Mono.fromCallable(() -> {
+                    Instant sendAt = resolveSendAt(request);
+                    byte[] message = objectMapper.writeValueAsBytes(new QueuedMessage(type, request));
+                    byte[] payload = ByteBuffer.allocate(Long.BYTES + message.length)
+                            .putLong(sendAt.toEpochMilli())
+                            .put(message)
+                            .array();
+
+                    long position;
+                    synchronized (pendingBySegment) {
+                        position = journal.append(payload);
+                        pendingBySegment.merge(position >>> 32, 1, Integer::sum);
+                    }
+                    synchronized (wheel) {
+                        wheel.add(sendAt.toEpochMilli(), position);
+                    }
+                    scheduled.incrementAndGet();
+
+                    Map<String, Object> result = new LinkedHashMap<>();
+                    result.put("scheduledId", position);
+                    result.put("sendAt", sendAt.toString());
+                    return result;
+                })
+                // Запись в журнал блокирующая, поэтому выполняется вне потоков Netty
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * @return число ожидающих, готовых к отправке и отправленных сообщений
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        if (enabled) {
+            synchronized (wheel) {
+                stats.put("waiting", wheel.size());
+                stats.put("ready", readySize);
+            }
+        }
+        stats.put("inFlight", inFlight.get());
+        stats.put("scheduled", scheduled.get());
+        stats.put("sent", sent.get());
+        stats.put("failed", failed.get());
+        stats.put("deferredByQuietHours", deferred.get());
+        return stats;
+    }
+
+    /**
+     * Время отправки: смещение из {@code sendAt}, а если его нет - часовой пояс получателя
+     */
+    private Instant resolveSendAt(MessageRequest request) {
+        ZoneId zone;
+        try {
+            zone = request.getTimezone() != null ? ZoneId.of(request.getTimezone()) : defaultTimezone;
+        } catch (DateTimeException e) {
+            throw new IllegalArgumentException("Неизвестный часовой пояс: " + request.getTimezone());
+        }
+        Instant sendAt;
+        try {
+            sendAt = OffsetDateTime.parse(request.getSendAt()).toInstant();
+        } catch (DateTimeParseException e) {
+            try {
+                sendAt = LocalDateTime.parse(request.getSendAt()).atZone(zone).toInstant();
+            } catch (DateTimeParseException localError) {
+                throw new IllegalArgumentException("sendAt должен быть в формате ISO-8601, например 2025-03-01T10:00:00+05:00: "
+                        + request.getSendAt());
+            }
+        }
+        if (sendAt.isAfter(Instant.now().plus(maxDelay))) {
+            throw new IllegalArgumentException("sendAt не может быть позже чем через " + maxDelay.toDays() + " дней");
+        }
+        return deferQuietHours(sendAt, zone);
+    }
+
+    private Instant deferQuietHours(Instant sendAt, ZoneId zone) {
+        if (quietHours == null) {
+            return sendAt;
+        }
+        Instant allowed = quietHours.defer(sendAt, zone);
+        if (!allowed.equals(sendAt)) {
+            deferred.incrementAndGet();
+        }
+        return allowed;
+    }
+
+    /**
+     * Сдвигает колесо до текущего времени, сработавшие таймеры ставятся в очередь отправки
+     */
+    private void advance() {
+        try {
+            synchronized (wheel) {
+                wheel.advance(System.currentTimeMillis(), this::offerReady);
+            }
+            if (readySize > 0) {
+                dispatcher.wakeUp();
+            }
+        } catch (RuntimeException e) {
+            logger.error("Ошибка таймера отложенной отправки: {}", e.getMessage());
+        }
+    }
+
+    // Вызывается под блокировкой wheel
+    private void offerReady(long position) {
+        if (readySize == ready.length) {
+            long[] grown = new long[ready.length * 2];
+            for (int i = 0; i < readySize; i++) {
+                grown[i] = ready[(readyHead + i) % ready.length];
+            }
+            ready = grown;
+            readyHead = 0;
+        }
+        ready[(readyHead + readySize) % ready.length] = position;
+        readySize++;
+    }
+
+    /**
+     * @return отправка следующего сработавшего таймера или null, если готовых нет
+     */
+    private Mono<?> nextReady() {
+        long position;
+        synchronized (wheel) {
+            if (readySize == 0) {
+                return null;
+            }
+            position = ready[readyHead];
+            readyHead = (readyHead + 1) % ready.length;
+            readySize--;
+        }
+
+        inFlight.incrementAndGet();
+        return Mono.defer(() -> send(position))
+                .doOnError(error -> logger.error("Ошибка отложенной отправки {}: {}", position, error.getMessage()))
+                .onErrorComplete()
+                .doOnTerminate(inFlight::decrementAndGet);
+    }
+
+    private Mono<?> send(long position) {
+        SendJournal.Entry entry = journal.read(position);
+        QueuedMessage message;
+        try {
+            if (entry == null || entry.position() != position || entry.payload() == null) {
+                throw new IOException("запись повреждена");
+            }
+            message = objectMapper.readValue(entry.payload(), Long.BYTES, entry.payload().length - Long.BYTES, QueuedMessage.class);
+        } catch (IOException e) {
+            logger.error("Пропущена отложенная отправка {}: {}", position, e.getMessage());
+            failed.incrementAndGet();
+            markReleased(position);
+            return Mono.empty();
+        }
+
+        // Колесо могло отстать (например, сервис не работал ночью) - тихие часы проверяются ещё раз
+        MessageRequest request = message.getRequest();
+        Instant now = Instant.now();
+        ZoneId zone = request.getTimezone() != null ? ZoneId.of(request.getTimezone()) : defaultTimezone;
+        Instant allowed = deferQuietHours(now, zone);
+        if (allowed.isAfter(now)) {
+            synchronized (wheel) {
+                wheel.add(allowed.toEpochMilli(), position);
+            }
+            return Mono.empty();
+        }
+
+        return zvonobotService.send(message.getType(), request)
+                .retryWhen(dispatcher.rejectedRetry())
+                .doOnNext(this::countResult)
+                .doOnError(error -> failed.incrementAndGet())
+                .onErrorResume(error -> Mono.empty())
+                .doFinally(signal -> markReleased(position));
+    }
+
+    private void countResult(ZvonobotResponse response) {
+        (response.isSuccess() ? sent : failed).incrementAndGet();
+    }
+
+    private void markReleased(long position) {
+        synchronized (pendingBySegment) {
+            try {
+                released.writeLong(position);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            pendingBySegment.computeIfPresent(position >>> 32, (segment, count) -> count > 1 ? count - 1 : null);
+        }
+    }
+
+    /**
+     * Сбрасывает на диск файл отправленных и удаляет сегменты журнала без ожидающих сообщений
+     */
+    private void checkpoint() {
+        synchronized (pendingBySegment) {
+            try {
+                released.flush();
+                long position = pendingBySegment.isEmpty() ? journal.writePosition() : pendingBySegment.firstKey() << 32;
+                journal.checkpoint(position);
+            } catch (IOException | RuntimeException e) {
+                logger.error("Не удалось сохранить контрольную точку отложенной отправки: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Возвращает в колесо неотправленные сообщения из журнала и переписывает файл отправленных,
+     * оставляя только позиции после контрольной точки
+     */
+    private void recover() throws IOException {
+        long checkpoint = journal.readCheckpoint();
+        Path releasedFile = directory.resolve(RELEASED_FILE);
+        LongHashSet releasedPositions = new LongHashSet();
+        long[] kept = new long[16];
+        int keptCount = 0;
+        if (Files.exists(releasedFile)) {
+            try (InputStream input = Files.newInputStream(releasedFile);
+                 DataInputStream data = new DataInputStream(new BufferedInputStream(input))) {
+                while (true) {
+                    long position = data.readLong();
+                    if (position >= checkpoint && releasedPositions.add(position)) {
+                        if (keptCount == kept.length) {
+                            kept = Arrays.copyOf(kept, kept.length * 2);
+                        }
+                        kept[keptCount++] = position;
+                    }
+                }
+            } catch (EOFException e) {
+                // Конец файла, недописанная последняя позиция отбрасывается
+            }
+        }
+
+        Path tmp = directory.resolve(RELEASED_FILE + ".tmp");
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            for (int i = 0; i < keptCount; i++) {
+                output.writeLong(kept[i]);
+            }
+        }
+        Files.move(tmp, releasedFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        released = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(releasedFile, StandardOpenOption.APPEND)));
+
+        for (SendJournal.Entry entry = journal.read(checkpoint); entry != null; entry = journal.read(entry.nextPosition())) {
+            if (entry.payload() == null || releasedPositions.contains(entry.position())) {
+                continue;
+            }
+            wheel.add(ByteBuffer.wrap(entry.payload()).getLong(), entry.position());
+            pendingBySegment.merge(entry.position() >>> 32, 1, Integer::sum);
+        }
+    }
+}
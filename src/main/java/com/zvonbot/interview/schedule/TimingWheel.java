@@ -0,0 +1,144 @@
+package com.zvonbot.interview.schedule;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * Иерархическое колесо таймеров для значений long.
+ *
+ * <p>Каждый уровень - {@code 2^bits} ячеек, ячейка уровня {@code L} охватывает
+ * {@code 2^(bits*L)} тиков. Таймер попадает на самый нижний уровень, на котором совпадают
+ * все старшие разряды его тика и текущего. Когда младшие разряды текущего тика обнуляются,
+ * ячейка верхнего уровня раскладывается на уровень ниже. Добавление и срабатывание -
+ * O(1) на таймер независимо от их числа, а таймеры хранятся парами (срок, значение)
+ * в массивах примитивов, около 16 байт на таймер. Не потокобезопасно.
+ */
+public class TimingWheel {
+
+    private final long tickMillis;
+    private final int bits;
+    private final int mask;
+    private final int levels;
+    private final long[][][] buckets;
+    private final int[][] sizes;
+
+    private long[] overdue = new long[16];
+    private int overdueSize;
+    private long currentTick;
+    private int size;
+
+    /**
+     * @param tickMillis точность срабатывания
+     * @param bits двоичный логарифм числа ячеек на уровне
+     * @param levels число уровней; колесо охватывает {@code 2^(bits*levels)} тиков
+     * @param startMillis текущее время
+     */
+    public TimingWheel(long tickMillis, int bits, int levels, long startMillis) {
+        if (bits * levels > 62) {
+            throw new IllegalArgumentException("Слишком много уровней: " + levels);
+        }
+        this.tickMillis = tickMillis;
+        this.bits = bits;
+        this.mask = (1 << bits) - 1;
+        this.levels = levels;
+        this.buckets = new long[levels][1 << bits][];
+        this.sizes = new int[levels][1 << bits];
+        this.currentTick = startMillis / tickMillis;
+    }
+
+    /**
+     * Добавляет таймер. Таймер с прошедшим сроком сработает при следующем {@link #advance}.
+     * Срок дальше охвата колеса сокращается до охвата.
+     */
+    public void add(long dueMillis, long value) {
+        long dueTick = Math.floorDiv(dueMillis, tickMillis);
+        size++;
+        if (dueTick <= currentTick) {
+            if (overdueSize == overdue.length) {
+                overdue = Arrays.copyOf(overdue, overdue.length * 2);
+            }
+            overdue[overdueSize++] = value;
+            return;
+        }
+        place(Math.min(dueTick, currentTick + (1L << (bits * levels)) - 1), value);
+    }
+
+    /**
+     * Сдвигает колесо до {@code nowMillis} и передаёт значения сработавших таймеров
+     * в порядке сроков с точностью до тика
+     */
+    public void advance(long nowMillis, LongConsumer expired) {
+        if (overdueSize > 0) {
+            long[] values = overdue;
+            int count = overdueSize;
+            overdue = new long[16];
+            overdueSize = 0;
+            size -= count;
+            for (int i = 0; i < count; i++) {
+                expired.accept(values[i]);
+            }
+        }
+        long nowTick = Math.floorDiv(nowMillis, tickMillis);
+        while (currentTick < nowTick) {
+            currentTick++;
+            // Сначала верхние уровни: их таймеры могут опуститься до ячейки текущего тика
+            for (int level = levels - 1; level > 0; level--) {
+                if ((currentTick & ((1L << (bits * level)) - 1)) == 0) {
+                    cascade(level, (int) (currentTick >>> (bits * level)) & mask);
+                }
+            }
+            fire((int) currentTick & mask, expired);
+        }
+    }
+
+    /**
+     * @return сколько таймеров ещё не сработало
+     */
+    public int size() {
+        return size;
+    }
+
+    private void place(long dueTick, long value) {
+        int level = 0;
+        while (level < levels - 1 && (dueTick >>> (bits * (level + 1))) != (currentTick >>> (bits * (level + 1)))) {
+            level++;
+        }
+        int slot = (int) (dueTick >>> (bits * level)) & mask;
+        long[] bucket = buckets[level][slot];
+        int count = sizes[level][slot];
+        if (bucket == null) {
+            bucket = new long[8];
+        } else if (count * 2 == bucket.length) {
+            bucket = Arrays.copyOf(bucket, bucket.length * 2);
+        }
+        bucket[count * 2] = dueTick;
+        bucket[count * 2 + 1] = value;
+        buckets[level][slot] = bucket;
+        sizes[level][slot] = count + 1;
+    }
+
+    private void cascade(int level, int slot) {
+        long[] bucket = buckets[level][slot];
+        int count = sizes[level][slot];
+        buckets[level][slot] = null;
+        sizes[level][slot] = 0;
+        for (int i = 0; i < count; i++) {
+            place(bucket[i * 2], bucket[i * 2 + 1]);
+        }
+    }
+
+    private void fire(int slot, LongConsumer expired) {
+        long[] bucket = buckets[0][slot];
+        int count = sizes[0][slot];
+        if (count == 0) {
+            return;
+        }
+        // Ячейка освобождается до вызова обработчика, чтобы он мог добавлять таймеры
+        buckets[0][slot] = null;
+        sizes[0][slot] = 0;
+        size -= count;
+        for (int i = 0; i < count; i++) {
+            expired.accept(bucket[i * 2 + 1]);
+        }
+    }
+}
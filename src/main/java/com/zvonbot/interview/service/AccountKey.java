@@ -0,0 +1,11 @@
+package com.zvonbot.interview.service;
+
+/**
+ * Аккаунт Звонобота из настроек.
+ *
+ * @param name имя аккаунта в логах и статистике; сам ключ не показывается
+ * @param apiKey ключ API
+ * @param weight пропускная способность аккаунта относительно остальных
+ */
+public record AccountKey(String name, String apiKey, int weight) {
+}
@@ -0,0 +1,16 @@
+package com.zvonbot.interview.service;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Когда аккаунт выводится из распределения отправок.
+ *
+ * @param ejectDuration на сколько выводится аккаунт, если проверка не вернёт его раньше
+ * @param ejectErrors фрагменты текста ошибки API, означающие, что аккаунт не может отправлять
+ *                    (например, закончился баланс); сравниваются без учёта регистра
+ * @param minBalance аккаунт с балансом не выше этого значения выводится при проверке
+ * @param checkInterval как часто проверяются ключ и баланс аккаунтов; 0 - не проверять
+ */
+public record AccountPolicy(Duration ejectDuration, List<String> ejectErrors, double minBalance, Duration checkInterval) {
+}
@@ -0,0 +1,82 @@
+package com.zvonbot.interview.service;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Распределяет отправки между аккаунтами Звонобота.
+ *
+ * <p>Выбирается активный аккаунт с наименьшей загрузкой на единицу веса с учётом новой отправки,
+ * {@code (pending + 1) / weight}; при равенстве аккаунты перебираются по кругу. Так аккаунт
+ * с большим весом принимает пропорционально больше одновременных отправок, а медленный
+ * или упёршийся в лимит аккаунт, у которого копятся незавершённые отправки, получает меньше.
+ * Если выведены все аккаунты, выбор идёт среди всех: отправка не отклоняется заранее,
+ * а получает ошибку Звонобота.
+ */
+final class AccountPool {
+
+    private final List<ZvonobotAccount> accounts;
+    private final AtomicInteger cursor = new AtomicInteger();
+
+    AccountPool(List<ZvonobotAccount> accounts) {
+        this.accounts = List.copyOf(accounts);
+    }
+
+    /**
+     * @return основной аккаунт: через него идут информационные запросы и отправки
+     * с его исходящим номером или аудиофайлом
+     */
+    ZvonobotAccount primary() {
+        return accounts.get(0);
+    }
+
+    /**
+     * @return аккаунт по номеру или основной, если такого нет
+     */
+    ZvonobotAccount get(int index) {
+        return index >= 0 && index < accounts.size() ? accounts.get(index) : primary();
+    }
+
+    List<ZvonobotAccount> all() {
+        return accounts;
+    }
+
+    int size() {
+        return accounts.size();
+    }
+
+    /**
+     * Выбирает аккаунт для отправки; вызывающий освобождает его через {@link ZvonobotAccount#release()}
+     */
+    ZvonobotAccount pick(long nowMillis) {
+        if (accounts.size() == 1) {
+            ZvonobotAccount account = accounts.get(0);
+            account.acquire();
+            return account;
+        }
+        int start = Math.floorMod(cursor.getAndIncrement(), accounts.size());
+        ZvonobotAccount account = leastLoaded(start, nowMillis, true);
+        if (account == null) {
+            account = leastLoaded(start, nowMillis, false);
+        }
+        account.acquire();
+        return account;
+    }
+
+    private ZvonobotAccount leastLoaded(int start, long nowMillis, boolean activeOnly) {
+        ZvonobotAccount best = null;
+        double bestLoad = Double.MAX_VALUE;
+        for (int i = 0; i < accounts.size(); i++) {
+            ZvonobotAccount account = accounts.get((start + i) % accounts.size());
+            if (activeOnly && !account.isActive(nowMillis)) {
+                continue;
+            }
+            double load = (account.pending.get() + 1.0) / account.weight;
+            if (load < bestLoad) {
+                best = account;
+                bestLoad = load;
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,176 @@
+package com.zvonbot.interview.service;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Кодирует тело запроса /apiCalls/create прямо в буфер без промежуточных объектов.
+ *
+ * <p>Результат совпадает байт в байт с сериализацией {@link com.zvonbot.interview.dto.zvonobot.ZvonobotCallRequest}
+ * через Jackson, но неизменные части (ключ API, имена полей, значения по умолчанию) закодированы
+ * один раз при создании, а на каждый запрос в буфер дописываются только номер, исходящий номер и текст.
+ * При отправке через WebClient буфер берётся из пула Netty.
+ */
+public final class CallRequestEncoder {
+
+    private static final byte[] HEX = "0123456789ABCDEF".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] DUTY_PHONE = ascii("\",\"dutyPhone\":1");
+    private static final byte[] OUTGOING_PHONE = ascii("\",\"outgoingPhone\":\"");
+    private static final byte[] OUTGOING_PHONE_END = ascii("\"");
+    private static final byte[] VOICE_TEXT = ascii(",\"record\":{\"text\":\"");
+    private static final byte[] VOICE_TEXT_END = ascii("\",\"gender\":0}}");
+    private static final byte[] VOICE_RECORD = ascii(",\"record\":{\"text\":\"\",\"gender\":0,\"id\":");
+    private static final byte[] VOICE_RECORD_END = ascii("}}");
+    private static final byte[] SMS_TEXT = ascii(",\"record\":{\"text\":\".\",\"gender\":0},\"ivrs\":[{\"digit\":1,\"smsText\":\"");
+    private static final byte[] SMS_TEXT_END = ascii("\",\"needBlock\":0}]}");
+
+    private final byte[] prefix;
+
+    public CallRequestEncoder(String apiKey) {
+        DataBuffer buffer = DefaultDataBufferFactory.sharedInstance.allocateBuffer(64);
+        buffer.write(ascii("{\"apiKey\":\""));
+        writeEscaped(buffer, apiKey);
+        buffer.write(ascii("\",\"phone\":\""));
+        this.prefix = new byte[buffer.readableByteCount()];
+        buffer.read(prefix);
+    }
+
+    /**
+     * Голосовое сообщение: синтез речи из текста или предварительно смодерированный аудиофайл.
+     *
+     * @param phone номер получателя, только цифры
+     * @param outgoingPhone исходящий номер или null для дежурного номера
+     * @param recordId ID аудиофайла или null, если голос генерируется из текста
+     */
+    public DataBuffer encodeVoice(DataBufferFactory factory, String phone, String outgoingPhone, String text, Integer recordId) {
+        DataBuffer buffer = start(factory, phone, outgoingPhone, text);
+        if (recordId != null) {
+            buffer.write(VOICE_RECORD);
+            writeInt(buffer, recordId);
+            buffer.write(VOICE_RECORD_END);
+        } else {
+            buffer.write(VOICE_TEXT);
+            writeEscaped(buffer, text);
+            buffer.write(VOICE_TEXT_END);
+        }
+        return buffer;
+    }
+
+    /**
+     * SMS через звонок с минимальным текстом и IVR, отправляющим сообщение.
+     *
+     * @param phone номер получателя, только цифры
+     * @param outgoingPhone исходящий номер или null для дежурного номера
+     */
+    public DataBuffer encodeSms(DataBufferFactory factory, String phone, String outgoingPhone, String text) {
+        DataBuffer buffer = start(factory, phone, outgoingPhone, text);
+        buffer.write(SMS_TEXT);
+        writeEscaped(buffer, text);
+        buffer.write(SMS_TEXT_END);
+        return buffer;
+    }
+
+    private DataBuffer start(DataBufferFactory factory, String phone, String outgoingPhone, String text) {
+        // Кириллица занимает два байта в UTF-8, запас на экранирование не нужен в обычном случае
+        int estimate = prefix.length + 160 + 2 * (phone.length() + (text != null ? text.length() : 0))
+                + (outgoingPhone != null ? outgoingPhone.length() : 0);
+        DataBuffer buffer = factory.allocateBuffer(estimate);
+        buffer.write(prefix);
+        writeEscaped(buffer, phone);
+        if (outgoingPhone != null) {
+            buffer.write(OUTGOING_PHONE);
+            writeEscaped(buffer, outgoingPhone);
+            buffer.write(OUTGOING_PHONE_END);
+        } else {
+            buffer.write(DUTY_PHONE);
+        }
+        return buffer;
+    }
+
+    /**
+     * Записывает строку в UTF-8 с экранированием по правилам JSON так же, как Jackson:
+     * короткие последовательности для \b, \t, \n, \f, \r, остальные управляющие символы
+     * и суррогаты (эмодзи) - {@code \\uXXXX}
+     */
+    private static void writeEscaped(DataBuffer buffer, String value) {
+        if (value == null) {
+            return;
+        }
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char ch = value.charAt(i);
+            if (ch < 0x80) {
+                if (ch == '"' || ch == '\\') {
+                    buffer.write((byte) '\\');
+                    buffer.write((byte) ch);
+                } else if (ch < 0x20) {
+                    byte shortEscape = shortEscape(ch);
+                    if (shortEscape != 0) {
+                        buffer.write((byte) '\\');
+                        buffer.write(shortEscape);
+                    } else {
+                        writeUnicodeEscape(buffer, ch);
+                    }
+                } else {
+                    buffer.write((byte) ch);
+                }
+            } else if (ch < 0x800) {
+                buffer.write((byte) (0xC0 | (ch >> 6)));
+                buffer.write((byte) (0x80 | (ch & 0x3F)));
+            } else if (Character.isSurrogate(ch)) {
+                // Jackson экранирует каждую половину пары, в том числе непарную
+                writeUnicodeEscape(buffer, ch);
+            } else {
+                buffer.write((byte) (0xE0 | (ch >> 12)));
+                buffer.write((byte) (0x80 | ((ch >> 6) & 0x3F)));
+                buffer.write((byte) (0x80 | (ch & 0x3F)));
+            }
+        }
+    }
+
+    private static void writeUnicodeEscape(DataBuffer buffer, char ch) {
+        buffer.write((byte) '\\');
+        buffer.write((byte) 'u');
+        buffer.write(HEX[ch >> 12]);
+        buffer.write(HEX[(ch >> 8) & 0xF]);
+        buffer.write(HEX[(ch >> 4) & 0xF]);
+        buffer.write(HEX[ch & 0xF]);
+    }
+
+    private static byte shortEscape(char ch) {
+        return switch (ch) {
+            case '\b' -> (byte) 'b';
+            case '\t' -> (byte) 't';
+            case '\n' -> (byte) 'n';
+            case '\f' -> (byte) 'f';
+            case '\r' -> (byte) 'r';
+            default -> 0;
+        };
+    }
+
+    private static void writeInt(DataBuffer buffer, int value) {
+        if (value < 0) {
+            buffer.write((byte) '-');
+            if (value == Integer.MIN_VALUE) {
+                buffer.write(ascii("2147483648"));
+                return;
+            }
+            value = -value;
+        }
+        int divisor = 1;
+        while (value / divisor >= 10) {
+            divisor *= 10;
+        }
+        for (; divisor > 0; divisor /= 10) {
+            buffer.write((byte) ('0' + value / divisor % 10));
+        }
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,178 @@
+package com.zvonbot.interview.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteBufferFeeder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import com.zvonbot.interview.exception.ZvonobotApiException;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Разбирает ответ Звонобота {@code {"result":"ok","data":[...]}} по мере поступления тела
+ * и выдаёт элементы массива {@code data} объектами заданного типа.
+ *
+ * <p>Тело читает неблокирующий парсер Jackson, поэтому куски могут обрываться где угодно, в том
+ * числе посреди строки, escape-последовательности или символа UTF-8. Дерево для всего списка
+ * не строится: токены очередного элемента {@code data} собираются в {@link TokenBuffer} и сразу
+ * превращаются в объект. Из остальных полей верхнего уровня читаются только {@code result}
+ * и {@code error}; они проверяются в конце ответа по правилам
+ * {@link com.zvonbot.interview.dto.zvonobot.ZvonobotResponse#isSuccess()}.
+ * Элементы {@code data} должны быть объектами или массивами.
+ */
+public final class ListResponseDecoder<T> {
+
+    private static final String DATA = "data";
+
+    private final ObjectReader reader;
+    private final JsonParser parser;
+    private final ByteBufferFeeder feeder;
+
+    /** Число открытых объектов и массивов */
+    private int depth;
+    /** Поле верхнего уровня, значение которого сейчас разбирается */
+    private String field;
+    private boolean inData;
+    private boolean hasData;
+    private String result;
+    private String error;
+    private boolean complete;
+    /** Токены текущего элемента data */
+    private TokenBuffer element;
+
+    private ListResponseDecoder(ObjectMapper objectMapper, Class<T> type) throws IOException {
+        this.reader = objectMapper.readerFor(type);
+        this.parser = objectMapper.getFactory().createNonBlockingByteBufferParser();
+        this.feeder = (ByteBufferFeeder) parser.getNonBlockingInputFeeder();
+    }
+
+    /**
+     * @return элементы {@code data}; ответ с ошибкой API завершается {@link ZvonobotApiException} с кодом 200
+     */
+    public static <T> Flux<T> decode(Flux<DataBuffer> body, ObjectMapper objectMapper, Class<T> type) {
+        return Flux.defer(() -> {
+            ListResponseDecoder<T> decoder = create(objectMapper, type);
+            return body.concatMapIterable(decoder::feed)
+                    .concatWith(Mono.<T>fromRunnable(decoder::finish))
+                    .doOnDiscard(DataBuffer.class, DataBufferUtils::release)
+                    .doFinally(signal -> decoder.close());
+        });
+    }
+
+    private static <T> ListResponseDecoder<T> create(ObjectMapper objectMapper, Class<T> type) {
+        try {
+            return new ListResponseDecoder<>(objectMapper, type);
+        } catch (IOException e) {
+            throw new IllegalStateException("Не удалось создать парсер JSON", e);
+        }
+    }
+
+    private List<T> feed(DataBuffer buffer) {
+        List<T> values = new ArrayList<>();
+        try (DataBuffer.ByteBufferIterator iterator = buffer.readableByteBuffers()) {
+            while (iterator.hasNext()) {
+                // Парсер читает кусок до конца, прежде чем принять следующий
+                feeder.feedInput(iterator.next());
+                parse(values);
+            }
+            return values;
+        } catch (IOException e) {
+            throw new DecodingException("Ошибка разбора ответа Звонобота: " + e.getMessage(), e);
+        } finally {
+            DataBufferUtils.release(buffer);
+        }
+    }
+
+    private void finish() {
+        try {
+            feeder.endOfInput();
+            parse(new ArrayList<>());
+        } catch (IOException e) {
+            throw new DecodingException("Ошибка разбора ответа Звонобота: " + e.getMessage(), e);
+        }
+        if (!complete) {
+            throw new DecodingException("Ответ Звонобота оборван");
+        }
+        if (!"ok".equals(result) && !(result == null && error == null && hasData)) {
+            throw new ZvonobotApiException(200, error != null && !error.isEmpty() ? error : "Неизвестная ошибка API");
+        }
+    }
+
+    private void close() {
+        try {
+            parser.close();
+        } catch (IOException e) {
+            // Парсер не держит внешних ресурсов
+        }
+    }
+
+    private void parse(List<T> values) throws IOException {
+        JsonToken token;
+        while ((token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+            if (complete || depth == 0 && token != JsonToken.START_OBJECT) {
+                throw new DecodingException("Ответ Звонобота не является объектом JSON");
+            }
+            if (element != null) {
+                element.copyCurrentEvent(parser);
+            }
+            switch (token) {
+                case START_OBJECT, START_ARRAY -> {
+                    depth++;
+                    if (depth == 2) {
+                        onValue(token);
+                    } else if (depth == 3 && inData) {
+                        element = new TokenBuffer(parser);
+                        element.copyCurrentEvent(parser);
+                    }
+                }
+                case END_OBJECT, END_ARRAY -> {
+                    depth--;
+                    if (depth == 2 && inData) {
+                        values.add(reader.readValue(element.asParserOnFirstToken()));
+                        element = null;
+                    } else if (depth == 1) {
+                        inData = false;
+                    } else if (depth == 0) {
+                        complete = true;
+                    }
+                }
+                case FIELD_NAME -> {
+                    if (depth == 1) {
+                        field = parser.currentName();
+                    }
+                }
+                default -> {
+                    if (inData && depth == 2) {
+                        throw new DecodingException("Ответ Звонобота не является списком объектов");
+                    }
+                    if (depth == 1) {
+                        onValue(token);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Значение поля верхнего уровня
+     */
+    private void onValue(JsonToken token) throws IOException {
+        if (DATA.equals(field)) {
+            inData = token == JsonToken.START_ARRAY;
+            hasData = token != JsonToken.VALUE_NULL;
+        } else if ("result".equals(field)) {
+            result = parser.getValueAsString();
+        } else if ("error".equals(field)) {
+            error = parser.getValueAsString();
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.zvonbot.interview.service;
+
+import com.zvonbot.interview.cache.RefreshingCache;
+import com.zvonbot.interview.dto.MessagePriority;
+import com.zvonbot.interview.ratelimit.TokenBucketRateLimiter;
+import com.zvonbot.interview.ratelimit.WeightedFairScheduler;
+import com.zvonbot.interview.record.RecordCatalog;
+import com.zvonbot.interview.resilience.AdaptiveConcurrencyLimiter;
+import com.zvonbot.interview.resilience.CircuitBreaker;
+import com.zvonbot.interview.util.Redaction;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Аккаунт Звонобота: ключ API, свой пул соединений, ограничители отправки, кэш исходящего номера
+ * и каталог аудиофайлов.
+ *
+ * <p>Аккаунт выводится из распределения отправок, когда у него кончился баланс или Звонобот
+ * не принимает его ключ, и возвращается после успешной проверки или по истечении срока вывода.
+ */
+final class ZvonobotAccount {
+
+    final int index;
+    final String name;
+    final String apiKey;
+    final int weight;
+    final WebClient webClient;
+    /**
+     * Собственный пул соединений аккаунта или null, если используется общий
+     */
+    final ConnectionProvider connectionProvider;
+    final CallRequestEncoder callRequestEncoder;
+    final Map<String, TokenBucketRateLimiter> rateLimiters = new ConcurrentHashMap<>();
+    final WeightedFairScheduler<MessagePriority> createScheduler;
+    final AdaptiveConcurrencyLimiter createConcurrencyLimiter;
+    final CircuitBreaker createCircuitBreaker;
+    RefreshingCache<String, String> outgoingPhoneCache;
+    /**
+     * Аудиофайлы аккаунта по тексту или null, если каталог отключён
+     */
+    RecordCatalog recordCatalog;
+
+    /**
+     * Отправки, выбравшие этот аккаунт и ещё не завершившиеся
+     */
+    final AtomicInteger pending = new AtomicInteger();
+    private final LongAdder routed = new LongAdder();
+    private final LongAdder ejections = new LongAdder();
+    private volatile long ejectedUntil;
+    private volatile String ejectReason;
+
+    ZvonobotAccount(int index, AccountKey key, WebClient webClient, ConnectionProvider connectionProvider,
+                    WeightedFairScheduler<MessagePriority> createScheduler,
+                    AdaptiveConcurrencyLimiter createConcurrencyLimiter, CircuitBreaker createCircuitBreaker) {
+        this.index = index;
+        this.name = key.name();
+        this.apiKey = key.apiKey();
+        this.weight = key.weight();
+        this.webClient = webClient;
+        this.connectionProvider = connectionProvider;
+        this.callRequestEncoder = new CallRequestEncoder(key.apiKey());
+        this.createScheduler = createScheduler;
+        this.createConcurrencyLimiter = createConcurrencyLimiter;
+        this.createCircuitBreaker = createCircuitBreaker;
+    }
+
+    boolean isActive(long nowMillis) {
+        return nowMillis >= ejectedUntil;
+    }
+
+    /**
+     * Учитывает выбор аккаунта для отправки
+     */
+    void acquire() {
+        pending.incrementAndGet();
+        routed.increment();
+    }
+
+    void release() {
+        pending.decrementAndGet();
+    }
+
+    /**
+     * @return true, если аккаунт до этого был активен
+     */
+    synchronized boolean eject(String reason, long untilMillis) {
+        boolean wasActive = isActive(System.currentTimeMillis());
+        ejectedUntil = Math.max(ejectedUntil, untilMillis);
+        ejectReason = reason;
+        if (wasActive) {
+            ejections.increment();
+        }
+        return wasActive;
+    }
+
+    /**
+     * @return true, если аккаунт был выведен
+     */
+    synchronized boolean readmit() {
+        boolean wasEjected = !isActive(System.currentTimeMillis());
+        ejectedUntil = 0;
+        ejectReason = null;
+        return wasEjected;
+    }
+
+    Map<String, Object> getStats() {
+        long now = System.currentTimeMillis();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("apiKey", Redaction.apiKey(apiKey));
+        stats.put("weight", weight);
+        stats.put("active", isActive(now));
+        if (!isActive(now)) {
+            stats.put("ejectedUntil", Instant.ofEpochMilli(ejectedUntil).toString());
+            stats.put("ejectReason", ejectReason);
+        }
+        stats.put("pending", pending.get());
+        stats.put("routed", routed.sum());
+        stats.put("ejections", ejections.sum());
+        return stats;
+    }
+}
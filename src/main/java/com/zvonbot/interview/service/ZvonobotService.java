@@ -1,23 +1,77 @@
 package com.zvonbot.interview.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zvonbot.interview.cache.RefreshingCache;
+import com.zvonbot.interview.cluster.ClusterNode;
+import com.zvonbot.interview.cluster.ClusterService;
+import com.zvonbot.interview.config.ConnectionPoolMonitor;
 import com.zvonbot.interview.config.ZvonobotConfig;
-import com.zvonbot.interview.dto.zvonobot.ZvonobotCallRequest;
+import com.zvonbot.interview.dto.MessagePriority;
+import com.zvonbot.interview.dto.MessageRequest;
+import com.zvonbot.interview.dto.MessageType;
+import com.zvonbot.interview.dto.zvonobot.ZvonobotPhone;
+import com.zvonbot.interview.dto.zvonobot.ZvonobotProfile;
+import com.zvonbot.interview.dto.zvonobot.ZvonobotRecord;
 import com.zvonbot.interview.dto.zvonobot.ZvonobotResponse;
+import com.zvonbot.interview.exception.ZvonobotApiException;
+import com.zvonbot.interview.ratelimit.TokenBucketRateLimiter;
+import com.zvonbot.interview.record.RecordCatalog;
+import com.zvonbot.interview.record.RecordCatalogPolicy;
+import com.zvonbot.interview.ratelimit.WeightedFairScheduler;
+import com.zvonbot.interview.resilience.AdaptiveConcurrencyLimiter;
+import com.zvonbot.interview.resilience.CircuitBreaker;
+import com.zvonbot.interview.resilience.DecorrelatedJitterRetry;
+import com.zvonbot.interview.resilience.Hedger;
+import com.zvonbot.interview.logging.LogEvents;
+import com.zvonbot.interview.metrics.UpstreamMetrics;
+import com.zvonbot.interview.suppression.SuppressionList;
+import com.zvonbot.interview.util.PhoneNumbers;
+import com.zvonbot.interview.util.Redaction;
+import com.zvonbot.interview.util.UnicodeEscapes;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.client.reactive.ClientHttpRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.reactive.function.BodyInserter;
+import org.springframework.web.reactive.function.BodyInserters;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.netty.resources.ConnectionProvider;
 
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
 
 /**
  * Сервис для работы с API Звонобота.
  * Предоставляет методы для отправки голосовых сообщений, SMS и получения информации.
+ *
+ * <p>Отправки распределяются между аккаунтами из {@code zvonobot.accounts.keys}: у каждого
+ * аккаунта свой ключ, пул соединений и ограничители, см. {@link AccountPool}. Информационные
+ * запросы идут через основной аккаунт. В режиме кластера отправка на номер другого узла
+ * пересылается ему, см. {@link ClusterService}.
  */
 @Service
 public class ZvonobotService {
@@ -26,42 +80,211 @@ public class ZvonobotService {
     
     // Константы для улучшения читаемости
     private static final String DUTY_PHONE = "duty";
-    private static final String PHONE_CLEANUP_REGEX = "[^0-9]";
-    private static final String UNICODE_PATTERN = "\\\\u([0-9a-fA-F]{4})";
-    private static final int DEFAULT_GENDER = 0; // Женский голос
-    private static final int DEFAULT_IVR_DIGIT = 1;
-    private static final int DEFAULT_NEED_BLOCK = 0;
-    private static final String MINIMAL_SMS_TEXT = ".";
-    private static final Integer PREDEFINED_AUDIO_ID = 247273;
-    
-    private final WebClient webClient;
+    private static final String OUTGOING_PHONE_KEY = "outgoingPhone";
+    private static final String ACCOUNT_KEY = "account";
+    private static final String CREATE_URI = "/apiCalls/create";
+    private static final String GET_CALLS_URI = "/apiCalls/get";
+    private static final String USER_INFO_URI = "/apiCalls/userInfo";
+    private static final String RECORDS_URI = "/apiCalls/getRecords";
+    
     private final ZvonobotConfig config;
-    private String cachedOutgoingPhone = null;
+    private final ObjectMapper objectMapper;
+    private final UpstreamMetrics metrics;
+    private final SuppressionList suppressionList;
+    private final ClusterService cluster;
+    private final AccountPool accounts;
+    private final AccountPolicy accountPolicy;
+    private final RefreshingCache<String, ZvonobotResponse> recordsCache;
+    private final RefreshingCache<String, ZvonobotResponse> phonesCache;
+    private final RefreshingCache<String, ZvonobotResponse> userInfoCache;
+    private final DecorrelatedJitterRetry readRetry;
+    private final Map<String, Hedger> hedgers = new ConcurrentHashMap<>();
+    private final Map<String, Sinks.Empty<Void>> synthesizing = new ConcurrentHashMap<>();
+    private volatile CallCreatedListener callCreatedListener;
+    private ScheduledExecutorService accountCheckExecutor;
+    private ScheduledExecutorService recordCatalogExecutor;
+    
+    /**
+     * Обработчик успешно созданных звонков
+     */
+    @FunctionalInterface
+    public interface CallCreatedListener {
+        /**
+         * @param account номер аккаунта, создавшего звонок; по нему запрашиваются статусы
+         * @param phone номер получателя без лишних символов
+         * @param response ответ /apiCalls/create с id звонков
+         */
+        void onCallCreated(int account, String phone, ZvonobotResponse response);
+    }
     
     @Autowired
-    public ZvonobotService(WebClient webClient, ZvonobotConfig config) {
-        this.webClient = webClient;
+    public ZvonobotService(WebClient webClient, ZvonobotConfig config, ObjectMapper objectMapper, UpstreamMetrics metrics,
+                           SuppressionList suppressionList, ClusterService cluster, ConnectionPoolMonitor connectionPoolMonitor) {
         this.config = config;
+        this.objectMapper = objectMapper;
+        this.metrics = metrics;
+        this.suppressionList = suppressionList;
+        this.cluster = cluster;
+        this.accountPolicy = config.getAccountPolicy();
+        List<AccountKey> keys = config.getAccountKeys();
+        List<ZvonobotAccount> accountList = new ArrayList<>();
+        for (AccountKey key : keys) {
+            // Основной аккаунт использует общий пул соединений, остальные - собственные
+            ConnectionProvider provider = accountList.isEmpty() ? null
+                    : config.createConnectionProvider("zvonobot-" + key.name(), connectionPoolMonitor);
+            accountList.add(createAccount(accountList.size(), key, provider == null ? webClient : config.createWebClient(provider),
+                    provider, keys.size() > 1));
+        }
+        this.accounts = new AccountPool(accountList);
+        // Ответы с ошибкой API кэшируются как отрицательные - на короткий интервал с нарастающей задержкой
+        this.recordsCache = new RefreshingCache<>(key -> fetchRecords().map(this::withEtag),
+                ZvonobotResponse::isSuccess, config.getRecordsCachePolicy());
+        this.phonesCache = new RefreshingCache<>(key -> fetchOutgoingPhones().map(this::withEtag),
+                ZvonobotResponse::isSuccess, config.getPhonesCachePolicy());
+        this.userInfoCache = new RefreshingCache<>(key -> fetchUserInfo().map(this::withEtag),
+                ZvonobotResponse::isSuccess, config.getUserInfoCachePolicy());
+        this.readRetry = new DecorrelatedJitterRetry(config.getReadRetryPolicy(), ZvonobotService::isUpstreamFailure);
     }
     
     /**
-     * Декодирует Unicode-последовательности в читаемый текст
+     * Восстанавливает каталог аудиофайлов и запускает его обновление,
+     * а если аккаунтов несколько - проверку ключей и балансов
      */
-    private String decodeUnicode(String text) {
-        if (text == null) return null;
-        
-        Pattern pattern = Pattern.compile(UNICODE_PATTERN);
-        Matcher matcher = pattern.matcher(text);
-        StringBuffer sb = new StringBuffer();
-        
-        while (matcher.find()) {
-            String unicode = matcher.group(1);
-            char ch = (char) Integer.parseInt(unicode, 16);
-            matcher.appendReplacement(sb, String.valueOf(ch));
+    @PostConstruct
+    public void start() {
+        if (config.isRecordCatalogEnabled()) {
+            startRecordCatalog();
+        }
+        if (accounts.size() < 2) {
+            return;
+        }
+        logger.info("Отправки распределяются между {} аккаунтами Звонобота", accounts.size());
+        if (accountPolicy.checkInterval().isZero()) {
+            return;
+        }
+        accountCheckExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "zvonobot-account-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+        accountCheckExecutor.scheduleWithFixedDelay(this::checkAccounts, 0,
+                accountPolicy.checkInterval().toMillis(), TimeUnit.MILLISECONDS);
+    }
+    
+    @PreDestroy
+    public void stop() {
+        if (accountCheckExecutor != null) {
+            accountCheckExecutor.shutdownNow();
+        }
+        if (recordCatalogExecutor != null) {
+            recordCatalogExecutor.shutdownNow();
+        }
+        if (config.isRecordCatalogEnabled()) {
+            saveRecordCatalogs();
+        }
+        for (ZvonobotAccount account : accounts.all()) {
+            if (account.connectionProvider != null) {
+                account.connectionProvider.dispose();
+            }
+        }
+    }
+    
+    private void startRecordCatalog() {
+        for (ZvonobotAccount account : accounts.all()) {
+            try {
+                account.recordCatalog.restore();
+            } catch (IOException e) {
+                logger.warn("Не удалось восстановить каталог аудиофайлов {}: {}", account.name, e.getMessage());
+            }
+        }
+        Duration interval = config.getRecordCatalogPolicy().refreshInterval();
+        if (interval.isZero()) {
+            return;
+        }
+        recordCatalogExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "zvonobot-record-catalog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        recordCatalogExecutor.scheduleWithFixedDelay(() -> refreshRecordCatalog(interval), 0,
+                interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+    
+    /**
+     * Добавляет в каталог каждого аккаунта его аудиофайлы и сохраняет каталоги на диск
+     */
+    private void refreshRecordCatalog(Duration timeout) {
+        for (ZvonobotAccount account : accounts.all()) {
+            try {
+                Long loaded = stream(account, RECORDS_URI, ZvonobotRecord.class)
+                        .filter(account.recordCatalog::add)
+                        .count()
+                        .block(timeout);
+                logger.debug(LogEvents.REQUEST, "В каталог аудиофайлов {} загружено {} аудиофайлов с текстом", account.name, loaded);
+            } catch (RuntimeException e) {
+                logger.warn("Не удалось загрузить список аудиофайлов {} в каталог: {}", account.name,
+                        Exceptions.unwrap(e).getMessage());
+            }
+        }
+        saveRecordCatalogs();
+    }
+    
+    private void saveRecordCatalogs() {
+        for (ZvonobotAccount account : accounts.all()) {
+            try {
+                account.recordCatalog.save();
+            } catch (IOException e) {
+                logger.warn("Не удалось сохранить каталог аудиофайлов {}: {}", account.name, e.getMessage());
+            }
         }
-        matcher.appendTail(sb);
-        
-        return sb.toString();
+    }
+    
+    /**
+     * Аудиофайлы принадлежат аккаунту, поэтому у каждого аккаунта свой каталог.
+     * Каталог основного аккаунта хранится в {@code file}, остальных - рядом, с именем аккаунта.
+     */
+    private RecordCatalog createRecordCatalog(int index, AccountKey key) {
+        RecordCatalogPolicy policy = config.getRecordCatalogPolicy();
+        if (index == 0) {
+            return new RecordCatalog(policy);
+        }
+        String fileName = policy.file().getFileName().toString();
+        int extension = fileName.lastIndexOf('.');
+        String accountFileName = extension > 0
+                ? fileName.substring(0, extension) + "-" + key.name() + fileName.substring(extension)
+                : fileName + "-" + key.name();
+        return new RecordCatalog(new RecordCatalogPolicy(policy.maxEntries(), policy.refreshInterval(),
+                policy.file().resolveSibling(accountFileName), policy.recordErrors()));
+    }
+    
+    /**
+     * Создаёт аккаунт с собственными ограничителями отправки: лимиты Звонобота действуют на каждый аккаунт
+     */
+    private ZvonobotAccount createAccount(int index, AccountKey key, WebClient webClient, ConnectionProvider provider,
+                                          boolean named) {
+        String scope = named ? key.name() + " " + CREATE_URI : CREATE_URI;
+        WeightedFairScheduler<MessagePriority> scheduler = config.isPriorityEnabled()
+                ? new WeightedFairScheduler<>(scope, MessagePriority.class, config.getPriorityWeights(), config.getFairQueuePolicy())
+                : null;
+        AdaptiveConcurrencyLimiter concurrencyLimiter = config.isConcurrencyLimitEnabled()
+                ? new AdaptiveConcurrencyLimiter(scope, config.getConcurrencyLimitPolicy(), ZvonobotService::isUpstreamFailure)
+                : null;
+        CircuitBreaker circuitBreaker = config.isCircuitBreakerEnabled()
+                ? new CircuitBreaker(scope, config.getCircuitBreakerPolicy(), ZvonobotService::isUpstreamFailure)
+                : null;
+        ZvonobotAccount account = new ZvonobotAccount(index, key, webClient, provider, scheduler, concurrencyLimiter, circuitBreaker);
+        account.outgoingPhoneCache = new RefreshingCache<>(cacheKey -> fetchOutgoingPhone(account), config.getOutgoingPhoneCachePolicy());
+        if (config.isRecordCatalogEnabled()) {
+            account.recordCatalog = createRecordCatalog(index, key);
+        }
+        if (concurrencyLimiter != null) {
+            metrics.gauge("zvonobot.concurrency.limit", CREATE_URI, key.name(), concurrencyLimiter::getLimit);
+        }
+        if (circuitBreaker != null) {
+            // 0 - замкнут, 1 - разомкнут, 2 - пропускает пробные запросы
+            metrics.gauge("zvonobot.circuit.breaker.state", CREATE_URI, key.name(), () -> circuitBreaker.getState().ordinal());
+        }
+        return account;
     }
     
     /**
@@ -97,71 +320,131 @@ public class ZvonobotService {
      * @return Mono с ответом от API Звонобота
      */
     public Mono<ZvonobotResponse> sendVoiceMessage(String phone, String text, Integer recordId, String outgoingPhone) {
+        return sendVoiceMessage(phone, text, recordId, outgoingPhone, MessagePriority.TRANSACTIONAL);
+    }
+    
+    /**
+     * Отправляет голосовое сообщение в очереди указанного приоритета.
+     * 
+     * @param phone номер телефона получателя
+     * @param text текст для голосового сообщения
+     * @param recordId ID предварительно смодерированного аудиофайла
+     * @param outgoingPhone исходящий номер телефона
+     * @param priority приоритет отправки
+     * @return Mono с ответом от API Звонобота
+     */
+    public Mono<ZvonobotResponse> sendVoiceMessage(String phone, String text, Integer recordId, String outgoingPhone,
+                                                   MessagePriority priority) {
+        return sendVoiceMessage(phone, text, recordId, outgoingPhone, priority, true);
+    }
+    
+    /**
+     * @param route переслать отправку узлу кластера, которому принадлежит номер
+     */
+    private Mono<ZvonobotResponse> sendVoiceMessage(String phone, String text, Integer recordId, String outgoingPhone,
+                                                    MessagePriority priority, boolean route) {
         // Очищаем номер телефона от лишних символов
-        String cleanPhone = phone.replaceAll(PHONE_CLEANUP_REGEX, "");
-        
-        Mono<String> outgoingPhoneMono = outgoingPhone != null && !outgoingPhone.trim().isEmpty() 
-            ? Mono.just(outgoingPhone) 
-            : getOutgoingPhone();
+        String cleanPhone = PhoneNumbers.digitsOnly(phone);
+        if (suppressionList.isSuppressed(cleanPhone)) {
+            return Mono.just(suppressed(voiceKind(recordId), cleanPhone));
+        }
+        ClusterNode owner = route ? cluster.owner(cleanPhone) : null;
+        if (owner != null) {
+            return cluster.forward(owner, MessageType.VOICE, forwarded(cleanPhone, text, recordId, outgoingPhone, priority),
+                    () -> sendVoiceMessage(cleanPhone, text, recordId, outgoingPhone, priority, false));
+        }
         
-        return outgoingPhoneMono
-                .flatMap(outgoingPhoneValue -> {
-                    ZvonobotCallRequest request = new ZvonobotCallRequest();
-                    request.setApiKey(config.getApiKey());
-                    request.setPhone(cleanPhone);
-                    
-                    if (DUTY_PHONE.equals(outgoingPhoneValue)) { // Use dutyPhone if no specific outgoingPhone
-                        request.setDutyPhone(1);
-                    } else {
-                        request.setOutgoingPhone(outgoingPhoneValue);
-                    }
-                    
-                    // Если указан recordId, используем предварительно смодерированное аудио
-                    if (recordId != null) {
-                        ZvonobotCallRequest.Record record = new ZvonobotCallRequest.Record();
-                        record.setId(recordId);
-                        record.setText(""); // Пустой текст, так как используем предварительно смодерированное аудио
-                        record.setGender(DEFAULT_GENDER); // Женский голос
-                        request.setRecord(record);
-                        logger.info("Используем предварительно смодерированное аудио с recordId: {}", recordId);
-                    } else {
-                        // Иначе используем генерацию голоса из текста
-                        ZvonobotCallRequest.Record record = new ZvonobotCallRequest.Record();
-                        record.setText(text);
-                        record.setGender(DEFAULT_GENDER); // Женский голос
-                        request.setRecord(record);
-                        logger.info("Используем генерацию голоса из текста");
+        if (recordId != null || !config.isRecordCatalogEnabled()) {
+            return withAccount(recordId != null || hasOutgoingPhone(outgoingPhone), account ->
+                    createVoice(account, cleanPhone, text, recordId, outgoingPhone, priority));
+        }
+        // Текст, для которого у выбранного аккаунта уже есть аудиофайл, не ждёт синтеза и модерации
+        return withAccount(hasOutgoingPhone(outgoingPhone), account -> {
+            Integer cataloged = account.recordCatalog.find(text);
+            return cataloged != null
+                    ? sendCataloged(account, cleanPhone, text, cataloged, outgoingPhone, priority)
+                    : synthesizeOnce(account, cleanPhone, text, outgoingPhone, priority);
+        });
+    }
+    
+    private Mono<ZvonobotResponse> sendCataloged(ZvonobotAccount account, String cleanPhone, String text, int recordId,
+                                                 String outgoingPhone, MessagePriority priority) {
+        return createVoice(account, cleanPhone, text, recordId, outgoingPhone, priority)
+                .flatMap(response -> {
+                    // Неверный номер, баланс или лимит не исправит повторная отправка текстом
+                    if (!account.recordCatalog.isRecordRejected(response)) {
+                        return Mono.just(response);
                     }
-                    
-                    logger.info("Отправка голосового сообщения на номер: {} с исходящего номера: {}", cleanPhone, outgoingPhoneValue);
-                    logger.info("Запрос к API Звонобота: {}", request);
-                    
-                    return webClient.post()
-                            .uri("/apiCalls/create")
-                            .bodyValue(request)
-                            .retrieve()
-                            .onStatus(status -> status.is4xxClientError() || status.is5xxServerError(),
-                                    response -> response.bodyToMono(String.class)
-                                            .flatMap(errorBody -> {
-                                                String decodedError = decodeUnicode(errorBody);
-                                                logger.error("HTTP ошибка {}: {}", response.statusCode(), decodedError);
-                                                return Mono.error(new RuntimeException("API ошибка: " + decodedError));
-                                            }))
-                            .bodyToMono(ZvonobotResponse.class)
-                            .doOnSuccess(response -> {
-                                logger.info("Ответ от API Звонобота: {}", response);
-                                if (response.isSuccess()) {
-                                    logger.info("Голосовое сообщение успешно отправлено на номер: {}", cleanPhone);
-                                } else {
-                                    logger.error("Ошибка отправки голосового сообщения на номер {}: {}", cleanPhone, response.getError());
-                                }
-                            })
-                            .doOnError(error -> {
-                                logger.error("Ошибка при отправке голосового сообщения на номер {}: {}", cleanPhone, error.getMessage());
-                            });
+                    // Звонобот не принял аудиофайл и звонок не создал: текст уходит на синтез
+                    account.recordCatalog.invalidate(text, recordId);
+                    return createVoice(account, cleanPhone, text, null, outgoingPhone, priority);
+                });
+    }
+    
+    /**
+     * Одинаковые тексты, например из шаблона с одинаковыми переменными, синтезируются один раз
+     * на аккаунт: пока первая отправка текста через аккаунт не получила ответ, остальные отправки
+     * через него ждут её и отправляют её аудиофайл. Аудиофайл другого аккаунта им не подошёл бы.
+     */
+    private Mono<ZvonobotResponse> synthesizeOnce(ZvonobotAccount account, String cleanPhone, String text,
+                                                  String outgoingPhone, MessagePriority priority) {
+        String normalized = RecordCatalog.normalize(text);
+        // После нормализации в тексте нет табуляций
+        String key = account.index + "\t" + normalized;
+        Sinks.Empty<Void> done = Sinks.empty();
+        Sinks.Empty<Void> running = normalized.isEmpty() ? null : synthesizing.putIfAbsent(key, done);
+        if (running == null) {
+            return createVoice(account, cleanPhone, text, null, outgoingPhone, priority)
+                    .doFinally(signal -> {
+                        synthesizing.remove(key, done);
+                        done.tryEmitEmpty();
+                    });
+        }
+        account.recordCatalog.recordGrouped();
+        return running.asMono().then(Mono.defer(() -> {
+            Integer learned = account.recordCatalog.find(text);
+            return learned != null
+                    ? sendCataloged(account, cleanPhone, text, learned, outgoingPhone, priority)
+                    : createVoice(account, cleanPhone, text, null, outgoingPhone, priority);
+        }));
+    }
+    
+    private Mono<ZvonobotResponse> createVoice(ZvonobotAccount account, String cleanPhone, String text, Integer recordId,
+                                               String outgoingPhone, MessagePriority priority) {
+        String kind = voiceKind(recordId);
+        return resolveOutgoingPhone(account, outgoingPhone)
+                .flatMap(outgoingPhoneValue -> {
+                    String explicitOutgoingPhone = DUTY_PHONE.equals(outgoingPhoneValue) ? null : outgoingPhoneValue;
+                    long start = System.nanoTime();
+                    return create(account, factory -> account.callRequestEncoder.encodeVoice(factory, cleanPhone,
+                                    explicitOutgoingPhone, text, recordId), priority)
+                            .doOnSuccess(response -> onCallCreated(account, cleanPhone, response))
+                            .doOnSuccess(response -> learnRecord(account, text, recordId, response))
+                            .doOnSuccess(response -> logSendResult(kind, cleanPhone, outgoingPhoneValue, start, response, null))
+                            .doOnError(error -> logSendResult(kind, cleanPhone, outgoingPhoneValue, start, null, error));
                 });
     }
     
+    private static boolean hasOutgoingPhone(String outgoingPhone) {
+        return outgoingPhone != null && !outgoingPhone.trim().isEmpty();
+    }
+    
+    /**
+     * Если указан recordId, используется предварительно смодерированное аудио, иначе генерация голоса из текста
+     */
+    private static String voiceKind(Integer recordId) {
+        return recordId != null ? "Голосовое сообщение (аудиофайл " + recordId + ")" : "Голосовое сообщение";
+    }
+    
+    /**
+     * Запоминает аудиофайл, синтезированный из текста, в каталоге аккаунта, которому он принадлежит
+     */
+    private void learnRecord(ZvonobotAccount account, String text, Integer recordId, ZvonobotResponse response) {
+        if (account.recordCatalog != null && recordId == null && response != null && response.isSuccess()) {
+            account.recordCatalog.learn(text, response);
+        }
+    }
+    
     /**
      * Отправляет SMS сообщение с автоматическим выбором исходящего номера.
      * 
@@ -182,201 +465,585 @@ public class ZvonobotService {
      * @return Mono с ответом от API Звонобота
      */
     public Mono<ZvonobotResponse> sendSms(String phone, String text, String outgoingPhone) {
+        return sendSms(phone, text, outgoingPhone, MessagePriority.TRANSACTIONAL);
+    }
+    
+    /**
+     * Отправляет SMS сообщение в очереди указанного приоритета.
+     * 
+     * @param phone номер телефона получателя
+     * @param text текст SMS сообщения
+     * @param outgoingPhone исходящий номер телефона
+     * @param priority приоритет отправки
+     * @return Mono с ответом от API Звонобота
+     */
+    public Mono<ZvonobotResponse> sendSms(String phone, String text, String outgoingPhone, MessagePriority priority) {
+        return sendSms(phone, text, outgoingPhone, priority, true);
+    }
+    
+    /**
+     * @param route переслать отправку узлу кластера, которому принадлежит номер
+     */
+    private Mono<ZvonobotResponse> sendSms(String phone, String text, String outgoingPhone, MessagePriority priority,
+                                           boolean route) {
         // Очищаем номер телефона от лишних символов
-        String cleanPhone = phone.replaceAll(PHONE_CLEANUP_REGEX, "");
-        
-        Mono<String> outgoingPhoneMono = outgoingPhone != null && !outgoingPhone.trim().isEmpty() 
-            ? Mono.just(outgoingPhone) 
-            : getOutgoingPhone();
+        String cleanPhone = PhoneNumbers.digitsOnly(phone);
+        if (suppressionList.isSuppressed(cleanPhone)) {
+            return Mono.just(suppressed("SMS", cleanPhone));
+        }
+        ClusterNode owner = route ? cluster.owner(cleanPhone) : null;
+        if (owner != null) {
+            return cluster.forward(owner, MessageType.SMS, forwarded(cleanPhone, text, null, outgoingPhone, priority),
+                    () -> sendSms(cleanPhone, text, outgoingPhone, priority, false));
+        }
         
-        return outgoingPhoneMono
-                .flatMap(outgoingPhoneValue -> {
-                    // Создаем запрос для отправки SMS через звонок с IVR
-                    ZvonobotCallRequest request = new ZvonobotCallRequest();
-                    request.setApiKey(config.getApiKey());
-                    request.setPhone(cleanPhone);
-                    
-                    if (DUTY_PHONE.equals(outgoingPhoneValue)) {
-                        request.setDutyPhone(1);
-                    } else {
-                        request.setOutgoingPhone(outgoingPhoneValue);
-                    }
-                    
-                    // Для SMS создаем минимальный record с очень коротким текстом
-                    // Короткий текст может не требовать модерации
-                    ZvonobotCallRequest.Record record = new ZvonobotCallRequest.Record();
-                    record.setText(MINIMAL_SMS_TEXT); // Минимальный текст - одна точка
-                    record.setGender(DEFAULT_GENDER); // Женский голос
-                    request.setRecord(record);
-                    
-                    // Добавляем IVR для отправки SMS
-                    ZvonobotCallRequest.Ivr ivr = new ZvonobotCallRequest.Ivr();
-                    ivr.setDigit(DEFAULT_IVR_DIGIT); // Любая цифра
-                    ivr.setSmsText(text); // Текст SMS для отправки
-                    ivr.setNeedBlock(DEFAULT_NEED_BLOCK); // Не добавлять в черный список
-                    
-                    request.setIvrs(new ZvonobotCallRequest.Ivr[]{ivr});
-                    
-                    logger.info("Отправка SMS на номер: {} с исходящего номера: {}", cleanPhone, outgoingPhoneValue);
-                    logger.info("Запрос к API Звонобота: {}", request);
-                    
-                    return webClient.post()
-                            .uri("/apiCalls/create")
-                            .bodyValue(request)
-                            .retrieve()
-                            .onStatus(status -> status.is4xxClientError() || status.is5xxServerError(),
-                                    response -> response.bodyToMono(String.class)
-                                            .flatMap(errorBody -> {
-                                                String decodedError = decodeUnicode(errorBody);
-                                                logger.error("HTTP ошибка {}: {}", response.statusCode(), decodedError);
-                                                return Mono.error(new RuntimeException("API ошибка: " + decodedError));
-                                            }))
-                            .bodyToMono(ZvonobotResponse.class)
-                            .doOnSuccess(response -> {
-                                logger.info("Ответ от API Звонобота: {}", response);
-                                if (response.isSuccess()) {
-                                    logger.info("SMS успешно отправлено на номер: {}", cleanPhone);
-                                } else {
-                                    logger.error("Ошибка отправки SMS на номер {}: {}", cleanPhone, response.getError());
-                                }
-                            })
-                            .doOnError(error -> {
-                                logger.error("Ошибка при отправке SMS на номер {}: {}", cleanPhone, error.getMessage());
-                            });
-                });
+        return withAccount(hasOutgoingPhone(outgoingPhone), account ->
+                resolveOutgoingPhone(account, outgoingPhone)
+                        .flatMap(outgoingPhoneValue -> {
+                            // SMS отправляется через звонок с минимальным текстом (одна точка не требует модерации)
+                            // и IVR, который отправляет текст SMS
+                            String explicitOutgoingPhone = DUTY_PHONE.equals(outgoingPhoneValue) ? null : outgoingPhoneValue;
+                            long start = System.nanoTime();
+                            return create(account, factory -> account.callRequestEncoder.encodeSms(factory, cleanPhone,
+                                            explicitOutgoingPhone, text), priority)
+                                    .doOnSuccess(response -> onCallCreated(account, cleanPhone, response))
+                                    .doOnSuccess(response -> logSendResult("SMS", cleanPhone, outgoingPhoneValue, start, response, null))
+                                    .doOnError(error -> logSendResult("SMS", cleanPhone, outgoingPhoneValue, start, null, error));
+                        }));
+    }
+    
+    /**
+     * Отправляет голосовое сообщение или SMS в зависимости от типа.
+     * Сообщение без приоритета считается срочным.
+     */
+    public Mono<ZvonobotResponse> send(MessageType type, MessageRequest request) {
+        return send(type, request, true);
+    }
+    
+    /**
+     * Отправляет сообщение, пересланное другим узлом кластера, на этом узле без повторной пересылки
+     */
+    public Mono<ZvonobotResponse> sendLocally(MessageType type, MessageRequest request) {
+        return send(type, request, false);
+    }
+    
+    private Mono<ZvonobotResponse> send(MessageType type, MessageRequest request, boolean route) {
+        MessagePriority priority = request.getPriority() != null ? request.getPriority() : MessagePriority.TRANSACTIONAL;
+        return type == MessageType.SMS
+                ? sendSms(request.getCleanPhone(), request.getText(), request.getOutgoingPhone(), priority, route)
+                : sendVoiceMessage(request.getCleanPhone(), request.getText(), request.getRecordId(), request.getOutgoingPhone(),
+                        priority, route);
     }
     
+    private static MessageRequest forwarded(String phone, String text, Integer recordId, String outgoingPhone,
+                                            MessagePriority priority) {
+        MessageRequest request = new MessageRequest(phone, text, recordId, outgoingPhone);
+        request.setPriority(priority);
+        return request;
+    }
+    
+    /**
+     * Запрашивает текущее состояние звонков одним запросом /apiCalls/get.
+     * Запрос только читает данные, поэтому повторяется при сбоях, как остальные информационные.
+     * 
+     * @param account номер аккаунта, создавшего звонки
+     * @param callIds id звонков из ответов /apiCalls/create
+     */
+    public Mono<ZvonobotResponse> getCalls(int account, List<Long> callIds) {
+        logger.debug(LogEvents.REQUEST, "Запрос статусов {} звонков", callIds.size());
+        ZvonobotAccount owner = accounts.get(account);
+        return read(owner, GET_CALLS_URI, Map.of("apiKey", owner.apiKey, "apiCallIdList", callIds));
+    }
+    
+    public void setCallCreatedListener(CallCreatedListener listener) {
+        this.callCreatedListener = listener;
+    }
+    
+    /**
+     * @return состояние аккаунтов: вес, загрузка, выведен ли аккаунт и почему
+     */
+    public Map<String, Map<String, Object>> getAccountStats() {
+        Map<String, Map<String, Object>> stats = new LinkedHashMap<>();
+        accounts.all().forEach(account -> stats.put(account.name, account.getStats()));
+        return stats;
+    }
+    
+    /**
+     * Проверяет API ключ. Ответ /apiCalls/userInfo кэшируется вместе с профилем пользователя.
+     */
     public Mono<ZvonobotResponse> testApiKey() {
-        logger.info("Тестирование API ключа: {}", config.getApiKey().substring(0, Math.min(10, config.getApiKey().length())) + "...");
+        logger.debug(LogEvents.REQUEST, "Тестирование API ключа: {}", Redaction.apiKey(config.getApiKey()));
         
+        return userInfoCache.get(ACCOUNT_KEY);
+    }
+    
+    /**
+     * Возвращает список исходящих номеров из кэша, устаревшее значение обновляется в фоне
+     */
+    public Mono<ZvonobotResponse> getOutgoingPhones() {
+        return phonesCache.get(ACCOUNT_KEY);
+    }
+    
+    /**
+     * Возвращает список аудиофайлов из кэша, устаревшее значение обновляется в фоне
+     */
+    public Mono<ZvonobotResponse> getRecords() {
+        return recordsCache.get(ACCOUNT_KEY);
+    }
+    
+    /**
+     * Возвращает профиль пользователя из кэша, устаревшее значение обновляется в фоне
+     */
+    public Mono<ZvonobotResponse> getUserProfile() {
+        return userInfoCache.get(ACCOUNT_KEY);
+    }
+    
+    /**
+     * @return статистика кэшей информационных запросов
+     */
+    public Map<String, Map<String, Long>> getCacheStats() {
+        Map<String, Map<String, Long>> stats = new LinkedHashMap<>();
+        for (ZvonobotAccount account : accounts.all()) {
+            stats.put(scope(account, "outgoingPhone"), account.outgoingPhoneCache.getStats());
+        }
+        if (config.isRecordCatalogEnabled()) {
+            for (ZvonobotAccount account : accounts.all()) {
+                stats.put(scope(account, "recordCatalog"), account.recordCatalog.getStats());
+            }
+        }
+        stats.put("records", recordsCache.getStats());
+        stats.put("phones", phonesCache.getStats());
+        stats.put("userInfo", userInfoCache.getStats());
+        return stats;
+    }
+    
+    private Mono<ZvonobotResponse> fetchUserInfo() {
+        return fetchUserInfo(accounts.primary());
+    }
+    
+    private Mono<ZvonobotResponse> fetchUserInfo(ZvonobotAccount account) {
         // Создаем простой запрос для проверки API ключа
-        var request = Map.of("apiKey", config.getApiKey());
+        var request = Map.of("apiKey", account.apiKey);
         
-        return webClient.post()
-                .uri("/apiCalls/userInfo")
-                .bodyValue(request)
-                .retrieve()
-                .onStatus(status -> status.is4xxClientError() || status.is5xxServerError(),
-                        response -> response.bodyToMono(String.class)
-                                .flatMap(errorBody -> {
-                                    String decodedError = decodeUnicode(errorBody);
-                                    logger.error("HTTP ошибка при тестировании API ключа {}: {}", response.statusCode(), decodedError);
-                                    return Mono.error(new RuntimeException("API ошибка: " + decodedError));
-                                }))
-                .bodyToMono(ZvonobotResponse.class)
+        return read(account, USER_INFO_URI, request)
+                .map(this::withProfile)
                 .doOnSuccess(response -> {
-                    logger.info("Ответ от API при тестировании ключа: {}", response);
+                    logger.debug(LogEvents.UPSTREAM, "Профиль пользователя: {}", response);
                 })
                 .doOnError(error -> {
-                    logger.error("Ошибка при тестировании API ключа: {}", error.getMessage());
+                    logger.error("Ошибка при получении профиля: {}", error.getMessage());
                 });
     }
     
-    public Mono<ZvonobotResponse> getOutgoingPhones() {
-        logger.info("Получение списка исходящих номеров");
+    private Mono<ZvonobotResponse> fetchOutgoingPhones() {
+        return fetchOutgoingPhones(accounts.primary());
+    }
+    
+    private Mono<ZvonobotResponse> fetchOutgoingPhones(ZvonobotAccount account) {
+        logger.debug(LogEvents.REQUEST, "Получение списка исходящих номеров");
         
-        var request = Map.of("apiKey", config.getApiKey());
+        var request = Map.of("apiKey", account.apiKey);
         
-        return webClient.post()
-                .uri("/apiCalls/getPhones")
-                .bodyValue(request)
-                .retrieve()
-                .onStatus(status -> status.is4xxClientError() || status.is5xxServerError(),
-                        response -> response.bodyToMono(String.class)
-                                .flatMap(errorBody -> {
-                                    String decodedError = decodeUnicode(errorBody);
-                                    logger.error("HTTP ошибка при получении номеров {}: {}", response.statusCode(), decodedError);
-                                    return Mono.error(new RuntimeException("API ошибка: " + decodedError));
-                                }))
-                .bodyToMono(ZvonobotResponse.class)
+        return read(account, "/apiCalls/getPhones", request)
                 .doOnSuccess(response -> {
-                    logger.info("Список исходящих номеров: {}", response);
+                    logger.debug(LogEvents.UPSTREAM, "Список исходящих номеров: {}", response);
                 })
                 .doOnError(error -> {
                     logger.error("Ошибка при получении исходящих номеров: {}", error.getMessage());
                 });
     }
     
-    public Mono<ZvonobotResponse> getRecords() {
-        logger.info("Получение списка предварительно смодерированных аудиофайлов");
+    /**
+     * Читает список аудиофайлов потоком, не собирая его целиком в памяти. Запрос не кэшируется
+     * и не повторяется: после первого элемента повтор выдал бы элементы заново.
+     */
+    public Flux<ZvonobotRecord> streamRecords() {
+        return stream(accounts.primary(), RECORDS_URI, ZvonobotRecord.class);
+    }
+    
+    /**
+     * Читает список исходящих номеров основного аккаунта потоком
+     */
+    public Flux<ZvonobotPhone> streamOutgoingPhones() {
+        return stream(accounts.primary(), "/apiCalls/getPhones", ZvonobotPhone.class);
+    }
+    
+    private Mono<ZvonobotResponse> fetchRecords() {
+        logger.debug(LogEvents.REQUEST, "Получение списка предварительно смодерированных аудиофайлов");
         
-        var request = Map.of("apiKey", config.getApiKey());
+        var request = Map.of("apiKey", accounts.primary().apiKey);
         
-        return webClient.post()
-                .uri("/apiCalls/getRecords")
-                .bodyValue(request)
-                .retrieve()
-                .onStatus(status -> status.is4xxClientError() || status.is5xxServerError(),
-                        response -> response.bodyToMono(String.class)
-                                .flatMap(errorBody -> {
-                                    String decodedError = decodeUnicode(errorBody);
-                                    logger.error("HTTP ошибка при получении аудиофайлов {}: {}", response.statusCode(), decodedError);
-                                    return Mono.error(new RuntimeException("API ошибка: " + decodedError));
-                                }))
-                .bodyToMono(ZvonobotResponse.class)
+        return read(accounts.primary(), RECORDS_URI, request)
                 .doOnSuccess(response -> {
-                    logger.info("Список аудиофайлов: {}", response);
+                    logger.debug(LogEvents.UPSTREAM, "Список аудиофайлов: {}", response);
                 })
                 .doOnError(error -> {
                     logger.error("Ошибка при получении аудиофайлов: {}", error.getMessage());
                 });
     }
     
-    public Mono<ZvonobotResponse> getUserProfile() {
-        logger.info("Получение профиля пользователя");
-        
-        var request = Map.of("apiKey", config.getApiKey());
-        
-        return webClient.post()
-                .uri("/apiCalls/userInfo")
-                .bodyValue(request)
-                .retrieve()
-                .onStatus(status -> status.is4xxClientError() || status.is5xxServerError(),
-                        response -> response.bodyToMono(String.class)
-                                .flatMap(errorBody -> {
-                                    String decodedError = decodeUnicode(errorBody);
-                                    logger.error("HTTP ошибка при получении профиля {}: {}", response.statusCode(), decodedError);
-                                    return Mono.error(new RuntimeException("API ошибка: " + decodedError));
-                                }))
-                .bodyToMono(ZvonobotResponse.class)
+    /**
+     * @return состояние ограничителей частоты по методам API
+     */
+    public Map<String, Map<String, Object>> getRateLimitStats() {
+        Map<String, Map<String, Object>> stats = new LinkedHashMap<>();
+        for (ZvonobotAccount account : accounts.all()) {
+            account.rateLimiters.forEach((uri, limiter) -> stats.put(scope(account, uri), limiter.getStats()));
+        }
+        return stats;
+    }
+    
+    /**
+     * @return состояние адаптивного лимита и предохранителя запросов на создание звонков,
+     * повторов и дублирования информационных запросов
+     */
+    public Map<String, Map<String, Object>> getResilienceStats() {
+        Map<String, Map<String, Object>> stats = new LinkedHashMap<>();
+        stats.put("readRetry", Map.of("retries", readRetry.getRetries()));
+        hedgers.forEach((shape, hedger) -> stats.put("hedging " + shape, hedger.getStats()));
+        for (ZvonobotAccount account : accounts.all()) {
+            if (account.createScheduler != null) {
+                stats.put(scope(account, "priority"), account.createScheduler.getStats());
+            }
+            if (account.createConcurrencyLimiter != null) {
+                stats.put(scope(account, "concurrencyLimit"), account.createConcurrencyLimiter.getStats());
+            }
+            if (account.createCircuitBreaker != null) {
+                stats.put(scope(account, "circuitBreaker"), account.createCircuitBreaker.getStats());
+            }
+        }
+        return stats;
+    }
+    
+    /**
+     * Ключ статистики: с несколькими аккаунтами перед ним указывается имя аккаунта
+     */
+    private String scope(ZvonobotAccount account, String key) {
+        return accounts.size() > 1 ? account.name + " " + key : key;
+    }
+    
+    /**
+     * Выбирает аккаунт на время отправки. Исходящий номер и recordId, указанные в запросе,
+     * принадлежат основному аккаунту, поэтому такие отправки идут через него.
+     */
+    private Mono<ZvonobotResponse> withAccount(boolean primaryOnly, Function<ZvonobotAccount, Mono<ZvonobotResponse>> send) {
+        return Mono.defer(() -> {
+            ZvonobotAccount account;
+            if (primaryOnly) {
+                account = accounts.primary();
+                account.acquire();
+            } else {
+                account = accounts.pick(System.currentTimeMillis());
+            }
+            return send.apply(account).doFinally(signal -> account.release());
+        });
+    }
+    
+    /**
+     * Проверяет ключ и баланс каждого аккаунта: аккаунт без денег или с отклонённым ключом
+     * выводится из распределения, исправный возвращается
+     */
+    private void checkAccounts() {
+        for (ZvonobotAccount account : accounts.all()) {
+            try {
+                ZvonobotResponse response = fetchUserInfo(account).block(accountPolicy.checkInterval());
+                String reason = response != null ? ejectReason(response, null) : null;
+                if (reason == null && response != null && response.isSuccess()) {
+                    reason = lowBalance(response);
+                }
+                if (reason != null) {
+                    eject(account, reason);
+                } else if (response != null && response.isSuccess() && account.readmit()) {
+                    logger.info("Аккаунт {} возвращён в распределение отправок", account.name);
+                }
+            } catch (RuntimeException e) {
+                Throwable error = Exceptions.unwrap(e);
+                String reason = ejectReason(null, error);
+                if (reason != null) {
+                    eject(account, reason);
+                } else {
+                    logger.warn("Не удалось проверить аккаунт {}: {}", account.name, error.getMessage());
+                }
+            }
+        }
+    }
+    
+    /**
+     * @return причина вывода аккаунта, если баланс не выше {@code min-balance}, иначе null
+     */
+    private String lowBalance(ZvonobotResponse response) {
+        if (!(response.getData() instanceof ZvonobotProfile profile) || profile.getBalance() == null) {
+            return null;
+        }
+        return profile.getBalance().doubleValue() <= accountPolicy.minBalance() ? "баланс " + profile.getBalance() : null;
+    }
+    
+    /**
+     * @return причина вывода аккаунта, если ответ или ошибка говорят, что аккаунт не может отправлять, иначе null
+     */
+    private String ejectReason(ZvonobotResponse response, Throwable error) {
+        if (error instanceof ZvonobotApiException apiError && (apiError.getStatus() == 401 || apiError.getStatus() == 403)) {
+            return "ключ отклонён, HTTP " + apiError.getStatus();
+        }
+        if (response != null && !response.isSuccess() && response.getError() != null) {
+            String text = response.getError().toLowerCase(Locale.ROOT);
+            for (String marker : accountPolicy.ejectErrors()) {
+                if (!marker.isBlank() && text.contains(marker.trim().toLowerCase(Locale.ROOT))) {
+                    return response.getError();
+                }
+            }
+        }
+        return null;
+    }
+    
+    private void eject(ZvonobotAccount account, String reason) {
+        if (account.eject(reason, System.currentTimeMillis() + accountPolicy.ejectDuration().toMillis())) {
+            logger.warn("Аккаунт {} выведен из распределения отправок на {}: {}", account.name, accountPolicy.ejectDuration(), reason);
+        }
+    }
+    
+    private void onCallCreated(ZvonobotAccount account, String phone, ZvonobotResponse response) {
+        CallCreatedListener listener = callCreatedListener;
+        if (listener != null && response != null && response.isSuccess()) {
+            try {
+                listener.onCallCreated(account.index, phone, response);
+            } catch (RuntimeException e) {
+                // Сбой учёта не должен превращать отправленное сообщение в ошибку отправки
+                logger.warn("Ошибка при обработке созданного звонка: {}", e.getMessage());
+            }
+        }
+    }
+    
+    /**
+     * Ответ на отправку номеру из списка отказа: Звонобот не вызывается, ответ сохраняется
+     * с ключом идемпотентности и считается ошибкой в очереди и кампаниях, как отказ API
+     */
+    private ZvonobotResponse suppressed(String kind, String phone) {
+        logger.info(LogEvents.SEND, "{} на номер {} не отправлено: номер в списке отказа от звонков",
+                kind, Redaction.phone(phone));
+        ZvonobotResponse response = new ZvonobotResponse();
+        response.setResult("error");
+        response.setError("Номер в списке отказа от звонков");
+        return response;
+    }
+    
+    /**
+     * Записывает одну итоговую строку об отправке. Номера маскируются, текст сообщения не записывается.
+     */
+    private void logSendResult(String kind, String phone, String outgoingPhone, long startNanos,
+                               ZvonobotResponse response, Throwable error) {
+        long millis = (System.nanoTime() - startNanos) / 1_000_000;
+        String maskedPhone = Redaction.phone(phone);
+        String maskedOutgoingPhone = DUTY_PHONE.equals(outgoingPhone) ? DUTY_PHONE : Redaction.phone(outgoingPhone);
+        if (error != null) {
+            logger.error(LogEvents.SEND, "{} на номер {} с исходящего {} не отправлено за {} мс: {}",
+                    kind, maskedPhone, maskedOutgoingPhone, millis, error.getMessage());
+        } else if (!response.isSuccess()) {
+            logger.warn(LogEvents.SEND, "{} на номер {} с исходящего {} отклонено API за {} мс: {}",
+                    kind, maskedPhone, maskedOutgoingPhone, millis, response.getError());
+        } else {
+            logger.info(LogEvents.SEND, "{} на номер {} с исходящего {} отправлено за {} мс",
+                    kind, maskedPhone, maskedOutgoingPhone, millis);
+            logger.debug(LogEvents.UPSTREAM, "Ответ от API Звонобота: {}", response);
+        }
+    }
+    
+    /**
+     * Создаёт звонок. Пока Звонобот деградирует, предохранитель отклоняет запросы сразу,
+     * а число одновременных запросов подстраивается под время его ответа.
+     * Очередь к ограничителям общая для всех отправок, но срочные сообщения проходят её
+     * раньше массовых по весам приоритетов. Ожидание в этой очереди не считается медленным
+     * ответом в предохранителе.
+     */
+    private Mono<ZvonobotResponse> create(ZvonobotAccount account, Function<DataBufferFactory, DataBuffer> body,
+                                          MessagePriority priority) {
+        Mono<ZvonobotResponse> call = account.createScheduler != null
+                ? account.createScheduler.execute(priority, started -> limitCreate(account, body, started))
+                : limitCreate(account, body, () -> {});
+        // Аккаунт без денег или с отклонённым ключом перестаёт получать отправки
+        return call
                 .doOnSuccess(response -> {
-                    logger.info("Профиль пользователя: {}", response);
+                    String reason = response != null ? ejectReason(response, null) : null;
+                    if (reason != null) {
+                        eject(account, reason);
+                    }
                 })
                 .doOnError(error -> {
-                    logger.error("Ошибка при получении профиля: {}", error.getMessage());
+                    String reason = ejectReason(null, error);
+                    if (reason != null) {
+                        eject(account, reason);
+                    }
+                });
+    }
+    
+    /**
+     * Предохранитель стоит перед ограничителями, чтобы при разомкнутом не занимать очередь,
+     * но время ответа считает с момента отправки, а не с постановки в очередь
+     *
+     * @param started вызывается, когда запрос прошёл ограничители и отправляется
+     */
+    private Mono<ZvonobotResponse> limitCreate(ZvonobotAccount account, Function<DataBufferFactory, DataBuffer> body,
+                                               Runnable started) {
+        Function<Runnable, Mono<ZvonobotResponse>> call = sent -> {
+            Mono<ZvonobotResponse> limited = Mono.defer(() -> {
+                started.run();
+                sent.run();
+                return exchange(account, CREATE_URI, (message, context) -> {
+                    DataBuffer buffer = body.apply(message.bufferFactory());
+                    message.getHeaders().setContentLength(buffer.readableByteCount());
+                    return message.writeWith(Mono.just(buffer));
                 });
+            });
+            if (account.createConcurrencyLimiter != null) {
+                limited = account.createConcurrencyLimiter.execute(limited);
+            }
+            return throttle(account, CREATE_URI, limited);
+        };
+        return account.createCircuitBreaker != null ? account.createCircuitBreaker.execute(call) : call.apply(() -> {});
     }
     
-    private Mono<String> getOutgoingPhone() {
-        if (cachedOutgoingPhone != null) {
-            return Mono.just(cachedOutgoingPhone);
+    private Mono<ZvonobotResponse> read(ZvonobotAccount account, String uri, Object request) {
+        return idempotent(uri, post(account, uri, request));
+    }
+    
+    /**
+     * Информационный запрос: идемпотентен, поэтому при сбое сети или ошибке 5xx повторяется,
+     * а при включённом дублировании медленный ответ дублируется вторым запросом
+     *
+     * @param shape метод API и форма вызова: у каждой своё распределение времени ответа и свой {@link Hedger}
+     */
+    private <T> Mono<T> idempotent(String shape, Mono<T> call) {
+        if (config.isHedgingEnabled()) {
+            call = hedgers.computeIfAbsent(shape, key -> new Hedger(config.getHedgePolicy())).hedge(call);
         }
-        
-        return getOutgoingPhones()
-                .map(response -> {
-                    if (response.isSuccess() && response.getData() != null) {
-                        // Данные приходят как массив объектов с номерами
-                        if (response.getData() instanceof List) {
-                            List<?> phones = (List<?>) response.getData();
-                            if (!phones.isEmpty()) {
-                                // Берем первый номер из списка
-                                Object firstPhone = phones.get(0);
-                                if (firstPhone instanceof Map) {
-                                    Map<String, Object> phoneData = (Map<String, Object>) firstPhone;
-                                    if (phoneData.containsKey("phone")) {
-                                        cachedOutgoingPhone = phoneData.get("phone").toString();
-                                        logger.info("Кэширован исходящий номер: {}", cachedOutgoingPhone);
-                                        return cachedOutgoingPhone;
-                                    }
-                                }
-                            }
-                        }
-                    }
-                    // Если не удалось получить номер, используем дежурный
-                    cachedOutgoingPhone = DUTY_PHONE;
+        return call.retryWhen(readRetry);
+    }
+    
+    private Mono<ZvonobotResponse> post(ZvonobotAccount account, String uri, Object request) {
+        return throttle(account, uri, exchange(account, uri, BodyInserters.fromValue(request)));
+    }
+    
+    /**
+     * Выполняет POST-запрос к API Звонобота, HTTP-ошибки преобразуются
+     * в {@link ZvonobotApiException} с декодированным текстом ответа.
+     * Время ответа и результат записываются в {@link UpstreamMetrics}.
+     */
+    private Mono<ZvonobotResponse> exchange(ZvonobotAccount account, String uri, BodyInserter<?, ? super ClientHttpRequest> body) {
+        return metrics.record(uri, retrieve(account, uri, body).bodyToMono(ZvonobotResponse.class));
+    }
+    
+    /**
+     * Информационный запрос со списком в {@code data}: элементы разбираются по мере поступления тела
+     * в объекты {@code type}. Разрешение ограничителя частоты берётся до запроса.
+     */
+    private <T> Flux<T> stream(ZvonobotAccount account, String uri, Class<T> type) {
+        var request = Map.of("apiKey", account.apiKey);
+        Flux<T> call = Flux.defer(() -> ListResponseDecoder.decode(
+                retrieve(account, uri, BodyInserters.fromValue(request)).bodyToFlux(DataBuffer.class), objectMapper, type));
+        return throttle(account, uri, Mono.<Void>empty()).thenMany(metrics.record(uri, call));
+    }
+    
+    private WebClient.ResponseSpec retrieve(ZvonobotAccount account, String uri, BodyInserter<?, ? super ClientHttpRequest> body) {
+        return account.webClient.post()
+                .uri(uri)
+                .body(body)
+                .retrieve()
+                .onStatus(status -> status.is4xxClientError() || status.is5xxServerError(),
+                        response -> response.bodyToMono(String.class)
+                                .flatMap(errorBody -> {
+                                    String decodedError = UnicodeEscapes.decode(errorBody);
+                                    logger.error("HTTP ошибка {} при вызове {}: {}", response.statusCode(), uri, decodedError);
+                                    return Mono.error(new ZvonobotApiException(response.statusCode().value(), decodedError));
+                                }));
+    }
+    
+    /**
+     * Запрос ждёт своей очереди в ограничителе частоты метода; у каждого аккаунта свои лимиты
+     */
+    private <T> Mono<T> throttle(ZvonobotAccount account, String uri, Mono<T> call) {
+        if (!config.isRateLimitEnabled()) {
+            return call;
+        }
+        return account.rateLimiters.computeIfAbsent(uri, key -> new TokenBucketRateLimiter(scope(account, key),
+                        config.getRateLimitPolicy(key.substring(key.lastIndexOf('/') + 1)).scaled(cluster.getBudgetShare())))
+                .throttle(call);
+    }
+    
+    /**
+     * Ошибки, говорящие о проблемах на стороне Звонобота или сети, а не в самом запросе
+     */
+    private static boolean isUpstreamFailure(Throwable error) {
+        if (error instanceof ZvonobotApiException apiError) {
+            return apiError.isServerError();
+        }
+        if (error instanceof WebClientResponseException responseError) {
+            return responseError.getStatusCode().is5xxServerError();
+        }
+        return error instanceof WebClientRequestException || error instanceof TimeoutException;
+    }
+    
+    /**
+     * Заменяет профиль пользователя из ответа /apiCalls/userInfo типизированным {@link ZvonobotProfile}
+     */
+    private ZvonobotResponse withProfile(ZvonobotResponse response) {
+        if (response.getData() instanceof Map<?, ?> data) {
+            try {
+                response.setData(objectMapper.convertValue(data, ZvonobotProfile.class));
+            } catch (IllegalArgumentException e) {
+                logger.warn("Не удалось разобрать профиль пользователя: {}", e.getMessage());
+            }
+        }
+        return response;
+    }
+    
+    /**
+     * Вычисляет версию ответа по его содержимому, чтобы клиенты могли отправлять условные запросы
+     */
+    private ZvonobotResponse withEtag(ZvonobotResponse response) {
+        try {
+            response.setEtag('"' + DigestUtils.md5DigestAsHex(objectMapper.writeValueAsBytes(response)) + '"');
+        } catch (JsonProcessingException e) {
+            logger.warn("Не удалось вычислить ETag ответа: {}", e.getMessage());
+        }
+        return response;
+    }
+    
+    /**
+     * Возвращает исходящий номер из кэша. Одновременные промахи объединяются в один
+     * запрос /apiCalls/getPhones, значение обновляется в фоне до истечения срока,
+     * а после ошибки используется дежурный номер до следующей попытки.
+     */
+    private Mono<String> getOutgoingPhone(ZvonobotAccount account) {
+        return account.outgoingPhoneCache.get(OUTGOING_PHONE_KEY)
+                .onErrorResume(error -> {
+                    logger.warn("Не удалось получить исходящий номер, используем дежурный: {}", error.getMessage());
+                    return Mono.just(DUTY_PHONE);
+                });
+    }
+    
+    private Mono<String> resolveOutgoingPhone(ZvonobotAccount account, String outgoingPhone) {
+        return outgoingPhone != null && !outgoingPhone.trim().isEmpty()
+                ? Mono.just(outgoingPhone)
+                : getOutgoingPhone(account);
+    }
+    
+    /**
+     * Берёт первый номер из списка: остальная часть ответа не разбирается, запрос отменяется.
+     * Повторяется и дублируется так же, как другие информационные запросы, чтобы единичный сбой
+     * не закэшировал дежурный номер.
+     */
+    private Mono<String> fetchOutgoingPhone(ZvonobotAccount account) {
+        Mono<String> first = stream(account, "/apiCalls/getPhones", ZvonobotPhone.class)
+                .mapNotNull(ZvonobotPhone::getPhone)
+                .next();
+        // Первый элемент приходит раньше полного ответа, поэтому задержка дублирования считается отдельно
+        return idempotent("/apiCalls/getPhones first", first)
+                .doOnNext(phone -> logger.info("Кэширован исходящий номер: {}", Redaction.phone(phone)))
+                .switchIfEmpty(Mono.fromSupplier(() -> {
+                    // Если у аккаунта нет номеров, используем дежурный
                     logger.info("Используем дежурный номер");
-                    return cachedOutgoingPhone;
-                })
-                .onErrorReturn(DUTY_PHONE); // В случае ошибки используем дежурный номер
+                    return DUTY_PHONE;
+                }))
+                .doOnError(error -> logger.error("Ошибка при получении исходящих номеров: {}", error.getMessage()));
     }
 } 
\ No newline at end of file
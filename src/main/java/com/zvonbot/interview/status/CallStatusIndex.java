@@ -0,0 +1,220 @@
+package com.zvonbot.interview.status;
+
+import com.zvonbot.interview.dto.CallStatus;
+import com.zvonbot.interview.util.LongLongHashMap;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Индекс статусов звонков в памяти фиксированного размера.
+ *
+ * <p>Звонки лежат в кольце параллельных массивов примитивов, самый старый звонок вытесняется
+ * новым. Память выделяется сразу на {@code capacity} звонков: 50 байт в кольце и 64-128 байт
+ * в двух индексах с коэффициентом заполнения не выше 0,5, в среднем около 120 байт на звонок. Каждая запись получает сквозной
+ * номер {@code seq}, ячейка кольца - {@code seq % capacity}. Индекс по id звонка и индекс
+ * по номеру телефона хранят seq, а записи одного телефона связаны в цепочку от новой
+ * к старой; ссылка на вытесненную запись распознаётся по несовпадению seq в ячейке.
+ * Строки статусов хранятся в словаре, в записи - только однобайтовый код.
+ */
+public class CallStatusIndex {
+
+    private static final int MAX_STATUSES = 255;
+
+    private final int capacity;
+    private final long[] seqs;
+    private final long[] ids;
+    private final long[] phones;
+    private final byte[] statuses;
+    private final byte[] accounts;
+    private final long[] createdAt;
+    private final long[] updatedAt;
+    private final long[] previousForPhone;
+    private final LongLongHashMap byId;
+    private final LongLongHashMap byPhone;
+
+    private final Set<String> finalStatuses;
+    // Код 0 - статус неизвестен
+    private final List<String> statusNames = new ArrayList<>(List.of(""));
+    private final Map<String, Integer> statusCodes = new HashMap<>();
+    private final boolean[] finalCodes = new boolean[MAX_STATUSES + 1];
+
+    private long nextSeq = 1;
+    private long pollCursor = 1;
+
+    /**
+     * @param capacity сколько последних звонков хранить
+     * @param finalStatuses статусы, после которых звонок больше не меняется
+     */
+    public CallStatusIndex(int capacity, Set<String> finalStatuses) {
+        this.capacity = capacity;
+        this.seqs = new long[capacity];
+        this.ids = new long[capacity];
+        this.phones = new long[capacity];
+        this.statuses = new byte[capacity];
+        this.accounts = new byte[capacity];
+        this.createdAt = new long[capacity];
+        this.updatedAt = new long[capacity];
+        this.previousForPhone = new long[capacity];
+        this.byId = new LongLongHashMap(capacity);
+        this.byPhone = new LongLongHashMap(capacity);
+        this.finalStatuses = finalStatuses;
+    }
+
+    /**
+     * Добавляет звонок, созданный основным аккаунтом
+     */
+    public void record(long id, long phone, String status, long now) {
+        record(id, phone, 0, status, now);
+    }
+
+    /**
+     * Добавляет созданный звонок. Для уже известного id только обновляет статус.
+     *
+     * @param account номер аккаунта Звонобота, создавшего звонок
+     */
+    public synchronized void record(long id, long phone, int account, String status, long now) {
+        if (update(id, status, now)) {
+            return;
+        }
+        long seq = nextSeq++;
+        int slot = slot(seq);
+        if (seqs[slot] != 0) {
+            evict(slot);
+        }
+        seqs[slot] = seq;
+        ids[slot] = id;
+        phones[slot] = phone;
+        statuses[slot] = (byte) code(status);
+        accounts[slot] = (byte) account;
+        createdAt[slot] = now;
+        updatedAt[slot] = now;
+        previousForPhone[slot] = 0;
+        if (phone != 0) {
+            previousForPhone[slot] = byPhone.get(phone, 0);
+            byPhone.put(phone, seq);
+        }
+        byId.put(id, seq);
+    }
+
+    /**
+     * Обновляет статус известного звонка, статус null оставляет прежний.
+     *
+     * @return false, если звонка нет в индексе
+     */
+    public synchronized boolean update(long id, String status, long now) {
+        long seq = byId.get(id, 0);
+        if (seq == 0) {
+            return false;
+        }
+        if (status == null) {
+            return true;
+        }
+        int slot = slot(seq);
+        int code = code(status);
+        if (code != Byte.toUnsignedInt(statuses[slot])) {
+            statuses[slot] = (byte) code;
+            updatedAt[slot] = now;
+        }
+        return true;
+    }
+
+    /**
+     * @return номер аккаунта, создавшего звонок, или 0, если звонка нет в индексе
+     */
+    public synchronized int account(long id) {
+        long seq = byId.get(id, 0);
+        return seq == 0 ? 0 : Byte.toUnsignedInt(accounts[slot(seq)]);
+    }
+
+    public synchronized CallStatus get(long id) {
+        long seq = byId.get(id, 0);
+        return seq == 0 ? null : toStatus(slot(seq));
+    }
+
+    /**
+     * @return звонки на номер, новые первыми
+     */
+    public synchronized List<CallStatus> findByPhone(long phone, int limit) {
+        List<CallStatus> result = new ArrayList<>();
+        long seq = byPhone.get(phone, 0);
+        while (seq != 0 && result.size() < limit && seqs[slot(seq)] == seq) {
+            int slot = slot(seq);
+            result.add(toStatus(slot));
+            seq = previousForPhone[slot];
+        }
+        return result;
+    }
+
+    /**
+     * Возвращает id звонков с неокончательным статусом, созданных не раньше {@code createdSince}.
+     * Каждый вызов продолжает обход кольца с места, где остановился предыдущий,
+     * поэтому при большом числе звонков в работе все они опрашиваются по очереди.
+     */
+    public synchronized long[] pendingIds(long createdSince, int limit) {
+        long oldest = Math.max(1, nextSeq - capacity);
+        long start = Math.max(pollCursor, oldest);
+        long total = nextSeq - oldest;
+        long[] result = new long[(int) Math.min(limit, total)];
+        int found = 0;
+        long seq = start;
+        for (long scanned = 0; scanned < total && found < result.length; scanned++) {
+            int slot = slot(seq);
+            if (!finalCodes[Byte.toUnsignedInt(statuses[slot])] && createdAt[slot] >= createdSince) {
+                result[found++] = ids[slot];
+            }
+            seq = seq + 1 < nextSeq ? seq + 1 : oldest;
+        }
+        pollCursor = seq;
+        return found == result.length ? result : Arrays.copyOf(result, found);
+    }
+
+    public synchronized int size() {
+        return byId.size();
+    }
+
+    private int slot(long seq) {
+        return (int) (seq % capacity);
+    }
+
+    private void evict(int slot) {
+        byId.remove(ids[slot]);
+        if (phones[slot] != 0 && byPhone.get(phones[slot], 0) == seqs[slot]) {
+            byPhone.remove(phones[slot]);
+        }
+    }
+
+    private int code(String status) {
+        if (status == null) {
+            return 0;
+        }
+        Integer code = statusCodes.get(status);
+        if (code == null) {
+            if (statusNames.size() > MAX_STATUSES) {
+                return 0;
+            }
+            code = statusNames.size();
+            statusNames.add(status);
+            statusCodes.put(status, code);
+            finalCodes[code] = finalStatuses.contains(status);
+        }
+        return code;
+    }
+
+    private CallStatus toStatus(int slot) {
+        int code = Byte.toUnsignedInt(statuses[slot]);
+        CallStatus status = new CallStatus();
+        status.setId(ids[slot]);
+        status.setPhone(phones[slot] != 0 ? Long.toString(phones[slot]) : null);
+        status.setStatus(code != 0 ? statusNames.get(code) : null);
+        status.setFinished(finalCodes[code]);
+        status.setCreatedAt(Instant.ofEpochMilli(createdAt[slot]).toString());
+        status.setUpdatedAt(Instant.ofEpochMilli(updatedAt[slot]).toString());
+        return status;
+    }
+}
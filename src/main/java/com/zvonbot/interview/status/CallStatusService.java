@@ -0,0 +1,301 @@
+package com.zvonbot.interview.status;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.zvonbot.interview.dto.CallStatus;
+import com.zvonbot.interview.dto.zvonobot.ZvonobotResponse;
+import com.zvonbot.interview.service.ZvonobotService;
+import com.zvonbot.interview.util.PhoneNumbers;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Статусы звонков, созданных сервисом.
+ *
+ * <p>id звонков из ответов /apiCalls/create записываются в {@link CallStatusIndex}.
+ * Раз в {@code poll-interval} звонки с неокончательным статусом запрашиваются у Звонобота
+ * пачками по {@code batch-size} id в одном запросе /apiCalls/get. Если включён webhook,
+ * Звонобот может присылать изменения статусов сам, и опрос нужен только как страховка.
+ */
+@Service
+public class CallStatusService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CallStatusService.class);
+
+    @Value("${zvonobot.call-status.enabled:true}")
+    private boolean enabled;
+
+    @Value("${zvonobot.call-status.capacity:100000}")
+    private int capacity;
+
+    @Value("${zvonobot.call-status.poll-interval:30s}")
+    private Duration pollInterval;
+
+    @Value("${zvonobot.call-status.batch-size:100}")
+    private int batchSize;
+
+    @Value("${zvonobot.call-status.max-per-poll:10000}")
+    private int maxPerPoll;
+
+    @Value("${zvonobot.call-status.max-age:24h}")
+    private Duration maxAge;
+
+    @Value("${zvonobot.call-status.final-statuses:finished,failed,cancelled}")
+    private Set<String> finalStatuses;
+
+    @Value("${zvonobot.call-status.webhook.enabled:false}")
+    private boolean webhookEnabled;
+
+    @Value("${zvonobot.call-status.webhook.token:}")
+    private String webhookToken;
+
+    private final ZvonobotService zvonobotService;
+
+    private final AtomicLong polled = new AtomicLong();
+    private final AtomicLong pollRequests = new AtomicLong();
+    private final AtomicLong pollErrors = new AtomicLong();
+    private final AtomicLong webhookUpdates = new AtomicLong();
+    private final AtomicLong webhookUnknown = new AtomicLong();
+
+    private CallStatusIndex index;
+    private ScheduledExecutorService pollExecutor;
+
+    @Autowired
+    public CallStatusService(ZvonobotService zvonobotService) {
+        this.zvonobotService = zvonobotService;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        // Без токена кто угодно мог бы менять статусы и вытеснять из индекса настоящие звонки
+        if (webhookEnabled && webhookToken.isEmpty()) {
+            throw new IllegalStateException("При zvonobot.call-status.webhook.enabled нужен zvonobot.call-status.webhook.token");
+        }
+        index = new CallStatusIndex(capacity, finalStatuses);
+        zvonobotService.setCallCreatedListener(this::onCallCreated);
+        if (!pollInterval.isZero()) {
+            pollExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "call-status-poll");
+                thread.setDaemon(true);
+                return thread;
+            });
+            pollExecutor.scheduleWithFixedDelay(this::poll, pollInterval.toMillis(), pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+        }
+        logger.info("Отслеживание статусов звонков включено: до {} звонков, опрос раз в {}", capacity, pollInterval);
+    }
+
+    @PreDestroy
+    public void stop() {
+        zvonobotService.setCallCreatedListener(null);
+        if (pollExecutor != null) {
+            pollExecutor.shutdownNow();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean isWebhookEnabled() {
+        return enabled && webhookEnabled;
+    }
+
+    /**
+     * Сравнивает токен из запроса webhook с настроенным за постоянное время
+     */
+    public boolean isWebhookTokenValid(String token) {
+        if (webhookToken.isEmpty()) {
+            return false;
+        }
+        return token != null && MessageDigest.isEqual(webhookToken.getBytes(StandardCharsets.UTF_8),
+                token.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public CallStatus get(long callId) {
+        return index != null ? index.get(callId) : null;
+    }
+
+    /**
+     * @return последние звонки на номер, новые первыми
+     */
+    public List<CallStatus> findByPhone(String phone, int limit) {
+        if (index == null) {
+            return List.of();
+        }
+        return index.findByPhone(Long.parseLong(PhoneNumbers.digitsOnly(phone)), limit);
+    }
+
+    /**
+     * Применяет статусы, присланные Звоноботом: один объект или массив объектов
+     * с полями {@code id} (или {@code apiCallId}), {@code status} и необязательным {@code phone}.
+     * Звонки, созданные до перезапуска, добавляются в индекс, если в уведомлении есть номер.
+     *
+     * @return число применённых изменений
+     */
+    public int ingest(JsonNode payload) {
+        if (payload.isObject() && payload.has("data")) {
+            payload = payload.get("data");
+        }
+        int applied = 0;
+        for (JsonNode call : payload.isArray() ? payload : List.of(payload)) {
+            long id = (call.has("id") ? call.get("id") : call.path("apiCallId")).asLong();
+            if (id == 0) {
+                continue;
+            }
+            String status = call.hasNonNull("status") ? call.get("status").asText() : null;
+            long now = System.currentTimeMillis();
+            if (index.update(id, status, now)) {
+                applied++;
+            } else if (call.hasNonNull("phone") && !PhoneNumbers.digitsOnly(call.get("phone").asText()).isEmpty()) {
+                index.record(id, Long.parseLong(PhoneNumbers.digitsOnly(call.get("phone").asText())), status, now);
+                applied++;
+            } else {
+                webhookUnknown.incrementAndGet();
+            }
+        }
+        webhookUpdates.addAndGet(applied);
+        return applied;
+    }
+
+    /**
+     * @return размер индекса и счётчики опроса и webhook
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        if (index != null) {
+            stats.put("tracked", index.size());
+        }
+        stats.put("polledCalls", polled.get());
+        stats.put("pollRequests", pollRequests.get());
+        stats.put("pollErrors", pollErrors.get());
+        stats.put("webhookUpdates", webhookUpdates.get());
+        stats.put("webhookUnknown", webhookUnknown.get());
+        return stats;
+    }
+
+    private void onCallCreated(int account, String phone, ZvonobotResponse response) {
+        long now = System.currentTimeMillis();
+        long recipient = phone.isEmpty() ? 0 : Long.parseLong(phone);
+        for (Map<?, ?> call : calls(response)) {
+            long id = callId(call);
+            if (id != 0) {
+                index.record(id, recipient, account, status(call), now);
+            }
+        }
+    }
+
+    /**
+     * Запрашивает статусы звонков в работе. Пачки отправляются по очереди,
+     * чтобы опрос не занимал лимит запросов, нужный для отправки. Звонок виден только
+     * аккаунту, который его создал, поэтому пачки собираются по аккаунтам.
+     */
+    private void poll() {
+        long[] pending = index.pendingIds(System.currentTimeMillis() - maxAge.toMillis(), maxPerPoll);
+        if (pending.length == 0) {
+            return;
+        }
+        Map<Integer, List<Long>> byAccount = new TreeMap<>();
+        for (long id : pending) {
+            byAccount.computeIfAbsent(index.account(id), account -> new ArrayList<>()).add(id);
+        }
+        List<Map.Entry<Integer, List<Long>>> batches = new ArrayList<>();
+        byAccount.forEach((account, ids) -> {
+            for (int from = 0; from < ids.size(); from += batchSize) {
+                batches.add(Map.entry(account, ids.subList(from, Math.min(from + batchSize, ids.size()))));
+            }
+        });
+
+        try {
+            Flux.fromIterable(batches)
+                    .concatMap(entry -> pollBatch(entry.getKey(), entry.getValue()))
+                    .blockLast(pollInterval.multipliedBy(10));
+        } catch (RuntimeException e) {
+            logger.warn("Опрос статусов звонков прерван: {}", e.getMessage());
+        }
+    }
+
+    private Mono<ZvonobotResponse> pollBatch(int account, List<Long> batch) {
+        return zvonobotService.getCalls(account, batch)
+                .doOnNext(response -> applyPolled(batch, response))
+                .onErrorResume(error -> {
+                    pollErrors.incrementAndGet();
+                    logger.warn("Не удалось получить статусы {} звонков: {}", batch.size(), error.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    private void applyPolled(List<Long> batch, ZvonobotResponse response) {
+        pollRequests.incrementAndGet();
+        if (!response.isSuccess()) {
+            pollErrors.incrementAndGet();
+            logger.warn("API отклонил запрос статусов {} звонков: {}", batch.size(), response.getError());
+            return;
+        }
+        long now = System.currentTimeMillis();
+        for (Map<?, ?> call : calls(response)) {
+            long id = callId(call);
+            if (id != 0) {
+                index.update(id, status(call), now);
+                polled.incrementAndGet();
+            }
+        }
+    }
+
+    private static List<Map<?, ?>> calls(ZvonobotResponse response) {
+        List<Map<?, ?>> calls = new ArrayList<>();
+        if (response.getData() instanceof List<?> items) {
+            for (Object item : items) {
+                if (item instanceof Map<?, ?> call) {
+                    calls.add(call);
+                }
+            }
+        } else if (response.getData() instanceof Map<?, ?> call) {
+            calls.add(call);
+        }
+        return calls;
+    }
+
+    /**
+     * @return id звонка или 0, если его нет; id может прийти числом или строкой
+     */
+    private static long callId(Map<?, ?> call) {
+        Object id = call.get("id");
+        if (id instanceof Number number) {
+            return number.longValue();
+        }
+        try {
+            return id != null ? Long.parseLong(id.toString()) : 0;
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static String status(Map<?, ?> call) {
+        Object status = call.get("status");
+        return status != null ? status.toString() : null;
+    }
+}
@@ -0,0 +1,293 @@
+package com.zvonbot.interview.suppression;
+
+import com.zvonbot.interview.util.LongHashSet;
+import com.zvonbot.interview.util.PhoneNumbers;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Список номеров, отказавшихся от звонков и SMS.
+ *
+ * <p>Номера хранятся числами в {@link LongHashSet}: миллион номеров занимает 16-32 МБ вместо
+ * гигабайтов в {@code HashSet<String>}, а проверка не создаёт объектов. Основной список читается
+ * при запуске из файла {@code zvonobot.suppression.file} (по номеру в строке, в любом формате),
+ * файл отображается в память и разбирается побайтово. Изменения через API дописываются
+ * в {@code changes-file} и применяются поверх основного списка при следующем запуске.
+ * Изменения через API принимаются только с токеном {@code admin-token}.
+ */
+@Service
+public class SuppressionList {
+
+    private static final Logger logger = LoggerFactory.getLogger(SuppressionList.class);
+
+    private static final long MIN_PHONE = 70_000_000_000L;
+    private static final long MAX_PHONE = 79_999_999_999L;
+    // Строка файла с номером в формате 7XXXXXXXXXX и переводом строки
+    private static final int BYTES_PER_PHONE = 12;
+    private static final String ADD = "add ";
+    private static final String REMOVE = "remove ";
+
+    @Value("${zvonobot.suppression.enabled:false}")
+    private boolean enabled;
+
+    @Value("${zvonobot.suppression.file:}")
+    private String file;
+
+    @Value("${zvonobot.suppression.changes-file:data/suppression/changes.log}")
+    private Path changesFile;
+
+    @Value("${zvonobot.suppression.admin-token:}")
+    private String adminToken;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AtomicLong checked = new AtomicLong();
+    private final AtomicLong blocked = new AtomicLong();
+    private final AtomicLong added = new AtomicLong();
+    private final AtomicLong removed = new AtomicLong();
+
+    private LongHashSet phones = new LongHashSet();
+    private Writer changes;
+    private long loadMillis;
+    private long invalidLines;
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        long start = System.nanoTime();
+        if (!file.isEmpty()) {
+            load(Path.of(file));
+        }
+        if (Files.exists(changesFile)) {
+            replayChanges();
+        }
+        loadMillis = (System.nanoTime() - start) / 1_000_000;
+        logger.info("Загружен список отказа от звонков: {} номеров за {} мс, пропущено строк {}",
+                phones.size(), loadMillis, invalidLines);
+        if (adminToken.isEmpty()) {
+            logger.warn("Не задан zvonobot.suppression.admin-token: изменение списка отказа через API отключено");
+        }
+
+        Files.createDirectories(changesFile.toAbsolutePath().getParent());
+        changes = Files.newBufferedWriter(changesFile, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    @PreDestroy
+    public void stop() throws IOException {
+        if (changes != null) {
+            changes.close();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Проверяет номер без создания объектов
+     *
+     * @param phone номер в любом формате
+     */
+    public boolean isSuppressed(String phone) {
+        if (!enabled) {
+            return false;
+        }
+        long value = PhoneNumbers.toLong(phone);
+        checked.incrementAndGet();
+        lock.readLock().lock();
+        try {
+            if (!phones.contains(value)) {
+                return false;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        blocked.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * @return задан ли {@code admin-token}; без него список меняется только через файлы
+     */
+    public boolean isAdminTokenConfigured() {
+        return !adminToken.isEmpty();
+    }
+
+    /**
+     * Сравнивает токен администратора за постоянное время.
+     * Если {@code admin-token} не задан, никакой токен не подходит.
+     */
+    public boolean isAdminTokenValid(String token) {
+        if (adminToken.isEmpty()) {
+            return false;
+        }
+        return token != null && MessageDigest.isEqual(adminToken.getBytes(StandardCharsets.UTF_8),
+                token.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Добавляет номера в список и записывает изменение в журнал
+     *
+     * @return сколько номеров добавлено, уже было в списке и отклонено как некорректные
+     */
+    public Map<String, Integer> add(List<String> numbers) {
+        return change(numbers, true);
+    }
+
+    /**
+     * Удаляет номера из списка и записывает изменение в журнал
+     *
+     * @return сколько номеров удалено, не было в списке и отклонено как некорректные
+     */
+    public Map<String, Integer> remove(List<String> numbers) {
+        return change(numbers, false);
+    }
+
+    /**
+     * @return размер списка, время загрузки и счётчики проверок и изменений
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        lock.readLock().lock();
+        try {
+            stats.put("size", phones.size());
+        } finally {
+            lock.readLock().unlock();
+        }
+        stats.put("loadMillis", loadMillis);
+        stats.put("invalidLines", invalidLines);
+        stats.put("checked", checked.get());
+        stats.put("blocked", blocked.get());
+        stats.put("added", added.get());
+        stats.put("removed", removed.get());
+        return stats;
+    }
+
+    private Map<String, Integer> change(List<String> numbers, boolean add) {
+        int changed = 0;
+        int unchanged = 0;
+        int invalid = 0;
+        lock.writeLock().lock();
+        try {
+            for (String number : numbers) {
+                long phone = PhoneNumbers.toLong(number);
+                if (!isValid(phone)) {
+                    invalid++;
+                } else if (add ? phones.add(phone) : phones.remove(phone)) {
+                    changes.write((add ? ADD : REMOVE) + phone + "\n");
+                    changed++;
+                } else {
+                    unchanged++;
+                }
+            }
+            changes.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось записать изменение списка отказа", e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        (add ? added : removed).addAndGet(changed);
+
+        Map<String, Integer> result = new LinkedHashMap<>();
+        result.put(add ? "added" : "removed", changed);
+        result.put("unchanged", unchanged);
+        result.put("invalid", invalid);
+        return result;
+    }
+
+    /**
+     * Разбирает файл списка побайтово по частям, отображённым в память.
+     * Символы кроме цифр пропускаются, строки с {@code #} в начале считаются комментариями.
+     */
+    private void load(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            LongHashSet loaded = new LongHashSet((int) Math.min(Integer.MAX_VALUE / 4, size / BYTES_PER_PHONE + 1));
+            long value = 0;
+            int digits = 0;
+            boolean comment = false;
+            boolean lineStart = true;
+            for (long position = 0; position < size; position += Integer.MAX_VALUE) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                        Math.min(Integer.MAX_VALUE, size - position));
+                while (buffer.hasRemaining()) {
+                    byte b = buffer.get();
+                    if (b == '\n') {
+                        if (!comment) {
+                            addLoaded(loaded, value, digits);
+                        }
+                        value = 0;
+                        digits = 0;
+                        comment = false;
+                        lineStart = true;
+                        continue;
+                    }
+                    if (lineStart && b == '#') {
+                        comment = true;
+                    } else if (b >= '0' && b <= '9' && !comment && ++digits <= 18) {
+                        value = value * 10 + (b - '0');
+                    }
+                    lineStart = false;
+                }
+            }
+            if (!comment) {
+                addLoaded(loaded, value, digits);
+            }
+            phones = loaded;
+        }
+    }
+
+    private void addLoaded(LongHashSet loaded, long value, int digits) {
+        if (digits == 11 && isValid(value)) {
+            loaded.add(value);
+        } else if (digits > 0) {
+            invalidLines++;
+        }
+    }
+
+    private void replayChanges() throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(changesFile, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                long phone = PhoneNumbers.toLong(line);
+                if (line.startsWith(ADD)) {
+                    phones.add(phone);
+                } else if (line.startsWith(REMOVE)) {
+                    phones.remove(phone);
+                }
+            }
+        }
+    }
+
+    /**
+     * Номер в формате, который принимает {@code MessageRequest}: 7 и ещё 10 цифр
+     */
+    private static boolean isValid(long phone) {
+        return phone >= MIN_PHONE && phone <= MAX_PHONE;
+    }
+}
@@ -0,0 +1,118 @@
+package com.zvonbot.interview.template;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Шаблон текста сообщения с подстановками, например {@code Ваш заказ {order} готов}.
+ *
+ * <p>Шаблон разбирается один раз в список фрагментов: постоянный текст и имена переменных.
+ * Подстановка не разбирает шаблон заново, а заменяет переменные в копии списка и собирает текст
+ * через {@link String#join}, который заранее считает длину результата и выделяет память под него один раз.
+ * Фигурные скобки в постоянном тексте удваиваются: {@code {{} и {@code }}}.
+ */
+public final class MessageTemplate {
+
+    private final String name;
+    private final String source;
+    /** Постоянный текст; на местах переменных - их имена */
+    private final String[] fragments;
+    /** Индексы фрагментов-переменных */
+    private final int[] slots;
+
+    private MessageTemplate(String name, String source, String[] fragments, int[] slots) {
+        this.name = name;
+        this.source = source;
+        this.fragments = fragments;
+        this.slots = slots;
+    }
+
+    /**
+     * @throws IllegalArgumentException если в шаблоне незакрытая или лишняя скобка или пустое имя переменной
+     */
+    public static MessageTemplate compile(String name, String source) {
+        List<String> fragments = new ArrayList<>();
+        List<Integer> slots = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        int length = source.length();
+        for (int i = 0; i < length; i++) {
+            char c = source.charAt(i);
+            if (c == '{' && i + 1 < length && source.charAt(i + 1) == '{'
+                    || c == '}' && i + 1 < length && source.charAt(i + 1) == '}') {
+                literal.append(c);
+                i++;
+            } else if (c == '{') {
+                int end = source.indexOf('}', i + 1);
+                if (end < 0) {
+                    throw new IllegalArgumentException("Шаблон " + name + ": не закрыта скобка в позиции " + i);
+                }
+                String variable = source.substring(i + 1, end).trim();
+                if (variable.isEmpty() || variable.indexOf('{') >= 0) {
+                    throw new IllegalArgumentException("Шаблон " + name + ": неверное имя переменной в позиции " + i);
+                }
+                if (literal.length() > 0) {
+                    fragments.add(literal.toString());
+                    literal.setLength(0);
+                }
+                slots.add(fragments.size());
+                fragments.add(variable);
+                i = end;
+            } else if (c == '}') {
+                throw new IllegalArgumentException("Шаблон " + name + ": лишняя скобка в позиции " + i);
+            } else {
+                literal.append(c);
+            }
+        }
+        if (literal.length() > 0 || fragments.isEmpty()) {
+            fragments.add(literal.toString());
+        }
+        return new MessageTemplate(name, source, fragments.toArray(String[]::new),
+                slots.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getText() {
+        return source;
+    }
+
+    /**
+     * @return имена переменных в порядке первого появления
+     */
+    public Set<String> getVariables() {
+        Set<String> variables = new LinkedHashSet<>();
+        for (int slot : slots) {
+            variables.add(fragments[slot]);
+        }
+        return variables;
+    }
+
+    public String render(Map<String, String> variables) {
+        return render(variables != null ? variables::get : variable -> null);
+    }
+
+    /**
+     * @param variables значение переменной по имени или null, если значения нет
+     * @throws IllegalArgumentException если значения переменной нет
+     */
+    public String render(Function<String, String> variables) {
+        if (slots.length == 0) {
+            return fragments[0];
+        }
+        String[] text = fragments.clone();
+        for (int slot : slots) {
+            String value = variables.apply(fragments[slot]);
+            if (value == null) {
+                throw new IllegalArgumentException("Шаблон " + name + ": не задана переменная " + fragments[slot]);
+            }
+            text[slot] = value;
+        }
+        return String.join("", text);
+    }
+}
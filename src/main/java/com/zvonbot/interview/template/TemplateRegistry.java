@@ -0,0 +1,98 @@
+package com.zvonbot.interview.template;
+
+import com.zvonbot.interview.dto.MessageRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Именованные шаблоны сообщений из {@code zvonobot.templates}.
+ *
+ * <p>Шаблоны разбираются один раз при запуске; ошибка в шаблоне не даёт приложению стартовать.
+ * Запрос с шаблоном превращается в обычный запрос с текстом до постановки в очередь, планирования
+ * и пересылки, поэтому дальше по цепочке шаблоны не нужны.
+ */
+@Service
+public class TemplateRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(TemplateRegistry.class);
+
+    private final Map<String, MessageTemplate> templates = new TreeMap<>();
+    private final AtomicLong rendered = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    @Autowired
+    public TemplateRegistry(Environment environment) {
+        this(Binder.get(environment).bind("zvonobot.templates", Bindable.mapOf(String.class, String.class)).orElse(Map.of()));
+    }
+
+    public TemplateRegistry(Map<String, String> sources) {
+        sources.forEach((name, source) -> templates.put(name, MessageTemplate.compile(name, source)));
+        if (!templates.isEmpty()) {
+            logger.info("Загружено шаблонов сообщений: {}", templates.size());
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException если шаблона с таким именем нет
+     */
+    public MessageTemplate get(String name) {
+        MessageTemplate template = templates.get(name);
+        if (template == null) {
+            throw new IllegalArgumentException("Шаблон не найден: " + name);
+        }
+        return template;
+    }
+
+    public List<MessageTemplate> list() {
+        return List.copyOf(templates.values());
+    }
+
+    /**
+     * Подставляет переменные запроса в его шаблон и записывает результат в текст
+     *
+     * @throws IllegalArgumentException если шаблона нет, не хватает переменных или вместе с шаблоном передан текст
+     */
+    public void apply(MessageRequest request) {
+        if (request.getTemplate() == null) {
+            return;
+        }
+        try {
+            if (request.getText() != null && !request.getText().isBlank()) {
+                throw new IllegalArgumentException("Нужен текст или шаблон, но не оба");
+            }
+            request.setText(get(request.getTemplate()).render(request.getVariables()));
+        } catch (IllegalArgumentException e) {
+            failed.incrementAndGet();
+            throw e;
+        }
+        rendered.incrementAndGet();
+        request.setTemplate(null);
+        request.setVariables(null);
+    }
+
+    /**
+     * Учитывает текст, подставленный вне {@link #apply}, например при загрузке кампании
+     */
+    public void recordRender(boolean success) {
+        (success ? rendered : failed).incrementAndGet();
+    }
+
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("templates", (long) templates.size());
+        stats.put("rendered", rendered.get());
+        stats.put("failed", failed.get());
+        return stats;
+    }
+}
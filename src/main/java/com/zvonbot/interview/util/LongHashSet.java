@@ -0,0 +1,142 @@
+package com.zvonbot.interview.util;
+
+import java.util.Arrays;
+
+/**
+ * Множество чисел long с открытой адресацией без упаковки в {@link Long}.
+ *
+ * <p>Значения хранятся в одном массиве с линейным пробированием, поэтому миллион номеров
+ * занимает 16-32 МБ вместо ~60 МБ в {@code HashSet<Long>}. Не потокобезопасно.
+ */
+public class LongHashSet {
+
+    private static final long EMPTY = 0;
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private long[] table;
+    private int mask;
+    private int size;
+    private boolean containsEmpty;
+
+    public LongHashSet() {
+        this(16);
+    }
+
+    /**
+     * @param expectedSize сколько значений ожидается, чтобы не расширять таблицу
+     */
+    public LongHashSet(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(2, (int) Math.ceil(expectedSize / LOAD_FACTOR)) - 1) << 1;
+        table = new long[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * @return true, если значения ещё не было в множестве
+     */
+    public boolean add(long value) {
+        if (value == EMPTY) {
+            if (containsEmpty) {
+                return false;
+            }
+            containsEmpty = true;
+            size++;
+            return true;
+        }
+        int index = slot(value);
+        while (table[index] != EMPTY) {
+            if (table[index] == value) {
+                return false;
+            }
+            index = (index + 1) & mask;
+        }
+        table[index] = value;
+        if (++size > table.length * LOAD_FACTOR) {
+            resize();
+        }
+        return true;
+    }
+
+    public boolean contains(long value) {
+        if (value == EMPTY) {
+            return containsEmpty;
+        }
+        int index = slot(value);
+        while (table[index] != EMPTY) {
+            if (table[index] == value) {
+                return true;
+            }
+            index = (index + 1) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * @return true, если значение было в множестве
+     */
+    public boolean remove(long value) {
+        if (value == EMPTY) {
+            if (!containsEmpty) {
+                return false;
+            }
+            containsEmpty = false;
+            size--;
+            return true;
+        }
+        int index = slot(value);
+        while (table[index] != value) {
+            if (table[index] == EMPTY) {
+                return false;
+            }
+            index = (index + 1) & mask;
+        }
+        size--;
+        // Сдвигаем назад значения, которые при вставке прошли мимо освободившейся ячейки
+        int free = index;
+        int next = (index + 1) & mask;
+        while (table[next] != EMPTY) {
+            int home = slot(table[next]);
+            if (((next - home) & mask) >= ((next - free) & mask)) {
+                table[free] = table[next];
+                free = next;
+            }
+            next = (next + 1) & mask;
+        }
+        table[free] = EMPTY;
+        return true;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        Arrays.fill(table, EMPTY);
+        size = 0;
+        containsEmpty = false;
+    }
+
+    private int slot(long value) {
+        // Перемешивание из MurmurHash3: соседние номера не попадают в соседние ячейки
+        long hash = value;
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        return (int) hash & mask;
+    }
+
+    private void resize() {
+        long[] old = table;
+        table = new long[old.length * 2];
+        mask = table.length - 1;
+        for (long value : old) {
+            if (value != EMPTY) {
+                int index = slot(value);
+                while (table[index] != EMPTY) {
+                    index = (index + 1) & mask;
+                }
+                table[index] = value;
+            }
+        }
+    }
+}
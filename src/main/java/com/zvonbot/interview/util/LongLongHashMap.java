@@ -0,0 +1,143 @@
+package com.zvonbot.interview.util;
+
+/**
+ * Отображение long в long с открытой адресацией без упаковки в {@link Long}.
+ *
+ * <p>Ключи и значения лежат в двух массивах с линейным пробированием, удаление сдвигает
+ * следующие элементы цепочки назад, поэтому таблица не копит удалённые ячейки. Ключ 0
+ * хранится отдельно. Не потокобезопасно.
+ */
+public class LongLongHashMap {
+
+    private static final long EMPTY = 0;
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private long[] keys;
+    private long[] values;
+    private int mask;
+    private int size;
+    private boolean containsEmpty;
+    private long emptyValue;
+
+    public LongLongHashMap() {
+        this(16);
+    }
+
+    /**
+     * @param expectedSize сколько ключей ожидается, чтобы не расширять таблицу
+     */
+    public LongLongHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(2, (int) Math.ceil(expectedSize / LOAD_FACTOR)) - 1) << 1;
+        keys = new long[capacity];
+        values = new long[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * @return значение по ключу или {@code missing}, если ключа нет
+     */
+    public long get(long key, long missing) {
+        if (key == EMPTY) {
+            return containsEmpty ? emptyValue : missing;
+        }
+        int index = slot(key);
+        while (keys[index] != EMPTY) {
+            if (keys[index] == key) {
+                return values[index];
+            }
+            index = (index + 1) & mask;
+        }
+        return missing;
+    }
+
+    public void put(long key, long value) {
+        if (key == EMPTY) {
+            if (!containsEmpty) {
+                containsEmpty = true;
+                size++;
+            }
+            emptyValue = value;
+            return;
+        }
+        int index = slot(key);
+        while (keys[index] != EMPTY) {
+            if (keys[index] == key) {
+                values[index] = value;
+                return;
+            }
+            index = (index + 1) & mask;
+        }
+        keys[index] = key;
+        values[index] = value;
+        if (++size > keys.length * LOAD_FACTOR) {
+            resize();
+        }
+    }
+
+    /**
+     * @return true, если ключ был в таблице
+     */
+    public boolean remove(long key) {
+        if (key == EMPTY) {
+            if (!containsEmpty) {
+                return false;
+            }
+            containsEmpty = false;
+            size--;
+            return true;
+        }
+        int index = slot(key);
+        while (keys[index] != key) {
+            if (keys[index] == EMPTY) {
+                return false;
+            }
+            index = (index + 1) & mask;
+        }
+        size--;
+        // Сдвигаем назад элементы, которые при вставке прошли мимо освободившейся ячейки
+        int free = index;
+        int next = (index + 1) & mask;
+        while (keys[next] != EMPTY) {
+            int home = slot(keys[next]);
+            if (((next - home) & mask) >= ((next - free) & mask)) {
+                keys[free] = keys[next];
+                values[free] = values[next];
+                free = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[free] = EMPTY;
+        return true;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private int slot(long key) {
+        // Перемешивание из MurmurHash3, как в LongHashSet
+        long hash = key;
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        return (int) hash & mask;
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new long[oldKeys.length * 2];
+        mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int index = slot(oldKeys[i]);
+                while (keys[index] != EMPTY) {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = oldKeys[i];
+                values[index] = oldValues[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.zvonbot.interview.util;
+
+/**
+ * Нормализация номеров телефонов без регулярных выражений
+ */
+public final class PhoneNumbers {
+
+    private PhoneNumbers() {
+    }
+
+    /**
+     * Удаляет из номера все символы, кроме цифр. Если номер уже состоит только
+     * из цифр, возвращается та же строка без копирования.
+     *
+     * @param phone номер в произвольном формате, например {@code +7 (777) 123-45-67}
+     * @return только цифры номера или null, если номер не задан
+     */
+    public static String digitsOnly(String phone) {
+        if (phone == null) {
+            return null;
+        }
+        int length = phone.length();
+        int firstNonDigit = 0;
+        while (firstNonDigit < length && isDigit(phone.charAt(firstNonDigit))) {
+            firstNonDigit++;
+        }
+        if (firstNonDigit == length) {
+            return phone;
+        }
+
+        char[] digits = new char[length - 1];
+        phone.getChars(0, firstNonDigit, digits, 0);
+        int count = firstNonDigit;
+        for (int i = firstNonDigit + 1; i < length; i++) {
+            char ch = phone.charAt(i);
+            if (isDigit(ch)) {
+                digits[count++] = ch;
+            }
+        }
+        return new String(digits, 0, count);
+    }
+
+    /**
+     * Переводит номер в число без создания промежуточных строк, символы кроме цифр пропускаются.
+     *
+     * @return номер как число или -1, если цифр нет или их больше 18
+     */
+    public static long toLong(CharSequence phone) {
+        if (phone == null) {
+            return -1;
+        }
+        long value = 0;
+        int digits = 0;
+        for (int i = 0; i < phone.length(); i++) {
+            char ch = phone.charAt(i);
+            if (isDigit(ch)) {
+                if (++digits > 18) {
+                    return -1;
+                }
+                value = value * 10 + (ch - '0');
+            }
+        }
+        return digits > 0 ? value : -1;
+    }
+
+    private static boolean isDigit(char ch) {
+        return ch >= '0' && ch <= '9';
+    }
+}
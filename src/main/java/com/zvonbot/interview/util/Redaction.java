@@ -0,0 +1,41 @@
+package com.zvonbot.interview.util;
+
+/**
+ * Маскирование персональных данных и секретов перед записью в журнал
+ */
+public final class Redaction {
+
+    private Redaction() {
+    }
+
+    /**
+     * @return номер, в котором видны только код и две последние цифры, например {@code 7771*****43}
+     */
+    public static String phone(String phone) {
+        if (phone == null) {
+            return null;
+        }
+        int length = phone.length();
+        if (length <= 6) {
+            return "*".repeat(length);
+        }
+        return phone.substring(0, 4) + "*".repeat(length - 6) + phone.substring(length - 2);
+    }
+
+    /**
+     * @return длина текста вместо самого текста
+     */
+    public static String text(String text) {
+        return text == null ? null : "<" + text.length() + " симв.>";
+    }
+
+    /**
+     * @return первые символы ключа, достаточные, чтобы отличить один ключ от другого
+     */
+    public static String apiKey(String apiKey) {
+        if (apiKey == null) {
+            return null;
+        }
+        return apiKey.substring(0, Math.min(4, apiKey.length())) + "...";
+    }
+}
@@ -0,0 +1,35 @@
+package com.zvonbot.interview.util;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Раскрытие Unicode-последовательностей в текстах ошибок API Звонобота
+ */
+public final class UnicodeEscapes {
+
+    private static final String UNICODE_PATTERN = "\\\\u([0-9a-fA-F]{4})";
+
+    private UnicodeEscapes() {
+    }
+
+    /**
+     * Декодирует Unicode-последовательности в читаемый текст
+     */
+    public static String decode(String text) {
+        if (text == null) return null;
+        
+        Pattern pattern = Pattern.compile(UNICODE_PATTERN);
+        Matcher matcher = pattern.matcher(text);
+        StringBuffer sb = new StringBuffer();
+        
+        while (matcher.find()) {
+            String unicode = matcher.group(1);
+            char ch = (char) Integer.parseInt(unicode, 16);
+            matcher.appendReplacement(sb, String.valueOf(ch));
+        }
+        matcher.appendTail(sb);
+        
+        return sb.toString();
+    }
+}
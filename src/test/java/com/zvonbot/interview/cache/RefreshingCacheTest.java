@@ -0,0 +1,64 @@
+package com.zvonbot.interview.cache;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RefreshingCacheTest {
+
+    private static final CachePolicy POLICY = new CachePolicy(Duration.ofMinutes(10), Duration.ofMinutes(1),
+            Duration.ZERO, Duration.ofSeconds(1), Duration.ofMinutes(1), 64);
+
+    @Test
+    void concurrentMissesShareOneLoad() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        Sinks.One<String> phone = Sinks.one();
+        RefreshingCache<String, String> cache = new RefreshingCache<>(key -> {
+            calls.incrementAndGet();
+            return phone.asMono();
+        }, POLICY);
+
+        // 1000 промахов из 16 потоков, пока загрузка ещё не завершилась
+        List<CompletableFuture<String>> results = new CopyOnWriteArrayList<>();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        for (int i = 0; i < 1000; i++) {
+            executor.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                results.add(cache.get("outgoingPhone").toFuture());
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        phone.tryEmitValue("77719470943");
+        for (CompletableFuture<String> result : results) {
+            assertEquals("77719470943", result.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1000, results.size());
+        assertEquals(1, calls.get());
+        assertEquals(1000L, cache.getStats().get("misses"));
+
+        // Следующее обращение берёт значение из кэша
+        assertEquals("77719470943", cache.get("outgoingPhone").block(Duration.ofSeconds(1)));
+        assertEquals(1, calls.get());
+    }
+}
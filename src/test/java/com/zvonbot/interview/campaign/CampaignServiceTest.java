@@ -0,0 +1,119 @@
+package com.zvonbot.interview.campaign;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zvonbot.interview.dto.MessageRequest;
+import com.zvonbot.interview.dto.MessageType;
+import com.zvonbot.interview.dto.zvonobot.ZvonobotResponse;
+import com.zvonbot.interview.service.ZvonobotService;
+import com.zvonbot.interview.template.TemplateRegistry;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CampaignServiceTest {
+
+    private static final String CSV = "phone,text\n"
+            + "77079621630,первое\n77079621631,второе\n77079621632,третье\n77079621633,четвёртое\n77079621634,пятое\n";
+
+    @TempDir
+    Path directory;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private CampaignService start(Path campaigns, Duration retention, Function<MessageRequest, Mono<ZvonobotResponse>> send)
+            throws Exception {
+        ZvonobotService zvonobotService = mock(ZvonobotService.class);
+        when(zvonobotService.send(any(), any())).thenAnswer(invocation -> send.apply(invocation.getArgument(1)));
+        CampaignService service = new CampaignService(zvonobotService, new TemplateRegistry(Map.of()), objectMapper,
+                Validation.buildDefaultValidatorFactory().getValidator());
+        ReflectionTestUtils.setField(service, "directory", campaigns);
+        ReflectionTestUtils.setField(service, "segmentSize", DataSize.ofKilobytes(64));
+        ReflectionTestUtils.setField(service, "workers", 4);
+        ReflectionTestUtils.setField(service, "checkpointInterval", Duration.ofMillis(50));
+        ReflectionTestUtils.setField(service, "maxErrors", 10);
+        ReflectionTestUtils.setField(service, "retention", retention);
+        service.start();
+        return service;
+    }
+
+    private static ZvonobotResponse ok() {
+        ZvonobotResponse response = new ZvonobotResponse();
+        response.setResult("ok");
+        return response;
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "условие не выполнилось за 10 секунд");
+            Thread.sleep(20);
+        }
+    }
+
+    @Test
+    void resumesAfterRestartWithoutCountingReplayedRowsTwice() throws Exception {
+        Sinks.One<ZvonobotResponse> hung = Sinks.one();
+        CampaignService first = start(directory.resolve("first"), Duration.ofDays(7),
+                request -> request.getPhone().equals("77079621630") ? hung.asMono() : Mono.just(ok()));
+
+        String id = first.importCsv(MessageType.SMS, null,
+                Flux.just(DefaultDataBufferFactory.sharedInstance.wrap(CSV.getBytes(StandardCharsets.UTF_8))))
+                .block(Duration.ofSeconds(10))
+                .getId();
+        await(() -> first.get(id).orElseThrow().getSent() == 4);
+        Thread.sleep(200);
+
+        // Снимок каталога, пока первая строка ещё отправляется, - состояние после сбоя процесса
+        FileSystemUtils.copyRecursively(directory.resolve("first").resolve(id), directory.resolve("second").resolve(id));
+        hung.tryEmitValue(ok());
+        first.stop();
+
+        // Контрольная точка стоит на незавершённой первой строке, поэтому сохранённые счётчики не учитывают последующие
+        CampaignState saved = objectMapper.readValue(directory.resolve("second").resolve(id).resolve("state.json").toFile(),
+                CampaignState.class);
+        assertEquals(0, saved.getSent());
+
+        AtomicInteger resent = new AtomicInteger();
+        CampaignService second = start(directory.resolve("second"), Duration.ofDays(7), request -> {
+            resent.incrementAndGet();
+            return Mono.just(ok());
+        });
+        await(() -> second.get(id).orElseThrow().getStatus() == CampaignStatus.COMPLETED);
+
+        CampaignState completed = second.get(id).orElseThrow();
+        assertEquals(5, resent.get());
+        assertEquals(5, completed.getSent());
+        assertEquals(0, completed.getFailed());
+        assertEquals(0, completed.getPending());
+        second.stop();
+
+        // Завершённая кампания удаляется по истечении срока хранения
+        CampaignService third = start(directory.resolve("second"), Duration.ZERO, request -> Mono.just(ok()));
+        assertFalse(third.get(id).isPresent());
+        assertFalse(Files.exists(directory.resolve("second").resolve(id)));
+        third.stop();
+    }
+}
@@ -0,0 +1,32 @@
+package com.zvonbot.interview.campaign;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CsvRowReaderTest {
+
+    @Test
+    void parsesRowsSplitAcrossChunks() {
+        String csv = "\uFEFFphone;text\r\n77079621630;\"Привет; \"\"мир\"\"\r\nвторая строка\"\r\n\r\n77079621631;Пока";
+        List<String> rows = new ArrayList<>();
+        CsvRowReader reader = new CsvRowReader((line, fields) -> rows.add(line + ":" + String.join("|", fields)));
+
+        // Части по 3 байта режут и BOM, и многобайтовые символы
+        byte[] bytes = csv.getBytes(StandardCharsets.UTF_8);
+        for (int i = 0; i < bytes.length; i += 3) {
+            reader.feed(ByteBuffer.wrap(bytes, i, Math.min(3, bytes.length - i)));
+        }
+        reader.finish();
+
+        assertEquals(List.of(
+                "1:phone|text",
+                "2:77079621630|Привет; \"мир\"\r\nвторая строка",
+                "5:77079621631|Пока"), rows);
+    }
+}
@@ -0,0 +1,175 @@
+package com.zvonbot.interview.cluster;
+
+import com.zvonbot.interview.dto.MessageRequest;
+import com.zvonbot.interview.dto.MessageType;
+import com.zvonbot.interview.dto.zvonobot.ZvonobotResponse;
+import com.zvonbot.interview.exception.CallRejectedException;
+import com.zvonbot.interview.exception.ForwardFailedException;
+import com.zvonbot.interview.exception.ForwardRejectedException;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ClusterServiceTest {
+
+    private static final String TOKEN = "secret";
+
+    /** Статусы следующих ответов узла-владельца, по умолчанию 200 */
+    private final Queue<Integer> statuses = new ConcurrentLinkedQueue<>();
+    private final List<String> receivedTokens = new CopyOnWriteArrayList<>();
+    private final AtomicInteger localSends = new AtomicInteger();
+
+    private final DisposableServer peer = HttpServer.create()
+            .host("127.0.0.1")
+            .port(0)
+            .route(routes -> routes.post("/api/cluster/send-sms", (request, response) -> {
+                receivedTokens.add(request.requestHeaders().get(ClusterService.TOKEN_HEADER));
+                Integer status = statuses.poll();
+                if (status != null && status != 200) {
+                    return response.status(HttpResponseStatus.valueOf(status))
+                            .header("Content-Type", "application/json")
+                            .sendString(Mono.just("{\"success\":false,\"error\":\"Превышен лимит\"}"))
+                            .then();
+                }
+                return response.header("Content-Type", "application/json")
+                        .sendString(Mono.just("{\"result\":\"ok\",\"data\":[{\"id\":1}]}"))
+                        .then();
+            }))
+            .bindNow();
+
+    private ClusterService service;
+
+    @AfterEach
+    void stop() {
+        if (service != null) {
+            service.stop();
+        }
+        peer.disposeNow();
+    }
+
+    private ClusterService start(String ownerUrl, String token) {
+        ClusterService cluster = new ClusterService();
+        ReflectionTestUtils.setField(cluster, "enabled", true);
+        ReflectionTestUtils.setField(cluster, "nodeId", "node-1");
+        ReflectionTestUtils.setField(cluster, "peers", List.of("node-1=http://127.0.0.1:1", "node-2=" + ownerUrl));
+        ReflectionTestUtils.setField(cluster, "virtualNodes", 128);
+        ReflectionTestUtils.setField(cluster, "forwardTimeout", Duration.ofSeconds(5));
+        ReflectionTestUtils.setField(cluster, "connectTimeout", Duration.ofSeconds(1));
+        ReflectionTestUtils.setField(cluster, "maxConnections", 4);
+        ReflectionTestUtils.setField(cluster, "token", token);
+        cluster.start();
+        return cluster;
+    }
+
+    private String peerUrl() {
+        return "http://127.0.0.1:" + peer.port();
+    }
+
+    /**
+     * @return номер, которым владеет второй узел
+     */
+    private String remotePhone() {
+        return LongStream.range(77_000_000_000L, 77_000_001_000L)
+                .mapToObj(Long::toString)
+                .filter(phone -> service.owner(phone) != null)
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private Mono<ZvonobotResponse> forward(String phone) {
+        MessageRequest request = new MessageRequest();
+        request.setPhone(phone);
+        request.setText("Код 1234");
+        return service.forward(service.owner(phone), MessageType.SMS, request, () -> {
+            localSends.incrementAndGet();
+            ZvonobotResponse response = new ZvonobotResponse();
+            response.setResult("ok");
+            return Mono.just(response);
+        });
+    }
+
+    @Test
+    void forwardsToOwnerWithToken() {
+        service = start(peerUrl(), TOKEN);
+        String phone = remotePhone();
+        assertEquals("node-2", service.owner(phone).id());
+        assertTrue(LongStream.range(77_000_000_000L, 77_000_001_000L)
+                .anyMatch(local -> service.owner(Long.toString(local)) == null));
+
+        ZvonobotResponse response = forward(phone).block(Duration.ofSeconds(5));
+
+        assertTrue(response.isSuccess());
+        assertEquals(List.of(TOKEN), receivedTokens);
+        assertEquals(0, localSends.get());
+        assertEquals(1L, service.getStats().get("forwarded"));
+    }
+
+    @Test
+    void rejectedByOwnerIsRetriedAndOtherErrorsAreNot() {
+        service = start(peerUrl(), TOKEN);
+        String phone = remotePhone();
+
+        statuses.add(503);
+        Throwable rejected = assertThrows(RuntimeException.class, () -> forward(phone).block(Duration.ofSeconds(5)));
+        assertInstanceOf(ForwardRejectedException.class, rejected);
+
+        // Отказ владельца до вызова Звонобота повторяется так же, как отказ собственного ограничителя
+        statuses.add(503);
+        ZvonobotResponse retried = forward(phone)
+                .retryWhen(Retry.fixedDelay(3, Duration.ofMillis(50)).filter(CallRejectedException.class::isInstance))
+                .block(Duration.ofSeconds(5));
+        assertTrue(retried.isSuccess());
+        assertEquals(3, receivedTokens.size());
+
+        statuses.add(502);
+        Throwable failed = assertThrows(RuntimeException.class, () -> forward(phone).block(Duration.ofSeconds(5)));
+        assertInstanceOf(ForwardFailedException.class, failed);
+        assertEquals(0, localSends.get());
+        assertEquals(1L, service.getStats().get("forwarded"));
+    }
+
+    @Test
+    void sendsLocallyWhenOwnerIsUnreachable() {
+        // Порт освобождается, соединение с владельцем не устанавливается
+        String url = peerUrl();
+        peer.disposeNow();
+        service = start(url, TOKEN);
+
+        ZvonobotResponse response = forward(remotePhone()).block(Duration.ofSeconds(5));
+
+        assertNotNull(response);
+        assertEquals(1, localSends.get());
+        assertEquals(1L, service.getStats().get("fallbacks"));
+        assertEquals(0L, service.getStats().get("forwardErrors"));
+    }
+
+    @Test
+    void requiresTokenAndChecksIt() {
+        assertThrows(IllegalStateException.class, () -> start(peerUrl(), ""));
+
+        service = start(peerUrl(), TOKEN);
+        assertFalse(service.accept(null));
+        assertFalse(service.accept("wrong"));
+        assertTrue(service.accept(TOKEN));
+    }
+}
@@ -0,0 +1,54 @@
+package com.zvonbot.interview.cluster;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HashRingTest {
+
+    private static final ClusterNode A = new ClusterNode("node-1", "http://127.0.0.1:8081");
+    private static final ClusterNode B = new ClusterNode("node-2", "http://127.0.0.1:8082");
+    private static final ClusterNode C = new ClusterNode("node-3", "http://127.0.0.1:8083");
+
+    @Test
+    void spreadsPhonesByShareAndMovesOnlyToAddedNode() {
+        HashRing two = new HashRing(List.of(A, B), 128);
+        HashRing three = new HashRing(List.of(A, B, C), 128);
+
+        Map<ClusterNode, Integer> counts = new HashMap<>();
+        int moved = 0;
+        int phones = 100_000;
+        for (int i = 0; i < phones; i++) {
+            String phone = Long.toString(77_000_000_000L + i);
+            ClusterNode before = two.owner(phone);
+            ClusterNode after = three.owner(phone);
+            counts.merge(after, 1, Integer::sum);
+            if (!before.equals(after)) {
+                // Номер переходит только к новому узлу
+                assertEquals(C, after);
+                moved++;
+            }
+        }
+
+        assertEquals(1.0, three.share(A) + three.share(B) + three.share(C), 1e-9);
+        for (ClusterNode node : three.nodes()) {
+            // Доля номеров совпадает с долей кольца, по которой делится лимит
+            assertEquals(three.share(node), counts.get(node) / (double) phones, 0.01);
+            assertTrue(Math.abs(three.share(node) - 1.0 / 3) < 0.05, node + ": " + three.share(node));
+        }
+        assertEquals(counts.get(C), moved);
+    }
+
+    @Test
+    void singleNodeOwnsEverything() {
+        HashRing ring = new HashRing(List.of(A), 1);
+
+        assertEquals(1.0, ring.share(A), 1e-9);
+        assertEquals(A, ring.owner("77079621630"));
+    }
+}
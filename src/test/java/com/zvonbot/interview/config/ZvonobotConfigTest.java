@@ -0,0 +1,42 @@
+package com.zvonbot.interview.config;
+
+import com.zvonbot.interview.service.AccountKey;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ZvonobotConfigTest {
+
+    private static List<AccountKey> accountKeys(String... entries) {
+        ZvonobotConfig config = new ZvonobotConfig(new MockEnvironment());
+        ReflectionTestUtils.setField(config, "apiKey", "main-key");
+        ReflectionTestUtils.setField(config, "accountKeys", List.of(entries));
+        return config.getAccountKeys();
+    }
+
+    @Test
+    void parsesKeysWithOptionalWeight() {
+        assertEquals(List.of(
+                        new AccountKey("account-1", "key1", 1),
+                        new AccountKey("account-2", "key2", 3)),
+                accountKeys(" key1 ", "", "key2 : 3"));
+        assertEquals(List.of(new AccountKey("account-1", "main-key", 1)), accountKeys());
+    }
+
+    @Test
+    void rejectsWeightThatIsNotPositiveNumber() {
+        for (String entry : List.of("secret-key:abc", "secret-key:", "secret-key:-2", "secret-key:0", "secret-key:99999999999")) {
+            IllegalArgumentException error = assertThrows(IllegalArgumentException.class, () -> accountKeys("key1", entry));
+            assertTrue(error.getMessage().contains("account-2 (secr...:"), error.getMessage());
+            // Ключ целиком в сообщение не попадает
+            assertFalse(error.getMessage().contains("secret-key"), error.getMessage());
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.zvonbot.interview.controller;
+
+import com.zvonbot.interview.dto.BatchItemResult;
+import com.zvonbot.interview.load.ZvonobotStub;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Пакетная отправка через сервис на заглушке Звонобота
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class BatchSendTest {
+
+    private static final int CONCURRENCY = 3;
+
+    private static final ZvonobotStub stub = new ZvonobotStub(0)
+            .latency(Duration.ofMillis(5), Duration.ofMillis(10));
+
+    @Autowired
+    WebTestClient client;
+
+    @DynamicPropertySource
+    static void zvonobotProperties(DynamicPropertyRegistry registry) {
+        registry.add("zvonobot.api.base-url", stub::getBaseUrl);
+        registry.add("zvonobot.api.key", () -> "batch-test");
+        registry.add("zvonobot.batch.concurrency", () -> CONCURRENCY);
+    }
+
+    @AfterAll
+    static void stopStub() {
+        stub.close();
+    }
+
+    private static String phone(int index) {
+        return "7707" + String.format("%07d", index);
+    }
+
+    private static String item(int index) {
+        return "{\"phone\":\"" + phone(index) + "\",\"text\":\"Пакет, сообщение " + index + "\"}";
+    }
+
+    private List<BatchItemResult> post(String uri, MediaType contentType, String body) {
+        return client.post().uri(uri)
+                .contentType(contentType)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .bodyValue(body)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(BatchItemResult.class)
+                .getResponseBody()
+                .collectList()
+                .block(Duration.ofSeconds(30));
+    }
+
+    @Test
+    void acceptsNdjsonAndJsonArray() {
+        String ndjson = item(0) + "\n" + item(1) + "\n";
+        List<BatchItemResult> voice = post("/api/send-voice/batch", MediaType.APPLICATION_NDJSON, ndjson);
+        String array = "[" + item(2) + "," + item(3) + "]";
+        List<BatchItemResult> sms = post("/api/send-sms/batch", MediaType.APPLICATION_JSON, array);
+
+        assertEquals(2, voice.size());
+        assertEquals(2, sms.size());
+        assertTrue(voice.stream().allMatch(result -> result.getResult().isSuccess()));
+        assertTrue(sms.stream().allMatch(result -> result.getResult().isSuccess()));
+        // Индексы считаются внутри пакета
+        assertEquals(List.of(0L, 1L), sms.stream().map(BatchItemResult::getIndex).sorted().toList());
+        assertEquals(phone(2), sms.stream().filter(result -> result.getIndex() == 0).findFirst().orElseThrow().getPhone());
+    }
+
+    @Test
+    void invalidItemDoesNotStopBatchAndParseErrorIsLast() {
+        String body = item(10) + "\n"
+                + "{\"phone\":\"123\",\"text\":\"Неверный номер\"}\n"
+                + item(11) + "\n"
+                + "{\"phone\":\"77070000012\",\"text\":\n";
+        List<BatchItemResult> results = post("/api/send-sms/batch", MediaType.APPLICATION_NDJSON, body);
+
+        assertEquals(4, results.size());
+        BatchItemResult invalid = results.stream().filter(result -> result.getIndex() == 1).findFirst().orElseThrow();
+        assertEquals("123", invalid.getPhone());
+        assertFalse(invalid.getResult().isSuccess());
+        assertTrue(invalid.getResult().getError().startsWith("Ошибка валидации: phone"));
+
+        BatchItemResult last = results.get(results.size() - 1);
+        assertEquals(3, last.getIndex());
+        assertNull(last.getPhone());
+        assertTrue(last.getResult().getError().startsWith("Ошибка разбора запроса"));
+        assertEquals(2, results.stream().filter(result -> result.getResult().isSuccess()).count());
+    }
+
+    @Test
+    void sendsAtMostConcurrencyAtOnceAndIndexesRestoreOrder() {
+        int items = 12;
+        String body = IntStream.range(0, items)
+                .mapToObj(index -> item(100 + index))
+                .collect(Collectors.joining("\n"));
+        long before = stub.calls("/apiCalls/create");
+
+        // Разброс времени ответа перемешивает результаты
+        stub.latency(Duration.ofMillis(50), Duration.ofMillis(200));
+        List<BatchItemResult> results;
+        try {
+            results = post("/api/send-sms/batch", MediaType.APPLICATION_NDJSON, body);
+        } finally {
+            stub.latency(Duration.ofMillis(5), Duration.ofMillis(10));
+        }
+
+        assertEquals(items, stub.calls("/apiCalls/create") - before);
+        assertEquals(CONCURRENCY, stub.peakInFlight("/apiCalls/create"));
+
+        List<BatchItemResult> ordered = results.stream()
+                .sorted(Comparator.comparingLong(BatchItemResult::getIndex))
+                .toList();
+        for (int index = 0; index < items; index++) {
+            assertEquals(index, ordered.get(index).getIndex());
+            assertEquals(phone(100 + index), ordered.get(index).getPhone());
+            assertTrue(ordered.get(index).getResult().isSuccess());
+        }
+    }
+}
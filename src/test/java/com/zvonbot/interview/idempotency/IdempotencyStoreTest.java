@@ -0,0 +1,117 @@
+package com.zvonbot.interview.idempotency;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zvonbot.interview.dto.ApiResponse;
+import com.zvonbot.interview.exception.IdempotencyKeyConflictException;
+import com.zvonbot.interview.exception.RateLimitExceededException;
+import com.zvonbot.interview.exception.ZvonobotApiException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+import java.net.ConnectException;
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class IdempotencyStoreTest {
+
+    @TempDir
+    Path directory;
+
+    private final AtomicInteger calls = new AtomicInteger();
+
+    private IdempotencyStore start(int maxEntries, boolean spill) throws Exception {
+        IdempotencyStore store = new IdempotencyStore(new ObjectMapper());
+        ReflectionTestUtils.setField(store, "ttl", Duration.ofHours(1));
+        ReflectionTestUtils.setField(store, "maxEntries", maxEntries);
+        ReflectionTestUtils.setField(store, "spillEnabled", spill);
+        ReflectionTestUtils.setField(store, "spillDirectory", directory);
+        store.start();
+        return store;
+    }
+
+    private Supplier<Mono<ResponseEntity<ApiResponse>>> action(String message) {
+        return () -> Mono.fromSupplier(() -> {
+            calls.incrementAndGet();
+            return ResponseEntity.ok(ApiResponse.success(message));
+        });
+    }
+
+    private static ResponseEntity<ApiResponse> execute(IdempotencyStore store, String key, String fingerprint,
+                                                       Supplier<Mono<ResponseEntity<ApiResponse>>> action) {
+        return store.execute(key, fingerprint, action).block(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void replaysStoredResponseAndRejectsOtherContent() throws Exception {
+        IdempotencyStore store = start(100, false);
+
+        ResponseEntity<ApiResponse> first = execute(store, "key", "a", action("первый"));
+        ResponseEntity<ApiResponse> repeated = execute(store, "key", "a", action("второй"));
+
+        assertEquals(1, calls.get());
+        assertNull(first.getHeaders().getFirst("Idempotent-Replayed"));
+        assertEquals("true", repeated.getHeaders().getFirst("Idempotent-Replayed"));
+        assertEquals("первый", repeated.getBody().getMessage());
+        assertThrows(IdempotencyKeyConflictException.class, () -> execute(store, "key", "b", action("другой")));
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void hungRequestDoesNotStopEvictionAndEvictedResultsReplayFromSpill() throws Exception {
+        IdempotencyStore store = start(2, true);
+        Disposable hung = store.execute("hung", "h", Mono::never).subscribe();
+
+        for (int i = 0; i < 5; i++) {
+            execute(store, "key-" + i, "f" + i, action("ответ " + i));
+        }
+
+        // В памяти зависший запрос и последний результат, остальные вытеснены на диск
+        assertEquals(2, store.getStats().get("entries"));
+        assertEquals(4L, store.getStats().get("spilled"));
+
+        ResponseEntity<ApiResponse> replayed = execute(store, "key-0", "f0", action("повтор"));
+        assertEquals("true", replayed.getHeaders().getFirst("Idempotent-Replayed"));
+        assertEquals("ответ 0", replayed.getBody().getMessage());
+        assertThrows(IdempotencyKeyConflictException.class, () -> execute(store, "key-1", "other", action("другой")));
+        assertEquals(5, calls.get());
+
+        hung.dispose();
+        store.stop();
+    }
+
+    @Test
+    void releasesKeyOnlyWhenRequestWasNotSent() throws Exception {
+        IdempotencyStore store = start(100, false);
+
+        assertThrows(RateLimitExceededException.class, () -> execute(store, "limited", "a",
+                () -> Mono.error(new RateLimitExceededException("create"))));
+        assertThrows(WebClientRequestException.class, () -> execute(store, "refused", "a",
+                () -> Mono.error(new WebClientRequestException(new ConnectException("Connection refused"),
+                        HttpMethod.POST, URI.create("http://127.0.0.1/apiCalls/create"), new HttpHeaders()))));
+        assertEquals("первый", execute(store, "limited", "a", action("первый")).getBody().getMessage());
+        assertEquals("второй", execute(store, "refused", "a", action("второй")).getBody().getMessage());
+
+        // После 5xx сообщение могло уйти: ответ сохраняется, повтор не вызывает действие
+        ResponseEntity<ApiResponse> failed = execute(store, "unavailable", "a",
+                () -> Mono.error(new ZvonobotApiException(503, "Service Unavailable")));
+        ResponseEntity<ApiResponse> repeated = execute(store, "unavailable", "a", action("третий"));
+        assertEquals(failed.getBody().getMessage(), repeated.getBody().getMessage());
+        assertEquals("true", repeated.getHeaders().getFirst("Idempotent-Replayed"));
+        assertEquals(2, calls.get());
+        assertEquals(1L, store.getStats().get("inDoubt"));
+    }
+}
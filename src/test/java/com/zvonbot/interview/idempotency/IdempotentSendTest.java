@@ -0,0 +1,71 @@
+package com.zvonbot.interview.idempotency;
+
+import com.zvonbot.interview.load.ZvonobotStub;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Отправка с ключом идемпотентности, когда Звонобот не отвечает вовремя
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class IdempotentSendTest {
+
+    private static final ZvonobotStub stub = new ZvonobotStub(0)
+            .latency(Duration.ofMillis(5), Duration.ofMillis(10));
+
+    @Autowired
+    WebTestClient client;
+
+    @DynamicPropertySource
+    static void zvonobotProperties(DynamicPropertyRegistry registry) {
+        registry.add("zvonobot.api.base-url", stub::getBaseUrl);
+        registry.add("zvonobot.api.key", () -> "idempotency-test");
+        registry.add("zvonobot.http.response-timeout", () -> "300ms");
+    }
+
+    @AfterAll
+    static void stopStub() {
+        stub.close();
+    }
+
+    private WebTestClient.ResponseSpec send(String key) {
+        WebTestClient.RequestBodySpec request = client.post().uri("/api/send-sms");
+        if (key != null) {
+            request = request.header("Idempotency-Key", key);
+        }
+        return request.bodyValue(Map.of("phone", "77079621630", "text", "Код 1234")).exchange();
+    }
+
+    @Test
+    void timedOutSendIsNotRepeatedWithSameKey() {
+        // Исходящий номер загружается и кэшируется, пока заглушка отвечает быстро
+        send(null).expectStatus().isOk().expectBody().jsonPath("$.success").isEqualTo(true);
+        long before = stub.calls("/apiCalls/create");
+
+        stub.latency(Duration.ofSeconds(2), Duration.ofSeconds(2));
+        try {
+            send("order-42").expectStatus().isOk()
+                    .expectBody().jsonPath("$.success").isEqualTo(false);
+            assertEquals(before + 1, stub.calls("/apiCalls/create"));
+
+            // Заглушка снова отвечает быстро, но повтор получает сохранённый ответ
+            stub.latency(Duration.ofMillis(5), Duration.ofMillis(10));
+            send("order-42").expectStatus().isOk()
+                    .expectHeader().valueEquals("Idempotent-Replayed", "true")
+                    .expectBody().jsonPath("$.success").isEqualTo(false);
+            assertEquals(before + 1, stub.calls("/apiCalls/create"));
+        } finally {
+            stub.latency(Duration.ofMillis(5), Duration.ofMillis(10));
+        }
+    }
+}
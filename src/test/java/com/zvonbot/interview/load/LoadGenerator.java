@@ -0,0 +1,115 @@
+package com.zvonbot.interview.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongFunction;
+
+/**
+ * Генератор нагрузки с постоянной частотой запросов.
+ *
+ * <p>Запросы отправляются по расписанию независимо от того, ответил ли сервис на предыдущие
+ * (открытая модель нагрузки). Время ответа считается от момента, когда запрос должен был
+ * уйти по расписанию, поэтому задержки самого генератора не скрывают очередь в сервисе.
+ */
+public class LoadGenerator {
+
+    private final WebClient client;
+
+    public LoadGenerator(String baseUrl) {
+        this.client = WebClient.builder()
+                .baseUrl(baseUrl)
+                .defaultHeader("Content-Type", MediaType.APPLICATION_JSON_VALUE)
+                .build();
+    }
+
+    /**
+     * @param path эндпоинт, например {@code /api/send-sms}
+     * @param body тело запроса по его номеру
+     * @param rps запросов в секунду
+     */
+    public LoadReport run(String path, LongFunction<Object> body, int rps, Duration duration) {
+        int total = (int) (rps * duration.toMillis() / 1000);
+        long periodNanos = 1_000_000_000L / rps;
+        long[] latencies = new long[total];
+        AtomicInteger completed = new AtomicInteger();
+        LongAdder ok = new LongAdder();
+        LongAdder failed = new LongAdder();
+        LongAdder errors = new LongAdder();
+
+        long start = System.nanoTime();
+        Flux.interval(Duration.ofNanos(periodNanos))
+                .take(total)
+                .flatMap(index -> {
+                    long scheduled = start + (index + 1) * periodNanos;
+                    return client.post()
+                            .uri(path)
+                            .bodyValue(body.apply(index))
+                            .retrieve()
+                            .bodyToMono(JsonNode.class)
+                            .doOnNext(response -> (response.path("success").asBoolean() ? ok : failed).increment())
+                            .doOnError(error -> errors.increment())
+                            .onErrorResume(error -> Mono.empty())
+                            .doOnTerminate(() -> latencies[completed.getAndIncrement()] = System.nanoTime() - scheduled);
+                }, Integer.MAX_VALUE)
+                .blockLast();
+        long elapsed = System.nanoTime() - start;
+
+        long[] sorted = Arrays.copyOf(latencies, completed.get());
+        Arrays.sort(sorted);
+        return new LoadReport(path, rps, sorted.length, ok.sum(), failed.sum(), errors.sum(), Duration.ofNanos(elapsed), sorted);
+    }
+
+    /**
+     * @param ok ответов с {@code success = true}
+     * @param failed ответов с {@code success = false}
+     * @param errors ответов с кодом ошибки и сбоев соединения
+     * @param latencies отсортированное время ответа в наносекундах
+     */
+    public record LoadReport(String path, int targetRps, int requests, long ok, long failed, long errors,
+                             Duration elapsed, long[] latencies) {
+
+        public double throughput() {
+            return requests * 1e9 / elapsed.toNanos();
+        }
+
+        public Duration percentile(double percentile) {
+            if (latencies.length == 0) {
+                return Duration.ZERO;
+            }
+            int index = Math.min(latencies.length - 1, (int) Math.ceil(percentile * latencies.length) - 1);
+            return Duration.ofNanos(latencies[Math.max(index, 0)]);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: %d запросов за %d мс (%.1f/с при цели %d/с), успешно %d, ошибка API %d, сбой %d, "
+                            + "p50 %.1f мс, p90 %.1f мс, p99 %.1f мс, max %.1f мс",
+                    path, requests, elapsed.toMillis(), throughput(), targetRps, ok, failed, errors,
+                    millis(percentile(0.5)), millis(percentile(0.9)), millis(percentile(0.99)), millis(percentile(1.0)));
+        }
+
+        private static double millis(Duration duration) {
+            return duration.toNanos() / 1e6;
+        }
+    }
+
+    /**
+     * Запуск против работающего сервиса: {@code baseUrl path rps секунд}
+     */
+    public static void main(String[] args) {
+        LoadGenerator generator = new LoadGenerator(args[0]);
+        LoadReport report = generator.run(args[1],
+                index -> Map.of("phone", "7707" + String.format("%07d", index % 10_000_000), "text", "Нагрузочный тест"),
+                Integer.parseInt(args[2]), Duration.ofSeconds(Long.parseLong(args[3])));
+        System.out.println(report);
+    }
+}
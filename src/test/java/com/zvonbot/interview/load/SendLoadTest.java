@@ -0,0 +1,79 @@
+package com.zvonbot.interview.load;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Короткий прогон отправки голосовых сообщений и SMS через сервис на заглушке Звонобота
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class SendLoadTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(SendLoadTest.class);
+
+    private static final int RPS = 50;
+    private static final Duration DURATION = Duration.ofSeconds(2);
+
+    private static final ZvonobotStub stub = new ZvonobotStub(0)
+            .latency(Duration.ofMillis(10), Duration.ofMillis(50));
+
+    @LocalServerPort
+    int port;
+
+    @DynamicPropertySource
+    static void zvonobotProperties(DynamicPropertyRegistry registry) {
+        registry.add("zvonobot.api.base-url", stub::getBaseUrl);
+        registry.add("zvonobot.api.key", () -> "load-test");
+    }
+
+    @AfterAll
+    static void stopStub() {
+        stub.close();
+    }
+
+    @Test
+    void sendsVoiceAndSmsAtTargetRate() {
+        LoadGenerator generator = new LoadGenerator("http://127.0.0.1:" + port);
+        // Прогрев: соединения, JIT и кэш исходящего номера
+        generator.run("/api/send-sms", LoadSendBodies::sms, RPS, Duration.ofSeconds(1));
+        long warmupCalls = stub.calls("/apiCalls/create");
+
+        LoadGenerator.LoadReport voice = generator.run("/api/send-voice", LoadSendBodies::voice, RPS, DURATION);
+        LoadGenerator.LoadReport sms = generator.run("/api/send-sms", LoadSendBodies::sms, RPS, DURATION);
+        logger.info("{}", voice);
+        logger.info("{}", sms);
+
+        int expected = (int) (RPS * DURATION.toSeconds());
+        assertEquals(expected, voice.ok());
+        assertEquals(expected, sms.ok());
+        assertEquals(2L * expected, stub.calls("/apiCalls/create") - warmupCalls);
+        // Исходящий номер загружается один раз и берётся из кэша
+        assertEquals(1, stub.calls("/apiCalls/getPhones"));
+    }
+
+    private static final class LoadSendBodies {
+
+        static Object voice(long index) {
+            return Map.of("phone", phone(index), "text", "Нагрузочный тест " + index);
+        }
+
+        static Object sms(long index) {
+            return Map.of("phone", phone(index), "text", "Код подтверждения " + (1000 + index % 9000));
+        }
+
+        private static String phone(long index) {
+            return "7707" + String.format("%07d", index);
+        }
+    }
+}
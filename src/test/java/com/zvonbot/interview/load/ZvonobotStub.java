@@ -0,0 +1,179 @@
+package com.zvonbot.interview.load;
+
+import io.netty.handler.codec.http.HttpResponseStatus;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.http.server.HttpServerRequest;
+import reactor.netty.http.server.HttpServerResponse;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Заглушка API Звонобота в том же процессе: /apiCalls/create, /getPhones, /getRecords и /userInfo.
+ *
+ * <p>Время ответа распределено логнормально с заданными медианой и p99, доли ответов 5xx,
+ * 429 и ответов с {@code result = error} настраиваются на лету. Запросы не оплачиваются,
+ * поэтому на заглушке можно проверять пропускную способность сервиса.
+ */
+public class ZvonobotStub implements AutoCloseable {
+
+    // Квантиль стандартного нормального распределения для p99
+    private static final double Z_99 = 2.326;
+
+    private static final String CREATED = "{\"result\":\"ok\",\"data\":[{\"id\":%d,\"phone\":\"77079621630\",\"status\":\"created\"}]}";
+    private static final String PHONES = "{\"result\":\"ok\",\"data\":[{\"phone\":\"77719470943\"}]}";
+    private static final String RECORDS = "{\"result\":\"ok\",\"data\":[{\"id\":247273,\"name\":\"greeting\",\"status\":\"moderated\"}]}";
+    private static final String USER_INFO = "{\"result\":\"ok\",\"data\":{\"email\":\"stub@example.com\",\"balance\":1000}}";
+    // "Перегрузка" - ошибки API приходят с экранированной кириллицей
+    private static final String SERVER_ERROR = "{\"result\":\"error\",\"error\":\"\\u041f\\u0435\\u0440\\u0435\\u0433\\u0440\\u0443\\u0437\\u043a\\u0430\"}";
+    private static final String THROTTLED = "{\"result\":\"error\",\"error\":\"Too many requests\"}";
+    private static final String API_ERROR = "{\"result\":\"error\",\"error\":\"Invalid phone number\"}";
+
+    private final DisposableServer server;
+    private final Map<String, LongAdder> calls = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> peakInFlight = new ConcurrentHashMap<>();
+    private final AtomicLong callIds = new AtomicLong(1_000_000);
+
+    private volatile double mu = Math.log(20);
+    private volatile double sigma;
+    private volatile double errorRate;
+    private volatile double throttleRate;
+    private volatile double apiErrorRate;
+
+    /**
+     * @param port порт или 0 для свободного
+     */
+    public ZvonobotStub(int port) {
+        this.server = HttpServer.create()
+                .host("127.0.0.1")
+                .port(port)
+                .route(routes -> routes
+                        .post("/apiCalls/create", (request, response) -> respond(request, response, null))
+                        .post("/apiCalls/getPhones", (request, response) -> respond(request, response, PHONES))
+                        .post("/apiCalls/getRecords", (request, response) -> respond(request, response, RECORDS))
+                        .post("/apiCalls/userInfo", (request, response) -> respond(request, response, USER_INFO)))
+                .bindNow();
+    }
+
+    public String getBaseUrl() {
+        return "http://127.0.0.1:" + server.port();
+    }
+
+    /**
+     * Время ответа с медианой {@code median} и 99-м перцентилем {@code p99}
+     */
+    public ZvonobotStub latency(Duration median, Duration p99) {
+        double medianMillis = Math.max(median.toNanos() / 1e6, 0.001);
+        double p99Millis = Math.max(p99.toNanos() / 1e6, medianMillis);
+        this.mu = Math.log(medianMillis);
+        this.sigma = (Math.log(p99Millis) - mu) / Z_99;
+        return this;
+    }
+
+    /**
+     * Доля ответов 503 с текстом ошибки
+     */
+    public ZvonobotStub errorRate(double errorRate) {
+        this.errorRate = errorRate;
+        return this;
+    }
+
+    /**
+     * Доля ответов 429, как при превышении лимита запросов
+     */
+    public ZvonobotStub throttleRate(double throttleRate) {
+        this.throttleRate = throttleRate;
+        return this;
+    }
+
+    /**
+     * Доля ответов 200 с {@code result = error}
+     */
+    public ZvonobotStub apiErrorRate(double apiErrorRate) {
+        this.apiErrorRate = apiErrorRate;
+        return this;
+    }
+
+    /**
+     * @param uri метод API, например {@code /apiCalls/create}
+     * @return сколько запросов получено
+     */
+    public long calls(String uri) {
+        LongAdder counter = calls.get(uri);
+        return counter != null ? counter.sum() : 0;
+    }
+
+    /**
+     * @param uri метод API, например {@code /apiCalls/create}
+     * @return наибольшее число одновременно обрабатывавшихся запросов
+     */
+    public int peakInFlight(String uri) {
+        AtomicInteger peak = peakInFlight.get(uri);
+        return peak != null ? peak.get() : 0;
+    }
+
+    @Override
+    public void close() {
+        server.disposeNow();
+    }
+
+    private Mono<Void> respond(HttpServerRequest request, HttpServerResponse response, String body) {
+        String uri = request.uri();
+        calls.computeIfAbsent(uri, key -> new LongAdder()).increment();
+        AtomicInteger current = inFlight.computeIfAbsent(uri, key -> new AtomicInteger());
+        peakInFlight.computeIfAbsent(uri, key -> new AtomicInteger()).accumulateAndGet(current.incrementAndGet(), Math::max);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long delayMicros = (long) (Math.exp(mu + sigma * random.nextGaussian()) * 1000);
+
+        HttpResponseStatus status = HttpResponseStatus.OK;
+        String content;
+        double roll = random.nextDouble();
+        if (roll < errorRate) {
+            status = HttpResponseStatus.SERVICE_UNAVAILABLE;
+            content = SERVER_ERROR;
+        } else if (roll < errorRate + throttleRate) {
+            status = HttpResponseStatus.TOO_MANY_REQUESTS;
+            content = THROTTLED;
+        } else if (roll < errorRate + throttleRate + apiErrorRate) {
+            content = API_ERROR;
+        } else {
+            content = body != null ? body : CREATED.formatted(callIds.incrementAndGet());
+        }
+
+        HttpResponseStatus responseStatus = status;
+        // Тело запроса дочитывается, чтобы соединение можно было использовать повторно
+        return request.receive().then()
+                .then(Mono.delay(Duration.ofNanos(delayMicros * 1000)))
+                .then(response.status(responseStatus)
+                        .header("Content-Type", "application/json")
+                        .sendString(Mono.just(content))
+                        .then())
+                .doFinally(signal -> current.decrementAndGet());
+    }
+
+    /**
+     * Запуск отдельно от тестов: {@code port [медиана мс] [p99 мс] [доля 5xx] [доля 429]}
+     */
+    public static void main(String[] args) throws InterruptedException {
+        ZvonobotStub stub = new ZvonobotStub(Integer.parseInt(args[0]));
+        if (args.length > 2) {
+            stub.latency(Duration.ofMillis(Long.parseLong(args[1])), Duration.ofMillis(Long.parseLong(args[2])));
+        }
+        if (args.length > 3) {
+            stub.errorRate(Double.parseDouble(args[3]));
+        }
+        if (args.length > 4) {
+            stub.throttleRate(Double.parseDouble(args[4]));
+        }
+        System.out.println("Заглушка Звонобота: " + stub.getBaseUrl());
+        stub.server.onDispose().block();
+    }
+}
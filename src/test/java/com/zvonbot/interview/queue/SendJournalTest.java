@@ -0,0 +1,99 @@
+package com.zvonbot.interview.queue;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SendJournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void readsRecordsAcrossSegments() throws Exception {
+        try (SendJournal journal = new SendJournal(directory, 64, false)) {
+            for (int i = 0; i < 10; i++) {
+                journal.append(("message-" + i).getBytes(StandardCharsets.UTF_8));
+            }
+
+            List<String> read = readAll(journal, journal.readCheckpoint());
+
+            assertEquals(10, read.size());
+            assertEquals("message-0", read.get(0));
+            assertEquals("message-9", read.get(9));
+            assertTrue(segmentCount() > 1);
+        }
+    }
+
+    @Test
+    void resumesFromCheckpointAfterReopen() throws Exception {
+        long checkpoint;
+        try (SendJournal journal = new SendJournal(directory, 64, false)) {
+            for (int i = 0; i < 6; i++) {
+                journal.append(("message-" + i).getBytes(StandardCharsets.UTF_8));
+            }
+            long position = journal.readCheckpoint();
+            for (int i = 0; i < 4; i++) {
+                position = journal.read(position).nextPosition();
+            }
+            journal.checkpoint(position);
+            checkpoint = position;
+        }
+
+        try (SendJournal journal = new SendJournal(directory, 64, false)) {
+            assertEquals(checkpoint, journal.readCheckpoint());
+            journal.append("message-6".getBytes(StandardCharsets.UTF_8));
+
+            assertEquals(List.of("message-4", "message-5", "message-6"), readAll(journal, journal.readCheckpoint()));
+        }
+    }
+
+    @Test
+    void ignoresTornTailAfterCrash() throws Exception {
+        try (SendJournal journal = new SendJournal(directory, 1024, false)) {
+            journal.append("complete".getBytes(StandardCharsets.UTF_8));
+        }
+        // Имитируем недописанную запись: длина есть, а данные и контрольная сумма - нет
+        Path segment;
+        try (Stream<Path> files = Files.list(directory)) {
+            segment = files.filter(file -> file.getFileName().toString().endsWith(".log")).findFirst().orElseThrow();
+        }
+        byte[] bytes = Files.readAllBytes(segment);
+        int tail = 8 + "complete".length();
+        bytes[tail + 3] = 20;
+        Files.write(segment, bytes);
+
+        try (SendJournal journal = new SendJournal(directory, 1024, false)) {
+            journal.append("next".getBytes(StandardCharsets.UTF_8));
+
+            assertEquals(List.of("complete", "next"), readAll(journal, journal.readCheckpoint()));
+        }
+    }
+
+    private List<String> readAll(SendJournal journal, long position) {
+        List<String> result = new ArrayList<>();
+        SendJournal.Entry entry;
+        while ((entry = journal.read(position)) != null) {
+            result.add(new String(entry.payload(), StandardCharsets.UTF_8));
+            position = entry.nextPosition();
+        }
+        assertNull(journal.read(position));
+        return result;
+    }
+
+    private long segmentCount() throws Exception {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".log")).count();
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.zvonbot.interview.ratelimit;
+
+import com.zvonbot.interview.exception.RateLimitExceededException;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenBucketRateLimiterTest {
+
+    private final AtomicInteger sent = new AtomicInteger();
+
+    private Mono<Integer> call() {
+        return Mono.fromSupplier(sent::incrementAndGet);
+    }
+
+    @Test
+    void burstGoesImmediatelyAndTheRestIsPaced() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter("test",
+                new RateLimitPolicy(20, 5, 100, Duration.ofSeconds(10)));
+
+        // Запас из пяти разрешений и текущее разрешение уходят сразу, остальные через 50 мс каждое
+        for (int i = 0; i < 10; i++) {
+            limiter.throttle(call()).subscribe();
+        }
+        assertEquals(6, sent.get());
+        assertEquals(4L, limiter.getStats().get("delayed"));
+        assertEquals(4, limiter.getStats().get("queued"));
+
+        long start = System.nanoTime();
+        limiter.throttle(call()).block(Duration.ofSeconds(5));
+        long waitedMillis = (System.nanoTime() - start) / 1_000_000;
+        assertEquals(11, sent.get());
+        // Пятый отложенный ждёт пять интервалов по 50 мс
+        assertTrue(waitedMillis >= 200 && waitedMillis < 1_000, "ожидание " + waitedMillis + " мс");
+    }
+
+    @Test
+    void idleTimeRefillsBurstUpToItsSize() throws InterruptedException {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter("test",
+                new RateLimitPolicy(20, 3, 100, Duration.ofSeconds(10)));
+        for (int i = 0; i < 4; i++) {
+            limiter.throttle(call()).block(Duration.ofSeconds(1));
+        }
+        assertEquals(0L, limiter.getStats().get("delayed"));
+
+        // За секунду простоя накопилось бы 20 разрешений, но запас ограничен тремя
+        Thread.sleep(1_000);
+        for (int i = 0; i < 5; i++) {
+            limiter.throttle(call()).subscribe();
+        }
+        assertEquals(8, sent.get());
+        assertEquals(1L, limiter.getStats().get("delayed"));
+    }
+
+    @Test
+    void rejectsWhenQueueIsFull() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter("test",
+                new RateLimitPolicy(1, 0, 2, Duration.ofMinutes(1)));
+        limiter.throttle(call()).subscribe();
+        Disposable first = limiter.throttle(call()).subscribe();
+        Disposable second = limiter.throttle(call()).subscribe();
+
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        limiter.throttle(call()).subscribe(null, error::set);
+
+        assertInstanceOf(RateLimitExceededException.class, error.get());
+        assertEquals(1, sent.get());
+        assertEquals(2, limiter.getStats().get("queued"));
+        assertEquals(1L, limiter.getStats().get("rejected"));
+        first.dispose();
+        second.dispose();
+    }
+
+    @Test
+    void rejectsWhenWaitWouldExceedMaxWait() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter("test",
+                new RateLimitPolicy(1, 0, 100, Duration.ofMillis(1_500)));
+        limiter.throttle(call()).subscribe();
+        // Второму ждать секунду - допустимо, третьему две - нет
+        Disposable queued = limiter.throttle(call()).subscribe();
+
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        limiter.throttle(call()).subscribe(null, error::set);
+
+        assertInstanceOf(RateLimitExceededException.class, error.get());
+        assertEquals(1, limiter.getStats().get("queued"));
+        queued.dispose();
+    }
+
+    @Test
+    void cancelledWhileQueuedLeavesQueueAndIsNotSent() throws InterruptedException {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter("test",
+                new RateLimitPolicy(5, 0, 100, Duration.ofSeconds(10)));
+        limiter.throttle(call()).subscribe();
+        Disposable queued = limiter.throttle(call()).subscribe();
+        assertEquals(1, limiter.getStats().get("queued"));
+
+        queued.dispose();
+        assertEquals(0, limiter.getStats().get("queued"));
+
+        // Отменённый запрос не отправляется и после наступления своего времени
+        Thread.sleep(400);
+        assertEquals(1, sent.get());
+    }
+}
@@ -0,0 +1,65 @@
+package com.zvonbot.interview.ratelimit;
+
+import com.zvonbot.interview.exception.RateLimitExceededException;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+
+class WeightedFairSchedulerTest {
+
+    enum Lane { URGENT, BULK }
+
+    @Test
+    void grantsBackloggedLanesInProportionToWeights() {
+        WeightedFairScheduler<Lane> scheduler = new WeightedFairScheduler<>("test", Lane.class,
+                Map.of(Lane.URGENT, 9, Lane.BULK, 1), new FairQueuePolicy(1, 1_000, Duration.ofMinutes(1)));
+        Sinks.Empty<Void> blocker = Sinks.empty();
+        scheduler.execute(Lane.BULK, started -> blocker.asMono()).subscribe();
+
+        // Массовые встали в очередь раньше срочных
+        List<Lane> order = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            scheduler.execute(Lane.BULK, started -> Mono.fromRunnable(() -> order.add(Lane.BULK))).subscribe();
+        }
+        for (int i = 0; i < 100; i++) {
+            scheduler.execute(Lane.URGENT, started -> Mono.fromRunnable(() -> order.add(Lane.URGENT))).subscribe();
+        }
+        blocker.tryEmitEmpty();
+
+        assertEquals(200, order.size());
+        // Пока обе очереди не пусты, на девять срочных приходится одно массовое
+        long urgentInFirst100 = order.subList(0, 100).stream().filter(lane -> lane == Lane.URGENT).count();
+        assertEquals(90, urgentInFirst100);
+        assertEquals(Lane.URGENT, order.get(0));
+    }
+
+    @Test
+    void slotIsFreedWhenCallStartsAndQueueOverflowIsRejected() {
+        WeightedFairScheduler<Lane> scheduler = new WeightedFairScheduler<>("test", Lane.class,
+                Map.of(), new FairQueuePolicy(1, 1, Duration.ofMinutes(1)));
+        Sinks.Empty<Void> upstream = Sinks.empty();
+        scheduler.execute(Lane.BULK, started -> Mono.fromRunnable(started).then(upstream.asMono())).subscribe();
+
+        // Первый запрос уже отправляется, поэтому второй проходит сразу
+        AtomicReference<Object> second = new AtomicReference<>();
+        scheduler.execute(Lane.BULK, started -> Mono.just("second")).subscribe(second::set);
+        assertEquals("second", second.get());
+
+        Sinks.Empty<Void> blocker = Sinks.empty();
+        scheduler.execute(Lane.BULK, started -> blocker.asMono()).subscribe();
+        scheduler.execute(Lane.BULK, started -> Mono.just("queued")).subscribe();
+        AtomicReference<Throwable> rejected = new AtomicReference<>();
+        scheduler.execute(Lane.BULK, started -> Mono.just("rejected")).subscribe(value -> {}, rejected::set);
+
+        assertInstanceOf(RateLimitExceededException.class, rejected.get());
+    }
+}
@@ -0,0 +1,88 @@
+package com.zvonbot.interview.record;
+
+import com.zvonbot.interview.dto.zvonobot.ZvonobotRecord;
+import com.zvonbot.interview.dto.zvonobot.ZvonobotResponse;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RecordCatalogTest {
+
+    @TempDir
+    Path directory;
+
+    private static ZvonobotResponse ok(Object data) {
+        ZvonobotResponse response = new ZvonobotResponse();
+        response.setResult("ok");
+        response.setData(data);
+        return response;
+    }
+
+    private static ZvonobotResponse error(String error) {
+        ZvonobotResponse response = new ZvonobotResponse();
+        response.setResult("error");
+        response.setError(error);
+        return response;
+    }
+
+    @Test
+    void matchesNormalizedTextAndEvictsLeastRecentlyUsed() {
+        RecordCatalog catalog = new RecordCatalog(new RecordCatalogPolicy(2, Duration.ZERO, directory.resolve("catalog.tsv"),
+                List.of("record", "аудиофайл")));
+
+        assertTrue(catalog.add(new ZvonobotRecord(11, "Ваш код 1234")));
+        assertTrue(catalog.add(new ZvonobotRecord(12, "Спасибо за заказ")));
+        assertFalse(catalog.add(new ZvonobotRecord(13, null)));
+        assertEquals(11, catalog.find("  Ваш   код 1234\n"));
+        // Регистр влияет на синтез, поэтому учитывается
+        assertNull(catalog.find("ВАШ КОД 1234"));
+
+        // Ответ на отправку текста: recordId звонка или id его record
+        catalog.learn("Напоминание о визите", ok(List.of(Map.of("id", 1001, "record", Map.of("id", 14)))));
+
+        // Вытеснен давно не использованный текст
+        assertNull(catalog.find("Спасибо за заказ"));
+        assertEquals(11, catalog.find("Ваш код 1234"));
+        assertEquals(14, catalog.find("Напоминание о визите"));
+
+        // Аудиофайл забывается только после отказа, который относится к нему
+        assertTrue(catalog.isRecordRejected(error("Аудиофайл 11 не найден")));
+        assertTrue(catalog.isRecordRejected(error("Invalid recordId")));
+        assertFalse(catalog.isRecordRejected(error("Недостаточно средств на балансе")));
+        assertFalse(catalog.isRecordRejected(error("Неверный номер телефона")));
+        assertFalse(catalog.isRecordRejected(ok(List.of())));
+
+        catalog.invalidate("Ваш код 1234", 11);
+        assertNull(catalog.find("Ваш код 1234"));
+        catalog.recordGrouped();
+        assertEquals(Map.of("size", 1L, "hits", 3L, "misses", 3L, "learned", 1L, "evictions", 1L, "invalidated", 1L,
+                "grouped", 1L), catalog.getStats());
+    }
+
+    @Test
+    void restoresSavedCatalogInUsageOrder() throws Exception {
+        RecordCatalogPolicy policy = new RecordCatalogPolicy(2, Duration.ZERO, directory.resolve("records/catalog.tsv"), List.of());
+        RecordCatalog catalog = new RecordCatalog(policy);
+        catalog.learn("первый", ok(List.of(Map.of("id", 1, "recordId", 21))));
+        catalog.learn("второй", ok(Map.of("id", 2, "recordId", 22)));
+        catalog.find("первый");
+        catalog.save();
+
+        RecordCatalog restored = new RecordCatalog(policy);
+        restored.restore();
+        restored.learn("третий", ok(List.of(Map.of("id", 3, "recordId", 23))));
+
+        assertEquals(21, restored.find("первый"));
+        assertEquals(23, restored.find("третий"));
+        assertNull(restored.find("второй"));
+    }
+}
@@ -0,0 +1,101 @@
+package com.zvonbot.interview.resilience;
+
+import com.zvonbot.interview.exception.ConcurrencyLimitExceededException;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final ConcurrencyLimitPolicy POLICY =
+            new ConcurrencyLimitPolicy(2, 1, 4, Duration.ofMillis(200), 0.5, 1, Duration.ofMillis(300));
+
+    private final AdaptiveConcurrencyLimiter limiter =
+            new AdaptiveConcurrencyLimiter("test", POLICY, IOException.class::isInstance);
+
+    private final AtomicInteger started = new AtomicInteger();
+
+    private Mono<String> call(Sinks.One<String> response) {
+        return Mono.defer(() -> {
+            started.incrementAndGet();
+            return response.asMono();
+        });
+    }
+
+    @Test
+    void queuesOverLimitAndRejectsWhenQueueIsFull() {
+        Sinks.One<String> first = Sinks.one();
+        limiter.execute(call(first)).subscribe();
+        limiter.execute(call(Sinks.one())).subscribe();
+        Sinks.One<String> third = Sinks.one();
+        third.tryEmitValue("ok");
+        AtomicReference<String> queued = new AtomicReference<>();
+        limiter.execute(call(third)).subscribe(queued::set);
+
+        assertEquals(2, started.get());
+        assertEquals(1, limiter.getStats().get("queued"));
+
+        // Очередь из одного места занята
+        AtomicReference<Throwable> rejected = new AtomicReference<>();
+        limiter.execute(call(Sinks.one())).subscribe(null, rejected::set);
+        assertInstanceOf(ConcurrencyLimitExceededException.class, rejected.get());
+
+        // Освободившееся место сразу получает ожидающий запрос
+        first.tryEmitValue("ok");
+        assertEquals(3, started.get());
+        assertEquals("ok", queued.get());
+        assertEquals(0, limiter.getStats().get("queued"));
+        assertEquals(1L, limiter.getStats().get("rejected"));
+    }
+
+    @Test
+    void rejectsAfterMaxWaitAndCancelledWaiterLeavesQueue() {
+        limiter.execute(call(Sinks.one())).subscribe();
+        limiter.execute(call(Sinks.one())).subscribe();
+
+        Disposable cancelled = limiter.execute(call(Sinks.one())).subscribe();
+        assertEquals(1, limiter.getStats().get("queued"));
+        cancelled.dispose();
+        assertEquals(0, limiter.getStats().get("queued"));
+
+        long start = System.nanoTime();
+        assertThrows(ConcurrencyLimitExceededException.class, () -> limiter.execute(call(Sinks.one())).block(Duration.ofSeconds(5)));
+        long waitedMillis = (System.nanoTime() - start) / 1_000_000;
+        assertEquals(2, started.get());
+        assertTrue(waitedMillis >= 300, "ожидание " + waitedMillis + " мс");
+    }
+
+    @Test
+    void overloadHalvesLimitAndSuccessesRaiseItBack() {
+        assertThrows(RuntimeException.class,
+                () -> limiter.execute(Mono.error(new IOException("503"))).block(Duration.ofSeconds(1)));
+        assertEquals(1, limiter.getLimit());
+
+        // Медленный ответ - тоже признак перегрузки, но лимит не опускается ниже minLimit
+        limiter.execute(Mono.delay(Duration.ofMillis(250)).thenReturn("ok")).block(Duration.ofSeconds(1));
+        assertEquals(1, limiter.getLimit());
+
+        // При полностью занятом лимите каждый успешный запрос добавляет 1/limit
+        limiter.execute(Mono.just("ok")).block(Duration.ofSeconds(1));
+        assertEquals(2, limiter.getLimit());
+        limiter.execute(Mono.just("ok")).block(Duration.ofSeconds(1));
+        limiter.execute(Mono.just("ok")).block(Duration.ofSeconds(1));
+        assertEquals(2, limiter.getLimit());
+
+        // Ошибка, не связанная с перегрузкой, считается успешным ответом
+        assertThrows(IllegalArgumentException.class,
+                () -> limiter.execute(Mono.error(new IllegalArgumentException("Неверный номер"))).block(Duration.ofSeconds(1)));
+        assertEquals(3, limiter.getLimit());
+    }
+}
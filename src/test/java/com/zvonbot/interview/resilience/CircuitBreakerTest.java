@@ -0,0 +1,57 @@
+package com.zvonbot.interview.resilience;
+
+import com.zvonbot.interview.ratelimit.RateLimitPolicy;
+import com.zvonbot.interview.ratelimit.TokenBucketRateLimiter;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CircuitBreakerTest {
+
+    private static final CircuitBreakerPolicy POLICY =
+            new CircuitBreakerPolicy(10, 5, 50, Duration.ofMillis(200), Duration.ofMinutes(1), 1);
+
+    /**
+     * Та же сборка, что у создания звонка: предохранитель снаружи, ограничитель частоты внутри
+     */
+    private static Function<Runnable, Mono<String>> limited(TokenBucketRateLimiter limiter, Duration upstream) {
+        return sent -> limiter.throttle(Mono.defer(() -> {
+            sent.run();
+            return Mono.delay(upstream).thenReturn("ok");
+        }));
+    }
+
+    @Test
+    void waitInRateLimiterQueueIsNotSlowCall() {
+        CircuitBreaker breaker = new CircuitBreaker("test", POLICY, error -> true);
+        // 20 запросов в секунду: последние из 20 ждут в очереди почти секунду
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter("test",
+                new RateLimitPolicy(20, 1, 100, Duration.ofSeconds(30)));
+
+        Long succeeded = Flux.range(0, 20)
+                .flatMap(i -> breaker.execute(limited(limiter, Duration.ZERO)))
+                .count()
+                .block(Duration.ofSeconds(10));
+
+        assertEquals(20, succeeded);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    void slowUpstreamOpensBreaker() {
+        CircuitBreaker breaker = new CircuitBreaker("test", POLICY, error -> true);
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter("test",
+                new RateLimitPolicy(1_000, 100, 100, Duration.ofSeconds(30)));
+
+        Flux.range(0, 5)
+                .flatMap(i -> breaker.execute(limited(limiter, Duration.ofMillis(300))))
+                .blockLast(Duration.ofSeconds(10));
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+}
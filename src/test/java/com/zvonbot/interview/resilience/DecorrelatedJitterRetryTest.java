@@ -0,0 +1,65 @@
+package com.zvonbot.interview.resilience;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DecorrelatedJitterRetryTest {
+
+    private static final RetryPolicy POLICY = new RetryPolicy(3, Duration.ofMillis(20), Duration.ofMillis(50));
+
+    private final AtomicInteger attempts = new AtomicInteger();
+
+    private final DecorrelatedJitterRetry retry = new DecorrelatedJitterRetry(POLICY, IOException.class::isInstance);
+
+    /**
+     * @param failures сколько первых попыток завершаются ошибкой
+     */
+    private Mono<String> call(int failures, Throwable error) {
+        return Mono.defer(() -> attempts.incrementAndGet() <= failures ? Mono.error(error) : Mono.just("ok"));
+    }
+
+    @Test
+    void retriesTransientErrorsWithDelay() {
+        long start = System.nanoTime();
+        String result = call(2, new IOException("Connection reset"))
+                .retryWhen(retry)
+                .block(Duration.ofSeconds(5));
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals("ok", result);
+        assertEquals(3, attempts.get());
+        assertEquals(2, retry.getRetries());
+        // Каждая задержка не меньше baseDelay и не больше maxDelay
+        assertTrue(elapsedMillis >= 40 && elapsedMillis < 1_000, "повторы заняли " + elapsedMillis + " мс");
+    }
+
+    @Test
+    void doesNotRetryOtherErrors() {
+        IllegalArgumentException error = assertThrows(IllegalArgumentException.class,
+                () -> call(1, new IllegalArgumentException("Неверный номер")).retryWhen(retry).block(Duration.ofSeconds(5)));
+
+        assertEquals("Неверный номер", error.getMessage());
+        assertEquals(1, attempts.get());
+        assertEquals(0, retry.getRetries());
+    }
+
+    @Test
+    void stopsAfterMaxRetriesWithLastError() {
+        Throwable error = assertThrows(RuntimeException.class,
+                () -> call(Integer.MAX_VALUE, new IOException("Connection refused")).retryWhen(retry).block(Duration.ofSeconds(5)));
+
+        // Возвращается исходная ошибка, а не обёртка об исчерпании повторов
+        assertInstanceOf(IOException.class, error.getCause());
+        assertEquals(4, attempts.get());
+        assertEquals(3, retry.getRetries());
+    }
+}
@@ -0,0 +1,102 @@
+package com.zvonbot.interview.resilience;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HedgerTest {
+
+    private static final Duration LATENCY = Duration.ofMillis(50);
+    private static final int MIN_SAMPLES = 16;
+
+    private final Hedger hedger = new Hedger(new HedgePolicy(0.95, Duration.ofMillis(10), MIN_SAMPLES, 1.0));
+
+    private final AtomicInteger attempts = new AtomicInteger();
+    private final AtomicBoolean firstCancelled = new AtomicBoolean();
+    private final AtomicBoolean secondCancelled = new AtomicBoolean();
+
+    /**
+     * Набирает окно ответов примерно по 50 мс, по ним считается задержка дублирования
+     */
+    private void warmUp() {
+        for (int i = 0; i < MIN_SAMPLES; i++) {
+            hedger.hedge(Mono.delay(LATENCY).thenReturn("ok")).block(Duration.ofSeconds(5));
+        }
+    }
+
+    /**
+     * @return вызов, первая попытка которого отвечает через {@code first}, вторая - через {@code second};
+     * null - попытка не отвечает никогда
+     */
+    private Mono<String> call(Duration first, Duration second) {
+        return Mono.defer(() -> {
+            boolean primary = attempts.incrementAndGet() == 1;
+            Duration latency = primary ? first : second;
+            Mono<String> response = latency == null ? Mono.never() : Mono.delay(latency).thenReturn(primary ? "первый" : "второй");
+            return response.doOnCancel(() -> (primary ? firstCancelled : secondCancelled).set(true));
+        });
+    }
+
+    /**
+     * Отмена проигравшего запроса может прийти из потока победителя уже после ответа
+     */
+    private static void await(AtomicBoolean cancelled) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(1).toNanos();
+        while (!cancelled.get()) {
+            assertTrue(System.nanoTime() < deadline, "проигравший запрос не отменён");
+            Thread.sleep(5);
+        }
+    }
+
+    private long hedgeDelayMillis() {
+        return (Long) hedger.getStats().get("hedgeDelayMillis");
+    }
+
+    @Test
+    void doesNotHedgeUntilEnoughSamples() {
+        assertNull(hedger.getStats().get("hedgeDelayMillis"));
+
+        assertEquals("первый", hedger.hedge(call(Duration.ofMillis(200), Duration.ZERO)).block(Duration.ofSeconds(5)));
+        assertEquals(1, attempts.get());
+        assertEquals(0L, hedger.getStats().get("hedged"));
+    }
+
+    @Test
+    void hedgesAfterPercentileDelayAndCancelsSlowPrimary() throws InterruptedException {
+        warmUp();
+        long delay = hedgeDelayMillis();
+        assertTrue(delay >= LATENCY.toMillis() && delay < 500, "задержка дублирования " + delay + " мс");
+
+        long start = System.nanoTime();
+        String result = hedger.hedge(call(null, Duration.ZERO)).block(Duration.ofSeconds(5));
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals("второй", result);
+        assertEquals(2, attempts.get());
+        assertTrue(elapsedMillis >= delay, "дублирующий запрос отправлен через " + elapsedMillis + " мс");
+        await(firstCancelled);
+        assertEquals(1L, hedger.getStats().get("hedged"));
+        assertEquals(1L, hedger.getStats().get("hedgeWins"));
+    }
+
+    @Test
+    void cancelsHedgeWhenPrimaryAnswersFirst() throws InterruptedException {
+        warmUp();
+        long delay = hedgeDelayMillis();
+
+        String result = hedger.hedge(call(Duration.ofMillis(delay + 50), null)).block(Duration.ofSeconds(5));
+
+        assertEquals("первый", result);
+        assertEquals(2, attempts.get());
+        await(secondCancelled);
+        assertEquals(1L, hedger.getStats().get("hedged"));
+        assertEquals(0L, hedger.getStats().get("hedgeWins"));
+    }
+}
@@ -0,0 +1,138 @@
+package com.zvonbot.interview.schedule;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zvonbot.interview.dto.MessageRequest;
+import com.zvonbot.interview.dto.MessageType;
+import com.zvonbot.interview.dto.zvonobot.ZvonobotResponse;
+import com.zvonbot.interview.service.ZvonobotService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Mono;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ScheduledSendServiceTest {
+
+    @TempDir
+    Path directory;
+
+    private final List<String> sentPhones = new CopyOnWriteArrayList<>();
+
+    private ScheduledSendService start(String quietHours) throws Exception {
+        ZvonobotService zvonobotService = mock(ZvonobotService.class);
+        when(zvonobotService.send(any(), any())).thenAnswer(invocation -> {
+            sentPhones.add(invocation.<MessageRequest>getArgument(1).getPhone());
+            ZvonobotResponse response = new ZvonobotResponse();
+            response.setResult("ok");
+            return Mono.just(response);
+        });
+        ScheduledSendService service = new ScheduledSendService(zvonobotService, new ObjectMapper());
+        ReflectionTestUtils.setField(service, "enabled", true);
+        ReflectionTestUtils.setField(service, "directory", directory);
+        ReflectionTestUtils.setField(service, "segmentSize", DataSize.ofKilobytes(64));
+        ReflectionTestUtils.setField(service, "workers", 4);
+        ReflectionTestUtils.setField(service, "tick", Duration.ofMillis(20));
+        ReflectionTestUtils.setField(service, "checkpointInterval", Duration.ofMillis(50));
+        ReflectionTestUtils.setField(service, "maxDelay", Duration.ofDays(365));
+        ReflectionTestUtils.setField(service, "defaultTimezone", ZoneId.of("UTC"));
+        ReflectionTestUtils.setField(service, "quietHoursRange", quietHours);
+        ReflectionTestUtils.setField(service, "quietHoursSpread", Duration.ZERO);
+        service.start();
+        return service;
+    }
+
+    private static MessageRequest request(String phone, Duration delay) {
+        MessageRequest request = new MessageRequest();
+        request.setPhone(phone);
+        request.setText("Напоминание о записи");
+        request.setSendAt(OffsetDateTime.now(ZoneOffset.UTC).plus(delay).toString());
+        request.setTimezone("UTC");
+        return request;
+    }
+
+    private static Map<String, Object> schedule(ScheduledSendService service, MessageRequest request) {
+        return service.schedule(MessageType.SMS, request).block(Duration.ofSeconds(5));
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "условие не выполнилось за 10 секунд");
+            Thread.sleep(20);
+        }
+    }
+
+    @Test
+    void sendsWhenTimerFiresAndRecordsRelease() throws Exception {
+        ScheduledSendService service = start("");
+        Map<String, Object> scheduled = schedule(service, request("77079621630", Duration.ofMillis(300)));
+
+        assertEquals(0L, scheduled.get("scheduledId"));
+        assertEquals(1, service.getStats().get("waiting"));
+        assertTrue(sentPhones.isEmpty());
+
+        await(() -> service.getStats().get("sent").equals(1L));
+        assertEquals(List.of("77079621630"), sentPhones);
+        assertEquals(0, service.getStats().get("waiting"));
+        // Позиция отправленного сообщения сбрасывается в файл released на контрольной точке
+        await(() -> directory.resolve("released").toFile().length() == Long.BYTES);
+        service.stop();
+    }
+
+    @Test
+    void restartResumesPendingAndSkipsReleased() throws Exception {
+        ScheduledSendService first = start("");
+        schedule(first, request("77079621630", Duration.ofMillis(100)));
+        schedule(first, request("77079621631", Duration.ofHours(1)));
+        await(() -> first.getStats().get("sent").equals(1L));
+        first.stop();
+
+        ScheduledSendService second = start("");
+        assertEquals(1, second.getStats().get("waiting"));
+        Thread.sleep(300);
+        // Отправленное до перезапуска сообщение не повторяется
+        assertEquals(List.of("77079621630"), sentPhones);
+        assertEquals(1, second.getStats().get("waiting"));
+        assertTrue(Files.exists(directory.resolve("released")));
+        second.stop();
+    }
+
+    @Test
+    void timerFiredInQuietHoursIsDeferredAgain() throws Exception {
+        // Сообщение запланировано без тихих часов, и сервис остановлен до срока
+        ScheduledSendService first = start("");
+        schedule(first, request("77079621630", Duration.ofMillis(200)));
+        first.stop();
+        Thread.sleep(300);
+
+        // После перезапуска срок уже прошёл, но сейчас у получателя тихие часы
+        LocalTime now = LocalTime.now(ZoneOffset.UTC);
+        DateTimeFormatter format = DateTimeFormatter.ofPattern("HH:mm");
+        ScheduledSendService second = start(now.minusHours(1).format(format) + "-" + now.plusHours(1).format(format));
+        await(() -> second.getStats().get("deferredByQuietHours").equals(1L));
+
+        assertTrue(sentPhones.isEmpty());
+        assertEquals(1, second.getStats().get("waiting"));
+        assertEquals(0L, second.getStats().get("sent"));
+        second.stop();
+    }
+}
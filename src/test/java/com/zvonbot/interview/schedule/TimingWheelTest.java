@@ -0,0 +1,43 @@
+package com.zvonbot.interview.schedule;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TimingWheelTest {
+
+    @Test
+    void firesEveryTimerAtItsTickAcrossCascades() {
+        // Четыре ячейки на уровень: таймеры постоянно переходят между уровнями
+        TimingWheel wheel = new TimingWheel(10, 2, 4, 1_000);
+        Random random = new Random(7);
+        Map<Long, Long> expectedAt = new HashMap<>();
+        Map<Long, Long> firedAt = new HashMap<>();
+
+        long now = 1_000;
+        long value = 0;
+        while (now < 4_000) {
+            for (int i = random.nextInt(3); i > 0; i--) {
+                long due = now + random.nextInt(2_500) - 20;
+                wheel.add(due, value);
+                // Срабатывает в тик срока, а просроченный - при следующем сдвиге колеса
+                expectedAt.put(value++, due / 10 <= now / 10 ? now + 10 : due / 10 * 10);
+            }
+            now += 10;
+            long tickNow = now;
+            wheel.advance(now, fired -> firedAt.put(fired, tickNow));
+        }
+        long end = now + 3_000;
+        for (; now <= end; now += 10) {
+            long tickNow = now;
+            wheel.advance(now, fired -> firedAt.put(fired, tickNow));
+        }
+
+        assertEquals(0, wheel.size());
+        assertEquals(expectedAt, firedAt);
+    }
+}
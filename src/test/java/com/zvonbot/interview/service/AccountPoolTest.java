@@ -0,0 +1,58 @@
+package com.zvonbot.interview.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class AccountPoolTest {
+
+    private static ZvonobotAccount account(int index, int weight) {
+        return new ZvonobotAccount(index, new AccountKey("account-" + (index + 1), "key" + index, weight),
+                null, null, null, null, null);
+    }
+
+    @Test
+    void spreadsPendingSendsInProportionToWeight() {
+        ZvonobotAccount light = account(0, 1);
+        ZvonobotAccount heavy = account(1, 3);
+        AccountPool pool = new AccountPool(List.of(light, heavy));
+
+        Map<ZvonobotAccount, Integer> picked = new HashMap<>();
+        for (int i = 0; i < 40; i++) {
+            picked.merge(pool.pick(0), 1, Integer::sum);
+        }
+
+        assertEquals(10, picked.get(light));
+        assertEquals(30, picked.get(heavy));
+
+        // Освободившийся аккаунт получает следующую отправку
+        for (int i = 0; i < 5; i++) {
+            light.release();
+        }
+        assertSame(light, pool.pick(0));
+    }
+
+    @Test
+    void skipsEjectedAccountsUntilAllAreEjected() {
+        ZvonobotAccount first = account(0, 1);
+        ZvonobotAccount second = account(1, 1);
+        AccountPool pool = new AccountPool(List.of(first, second));
+
+        first.eject("баланс 0", 1_000);
+        for (int i = 0; i < 5; i++) {
+            assertSame(second, pool.pick(500));
+        }
+        // Срок вывода истёк
+        assertSame(first, pool.pick(1_000));
+
+        first.eject("баланс 0", Long.MAX_VALUE);
+        second.eject("HTTP 401", Long.MAX_VALUE);
+        // Выведены все: выбирается наименее загруженный из всех
+        assertSame(first, pool.pick(2_000));
+    }
+}
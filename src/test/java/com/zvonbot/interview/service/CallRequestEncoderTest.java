@@ -0,0 +1,74 @@
+package com.zvonbot.interview.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zvonbot.interview.dto.zvonobot.ZvonobotCallRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CallRequestEncoderTest {
+
+    private static final String API_KEY = "key\"with\\quotes";
+    private static final String TEXT = "Привет, \"мир\"\r\n\tстрока\b\f\u0001\u001f 😀 \ud83d";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final CallRequestEncoder encoder = new CallRequestEncoder(API_KEY);
+
+    @Test
+    void encodesVoiceLikeJackson() throws Exception {
+        ZvonobotCallRequest expected = request("77001234567", "77719470943");
+        ZvonobotCallRequest.Record record = new ZvonobotCallRequest.Record(TEXT);
+        expected.setRecord(record);
+
+        assertSameJson(expected, encoder.encodeVoice(DefaultDataBufferFactory.sharedInstance, "77001234567", "77719470943", TEXT, null));
+    }
+
+    @Test
+    void encodesPredefinedRecordWithDutyPhone() throws Exception {
+        ZvonobotCallRequest expected = request("77001234567", null);
+        ZvonobotCallRequest.Record record = new ZvonobotCallRequest.Record("");
+        record.setId(247273);
+        expected.setRecord(record);
+
+        assertSameJson(expected, encoder.encodeVoice(DefaultDataBufferFactory.sharedInstance, "77001234567", null, TEXT, 247273));
+    }
+
+    @Test
+    void encodesSmsLikeJackson() throws Exception {
+        ZvonobotCallRequest expected = request("77001234567", "77719470943");
+        expected.setRecord(new ZvonobotCallRequest.Record("."));
+        ZvonobotCallRequest.Ivr ivr = new ZvonobotCallRequest.Ivr();
+        ivr.setDigit(1);
+        ivr.setSmsText(TEXT);
+        ivr.setNeedBlock(0);
+        expected.setIvrs(new ZvonobotCallRequest.Ivr[]{ivr});
+
+        assertSameJson(expected, encoder.encodeSms(DefaultDataBufferFactory.sharedInstance, "77001234567", "77719470943", TEXT));
+    }
+
+    private static ZvonobotCallRequest request(String phone, String outgoingPhone) {
+        ZvonobotCallRequest request = new ZvonobotCallRequest();
+        request.setApiKey(API_KEY);
+        request.setPhone(phone);
+        if (outgoingPhone != null) {
+            request.setOutgoingPhone(outgoingPhone);
+        } else {
+            request.setDutyPhone(1);
+        }
+        return request;
+    }
+
+    private void assertSameJson(ZvonobotCallRequest expected, DataBuffer actual) throws Exception {
+        byte[] encoded = new byte[actual.readableByteCount()];
+        actual.read(encoded);
+        // Сравниваются сами байты, включая порядок полей и форму экранирования
+        assertEquals(new String(objectMapper.writeValueAsBytes(expected), StandardCharsets.UTF_8),
+                new String(encoded, StandardCharsets.UTF_8));
+        assertArrayEquals(objectMapper.writeValueAsBytes(expected), encoded);
+    }
+}
@@ -0,0 +1,123 @@
+package com.zvonbot.interview.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zvonbot.interview.dto.zvonobot.ZvonobotRecord;
+import com.zvonbot.interview.exception.ZvonobotApiException;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import reactor.core.publisher.Flux;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ListResponseDecoderTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * Тело, разрезанное на куски по {@code size} байт, в том числе посреди символа UTF-8
+     */
+    private static Flux<DataBuffer> body(String json, int size) {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        List<DataBuffer> buffers = new ArrayList<>();
+        for (int offset = 0; offset < bytes.length; offset += size) {
+            buffers.add(DefaultDataBufferFactory.sharedInstance.wrap(
+                    Arrays.copyOfRange(bytes, offset, Math.min(bytes.length, offset + size))));
+        }
+        return Flux.fromIterable(buffers);
+    }
+
+    @Test
+    void decodesDataElementsAcrossChunksAndKeepsUnknownFields() {
+        String json = "{\"meta\":{\"data\":[{\"id\":1}],\"pages\":[1,2]},\"data\":["
+                + "{\"id\":11,\"text\":\"Ваш код {1234}\",\"duration\":3.5,\"tags\":[\"a\",{\"b\":null}]},"
+                + "{\"id\":\"12\",\"name\":\"без \\\"}\\\" текста.mp3\"}],\"result\":\"ok\"}";
+
+        for (int size : new int[]{1, 7, json.length()}) {
+            List<ZvonobotRecord> records = ListResponseDecoder.decode(body(json, size), objectMapper, ZvonobotRecord.class)
+                    .collectList().block();
+
+            assertEquals(2, records.size());
+            assertEquals(11, records.get(0).getId());
+            assertEquals("Ваш код {1234}", records.get(0).getText());
+            assertEquals(Map.of("duration", 3.5, "tags", List.of("a", Collections.singletonMap("b", null))),
+                    records.get(0).getOtherFields());
+            assertEquals(12, records.get(1).getId());
+            assertEquals("без \"}\" текста.mp3", records.get(1).getName());
+        }
+    }
+
+    @Test
+    void failsOnApiErrorAndTruncatedBody() {
+        ZvonobotApiException apiError = assertThrows(ZvonobotApiException.class, () -> ListResponseDecoder
+                .decode(body("{\"result\":\"error\",\"error\":\"\\u041d\\u0435\\u0432\\u0435\\u0440\\u043d\\u044b\\u0439 ключ\"}", 5), objectMapper, ZvonobotRecord.class)
+                .blockLast());
+        assertEquals(200, apiError.getStatus());
+        assertEquals("API ошибка: Неверный ключ", apiError.getMessage());
+
+        // Без result, но с data ответ успешен, как в ZvonobotResponse.isSuccess()
+        assertEquals(List.of(), ListResponseDecoder.decode(body("{\"data\":[]}", 3), objectMapper, ZvonobotRecord.class)
+                .collectList().block());
+
+        assertThrows(DecodingException.class, () -> ListResponseDecoder
+                .decode(body("{\"result\":\"ok\",\"data\":[{\"id\":1},{\"id\"", 4), objectMapper, ZvonobotRecord.class)
+                .blockLast());
+    }
+
+    @Test
+    void splitsAnywhereInsideStringsAndEscapes() {
+        // Экранированные кавычки и обратная косая черта, суррогатная пара escape-последовательностями и кириллица
+        String json = "{\"result\":\"ok\",\"data\":[{\"id\":1,\"name\":\"a\\\\\\\"]}\\u0022\",\"text\":\"\\ud83d\\ude00 ж\"},"
+                + "{\"id\":2,\"name\":\"\\\\\"}],\"error\":\"\"}";
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+
+        for (int size = 1; size <= bytes.length; size++) {
+            List<ZvonobotRecord> records = ListResponseDecoder.decode(body(json, size), objectMapper, ZvonobotRecord.class)
+                    .collectList().block();
+
+            assertEquals(2, records.size(), "куски по " + size + " байт");
+            assertEquals("a\\\"]}\"", records.get(0).getName());
+            assertEquals("\uD83D\uDE00 ж", records.get(0).getText());
+            assertEquals("\\", records.get(1).getName());
+        }
+    }
+
+    @Test
+    void treatsMissingListAndErrorResultsLikeZvonobotResponse() {
+        // data: null без result - как ответ без данных, то есть ошибка
+        assertThrows(ZvonobotApiException.class, () -> ListResponseDecoder
+                .decode(body("{\"data\":null}", 4), objectMapper, ZvonobotRecord.class).blockLast());
+        assertEquals(List.of(), ListResponseDecoder
+                .decode(body("{\"result\":\"ok\",\"data\":null}", 4), objectMapper, ZvonobotRecord.class)
+                .collectList().block());
+
+        // data - объект, а не список: элементов нет, ответ успешен
+        assertEquals(List.of(), ListResponseDecoder
+                .decode(body("{\"data\":{\"id\":1}}", 4), objectMapper, ZvonobotRecord.class).collectList().block());
+        assertEquals(List.of(), ListResponseDecoder
+                .decode(body("{\"result\":\"ok\",\"data\":{}}", 4), objectMapper, ZvonobotRecord.class)
+                .collectList().block());
+
+        // Любой result, кроме ok, - ошибка, даже если data есть
+        ZvonobotApiException unknown = assertThrows(ZvonobotApiException.class, () -> ListResponseDecoder
+                .decode(body("{\"result\":\"fail\",\"data\":[]}", 4), objectMapper, ZvonobotRecord.class).blockLast());
+        assertEquals("API ошибка: Неизвестная ошибка API", unknown.getMessage());
+        assertThrows(ZvonobotApiException.class, () -> ListResponseDecoder
+                .decode(body("{\"result\":null,\"error\":\"Нет доступа\",\"data\":[]}", 4), objectMapper, ZvonobotRecord.class)
+                .blockLast());
+
+        assertThrows(DecodingException.class, () -> ListResponseDecoder
+                .decode(body("{\"result\":\"ok\",\"data\":[1,2]}", 4), objectMapper, ZvonobotRecord.class).blockLast());
+        assertThrows(DecodingException.class, () -> ListResponseDecoder
+                .decode(body("[{\"id\":1}]", 4), objectMapper, ZvonobotRecord.class).blockLast());
+    }
+}
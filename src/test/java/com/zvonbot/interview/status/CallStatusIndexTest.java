@@ -0,0 +1,51 @@
+package com.zvonbot.interview.status;
+
+import com.zvonbot.interview.dto.CallStatus;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CallStatusIndexTest {
+
+    private static final long PHONE = 77079621630L;
+
+    @Test
+    void evictsOldestCallsAndKeepsPhoneChain() {
+        CallStatusIndex index = new CallStatusIndex(4, Set.of("finished"));
+        for (long id = 1; id <= 6; id++) {
+            index.record(id, id % 2 == 0 ? PHONE : PHONE + 1, "created", id);
+        }
+
+        assertEquals(4, index.size());
+        assertNull(index.get(1));
+        assertNull(index.get(2));
+        assertEquals("created", index.get(3).getStatus());
+        List<Long> ids = index.findByPhone(PHONE, 10).stream().map(CallStatus::getId).toList();
+        assertEquals(List.of(6L, 4L), ids);
+    }
+
+    @Test
+    void pollsOnlyUnfinishedCallsInTurn() {
+        CallStatusIndex index = new CallStatusIndex(16, Set.of("finished"));
+        for (long id = 1; id <= 5; id++) {
+            index.record(id, PHONE, "created", 100);
+        }
+        index.update(2, "finished", 200);
+        index.update(3, null, 200);
+
+        assertArrayEquals(new long[] {1, 3}, index.pendingIds(0, 2));
+        assertArrayEquals(new long[] {4, 5}, index.pendingIds(0, 2));
+        assertArrayEquals(new long[] {1, 3, 4, 5}, index.pendingIds(0, 10));
+        assertEquals(0, index.pendingIds(101, 10).length);
+
+        CallStatus finished = index.get(2);
+        assertTrue(finished.isFinished());
+        assertEquals("created", index.get(3).getStatus());
+    }
+}
@@ -0,0 +1,77 @@
+package com.zvonbot.interview.suppression;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SuppressionListTest {
+
+    @TempDir
+    Path directory;
+
+    private SuppressionList start(String adminToken) throws Exception {
+        SuppressionList list = new SuppressionList();
+        ReflectionTestUtils.setField(list, "enabled", true);
+        ReflectionTestUtils.setField(list, "file", directory.resolve("suppression.txt").toString());
+        ReflectionTestUtils.setField(list, "changesFile", directory.resolve("changes/changes.log"));
+        ReflectionTestUtils.setField(list, "adminToken", adminToken);
+        list.start();
+        return list;
+    }
+
+    @Test
+    void loadsFileAndReplaysChangesAfterRestart() throws Exception {
+        // Последняя строка без перевода строки
+        Files.writeString(directory.resolve("suppression.txt"),
+                "# отказ от звонков\n77079621630\n+7 (707) 962-16-31\r\n8 707 962 16 32\n12345\n77079621633");
+
+        SuppressionList list = start("secret");
+        assertTrue(list.isSuppressed("+77079621630"));
+        assertTrue(list.isSuppressed("77079621631"));
+        assertTrue(list.isSuppressed("77079621633"));
+        // Номер с восьмёркой и короткий номер не являются номерами 7XXXXXXXXXX
+        assertFalse(list.isSuppressed("77079621632"));
+        assertEquals(3, list.getStats().get("size"));
+        assertEquals(2L, list.getStats().get("invalidLines"));
+
+        assertEquals(Map.of("added", 1, "unchanged", 1, "invalid", 1),
+                list.add(List.of("77079621634", "77079621630", "123")));
+        assertEquals(Map.of("removed", 1, "unchanged", 1, "invalid", 0),
+                list.remove(List.of("77079621630", "77079621699")));
+        list.stop();
+
+        // Изменения применяются поверх основного файла
+        SuppressionList restarted = start("secret");
+        assertFalse(restarted.isSuppressed("77079621630"));
+        assertTrue(restarted.isSuppressed("77079621634"));
+        assertTrue(restarted.isSuppressed("77079621631"));
+        assertEquals(3, restarted.getStats().get("size"));
+        restarted.stop();
+    }
+
+    @Test
+    void changesRequireConfiguredAdminToken() throws Exception {
+        Files.writeString(directory.resolve("suppression.txt"), "");
+
+        SuppressionList withoutToken = start("");
+        assertFalse(withoutToken.isAdminTokenConfigured());
+        assertFalse(withoutToken.isAdminTokenValid(null));
+        assertFalse(withoutToken.isAdminTokenValid(""));
+        withoutToken.stop();
+
+        SuppressionList withToken = start("secret");
+        assertTrue(withToken.isAdminTokenValid("secret"));
+        assertFalse(withToken.isAdminTokenValid("secret2"));
+        assertFalse(withToken.isAdminTokenValid(null));
+        withToken.stop();
+    }
+}
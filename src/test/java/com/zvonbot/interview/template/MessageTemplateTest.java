@@ -0,0 +1,61 @@
+package com.zvonbot.interview.template;
+
+import com.zvonbot.interview.dto.MessageRequest;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MessageTemplateTest {
+
+    @Test
+    void rendersVariablesAndEscapedBraces() {
+        MessageTemplate template = MessageTemplate.compile("order", "{name}, ваш заказ {order} готов {{{order}}}");
+
+        assertEquals(Set.of("name", "order"), template.getVariables());
+        assertEquals("Анна, ваш заказ 1234 готов {1234}", template.render(Map.of("name", "Анна", "order", "1234")));
+        assertEquals("Иван, ваш заказ  готов {}", template.render(Map.of("name", "Иван", "order", "")));
+
+        IllegalArgumentException missing = assertThrows(IllegalArgumentException.class,
+                () -> template.render(Map.of("name", "Анна")));
+        assertEquals("Шаблон order: не задана переменная order", missing.getMessage());
+
+        // Шаблон без переменных возвращает один и тот же текст
+        MessageTemplate constant = MessageTemplate.compile("thanks", "Спасибо }} за заказ");
+        assertSame(constant.render(Map.of()), constant.render((Map<String, String>) null));
+        assertEquals("Спасибо } за заказ", constant.render(Map.of()));
+
+        assertThrows(IllegalArgumentException.class, () -> MessageTemplate.compile("open", "Ваш заказ {order"));
+        assertThrows(IllegalArgumentException.class, () -> MessageTemplate.compile("close", "Ваш заказ order}"));
+        assertThrows(IllegalArgumentException.class, () -> MessageTemplate.compile("empty", "Ваш заказ { }"));
+    }
+
+    @Test
+    void registryTurnsTemplateRequestIntoTextRequest() {
+        TemplateRegistry registry = new TemplateRegistry(Map.of("order-ready", "Ваш заказ {order} готов"));
+
+        MessageRequest request = new MessageRequest("77071234567", null);
+        request.setTemplate("order-ready");
+        request.setVariables(Map.of("order", "1234"));
+        registry.apply(request);
+
+        assertEquals("Ваш заказ 1234 готов", request.getText());
+        assertNull(request.getTemplate());
+        assertNull(request.getVariables());
+
+        MessageRequest unknown = new MessageRequest("77071234567", null);
+        unknown.setTemplate("missing");
+        assertThrows(IllegalArgumentException.class, () -> registry.apply(unknown));
+
+        MessageRequest both = new MessageRequest("77071234567", "Текст");
+        both.setTemplate("order-ready");
+        assertThrows(IllegalArgumentException.class, () -> registry.apply(both));
+
+        assertEquals(Map.of("templates", 1L, "rendered", 1L, "failed", 2L), registry.getStats());
+    }
+}
@@ -0,0 +1,33 @@
+package com.zvonbot.interview.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LongHashSetTest {
+
+    @Test
+    void matchesHashSetUnderRandomAddsAndRemoves() {
+        LongHashSet set = new LongHashSet(4);
+        Set<Long> expected = new HashSet<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 200_000; i++) {
+            // Небольшой диапазон, чтобы удаления часто попадали в цепочки коллизий
+            long value = 70_000_000_000L + random.nextInt(5_000);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(value), set.remove(value));
+            } else {
+                assertEquals(expected.add(value), set.add(value));
+            }
+        }
+
+        assertEquals(expected.size(), set.size());
+        for (long value = 70_000_000_000L; value < 70_000_005_000L; value++) {
+            assertEquals(expected.contains(value), set.contains(value));
+        }
+    }
+}